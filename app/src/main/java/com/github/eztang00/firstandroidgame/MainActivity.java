@@ -116,9 +116,11 @@ public class MainActivity extends AppCompatActivity {
             //if it's the same level still initiate again if
             //no progress is made (strokes == 0) otherwise
             //looks weird
-            if (game.level != gameLevel || game.strokes == 0) {
-                game.initiateLevel(this, gameLevel, false);
-            }
+            game.runOnUpdateThread(context -> {
+                if (game.level != gameLevel || game.strokes == 0) {
+                    game.initiateLevel(context, gameLevel, false);
+                }
+            });
         });
 
         gameViewModel.getIsGameRunning().observe(this, isGameRunning -> {
@@ -193,7 +195,7 @@ public class MainActivity extends AppCompatActivity {
 
         restartButton.setOnMenuItemClickListener(menuItem -> {
             if (game != null) {
-                game.initiateLevel(this, game.level, true);
+                game.runOnUpdateThread(context -> game.initiateLevel(context, game.level, true));
             }
             return true; // returning true consumes click
         });
@@ -0,0 +1,197 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.MaskFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import com.github.eztang00.firstandroidgame.gamephysics.GameCompositeShape;
+import com.github.eztang00.firstandroidgame.gamephysics.GameExpandingCircle;
+import com.github.eztang00.firstandroidgame.gamephysics.GamePolyarcgon;
+import com.github.eztang00.firstandroidgame.gamephysics.GameShape;
+import com.github.eztang00.firstandroidgame.gamephysics.GameShapeRenderer;
+import com.github.eztang00.firstandroidgame.gamephysics.PolyarcgonPathBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Draws the physics shapes onto an Android Canvas, the plain red way they look without
+ * GameShapeAdditionalAttributesForDrawingEtc (see GameShapeDrawer for the nicer way).
+ * Also makes and remembers the Android Path of each GamePolyarcgon, see getPathForDrawing().
+ */
+public class AndroidShapeRenderer implements GameShapeRenderer {
+    private final Canvas canvas;
+
+    public AndroidShapeRenderer(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    @Override
+    public void drawPolyarcgon(GamePolyarcgon polyarcgon) {
+        drawPolyarcgon(polyarcgon, polyarcgon.x, polyarcgon.y, polyarcgon.rotationRadians);
+    }
+
+    /**
+     * Draws the polyarcgon as if it was at x, y with that rotation, see getPathForDrawing(GamePolyarcgon, double, double, double)
+     */
+    public void drawPolyarcgon(GamePolyarcgon polyarcgon, double x, double y, double rotation) {
+        Path path = getPathForDrawing(polyarcgon, x, y, rotation);
+        Paint paint = new Paint();
+        paint.setColor(Color.RED);
+        paint.setStyle(Paint.Style.FILL);
+        canvas.drawPath(path, paint);
+    }
+
+    @Override
+    public void drawExpandingCircle(GameExpandingCircle circle) {
+        Paint paint = new Paint();
+        paint.setColor(Color.RED);
+        paint.setStyle(Paint.Style.FILL);
+        canvas.drawCircle((float) circle.centerX, (float) circle.centerY, (float) circle.getRadius(), paint);
+    }
+
+    @Override
+    public void drawCompositeShape(GameCompositeShape compositeShape) {
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
+            double blurRadius = 20;
+            Paint paint = new Paint();
+            paint.setColor(Color.rgb(0, 255, 255));
+            paint.setStyle(Paint.Style.FILL);
+            MaskFilter filter = paint.getMaskFilter();
+            paint.setMaskFilter(new BlurMaskFilter((float) blurRadius, BlurMaskFilter.Blur.OUTER));
+            for (GameShape shape : compositeShape.getAllShapes()) {
+                shape.draw(this);
+            }
+            paint.setMaskFilter(filter);
+            paint.setColor(Color.rgb(0, 128, 128));
+            for (GameShape shape : compositeShape.getAllShapes()) {
+                shape.draw(this);
+            }
+        } else {
+            for (GameShape shape : compositeShape.getAllShapes()) {
+                shape.draw(this); //ahh screw negative shapes for now
+            }
+        }
+    }
+
+    /**
+     * The polyarcgon's outline where it is now, to draw with any Paint. It's remembered in polyarcgon.renderingCache,
+     * so it's only worked out again after the polyarcgon moves, and shapes with a pose cache (like a spinning windmill)
+     * also remember the path at each rotation.
+     * Don't change it, it's reused.
+     */
+    public static Path getPathForDrawing(GamePolyarcgon polyarcgon) {
+        return getPathForDrawing(polyarcgon, polyarcgon.x, polyarcgon.y, polyarcgon.rotationRadians);
+    }
+
+    /**
+     * The polyarcgon's outline as if it was at x, y with that rotation, e.g. from a GameShapePoseSnapshot,
+     * so it can be drawn on another thread without reading where the physics has it now.
+     * Only one thread should draw any one polyarcgon, since the path is remembered in polyarcgon.renderingCache.
+     */
+    public static Path getPathForDrawing(GamePolyarcgon polyarcgon, double x, double y, double rotation) {
+        if (!(polyarcgon.renderingCache instanceof PolyarcgonPaths)) {
+            polyarcgon.renderingCache = new PolyarcgonPaths(polyarcgon);
+        }
+        return ((PolyarcgonPaths) polyarcgon.renderingCache).get(polyarcgon, x, y, rotation);
+    }
+
+    /**
+     * A GamePolyarcgon's drawing paths, same idea as the polyarcgon's own caches of its geometry
+     */
+    private static class PolyarcgonPaths {
+        // the same as PolyarcgonPoseCache, which remembers at most this many rotations too
+        private static final int MAX_ROTATED_PATHS = 1024;
+        private static final double ANGLE_STEP = 2 * Math.PI / GamePolyarcgon.POSE_CACHE_ANGLE_STEPS_PER_REVOLUTION;
+
+        private final Path templatePath = new Path();
+        private final Path path = new Path();
+        private double pathX = Double.NaN;
+        private double pathY;
+        private double pathRotation;
+        // only for polyarcgons with a pose cache, the template path rotated (but not moved) to each angle step it's been at
+        private Path[] rotatedPathsByAngleStep = null;
+        private int[] rotatedPathAngleSteps = null;
+        private int nextRotatedPathToReplace = 0;
+
+        PolyarcgonPaths(GamePolyarcgon polyarcgon) {
+            templatePath.setFillType(Path.FillType.EVEN_ODD);
+            polyarcgon.addContoursTo(new PolyarcgonPathBuilder() {
+                @Override
+                public void moveTo(double x, double y) {
+                    templatePath.moveTo((float) x, (float) y);
+                }
+
+                @Override
+                public void lineTo(double x, double y) {
+                    templatePath.lineTo((float) x, (float) y);
+                }
+
+                @Override
+                public void arcTo(double centerX, double centerY, double radius, double startAngle, double angleChange) {
+                    templatePath.arcTo((float) (centerX - radius), (float) (centerY - radius), (float) (centerX + radius), (float) (centerY + radius), (float) (startAngle * 180.0 / Math.PI), (float) (angleChange * 180.0 / Math.PI), false);
+                }
+            });
+        }
+
+        Path get(GamePolyarcgon polyarcgon, double x, double y, double rotation) {
+            if (x == pathX && y == pathY && rotation == pathRotation) {
+                return path;
+            }
+            Path rotatedPath = polyarcgon.isPoseCacheEnabled() ? getRotatedPath(rotation) : null;
+            if (rotatedPath != null) {
+                path.set(rotatedPath);
+                path.offset((float) x, (float) y);
+            } else {
+                Matrix matrix = new Matrix();
+                matrix.setTranslate((float) x, (float) y);
+                matrix.preRotate((float) (rotation * 180.0 / Math.PI));
+                path.set(templatePath);
+                path.transform(matrix);
+            }
+            pathX = x;
+            pathY = y;
+            pathRotation = rotation;
+            return path;
+        }
+
+        /**
+         * @return null if the rotation isn't a whole number of angle steps
+         */
+        private Path getRotatedPath(double rotation) {
+            double angleStepAsDouble = Math.rint(rotation / ANGLE_STEP);
+            if (angleStepAsDouble * ANGLE_STEP != rotation || Math.abs(angleStepAsDouble) > Long.MAX_VALUE / 2) {
+                return null;
+            }
+            int index = (int) Math.floorMod((long) angleStepAsDouble, (long) GamePolyarcgon.POSE_CACHE_ANGLE_STEPS_PER_REVOLUTION);
+            if (rotatedPathsByAngleStep == null) {
+                rotatedPathsByAngleStep = new Path[GamePolyarcgon.POSE_CACHE_ANGLE_STEPS_PER_REVOLUTION];
+                rotatedPathAngleSteps = new int[MAX_ROTATED_PATHS];
+                Arrays.fill(rotatedPathAngleSteps, -1);
+            }
+            Path rotatedPath = rotatedPathsByAngleStep[index];
+            if (rotatedPath == null) {
+                int oldIndex = rotatedPathAngleSteps[nextRotatedPathToReplace];
+                if (oldIndex >= 0) {
+                    // reuse the oldest one
+                    rotatedPath = rotatedPathsByAngleStep[oldIndex];
+                    rotatedPathsByAngleStep[oldIndex] = null;
+                } else {
+                    rotatedPath = new Path();
+                }
+                rotatedPathAngleSteps[nextRotatedPathToReplace] = index;
+                nextRotatedPathToReplace = (nextRotatedPathToReplace + 1) % MAX_ROTATED_PATHS;
+                Matrix matrix = new Matrix();
+                // a multiple of 2 pi away from the real rotation, which is the same apart from rounding
+                matrix.setRotate((float) (index * ANGLE_STEP * 180.0 / Math.PI));
+                rotatedPath.set(templatePath);
+                rotatedPath.transform(matrix);
+                rotatedPathsByAngleStep[index] = rotatedPath;
+            }
+            return rotatedPath;
+        }
+    }
+}
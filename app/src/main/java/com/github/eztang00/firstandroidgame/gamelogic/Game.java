@@ -2,13 +2,13 @@ package com.github.eztang00.firstandroidgame.gamelogic;
 
 import android.content.Context;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
 
 /**
  * Abstract class to be extended by the RippleGolfGame class
@@ -42,6 +42,22 @@ public abstract class Game {
     protected long timeWhenEnteredCurrentGameState;
     public long timeWhenStartedShowingText;
     protected long lastPotentialPauseStartTime = Integer.MAX_VALUE;
+    // where the game gets the time from, a replay swaps it for a virtual clock (see RippleGolfReplay)
+    private LongSupplier clock = System::currentTimeMillis;
+    // for draw(), when nothing else is drawing the game
+    private GameDrawingSnapshot snapshotToDrawNow;
+    // changes the UI thread wants made (a new level, a new size etc.), see runOnUpdateThread()
+    private final ConcurrentLinkedQueue<Command> commandsForUpdateThread = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A change to make to the game on the thread that updates it, see runOnUpdateThread()
+     */
+    public interface Command {
+        /**
+         * @param context the update thread's context, so the command doesn't have to hold onto an activity
+         */
+        void run(Context context);
+    }
 
     public Game(boolean justPreview) {
         levelText = new TreeMap<>();
@@ -60,7 +76,7 @@ public abstract class Game {
         }
 
         if (width != 0 && height != 0) {
-            long now = System.currentTimeMillis();
+            long now = currentTimeMillis();
 
             clearLastLevel();
 
@@ -98,7 +114,7 @@ public abstract class Game {
     }
 
     protected void update(Context context) {
-        long now = System.currentTimeMillis();
+        long now = currentTimeMillis();
         Thread thread = Thread.currentThread();
         if (thread != lastThread) {
             lastThread = thread;
@@ -164,6 +180,21 @@ public abstract class Game {
         gameSpecialAnimation = null;
     }
 
+    /**
+     * The time according to the game's clock, which is System.currentTimeMillis() unless it's been replaced with setClock()
+     */
+    public long currentTimeMillis() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Makes the game (levels, text, the level finishing etc.) go by this clock instead of the real time,
+     * so things that happen after a certain time happen on the same frames every time
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
     public void setLevelSpecialRules(Runnable runnable) {
         levelSpecialRules = runnable;
     }
@@ -175,63 +206,42 @@ public abstract class Game {
         levelText.putAll(levelTextAtEnd);
     }
 
-    protected abstract void draw(Canvas canvas);
-
-    protected void drawStuffOnTop(Canvas canvas) {
-        if (canvas != null) {
-            long now = System.currentTimeMillis();
-            switch (gameState) {
-                case INTRODUCING_LEVEL:
-                case PLAYING_LEVEL:
-                case FINISHING_LEVEL:
-                case PREVIEW_LEVEL:
-                    break;
-                case SPECIAL_ANIMATION:
-                    gameSpecialAnimation.drawAnimation(canvas);
-                    break;
-            }
-            switch (gameState) {
-                case INTRODUCING_LEVEL:
-                    if (now - timeWhenEnteredCurrentGameState < levelFadeInTime) {
-                        double visibility = ((double) (now - timeWhenEnteredCurrentGameState)) / levelFadeInTime;
-                        canvas.drawColor(Color.argb((int) (255 * (1 - visibility)), 255, 255, 255));
-                    }
-                    break;
-                case PLAYING_LEVEL:
-                case PREVIEW_LEVEL:
-                case SPECIAL_ANIMATION:
-                    break;
-                case FINISHING_LEVEL:
-                    if (now - timeWhenEnteredCurrentGameState < levelFadeOutTime) {
-                        double faintness = ((double) (now - timeWhenEnteredCurrentGameState)) / levelFadeOutTime;
-                        canvas.drawColor(Color.argb((int) (255 * faintness), 255, 255, 255));
-                    } else {
-                        canvas.drawColor(Color.rgb(255, 255, 255));
-                    }
-                    break;
-            }
-            switch (gameState) {
-                case INTRODUCING_LEVEL:
-                case PLAYING_LEVEL:
-                case FINISHING_LEVEL:
-                case SPECIAL_ANIMATION:
-                    for (Map.Entry<Long, GameFadeableText> text : levelText.entrySet()) {
-                        if (text.getKey() > now - timeWhenStartedShowingText) {
-                            break;
-                        }
-                        text.getValue().draw(now - (text.getKey() + timeWhenStartedShowingText), canvas);
-                    }
-                    break;
-                case PREVIEW_LEVEL:
-                    Log.i("me", "drawing preview game");
-                    for (Map.Entry<Long, GameFadeableText> text : levelText.entrySet()) {
-                        text.getValue().draw(1 * SECOND_MS, canvas);
-                    }
-                    break;
-            }
+    /**
+     * Makes something to copy the game into after each update so another thread can draw it, see GameDrawingSnapshot
+     */
+    public abstract GameDrawingSnapshot newDrawingSnapshot();
+
+    /**
+     * Draws the game as it is now, only for a game nothing's updating, like GamePreviewView's level previews.
+     * It reads the shapes and writes their rendering caches, so never call it while MainThread is running the game,
+     * RenderThread draws the snapshots MainThread makes instead.
+     */
+    public void draw(Canvas canvas) {
+        if (snapshotToDrawNow == null) {
+            snapshotToDrawNow = newDrawingSnapshot();
         }
+        snapshotToDrawNow.copyFrom(System.nanoTime());
+        snapshotToDrawNow.draw(canvas, 1);
     }
 
+    /**
+     * For the UI thread to change the game while MainThread is updating it, e.g. game.runOnUpdateThread(context -> game.setSize(context, w, h)).
+     * The command is done just before the next update (see runCommandsFromOtherThreads()), so only the update thread ever changes the game.
+     * Lock free like TapQueue, but commands can't be dropped, so it's a linked queue rather than a fixed size ring.
+     */
+    public void runOnUpdateThread(Command command) {
+        commandsForUpdateThread.offer(command);
+    }
+
+    /**
+     * Called by the thread updating the game before each update, does everything runOnUpdateThread() was given so far, oldest first
+     */
+    public void runCommandsFromOtherThreads(Context context) {
+        Command command;
+        while ((command = commandsForUpdateThread.poll()) != null) {
+            command.run(context);
+        }
+    }
 
     public void setSize(Context context, int w, int h) {
         boolean dimensionsChanged = (w != width || h != height);
@@ -0,0 +1,132 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A copy of everything needed to draw the game as it was after one update, so it can be drawn on another thread
+ * while the game carries on updating (see MainThread and RenderThread). It's filled in by copyFrom() on the thread
+ * updating the game, then only read by the thread drawing it. Each game makes a few with Game.newDrawingSnapshot()
+ * and they're reused.
+ */
+public abstract class GameDrawingSnapshot {
+    protected final Game game;
+    public Game.GameState gameState;
+    public int width;
+    public int height;
+    protected long timeWhenEnteredCurrentGameState;
+    protected long timeWhenStartedShowingText;
+    protected long levelFadeInTime;
+    protected long levelFadeOutTime;
+    // the level text entries, the GameFadeableTexts themselves never change
+    private long[] levelTextTimes = new long[8];
+    private GameFadeableText[] levelTexts = new GameFadeableText[8];
+    private int levelTextCount = 0;
+    private GameWonSpecialAnimation specialAnimation;
+    // System.nanoTime() when the update finished, so the drawing thread knows how far it is to the next one
+    public long updateNanoTime;
+
+    protected GameDrawingSnapshot(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Remembers where things are before an update, so they can be drawn between there and where they are after it
+     */
+    protected void copyBeforeUpdate() {
+    }
+
+    /**
+     * Copies the game as it is now, must be called on the thread updating it
+     */
+    protected void copyFrom(long updateNanoTime) {
+        this.updateNanoTime = updateNanoTime;
+        gameState = game.gameState;
+        width = game.width;
+        height = game.height;
+        timeWhenEnteredCurrentGameState = game.timeWhenEnteredCurrentGameState;
+        timeWhenStartedShowingText = game.timeWhenStartedShowingText;
+        levelFadeInTime = game.levelFadeInTime;
+        levelFadeOutTime = game.levelFadeOutTime;
+        specialAnimation = game.gameSpecialAnimation;
+        if (game.levelText.size() > levelTexts.length) {
+            levelTextTimes = new long[2 * game.levelText.size()];
+            levelTexts = new GameFadeableText[2 * game.levelText.size()];
+        }
+        int lastLevelTextCount = levelTextCount;
+        levelTextCount = 0;
+        for (Map.Entry<Long, GameFadeableText> text : game.levelText.entrySet()) {
+            levelTextTimes[levelTextCount] = text.getKey();
+            levelTexts[levelTextCount] = text.getValue();
+            levelTextCount++;
+        }
+        if (levelTextCount < lastLevelTextCount) {
+            Arrays.fill(levelTexts, levelTextCount, lastLevelTextCount, null);
+        }
+    }
+
+    /**
+     * @param fractionOfUpdate how far it is from this update to the next, moving things are drawn this far
+     *                         from where they were before the update to where they were after it, 1 to draw them where they were after it
+     */
+    public abstract void draw(Canvas canvas, double fractionOfUpdate);
+
+    protected void drawStuffOnTop(Canvas canvas) {
+        if (canvas != null) {
+            long now = game.currentTimeMillis();
+            switch (gameState) {
+                case INTRODUCING_LEVEL:
+                case PLAYING_LEVEL:
+                case FINISHING_LEVEL:
+                case PREVIEW_LEVEL:
+                    break;
+                case SPECIAL_ANIMATION:
+                    specialAnimation.drawAnimation(canvas);
+                    break;
+            }
+            switch (gameState) {
+                case INTRODUCING_LEVEL:
+                    if (now - timeWhenEnteredCurrentGameState < levelFadeInTime) {
+                        double visibility = ((double) (now - timeWhenEnteredCurrentGameState)) / levelFadeInTime;
+                        canvas.drawColor(Color.argb((int) (255 * (1 - visibility)), 255, 255, 255));
+                    }
+                    break;
+                case PLAYING_LEVEL:
+                case PREVIEW_LEVEL:
+                case SPECIAL_ANIMATION:
+                    break;
+                case FINISHING_LEVEL:
+                    if (now - timeWhenEnteredCurrentGameState < levelFadeOutTime) {
+                        double faintness = ((double) (now - timeWhenEnteredCurrentGameState)) / levelFadeOutTime;
+                        canvas.drawColor(Color.argb((int) (255 * faintness), 255, 255, 255));
+                    } else {
+                        canvas.drawColor(Color.rgb(255, 255, 255));
+                    }
+                    break;
+            }
+            switch (gameState) {
+                case INTRODUCING_LEVEL:
+                case PLAYING_LEVEL:
+                case FINISHING_LEVEL:
+                case SPECIAL_ANIMATION:
+                    for (int i = 0; i < levelTextCount; i++) {
+                        if (levelTextTimes[i] > now - timeWhenStartedShowingText) {
+                            break;
+                        }
+                        levelTexts[i].draw(now - (levelTextTimes[i] + timeWhenStartedShowingText), canvas);
+                    }
+                    break;
+                case PREVIEW_LEVEL:
+                    Log.i("me", "drawing preview game");
+                    for (int i = 0; i < levelTextCount; i++) {
+                        levelTexts[i].draw(1 * Game.SECOND_MS, canvas);
+                    }
+                    break;
+            }
+        }
+    }
+}
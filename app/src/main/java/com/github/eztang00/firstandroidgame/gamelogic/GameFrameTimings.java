@@ -0,0 +1,214 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import java.util.Locale;
+
+/**
+ * How long the game's updates and frames have been taking, recorded by MainThread and RenderThread while the game runs,
+ * see GameView.getFrameTimings(). Every update's time, the sleep after it, how many physics collision simulations (sub-steps)
+ * it did and how many garbage collections happened since the last one go in GameHistograms for percentiles,
+ * and the last RECENT_COUNT of each go in ring buffers for graphs. The same for every frame drawn's draw time
+ * and the time since the last frame. Nothing is allocated while recording.
+ * <p>
+ * Each thread only records its own things, and any thread can read them, though they might be a value or two behind.
+ */
+public class GameFrameTimings {
+    public static final int RECENT_COUNT = 256;
+    private static final int RECENT_MASK = RECENT_COUNT - 1;
+
+    public final GameHistogram updateNanos = new GameHistogram();
+    public final GameHistogram sleepNanos = new GameHistogram();
+    public final GameHistogram collisionSimulations = new GameHistogram();
+    public final GameHistogram drawNanos = new GameHistogram();
+    public final GameHistogram frameIntervalNanos = new GameHistogram();
+    private volatile long garbageCollections = 0;
+
+    // written by MainThread, indexed by update number & RECENT_MASK
+    private final long[] recentUpdateNanos = new long[RECENT_COUNT];
+    private final long[] recentSleepNanos = new long[RECENT_COUNT];
+    private final int[] recentCollisionSimulations = new int[RECENT_COUNT];
+    private final int[] recentGarbageCollections = new int[RECENT_COUNT];
+    private volatile long updateCount = 0;
+    // written by RenderThread, indexed by frame number & RECENT_MASK
+    private final long[] recentDrawNanos = new long[RECENT_COUNT];
+    private final long[] recentFrameIntervalNanos = new long[RECENT_COUNT];
+    private volatile long frameCount = 0;
+
+    /**
+     * Called by MainThread after each update
+     *
+     * @param garbageCollectionsSinceLastUpdate -1 if it's not known
+     */
+    void recordUpdate(long nanos, int collisionSimulationsDone, int garbageCollectionsSinceLastUpdate) {
+        int index = (int) updateCount & RECENT_MASK;
+        recentUpdateNanos[index] = nanos;
+        recentCollisionSimulations[index] = collisionSimulationsDone;
+        recentGarbageCollections[index] = garbageCollectionsSinceLastUpdate;
+        // filled in by recordSleep(), if there is one before the next update
+        recentSleepNanos[index] = 0;
+        updateNanos.record(nanos);
+        collisionSimulations.record(collisionSimulationsDone);
+        if (garbageCollectionsSinceLastUpdate > 0) {
+            garbageCollections += garbageCollectionsSinceLastUpdate;
+        }
+        updateCount++;
+    }
+
+    /**
+     * Called by MainThread after sleeping till the next update's due
+     */
+    void recordSleep(long nanos) {
+        if (updateCount > 0) {
+            recentSleepNanos[(int) (updateCount - 1) & RECENT_MASK] = nanos;
+        }
+        sleepNanos.record(nanos);
+    }
+
+    /**
+     * Called by RenderThread after each frame it draws
+     *
+     * @param nanosSinceLastFrame 0 for the first frame
+     */
+    void recordFrame(long nanos, long nanosSinceLastFrame) {
+        int index = (int) frameCount & RECENT_MASK;
+        recentDrawNanos[index] = nanos;
+        recentFrameIntervalNanos[index] = nanosSinceLastFrame;
+        drawNanos.record(nanos);
+        if (nanosSinceLastFrame > 0) {
+            frameIntervalNanos.record(nanosSinceLastFrame);
+        }
+        frameCount++;
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Garbage collections while the game was updating, if the device says how many there have been
+     */
+    public long getGarbageCollections() {
+        return garbageCollections;
+    }
+
+    /**
+     * Copies how long the most recent updates took, oldest first
+     *
+     * @return how many were copied, at most RECENT_COUNT and destination.length
+     */
+    public int copyRecentUpdateNanos(long[] destination) {
+        return copyRecent(recentUpdateNanos, updateCount, destination);
+    }
+
+    public int copyRecentSleepNanos(long[] destination) {
+        return copyRecent(recentSleepNanos, updateCount, destination);
+    }
+
+    public int copyRecentDrawNanos(long[] destination) {
+        return copyRecent(recentDrawNanos, frameCount, destination);
+    }
+
+    public int copyRecentFrameIntervalNanos(long[] destination) {
+        return copyRecent(recentFrameIntervalNanos, frameCount, destination);
+    }
+
+    /**
+     * The number of collision simulations and garbage collections in the most recent updates, oldest first
+     */
+    public int copyRecentCollisionSimulations(int[] destination) {
+        return copyRecent(recentCollisionSimulations, updateCount, destination);
+    }
+
+    public int copyRecentGarbageCollections(int[] destination) {
+        return copyRecent(recentGarbageCollections, updateCount, destination);
+    }
+
+    private static int copyRecent(long[] recent, long count, long[] destination) {
+        int copied = (int) Math.min(Math.min(count, RECENT_COUNT), destination.length);
+        for (int i = 0; i < copied; i++) {
+            destination[i] = recent[(int) (count - copied + i) & RECENT_MASK];
+        }
+        return copied;
+    }
+
+    private static int copyRecent(int[] recent, long count, int[] destination) {
+        int copied = (int) Math.min(Math.min(count, RECENT_COUNT), destination.length);
+        for (int i = 0; i < copied; i++) {
+            destination[i] = recent[(int) (count - copied + i) & RECENT_MASK];
+        }
+        return copied;
+    }
+
+    /**
+     * The p50, p95 and p99 of everything recorded so far as CSV with a header, times in milliseconds, e.g. for logcat or a file
+     */
+    public String exportPercentiles() {
+        StringBuilder csv = new StringBuilder("metric,count,p50,p95,p99,max\n");
+        appendPercentiles(csv, "update_ms", updateNanos, 1e-6);
+        appendPercentiles(csv, "sleep_ms", sleepNanos, 1e-6);
+        appendPercentiles(csv, "collision_simulations", collisionSimulations, 1);
+        appendPercentiles(csv, "draw_ms", drawNanos, 1e-6);
+        appendPercentiles(csv, "frame_interval_ms", frameIntervalNanos, 1e-6);
+        csv.append(String.format(Locale.ROOT, "garbage_collections,%d,,,,\n", garbageCollections));
+        return csv.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder csv, String name, GameHistogram histogram, double scale) {
+        csv.append(String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f\n", name, histogram.getTotalCount(),
+                histogram.getPercentile(50) * scale, histogram.getPercentile(95) * scale, histogram.getPercentile(99) * scale, histogram.getMax() * scale));
+    }
+
+    /**
+     * Draws the percentiles in the top left corner and a graph of the recent update (green) and draw (red) times along the bottom,
+     * with a line at the time there is for each update. Only for debugging, it allocates.
+     */
+    public void drawOverlay(Canvas canvas, int width, int height) {
+        float textSize = Math.max(12, Math.min(width, height) / 40f);
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setColor(Color.argb(160, 0, 0, 0));
+        canvas.drawRect(0, 0, width, textSize * 6.5f, paint);
+        paint.setColor(Color.WHITE);
+        paint.setTextSize(textSize);
+        long frameInterval = frameIntervalNanos.getPercentile(50);
+        String[] lines = {
+                String.format(Locale.ROOT, "%.0f fps, %d gcs", frameInterval > 0 ? 1e9 / frameInterval : 0.0, garbageCollections),
+                overlayLine("update", updateNanos),
+                overlayLine("draw", drawNanos),
+                overlayLine("sleep", sleepNanos),
+                String.format(Locale.ROOT, "substeps p50 %d p95 %d p99 %d", collisionSimulations.getPercentile(50), collisionSimulations.getPercentile(95), collisionSimulations.getPercentile(99))};
+        for (int i = 0; i < lines.length; i++) {
+            canvas.drawText(lines[i], textSize / 2, textSize * (i + 1.2f), paint);
+        }
+
+        float graphHeight = height / 6f;
+        // the time there is for each update is graphHeight / 2
+        double pixelsPerNano = graphHeight / 2.0 / MainThread.NANOS_PER_UPDATE;
+        float barWidth = (float) width / RECENT_COUNT;
+        long[] recent = new long[RECENT_COUNT];
+        paint.setColor(Color.argb(200, 0, 255, 0));
+        int count = copyRecentUpdateNanos(recent);
+        for (int i = 0; i < count; i++) {
+            canvas.drawRect(i * barWidth, (float) (height - Math.min(graphHeight, recent[i] * pixelsPerNano)), (i + 0.5f) * barWidth, height, paint);
+        }
+        paint.setColor(Color.argb(200, 255, 0, 0));
+        count = copyRecentDrawNanos(recent);
+        for (int i = 0; i < count; i++) {
+            canvas.drawRect((i + 0.5f) * barWidth, (float) (height - Math.min(graphHeight, recent[i] * pixelsPerNano)), (i + 1) * barWidth, height, paint);
+        }
+        paint.setColor(Color.WHITE);
+        canvas.drawLine(0, height - graphHeight / 2, width, height - graphHeight / 2, paint);
+    }
+
+    private static String overlayLine(String name, GameHistogram histogram) {
+        return String.format(Locale.ROOT, "%s ms p50 %.2f p95 %.2f p99 %.2f max %.2f", name,
+                histogram.getPercentile(50) / 1e6, histogram.getPercentile(95) / 1e6, histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6);
+    }
+}
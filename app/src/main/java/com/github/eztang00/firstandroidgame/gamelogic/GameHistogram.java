@@ -0,0 +1,82 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how often each value (like how many nanoseconds an update took) happened, in a fixed amount of memory,
+ * so percentiles can be worked out however many values there have been. Values below SUB_BUCKET_COUNT are exact,
+ * bigger ones go in buckets SUB_BUCKET_COUNT to each power of 2, so percentiles are within about 3%.
+ * <p>
+ * Only one thread should record(), but any thread can read it at any time, it might just be a value or two behind.
+ */
+public class GameHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // enough for any non-negative long
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private volatile long totalCount = 0;
+    private volatile long max = 0;
+
+    /**
+     * @param value negative values count as 0
+     */
+    void record(long value) {
+        value = Math.max(0, value);
+        int bucket = bucketIndex(value);
+        // only one thread writes, so there's no need for an atomic increment, just for the other threads to see it
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        if (value > max) {
+            max = value;
+        }
+        totalCount++;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile e.g. 95 for the value 95% of the recorded values are no bigger than
+     * @return the biggest value that could be in the bucket that percentile's in (but no bigger than the max), 0 if nothing's been recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = totalCount;
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0));
+        long countSoFar = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            countSoFar += counts.get(bucket);
+            if (countSoFar >= rank) {
+                return Math.min(bucketUpperBound(bucket), max);
+            }
+        }
+        // the counts were read while more were being recorded
+        return max;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int powerOf2 = 63 - Long.numberOfLeadingZeros(value);
+        int shift = powerOf2 - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = SUB_BUCKET_COUNT + (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
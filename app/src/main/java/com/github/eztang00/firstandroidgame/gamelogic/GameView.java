@@ -19,7 +19,13 @@ import com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic.RippleGolf
  * See https://www.androidauthority.com/android-game-java-785331/
  */
 public class GameView extends SurfaceView implements SurfaceHolder.Callback {
+    // taps that have come in but the game hasn't had yet
+    private static final int MAX_WAITING_TAPS = 64;
     private MainThread thread;
+    private RenderThread renderThread;
+    private final TapQueue tapQueue = new TapQueue(MAX_WAITING_TAPS);
+    private final GameFrameTimings frameTimings = new GameFrameTimings();
+    private volatile boolean showingFrameTimings = false;
     RippleGolfGame game;
     boolean surfaceExists = false;
 
@@ -58,9 +64,14 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     }
 
     private void startThread() {
-        thread = new MainThread(getContext(), getHolder(), this);
+        stopThreads();
+        TripleBuffer<GameDrawingSnapshot> drawingSnapshots = new TripleBuffer<>(game.newDrawingSnapshot(), game.newDrawingSnapshot(), game.newDrawingSnapshot());
+        thread = new MainThread(getContext(), game, drawingSnapshots, tapQueue, frameTimings);
         thread.setRunning(true);
         thread.start();
+        renderThread = new RenderThread(getHolder(), this, drawingSnapshots, frameTimings);
+        renderThread.setRunning(true);
+        renderThread.start();
     }
 
     public void start(RippleGolfGame game) {
@@ -97,39 +108,79 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     @Override
     public void surfaceDestroyed(@NonNull SurfaceHolder surfaceHolder) {
         surfaceExists = false;
+        stopThreads();
+        if (frameTimings.getUpdateCount() > 0) {
+            Log.i("me", "frame timings:\n" + frameTimings.exportPercentiles());
+        }
+    }
+
+    private void stopThreads() {
+        // stop drawing first, the surface is going
+        if (renderThread != null) {
+            renderThread.setRunning(false);
+            joinUninterruptibly(renderThread);
+            renderThread = null;
+        }
+        if (thread != null) {
+            thread.setRunning(false);
+            joinUninterruptibly(thread);
+            thread.context = null;
+            thread = null;
+        }
+    }
+
+    private static void joinUninterruptibly(Thread threadToJoin) {
         // this code was copied from rushd at https://www.androidauthority.com/android-game-java-785331/
         boolean retry = true;
         while (retry) {
             try {
-                thread.setRunning(false);
-                thread.join();
-                thread.context = null;
-                thread = null;
+                threadToJoin.join();
+                retry = false;
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
-            retry = false;
         }
     }
 
     @Override
     public void onSizeChanged(int w, int h, int oldW, int oldH) {
-        game.setSize(getContext(), w, h);
+        // MainThread might be updating the game right now, so it resizes the game itself before its next update
+        RippleGolfGame gameToResize = game;
+        gameToResize.runOnUpdateThread(context -> gameToResize.setSize(context, w, h));
 //        Log.i("me", "size changed: " + w + " " + h);
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        game.onTouchEvent(event);
+        // MainThread gives it to the game before its next update, so touches never wait for the physics
+        tapQueue.offer(event.getX(), event.getY());
         return super.onTouchEvent(event);
     }
 
-    @Override
-    public void draw(Canvas canvas) {
-        if (canvas != null) {
-            super.draw(canvas);
-            game.draw(canvas);
-        }
+    /**
+     * How long updates and frames have taken since the view was made, e.g. exportPercentiles() for p50/p95/p99
+     */
+    public GameFrameTimings getFrameTimings() {
+        return frameTimings;
+    }
+
+    /**
+     * Whether to draw GameFrameTimings.drawOverlay() over the game, for debugging
+     */
+    public void setShowingFrameTimings(boolean showingFrameTimings) {
+        this.showingFrameTimings = showingFrameTimings;
+    }
+
+    public boolean isShowingFrameTimings() {
+        return showingFrameTimings;
+    }
+
+    /**
+     * Called on RenderThread, draws the game as it was in the snapshot
+     */
+    void drawSnapshot(Canvas canvas, GameDrawingSnapshot snapshot, double fractionOfUpdate) {
+        super.draw(canvas);
+        snapshot.draw(canvas, fractionOfUpdate);
     }
 }
 
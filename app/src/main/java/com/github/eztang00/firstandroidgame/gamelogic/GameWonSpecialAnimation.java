@@ -30,7 +30,9 @@ class GameWonSpecialAnimation {
         fadeStart = Long.MIN_VALUE;
     }
 
-    public void updateAnimation() {
+    // updated on MainThread but drawn on RenderThread, it's only the fireworks at the very end with no physics going on
+    // so it's simplest to lock it rather than copy it into GameDrawingSnapshot
+    public synchronized void updateAnimation() {
         if (Math.random() < 1.0 / AVERAGE_DURATION_BETWEEN_FIREWORKS_FRAMES) {
             Firework newFirework;
             do {
@@ -54,7 +56,7 @@ class GameWonSpecialAnimation {
         }
     };
 
-    public void drawAnimation(Canvas canvas) {
+    public synchronized void drawAnimation(Canvas canvas) {
         int[] colorsGradient;
 
         long now = System.currentTimeMillis();
@@ -89,7 +91,7 @@ class GameWonSpecialAnimation {
         }
     }
 
-    void processPause(long pauseTime) {
+    synchronized void processPause(long pauseTime) {
         fadeStart += pauseTime;
     }
 
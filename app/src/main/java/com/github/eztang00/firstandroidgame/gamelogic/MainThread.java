@@ -1,34 +1,49 @@
 package com.github.eztang00.firstandroidgame.gamelogic;
 
 import android.content.Context;
-import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Debug;
 import android.util.Log;
-import android.view.SurfaceHolder;
+
+import com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic.RippleGolfGame;
 
 /**
- * The thread that runs the game
+ * The thread that runs the game, the only one that changes it while it's running. It takes the taps and commands
+ * (see Game.runOnUpdateThread()) from the UI thread, updates the game at a fixed rate,
+ * and after each update hands a GameDrawingSnapshot to RenderThread, so however slow drawing is it never holds up the physics.
+ * It never touches the screen.
  * <p>
  * lots of code copied from rushd
  * See https://www.androidauthority.com/android-game-java-785331/
  */
 class MainThread extends Thread {
-    private static final int TARGET_FPS = 60;
-    private static final long TARGET_TIME = 1000 / TARGET_FPS;
+    // the game and physics update this many times a second however fast frames are drawn,
+    // things like RippleGolfGame.RIPPLE_EXPANSION_RATE are per update
+    static final int UPDATES_PER_SECOND = 60;
+    static final long NANOS_PER_UPDATE = 1_000_000_000L / UPDATES_PER_SECOND;
+    // if updating is so slow (or the thread was held up so long) that more updates than this are due,
+    // the game slows down rather than spending even longer catching up and getting further behind
+    private static final int MAX_UPDATES_AT_ONCE = 4;
     //having the thread at least sometimes sleep prevents blocking other threads
     //without needing to fine tune thread priority
     //if it never sleeps it disables menu buttons
-    private static final long MIN_WAIT = 100 / TARGET_FPS;
-    private final SurfaceHolder surfaceHolder;
-    private final GameView gameView;
+    static final long MIN_WAIT_NANOS = 100_000_000L / UPDATES_PER_SECOND;
+    private final RippleGolfGame game;
+    private final TripleBuffer<GameDrawingSnapshot> drawingSnapshots;
+    private final TapQueue tapQueue;
+    private final TapQueue.TapHandler tapHandler;
+    private final GameFrameTimings frameTimings;
     public Context context;
-    private boolean running;
-    public static Canvas canvas;
+    private volatile boolean running;
 
-    public MainThread(Context context, SurfaceHolder surfaceHolder, GameView gameView) {
+    public MainThread(Context context, RippleGolfGame game, TripleBuffer<GameDrawingSnapshot> drawingSnapshots, TapQueue tapQueue, GameFrameTimings frameTimings) {
         super();
-        this.surfaceHolder = surfaceHolder;
-        this.gameView = gameView;
+        this.game = game;
+        this.drawingSnapshots = drawingSnapshots;
+        this.tapQueue = tapQueue;
+        this.frameTimings = frameTimings;
         this.context = context;
+        tapHandler = game::onTap;
     }
 
     public void setRunning(boolean isRunning) {
@@ -37,54 +52,78 @@ class MainThread extends Thread {
 
     @Override
     public void run() {
-        long startTime;
-        long timeMillis;
-        long waitTime;
-//        long totalTime = 0;
-//        int frameCount = 0;
+        // throw away taps from before it started, e.g. while the game was in the background
+        tapQueue.pollTo((x, y) -> {
+        });
+        // but not changes like a new level, those still have to happen
+        game.runCommandsFromOtherThreads(context);
+        long lastTime = System.nanoTime();
+        // time that's passed but hasn't been updated yet, starts with one update due so there's something to draw straight away
+        long nanosNotUpdated = NANOS_PER_UPDATE;
+        long lastGarbageCollectionCount = readGarbageCollectionCount();
 
         Log.i("me", "thread starting");
         while (running) {
-            startTime = System.currentTimeMillis();
-            canvas = null;
+            long now = System.nanoTime();
+            nanosNotUpdated += now - lastTime;
+            lastTime = now;
 
             try {
-                canvas = this.surfaceHolder.lockCanvas();
-                synchronized (surfaceHolder) {
-                    this.gameView.game.update(context);
-                    this.gameView.draw(canvas);
+                int updates = 0;
+                while (nanosNotUpdated >= NANOS_PER_UPDATE && updates < MAX_UPDATES_AT_ONCE) {
+                    game.runCommandsFromOtherThreads(context);
+                    tapQueue.pollTo(tapHandler);
+                    GameDrawingSnapshot snapshot = drawingSnapshots.getBackBuffer();
+                    snapshot.copyBeforeUpdate();
+                    long updateStart = System.nanoTime();
+                    game.update(context);
+                    long updateEnd = System.nanoTime();
+                    snapshot.copyFrom(updateEnd);
+                    drawingSnapshots.publish();
+                    long garbageCollectionCount = readGarbageCollectionCount();
+                    frameTimings.recordUpdate(updateEnd - updateStart, game.getCollisionSimulationsLastUpdate(),
+                            garbageCollectionCount >= 0 && lastGarbageCollectionCount >= 0 ? (int) (garbageCollectionCount - lastGarbageCollectionCount) : -1);
+                    lastGarbageCollectionCount = garbageCollectionCount;
+                    nanosNotUpdated -= NANOS_PER_UPDATE;
+                    updates++;
+                }
+                if (nanosNotUpdated >= NANOS_PER_UPDATE) {
+                    // too far behind, let the rest go
+                    nanosNotUpdated %= NANOS_PER_UPDATE;
                 }
             } catch (Exception e) {
                 e.printStackTrace();
-            } finally {
-                if (canvas != null) {
-                    try {
-                        surfaceHolder.unlockCanvasAndPost(canvas);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
             }
 
-            timeMillis = System.currentTimeMillis() - startTime;
-            waitTime = Math.max(TARGET_TIME - timeMillis, MIN_WAIT);
+            // sleep till the next update's due
+            long waitNanos = Math.max(NANOS_PER_UPDATE - nanosNotUpdated - (System.nanoTime() - lastTime), MIN_WAIT_NANOS);
 
+            long sleepStart = System.nanoTime();
             try {
-                if (waitTime > 0) {
-                    Thread.sleep(waitTime);
-                }
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
             } catch (Exception e) {
                 e.printStackTrace();
             }
-//            totalTime += System.currentTimeMillis() - startTime;
-//            frameCount++;
-//            if (frameCount == TARGET_FPS)        {
-//                float averageFPS = 1000 * frameCount / totalTime;
-//                frameCount = 0;
-//                totalTime = 0;
-//                System.out.println(averageFPS + " averageFPS");
-//            }
+            frameTimings.recordSleep(System.nanoTime() - sleepStart);
         }
 
     }
+
+    /**
+     * @return how many garbage collections there have been since the app started, or -1 if the device doesn't say
+     */
+    private static long readGarbageCollectionCount() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return -1;
+        }
+        String count = Debug.getRuntimeStat("art.gc.gc-count");
+        if (count == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(count);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
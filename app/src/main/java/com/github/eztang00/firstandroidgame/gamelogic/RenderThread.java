@@ -0,0 +1,73 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import android.graphics.Canvas;
+import android.view.SurfaceHolder;
+
+/**
+ * The thread that draws the game. It draws the latest GameDrawingSnapshot from MainThread whenever it can,
+ * with moving things part of the way to where they'll be after the next update depending on how long ago the snapshot was made.
+ * It never touches the game itself, so a slow frame (e.g. lots of blurred edges) just means fewer frames, not a slower game.
+ */
+class RenderThread extends Thread {
+    // lockCanvas() usually waits for the screen anyway, this is just so it doesn't spin if it doesn't
+    private static final long MIN_NANOS_PER_FRAME = 1_000_000_000L / 120;
+    private final SurfaceHolder surfaceHolder;
+    private final GameView gameView;
+    private final TripleBuffer<GameDrawingSnapshot> drawingSnapshots;
+    private final GameFrameTimings frameTimings;
+    private volatile boolean running;
+
+    RenderThread(SurfaceHolder surfaceHolder, GameView gameView, TripleBuffer<GameDrawingSnapshot> drawingSnapshots, GameFrameTimings frameTimings) {
+        super();
+        this.surfaceHolder = surfaceHolder;
+        this.gameView = gameView;
+        this.drawingSnapshots = drawingSnapshots;
+        this.frameTimings = frameTimings;
+    }
+
+    void setRunning(boolean isRunning) {
+        running = isRunning;
+    }
+
+    @Override
+    public void run() {
+        long lastFramePosted = 0;
+        while (running) {
+            long frameStart = System.nanoTime();
+            Canvas canvas = null;
+            try {
+                canvas = surfaceHolder.lockCanvas();
+                // get the snapshot after lockCanvas(), which may have waited a while
+                GameDrawingSnapshot snapshot = drawingSnapshots.acquireLatest();
+                if (canvas != null && snapshot != null) {
+                    long drawStart = System.nanoTime();
+                    double fractionOfUpdate = (double) (drawStart - snapshot.updateNanoTime) / MainThread.NANOS_PER_UPDATE;
+                    gameView.drawSnapshot(canvas, snapshot, fractionOfUpdate);
+                    long drawEnd = System.nanoTime();
+                    frameTimings.recordFrame(drawEnd - drawStart, lastFramePosted == 0 ? 0 : drawEnd - lastFramePosted);
+                    lastFramePosted = drawEnd;
+                    if (gameView.isShowingFrameTimings()) {
+                        frameTimings.drawOverlay(canvas, snapshot.width, snapshot.height);
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                if (canvas != null) {
+                    try {
+                        surfaceHolder.unlockCanvasAndPost(canvas);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+
+            long waitNanos = Math.max(MIN_NANOS_PER_FRAME - (System.nanoTime() - frameStart), MainThread.MIN_WAIT_NANOS);
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passes taps from the UI thread to the thread updating the game without locking, so a slow update never holds up touch handling.
+ * A fixed size ring of taps, each x and y packed into a long.
+ * <p>
+ * Only for one thread calling offer() and one thread calling pollTo().
+ */
+class TapQueue {
+    interface TapHandler {
+        void onTap(float x, float y);
+    }
+
+    private final long[] taps;
+    private final int mask;
+    // how many taps have ever been taken, only written by the reader
+    private final AtomicLong head = new AtomicLong();
+    // how many taps have ever been put in, only written by the writer
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of 2
+     */
+    TapQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        taps = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return false if it's full (the game's that far behind, so the tap is dropped)
+     */
+    boolean offer(float x, float y) {
+        long currentTail = tail.get();
+        if (currentTail - head.get() == taps.length) {
+            return false;
+        }
+        taps[(int) currentTail & mask] = ((long) Float.floatToRawIntBits(x) << 32) | (Float.floatToRawIntBits(y) & 0xFFFFFFFFL);
+        // an ordered write is enough to make the tap visible before the new tail, and cheaper than a volatile one
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Gives every tap offered so far to the handler, oldest first
+     *
+     * @return how many there were
+     */
+    int pollTo(TapHandler handler) {
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        for (long i = currentHead; i < currentTail; i++) {
+            long tap = taps[(int) i & mask];
+            handler.onTap(Float.intBitsToFloat((int) (tap >>> 32)), Float.intBitsToFloat((int) tap));
+        }
+        head.lazySet(currentTail);
+        return (int) (currentTail - currentHead);
+    }
+}
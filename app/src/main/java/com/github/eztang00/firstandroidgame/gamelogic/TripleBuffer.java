@@ -0,0 +1,61 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes the latest of something (like a GameDrawingSnapshot) from one thread to another without either ever waiting.
+ * The writing thread fills in getBackBuffer() then publish()es it, the reading thread gets the latest published one
+ * with acquireLatest() and can use it for as long as it likes. There's always a spare in the middle to swap with,
+ * so the writer can keep publishing while the reader's busy, and the reader just skips the ones it was too slow for.
+ * <p>
+ * Only for one writing thread and one reading thread.
+ */
+class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    // set in middle when the writer has published into it and the reader hasn't taken it yet
+    private static final int FRESH = 4;
+
+    private final Object[] buffers;
+    // the index of the buffer in the middle, plus FRESH, the only thing both threads touch
+    private final AtomicInteger middle = new AtomicInteger(1);
+    // only the writer touches this
+    private int back = 0;
+    // only the reader touches these
+    private int front = 2;
+    private boolean anythingPublished = false;
+
+    TripleBuffer(T buffer1, T buffer2, T buffer3) {
+        buffers = new Object[]{buffer1, buffer2, buffer3};
+    }
+
+    /**
+     * For the writer, the buffer to fill in, it's not seen by the reader till publish()
+     */
+    @SuppressWarnings("unchecked")
+    T getBackBuffer() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * For the writer, hands over the back buffer and gets the one in the middle to fill in next,
+     * which is either old or one the reader never got to
+     */
+    void publish() {
+        // the volatile write makes everything written to the buffer visible to the reader once it sees FRESH
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * For the reader, the most recently published buffer, which the writer won't touch till the next acquireLatest()
+     *
+     * @return null if nothing's been published yet
+     */
+    @SuppressWarnings("unchecked")
+    T acquireLatest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+            anythingPublished = true;
+        }
+        return anythingPublished ? (T) buffers[front] : null;
+    }
+}
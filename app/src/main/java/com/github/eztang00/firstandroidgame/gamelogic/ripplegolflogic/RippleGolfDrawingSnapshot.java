@@ -0,0 +1,109 @@
+package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+import com.github.eztang00.firstandroidgame.gamelogic.GameDrawingSnapshot;
+import com.github.eztang00.firstandroidgame.gamelogic.GameShapeDrawer;
+import com.github.eztang00.firstandroidgame.gamelogic.gameobstacles.GameWormhole;
+import com.github.eztang00.firstandroidgame.gamephysics.GamePolyarcgon;
+import com.github.eztang00.firstandroidgame.gamephysics.GameShape;
+import com.github.eztang00.firstandroidgame.gamephysics.GameShapePoseSnapshot;
+
+import java.util.ArrayList;
+
+/**
+ * Where everything in a RippleGolfGame was before and after an update, see GameDrawingSnapshot.
+ * The hole and wormholes never move so they're just remembered, everything in the physics engine
+ * and the ripple are drawn from the copied poses.
+ */
+class RippleGolfDrawingSnapshot extends GameDrawingSnapshot {
+    private final RippleGolfGame rippleGolfGame;
+    private final GameShapePoseSnapshot shapePoses = new GameShapePoseSnapshot();
+    private GamePolyarcgon hole;
+    // the ball's index in shapePoses, or -1
+    private int ballIndex;
+    private final ArrayList<GameWormhole> wormholes = new ArrayList<>();
+    private boolean rippleAlive;
+    private double rippleX;
+    private double rippleY;
+    private double previousRippleRadius = Double.NaN;
+    private double rippleRadius;
+
+    RippleGolfDrawingSnapshot(RippleGolfGame game) {
+        super(game);
+        this.rippleGolfGame = game;
+    }
+
+    @Override
+    protected void copyBeforeUpdate() {
+        shapePoses.rememberPreviousPoses(rippleGolfGame.gamePhysicsEngine);
+        previousRippleRadius = rippleGolfGame.isRippleAlive() ? rippleGolfGame.rippleArea.getRadius() : Double.NaN;
+    }
+
+    @Override
+    protected void copyFrom(long updateNanoTime) {
+        super.copyFrom(updateNanoTime);
+        shapePoses.rememberCurrentPoses(rippleGolfGame.gamePhysicsEngine);
+        hole = rippleGolfGame.hole;
+        ballIndex = shapePoses.indexOf(rippleGolfGame.ball);
+        wormholes.clear();
+        wormholes.addAll(rippleGolfGame.wormholes);
+        rippleAlive = rippleGolfGame.isRippleAlive();
+        if (rippleAlive) {
+            rippleX = rippleGolfGame.rippleArea.centerX;
+            rippleY = rippleGolfGame.rippleArea.centerY;
+            rippleRadius = rippleGolfGame.rippleArea.getRadius();
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas, double fractionOfUpdate) {
+        if (canvas != null) {
+            int screenSize = Math.min(width, height);
+            switch (gameState) {
+                case INTRODUCING_LEVEL:
+                case PLAYING_LEVEL:
+                case FINISHING_LEVEL:
+                case PREVIEW_LEVEL:
+                    canvas.drawColor(Color.rgb(0, 255 * 3 / 4, 0));
+                    if (hole != null) {
+                        GameShapeDrawer.draw(canvas, hole, hole.x, hole.y, hole.rotationRadians, screenSize); //hole on bottom
+                    }
+                    for (int i = 0; i < shapePoses.getShapeCount(); i++) {
+                        GameShape shape = shapePoses.getShape(i);
+                        if (shape instanceof GamePolyarcgon) {
+                            GameShapeDrawer.drawPotentialShadow(canvas, (GamePolyarcgon) shape, shapePoses.getX(i, fractionOfUpdate), shapePoses.getY(i, fractionOfUpdate), shapePoses.getRotation(i, fractionOfUpdate), screenSize);
+                        }
+                    }
+                    for (int i = 0; i < shapePoses.getShapeCount(); i++) {
+                        drawShape(canvas, i, fractionOfUpdate, screenSize);
+                    }
+                    if (rippleAlive) {
+                        // a new ripple starts from nothing rather than shrinking from the last one
+                        double radius = Double.isNaN(previousRippleRadius) || !(fractionOfUpdate < 1) ? rippleRadius
+                                : previousRippleRadius + Math.max(0, fractionOfUpdate) * (rippleRadius - previousRippleRadius);
+                        GameShapeDrawer.drawRipple(canvas, rippleX, rippleY, radius);
+                    }
+                    for (GameWormhole wormhole : wormholes) {
+                        wormhole.draw(canvas);
+                    }
+                    if (ballIndex >= 0) {
+                        drawShape(canvas, ballIndex, fractionOfUpdate, screenSize); //draw ball again to put it on top
+                    }
+                    break;
+                case SPECIAL_ANIMATION:
+                    break;
+            }
+        }
+        drawStuffOnTop(canvas);
+    }
+
+    private void drawShape(Canvas canvas, int index, double fractionOfUpdate, int screenSize) {
+        GameShape shape = shapePoses.getShape(index);
+        // only polyarcgons go in the physics engine in this game
+        if (shape instanceof GamePolyarcgon) {
+            GameShapeDrawer.draw(canvas, (GamePolyarcgon) shape, shapePoses.getX(index, fractionOfUpdate), shapePoses.getY(index, fractionOfUpdate), shapePoses.getRotation(index, fractionOfUpdate), screenSize);
+        }
+    }
+}
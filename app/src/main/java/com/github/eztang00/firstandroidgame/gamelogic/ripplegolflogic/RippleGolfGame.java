@@ -1,23 +1,22 @@
 package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
 
 import android.content.Context;
-import android.graphics.Canvas;
 import android.graphics.Color;
-import android.view.MotionEvent;
 
 import com.github.eztang00.firstandroidgame.R;
+import com.github.eztang00.firstandroidgame.SaveAndLoad;
 import com.github.eztang00.firstandroidgame.gamelogic.Game;
+import com.github.eztang00.firstandroidgame.gamelogic.GameDrawingSnapshot;
 import com.github.eztang00.firstandroidgame.gamelogic.GameFadeableText;
 import com.github.eztang00.firstandroidgame.gamelogic.GameListener;
 import com.github.eztang00.firstandroidgame.gamelogic.gameobstacles.GameMaze;
 import com.github.eztang00.firstandroidgame.gamelogic.GameShapeAdditionalAttributesForDrawingEtc;
-import com.github.eztang00.firstandroidgame.gamelogic.GameShapeDrawer;
 import com.github.eztang00.firstandroidgame.gamelogic.gameobstacles.GameWormhole;
+import com.github.eztang00.firstandroidgame.gamephysics.GameExpandingCircle;
 import com.github.eztang00.firstandroidgame.gamephysics.GameForceField;
 import com.github.eztang00.firstandroidgame.gamephysics.GamePhysicsEngine;
 import com.github.eztang00.firstandroidgame.gamephysics.GamePolyarcgon;
 import com.github.eztang00.firstandroidgame.gamephysics.GamePolyarcgonBuilder;
-import com.github.eztang00.firstandroidgame.gamephysics.GameShape;
 
 import java.util.ArrayList;
 
@@ -27,21 +26,41 @@ import java.util.ArrayList;
  */
 public class RippleGolfGame extends Game {
     static final double RIPPLE_EXPANSION_RATE = 20;
+    // at 60 fps there's about 16 ms per frame, leave the rest for drawing
+    static final double PHYSICS_TIME_BUDGET_MS = 8;
+    // small enough that only corners go to the normal collision code, but the ball is about a hundred pixels across
+    // and every lookup goes through all the cells it covers
+    static final double WALL_DISTANCE_FIELD_CELL_SIZE = 8;
+    static final long WALL_DISTANCE_FIELD_MAX_MEMORY_BYTES = 2 * 1024 * 1024;
+    // collision layers, see GamePhysicsEngine.setLayersCollide()
+    static final int RIPPLE_LAYER = 1;
+    static final int RIPPLE_PROOF_LAYER = 2;
+    public static final long NO_MAZE_SEED = Long.MIN_VALUE;
     public int strokes = 0;
     GamePolyarcgon ball;
     GamePolyarcgon hole;
     ArrayList<GameWormhole> wormholes;
     GameForceField ripple;
+    // the ripple's affectedArea, reused for every ripple so growing it doesn't build a new shape every frame
+    GameExpandingCircle rippleArea;
     double lastFrameDistanceBetweenBallAndRipple;
     int rippleAgeInFrames;
     int numberOfFramesBallIsStuckForRipple;
     int numberOfFramesBallCanBeStuckBeforeStoppingRipple;
     int maxFramesPerRipple;
+    // the seed the level's maze was made from, so a replay can tell if the maze is still the same
+    long mazeSeed = NO_MAZE_SEED;
+    // 0 if the physics didn't run in the last update(), e.g. while the level's being introduced
+    private int collisionSimulationsLastUpdate = 0;
     final GamePhysicsEngine gamePhysicsEngine;
+    private boolean recordingInput = false;
+    private RippleGolfInputRecording inputRecording = null;
 
     public RippleGolfGame(boolean justPreview) {
         super(justPreview);
         gamePhysicsEngine = new GamePhysicsEngine();
+        gamePhysicsEngine.setCollisionSimulationTimeBudget(PHYSICS_TIME_BUDGET_MS);
+        gamePhysicsEngine.enableWallDistanceField(WALL_DISTANCE_FIELD_CELL_SIZE, WALL_DISTANCE_FIELD_MAX_MEMORY_BYTES);
         wormholes = new ArrayList<>();
     }
 
@@ -52,12 +71,36 @@ public class RippleGolfGame extends Game {
         if (width != 0 && height != 0) {
 
             notifyStrokesAndParChange(strokes, getPar(level));
+            if (recordingInput && RippleGolfGameLevel.existsGameLevel(level)) {
+                inputRecording = new RippleGolfInputRecording(level, width, height, mazeSeed, levelIntroducingTime, timeWhenEnteredCurrentGameState);
+            } else {
+                inputRecording = null;
+            }
+        }
+    }
+
+    /**
+     * Starting from the next level (or the next time this one's restarted), remembers the time of every frame and every tap,
+     * so the level can be played again exactly the same way with RippleGolfReplay. See getInputRecording().
+     */
+    public void setRecordingInput(boolean recordingInput) {
+        this.recordingInput = recordingInput;
+        if (!recordingInput) {
+            inputRecording = null;
         }
     }
 
+    /**
+     * @return what's been recorded since the current level started, or null if it isn't being recorded
+     */
+    public RippleGolfInputRecording getInputRecording() {
+        return inputRecording;
+    }
+
     protected void clearLastLevel() {
         super.clearLastLevel();
         strokes = 0;
+        mazeSeed = NO_MAZE_SEED;
         wormholes.clear();
         gamePhysicsEngine.removeAllShapes();
         numberOfFramesBallCanBeStuckBeforeStoppingRipple = (int) (3*SECOND_MS/60);
@@ -136,8 +179,12 @@ public class RippleGolfGame extends Game {
     }
 
     public void update(Context context) {
+        collisionSimulationsLastUpdate = 0;
+        if (inputRecording != null) {
+            inputRecording.recordFrame(currentTimeMillis());
+        }
         super.update(context);
-        long now = System.currentTimeMillis();
+        long now = currentTimeMillis();
         switch (gameState) {
             case INTRODUCING_LEVEL:
             case FINISHING_LEVEL:
@@ -146,9 +193,9 @@ public class RippleGolfGame extends Game {
             case PLAYING_LEVEL:
                 //update ripple
                 if (isRippleAlive()) {
-                    double radius = ripple.affectedArea.getBoundingRadius();
+                    double radius = rippleArea.getRadius();
                     if (0.5*radius < Math.sqrt(width * width + height * height)) {
-                        ripple.affectedArea = new GamePolyarcgonBuilder().addCircleContour(ripple.affectedArea.getX(), ripple.affectedArea.getY(), radius+RIPPLE_EXPANSION_RATE, true).withAdditionalAttributes(GameShapeAdditionalAttributesForDrawingEtc.RIPPLE_MATERIAL).buildAndReset();
+                        rippleArea.time++;
                     }
 
                     rippleAgeInFrames++;
@@ -172,6 +219,7 @@ public class RippleGolfGame extends Game {
                     winLevel(now);
                 } else {
                     gamePhysicsEngine.update();
+                    collisionSimulationsLastUpdate = gamePhysicsEngine.getMetrics().getCollisionSimulationCount();
                 }
                 break;
         }
@@ -184,36 +232,25 @@ public class RippleGolfGame extends Game {
         }
     }
 
-    public void draw(Canvas canvas) {
-        if (canvas != null) {
-            long now = System.currentTimeMillis();
-            switch (gameState) {
-                case INTRODUCING_LEVEL:
-                case PLAYING_LEVEL:
-                case FINISHING_LEVEL:
-                case PREVIEW_LEVEL:
-                    canvas.drawColor(Color.rgb(0, 255 * 3 / 4, 0));
-                    GameShapeDrawer.draw(canvas, hole, this); //hole on bottom
-                    ArrayList<GameShape> shapes = gamePhysicsEngine.getAllShapes();
-                    shapes.remove(hole);
-                    GameShapeDrawer.drawPotentialShadow(canvas, shapes, this);
-                    GameShapeDrawer.draw(canvas, shapes, this);
-                    if (isRippleAlive()) {
-                        GameShapeDrawer.draw(canvas, ripple.affectedArea, this);
-                    }
-                    for (GameWormhole wormhole : wormholes) {
-                        wormhole.draw(canvas);
-                    }
-                    GameShapeDrawer.draw(canvas, ball, this); //draw ball again to put it on top
-                    break;
-                case SPECIAL_ANIMATION:
-                    break;
-            }
-        }
-        super.drawStuffOnTop(canvas);
+    /**
+     * How many collision simulations (physics sub-steps) the last update() did, for GameFrameTimings
+     */
+    public int getCollisionSimulationsLastUpdate() {
+        return collisionSimulationsLastUpdate;
     }
 
-    public void onTouchEvent(MotionEvent event) {
+    @Override
+    public GameDrawingSnapshot newDrawingSnapshot() {
+        return new RippleGolfDrawingSnapshot(this);
+    }
+
+    /**
+     * Same as touching the screen at x, y, which starts a ripple there if there isn't one already
+     */
+    public void onTap(float x, float y) {
+        if (inputRecording != null) {
+            inputRecording.recordTap(x, y);
+        }
         switch (gameState) {
             case INTRODUCING_LEVEL:
             case FINISHING_LEVEL:
@@ -221,9 +258,11 @@ public class RippleGolfGame extends Game {
             case PLAYING_LEVEL:
                 if (!isRippleAlive()) {
                     if (ripple == null) {
-                        ripple = GameForceField.simplePushAwayForceField(null, GameForceField.PREFERRED_STRENGTH);
+                        rippleArea = new GameExpandingCircle(0, 0, 1, RIPPLE_EXPANSION_RATE, GameShapeAdditionalAttributesForDrawingEtc.RIPPLE_MATERIAL);
+                        rippleArea.setCollisionLayer(RIPPLE_LAYER);
+                        ripple = GameForceField.simplePushAwayForceField(rippleArea, GameForceField.PREFERRED_STRENGTH);
                     }
-                    ripple.affectedArea = new GamePolyarcgonBuilder().addCircleContour((int) (event.getX() + 0.5f), (int) (event.getY() + 0.5f), 1, true).withAdditionalAttributes(GameShapeAdditionalAttributesForDrawingEtc.RIPPLE_MATERIAL).buildAndReset();
+                    rippleArea.restart((int) (x + 0.5f), (int) (y + 0.5f));
                     gamePhysicsEngine.forceFields.add(ripple);
                     strokes++;
                     rippleAgeInFrames = numberOfFramesBallIsStuckForRipple = 0;
@@ -318,7 +357,7 @@ class RippleGolfGameLevel1 implements RippleGolfGameLevel {
                 //repeatedly explain game if user idles too long
                 if (game.levelText.isEmpty()) {
                     if (!createdRipple) {
-                        long now = System.currentTimeMillis();
+                        long now = game.currentTimeMillis();
                         if (now > lastTimeExplainedSomething + 15 * Game.SECOND_MS || lastTimeExplainedSomething == -1) {
                             long duration = 6 * Game.SECOND_MS;
                             game.levelText.put(0 * Game.SECOND_MS, new GameFadeableText("Press anywhere to create a ripple.", duration, game.width / 2.0, textY, game.width - 2 * borderThickness, textSize2, Color.BLACK));
@@ -327,7 +366,7 @@ class RippleGolfGameLevel1 implements RippleGolfGameLevel {
                         }
                     } else {
                         if (!game.isRippleAlive()) {
-                            long now = System.currentTimeMillis();
+                            long now = game.currentTimeMillis();
                             if (!explainedGoal || now > lastTimeExplainedSomething + 15 * Game.SECOND_MS || lastTimeExplainedSomething == -1) {
                                 long duration = 6 * Game.SECOND_MS;
                                 game.levelText.put(0 * Game.SECOND_MS, new GameFadeableText("Push the ball in the hole to win.", duration, game.width / 2.0, textY, game.width - 2*borderThickness, textSize2, Color.BLACK));
@@ -394,16 +433,7 @@ class RippleGolfGameLevel2 implements RippleGolfGameLevelWithSpeedFactor {
 
         double bladeAngle = Math.PI / 3.0;
         GamePolyarcgon windmill = RippleGolfGame.makeWindmill(windmillX, windmillY, windmillRadius, ballRadius * 1.1 / (Math.sin((Math.PI / 2.0 - bladeAngle) / 2.0)), bladeAngle, GameShapeAdditionalAttributesForDrawingEtc.SCI_FI_MATERIAL);
-        game.gamePhysicsEngine.addWall(windmill);
-
-        game.setLevelSpecialRules(new Runnable() {
-            @Override
-            public void run() {
-                if (game.gameState == RippleGolfGame.GameState.PLAYING_LEVEL) {
-                    windmill.rotationRadians -= speedFactor * Math.PI / 300.0;
-                }
-            }
-        });
+        game.gamePhysicsEngine.addKinematicShape(windmill, (shape, frame) -> shape.setRotation(-frame * speedFactor * Math.PI / 300.0), true);
 
         double textSize = shorterDimension / 10.0;
         double textSize2 = shorterDimension / 20.0;
@@ -467,22 +497,10 @@ class RippleGolfGameLevel3 implements RippleGolfGameLevelWithSpeedFactor {
         double bladeAngle = Math.PI / 3.0;
         double holeRadius = ballRadius * 1.1 / (Math.sin((Math.PI / 2.0 - bladeAngle) / 2.0));
         GamePolyarcgon windmill = RippleGolfGame.makeSealedWindmill(windmillX, windmillY, windmillRadius, holeRadius * 1.5, holeRadius, bladeAngle, GameShapeAdditionalAttributesForDrawingEtc.SCI_FI_MATERIAL);
+        // the ripple doesn't push the windmill
+        windmill.setCollisionLayer(RippleGolfGame.RIPPLE_PROOF_LAYER);
         game.gamePhysicsEngine.addMovableShape(windmill);
-        game.gamePhysicsEngine.addCollisionRule((shape1, shape2) -> {
-            GameShape otherShape;
-            if (shape1 == windmill) {
-                otherShape = shape2;
-            } else if (shape2 == windmill) {
-                otherShape = shape1;
-            } else {
-                return true;
-            }
-            if (game.ripple != null && otherShape == game.ripple.affectedArea) {
-                return false;
-            } else {
-                return true;
-            }
-        });
+        game.gamePhysicsEngine.setLayersCollide(RippleGolfGame.RIPPLE_LAYER, RippleGolfGame.RIPPLE_PROOF_LAYER, false);
 
         game.setLevelSpecialRules(new Runnable() {
             @Override
@@ -747,7 +765,7 @@ class RippleGolfGameLevel6 implements RippleGolfGameLevelWithSpeedFactor {
 
         builder.withAdditionalAttributes(GameShapeAdditionalAttributesForDrawingEtc.DARK_GREEN_MATERIAL);
         GamePolyarcgon rotatingC = builder.buildAndReset();
-        game.gamePhysicsEngine.addWall(rotatingC);
+        game.gamePhysicsEngine.addKinematicShape(rotatingC, (shape, frame) -> shape.setRotation(frame * speedFactor * Math.PI / 70.0), true);
 
         //build next rotating C
         RippleGolfGameLevel6.buildCShape(builder, rotatingC2ShorterDimension, rotatingC2LongerDimension, rotatingC2Radius, 2*roundedCornerEtcRadius, 2.0*ballRadius);
@@ -758,17 +776,7 @@ class RippleGolfGameLevel6 implements RippleGolfGameLevelWithSpeedFactor {
 
         builder.withAdditionalAttributes(GameShapeAdditionalAttributesForDrawingEtc.DARK_GREEN_MATERIAL);
         GamePolyarcgon rotatingC2 = builder.buildAndReset();
-        game.gamePhysicsEngine.addWall(rotatingC2);
-
-        game.setLevelSpecialRules(new Runnable() {
-            @Override
-            public void run() {
-                if (game.gameState == RippleGolfGame.GameState.PLAYING_LEVEL) {
-                    rotatingC.rotationRadians += speedFactor * Math.PI / 70.0;
-                    rotatingC2.rotationRadians -= speedFactor * Math.PI / 70.0;
-                }
-            }
-        });
+        game.gamePhysicsEngine.addKinematicShape(rotatingC2, (shape, frame) -> shape.setRotation(-frame * speedFactor * Math.PI / 70.0), true);
 
         double textSize = shorterDimension / 10.0;
         double textSize2 = shorterDimension / 20.0;
@@ -807,6 +815,8 @@ class RippleGolfGameLevel7 extends RippleGolfGameLevel6 {
     }
 }
 class RippleGolfGameLevel8 implements RippleGolfGameLevel {
+    // the seed RippleGolfGameLevel8Generator made the maze in R.raw.maze_1_perfect_par_11_seed_neg_1791509761 from
+    static final long MAZE_SEED = -1791509761;
     static RippleGolfGameLevel8 staticInstance = new RippleGolfGameLevel8();
     public static RippleGolfGameLevel8 getInstance() {
         return staticInstance;
@@ -860,7 +870,8 @@ class RippleGolfGameLevel8 implements RippleGolfGameLevel {
 
         GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
 
-        GameMaze maze = GameMaze.loadMaze(context, R.raw.maze_1_perfect_par_11_seed_neg_1791509761, mazeX, mazeY, mazePathThickness);
+        GameMaze maze = GameMaze.loadMaze(SaveAndLoad.gsonLoadRawResource(context, R.raw.maze_1_perfect_par_11_seed_neg_1791509761, GameMaze.TEMPLATE_WALLS_TYPE), mazeX, mazeY, mazePathThickness);
+        game.mazeSeed = MAZE_SEED;
         maze.build(builder, mazeWallThickness);
         if (game.width != shorterDimension) {
             builder.rotate(-Math.PI/2.0, shorterDimension/2.0, shorterDimension/2.0);
@@ -924,6 +935,7 @@ class RippleGolfGameLevel8Generator implements RippleGolfGameLevel {
         maze.randomize(mazeX, mazeY, holeX, holeY, (int) (Math.random()*Integer.MAX_VALUE)); // don't use 1/Math.random(), that somehow keeps resulting in the same mazes
 //        maze.randomize(mazeX, mazeY, holeX, holeY, -1791509761);
         GameMaze.saveMaze(maze.asGameMaze(), mazeX, mazeY, mazePathThickness);
+        game.mazeSeed = maze.randomSeedUsed;
         game.levelText.put(123L, new GameFadeableText(""+maze.randomSeedUsed, Long.MAX_VALUE/10, game.width/2.0, 0.9*game.height, game.width, game.width/20.0, Color.BLACK));
 
 //        GameMaze maze = GameMaze.loadMaze(context, R.raw.maze1, mazeX, mazeY, mazePathThickness);
@@ -1020,7 +1032,7 @@ class RippleGolfGameLevelTest implements RippleGolfGameLevel {
         builder.lineToRoundedTurn(windmillX, 0.2*game.height, 0.05*game.width, true);
         builder.lineToRoundedTurn(windmillX, 0.8*game.height, 0.05*game.width, true);
         GamePolyarcgon spinWall = builder.buildAndReset();
-        game.gamePhysicsEngine.addWall(spinWall);
+        game.gamePhysicsEngine.addKinematicShape(spinWall, (shape, frame) -> shape.setRotation(-frame * Math.PI / 300), true);
 
 
         int textSize = game.width / 10;
@@ -1028,12 +1040,6 @@ class RippleGolfGameLevelTest implements RippleGolfGameLevel {
         game.levelText.put(0 * Game.SECOND_MS, new GameFadeableText("Testing", 5 * Game.SECOND_MS, game.width / 2.0, game.height / 4.0, game.width - 2 * borderThickness, textSize, Color.BLACK));
         game.levelText.put(0 * Game.SECOND_MS + 1, new GameFadeableText("Testing", 5 * Game.SECOND_MS, game.width / 2.0, game.height / 4.0 + textSize + textSize2, game.width - 2 * borderThickness, textSize2, Color.BLACK));
         game.levelTextAtEnd.put(0 * Game.SECOND_MS, new GameFadeableText("Well done!", 2 * Game.SECOND_MS, game.width / 2.0, game.height / 2.0, game.width, textSize, Color.BLACK));
-
-        game.setLevelSpecialRules(() -> {
-            if (game.gameState == RippleGolfGame.GameState.PLAYING_LEVEL) {
-                spinWall.rotationRadians -= Math.PI / 300;
-            }
-        });
     }
 }
 
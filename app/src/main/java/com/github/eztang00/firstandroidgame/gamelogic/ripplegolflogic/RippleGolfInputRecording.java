@@ -0,0 +1,166 @@
+package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Everything needed to play one level again exactly the same way: the level, screen size and maze,
+ * the time of every frame and every tap, see RippleGolfGame.setRecordingInput() and RippleGolfReplay.
+ * <p>
+ * It's saved as a small binary file, the times and frames are saved as differences from the last one
+ * so most of them only take one byte:
+ * <pre>
+ * int MAGIC, byte VERSION
+ * int level, int width, int height, long mazeSeed, long levelIntroducingTime
+ * int frameCount, then for each frame: varint milliseconds since the last frame (or since the level started)
+ * int tapCount, then for each tap: varint frames since the last tap, float x, float y
+ * </pre>
+ */
+public class RippleGolfInputRecording {
+    private static final int MAGIC = 0x52475250; // "RGRP"
+    private static final byte VERSION = 1;
+
+    public final int level;
+    public final int width;
+    public final int height;
+    // RippleGolfGame.NO_MAZE_SEED if the level doesn't have a maze
+    public final long mazeSeed;
+    // it's different if the level was restarted or the last level was just won, see Game.initiateLevel()
+    public final long levelIntroducingTime;
+
+    private long lastFrameTime;
+    int frameCount = 0;
+    // milliseconds since the last frame, indexed by frame
+    int[] frameTimeDifferences = new int[64];
+    int tapCount = 0;
+    // the frame each tap came before, i.e. how many frames had been done when it came
+    int[] tapFrames = new int[8];
+    float[] tapXs = new float[8];
+    float[] tapYs = new float[8];
+
+    RippleGolfInputRecording(int level, int width, int height, long mazeSeed, long levelIntroducingTime, long levelStartTime) {
+        this.level = level;
+        this.width = width;
+        this.height = height;
+        this.mazeSeed = mazeSeed;
+        this.levelIntroducingTime = levelIntroducingTime;
+        this.lastFrameTime = levelStartTime;
+    }
+
+    void recordFrame(long now) {
+        if (frameCount == frameTimeDifferences.length) {
+            frameTimeDifferences = Arrays.copyOf(frameTimeDifferences, 2 * frameCount);
+        }
+        // the clock could go backwards (e.g. the user changes it), the game doesn't mind so just remember it as no time
+        frameTimeDifferences[frameCount++] = (int) Math.max(0, Math.min(Integer.MAX_VALUE, now - lastFrameTime));
+        lastFrameTime = Math.max(lastFrameTime, now);
+    }
+
+    void recordTap(float x, float y) {
+        if (tapCount == tapFrames.length) {
+            tapFrames = Arrays.copyOf(tapFrames, 2 * tapCount);
+            tapXs = Arrays.copyOf(tapXs, 2 * tapCount);
+            tapYs = Arrays.copyOf(tapYs, 2 * tapCount);
+        }
+        tapFrames[tapCount] = frameCount;
+        tapXs[tapCount] = x;
+        tapYs[tapCount] = y;
+        tapCount++;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getTapCount() {
+        return tapCount;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(level);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeLong(mazeSeed);
+        out.writeLong(levelIntroducingTime);
+        out.writeInt(frameCount);
+        for (int frame = 0; frame < frameCount; frame++) {
+            writeVarInt(out, frameTimeDifferences[frame]);
+        }
+        out.writeInt(tapCount);
+        int lastTapFrame = 0;
+        for (int tap = 0; tap < tapCount; tap++) {
+            writeVarInt(out, tapFrames[tap] - lastTapFrame);
+            out.writeFloat(tapXs[tap]);
+            out.writeFloat(tapYs[tap]);
+            lastTapFrame = tapFrames[tap];
+        }
+        out.flush();
+    }
+
+    public static RippleGolfInputRecording readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a ripple golf input recording");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("can't read version " + version + " ripple golf input recordings, only version " + VERSION);
+        }
+        RippleGolfInputRecording recording = new RippleGolfInputRecording(in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readLong(), 0);
+        int frameCount = readCount(in);
+        recording.frameTimeDifferences = new int[Math.max(frameCount, 1)];
+        for (int frame = 0; frame < frameCount; frame++) {
+            recording.frameTimeDifferences[frame] = readVarInt(in);
+        }
+        recording.frameCount = frameCount;
+        int tapCount = readCount(in);
+        recording.tapFrames = new int[Math.max(tapCount, 1)];
+        recording.tapXs = new float[Math.max(tapCount, 1)];
+        recording.tapYs = new float[Math.max(tapCount, 1)];
+        int tapFrame = 0;
+        for (int tap = 0; tap < tapCount; tap++) {
+            tapFrame += readVarInt(in);
+            recording.tapFrames[tap] = tapFrame;
+            recording.tapXs[tap] = in.readFloat();
+            recording.tapYs[tap] = in.readFloat();
+        }
+        recording.tapCount = tapCount;
+        return recording;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("broken ripple golf input recording, it says there's " + count + " of something");
+        }
+        return count;
+    }
+
+    // 7 bits at a time, lowest first, the top bit says whether there's more
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("broken ripple golf input recording, a number is too long");
+    }
+}
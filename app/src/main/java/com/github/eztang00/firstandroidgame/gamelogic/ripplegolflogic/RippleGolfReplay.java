@@ -0,0 +1,104 @@
+package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
+
+import android.content.Context;
+
+import com.github.eztang00.firstandroidgame.gamephysics.GamePhysicsEngine;
+import com.github.eztang00.firstandroidgame.gamephysics.GameShape;
+
+import java.util.ArrayList;
+
+/**
+ * Plays a RippleGolfInputRecording again as fast as possible, without drawing anything,
+ * and hashes where every shape ended up. If a change (e.g. to make the physics faster) gives the same hash
+ * for the same recordings, it didn't change how the game plays.
+ * <p>
+ * The game goes by a virtual clock that says what the real clock said during the recording, and the wall distance field is
+ * always waited for. It always does the full number of collision simulations each frame (no time budget),
+ * so if the time budget cut some short while it was being recorded the ball won't end up exactly where it did then,
+ * but the replay always ends up the same.
+ */
+public class RippleGolfReplay {
+    private static final long HASH_START = 0xcbf29ce484222325L;
+    private static final long HASH_MULTIPLIER = 0x100000001b3L;
+
+    /**
+     * How the replay went
+     */
+    public static class Result {
+        public final long poseHash;
+        // how long each frame's RippleGolfGame.update() took
+        public final long[] frameNanos;
+        public final int finalLevel;
+        public final int strokes;
+
+        Result(long poseHash, long[] frameNanos, int finalLevel, int strokes) {
+            this.poseHash = poseHash;
+            this.frameNanos = frameNanos;
+            this.finalLevel = finalLevel;
+            this.strokes = strokes;
+        }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (long nanos : frameNanos) {
+                total += nanos;
+            }
+            return total;
+        }
+
+        public long getWorstFrameNanos() {
+            long worst = 0;
+            for (long nanos : frameNanos) {
+                worst = Math.max(worst, nanos);
+            }
+            return worst;
+        }
+    }
+
+    /**
+     * @param context only used by levels that load things, like the maze in level 8
+     * @throws IllegalArgumentException if the level's maze isn't the one that was recorded
+     */
+    public static Result replay(Context context, RippleGolfInputRecording recording) {
+        // a one element array so the clock can see it change
+        long[] virtualTime = {0};
+        RippleGolfGame game = new RippleGolfGame(false);
+        game.setClock(() -> virtualTime[0]);
+        game.gamePhysicsEngine.removeCollisionSimulationTimeBudget();
+        game.level = recording.level;
+        game.setSize(context, recording.width, recording.height);
+        if (game.mazeSeed != recording.mazeSeed) {
+            throw new IllegalArgumentException("level " + recording.level + "'s maze was made from seed " + recording.mazeSeed + " when it was recorded but now it's " + game.mazeSeed);
+        }
+        game.levelIntroducingTime = recording.levelIntroducingTime;
+
+        long[] frameNanos = new long[recording.frameCount];
+        int tap = 0;
+        for (int frame = 0; frame < recording.frameCount; frame++) {
+            virtualTime[0] += recording.frameTimeDifferences[frame];
+            while (tap < recording.tapCount && recording.tapFrames[tap] == frame) {
+                game.onTap(recording.tapXs[tap], recording.tapYs[tap]);
+                tap++;
+            }
+            game.gamePhysicsEngine.waitForWallDistanceField();
+            long start = System.nanoTime();
+            game.update(context);
+            frameNanos[frame] = System.nanoTime() - start;
+        }
+        return new Result(hashShapePoses(game.gamePhysicsEngine), frameNanos, game.level, game.strokes);
+    }
+
+    /**
+     * A hash of the exact x, y and rotation of every shape in the engine, in the order they were added
+     */
+    public static long hashShapePoses(GamePhysicsEngine engine) {
+        long hash = HASH_START;
+        ArrayList<GameShape> shapes = engine.getAllShapes();
+        for (GameShape shape : shapes) {
+            hash = (hash ^ Double.doubleToLongBits(shape.getX())) * HASH_MULTIPLIER;
+            hash = (hash ^ Double.doubleToLongBits(shape.getY())) * HASH_MULTIPLIER;
+            hash = (hash ^ Double.doubleToLongBits(shape.getRotation())) * HASH_MULTIPLIER;
+        }
+        return hash;
+    }
+}
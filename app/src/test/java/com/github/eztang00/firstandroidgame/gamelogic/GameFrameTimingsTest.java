@@ -0,0 +1,64 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the ring buffers keep the most recent updates and frames in order, and the export has every metric.
+ */
+public class GameFrameTimingsTest {
+    @Test
+    public void recent_keepsTheLastOnesOldestFirst() {
+        GameFrameTimings timings = new GameFrameTimings();
+        int updates = GameFrameTimings.RECENT_COUNT + 10;
+        for (int i = 0; i < updates; i++) {
+            timings.recordUpdate(1000 + i, i % 7, i == 5 ? 2 : 0);
+            timings.recordSleep(50 + i);
+        }
+        assertEquals(updates, timings.getUpdateCount());
+        assertEquals(2, timings.getGarbageCollections());
+
+        long[] updateNanos = new long[GameFrameTimings.RECENT_COUNT * 2];
+        assertEquals(GameFrameTimings.RECENT_COUNT, timings.copyRecentUpdateNanos(updateNanos));
+        assertEquals(1010, updateNanos[0]);
+        assertEquals(1000 + updates - 1, updateNanos[GameFrameTimings.RECENT_COUNT - 1]);
+        long[] sleepNanos = new long[3];
+        assertEquals(3, timings.copyRecentSleepNanos(sleepNanos));
+        assertEquals(50 + updates - 1, sleepNanos[2]);
+        int[] collisionSimulations = new int[1];
+        timings.copyRecentCollisionSimulations(collisionSimulations);
+        assertEquals((updates - 1) % 7, collisionSimulations[0]);
+        assertEquals(updates, timings.updateNanos.getTotalCount());
+        assertEquals(1000 + updates - 1, timings.updateNanos.getMax());
+    }
+
+    @Test
+    public void frames_firstHasNoInterval() {
+        GameFrameTimings timings = new GameFrameTimings();
+        timings.recordFrame(5_000_000, 0);
+        timings.recordFrame(6_000_000, 16_000_000);
+        long[] intervals = new long[4];
+        assertEquals(2, timings.copyRecentFrameIntervalNanos(intervals));
+        assertEquals(0, intervals[0]);
+        assertEquals(16_000_000, intervals[1]);
+        assertEquals(1, timings.frameIntervalNanos.getTotalCount());
+        assertEquals(2, timings.drawNanos.getTotalCount());
+    }
+
+    @Test
+    public void export_hasEveryMetric() {
+        GameFrameTimings timings = new GameFrameTimings();
+        timings.recordUpdate(2_000_000, 3, -1);
+        timings.recordFrame(8_000_000, 0);
+        String csv = timings.exportPercentiles();
+        String[] lines = csv.split("\n");
+        assertEquals("metric,count,p50,p95,p99,max", lines[0]);
+        assertEquals(7, lines.length);
+        assertTrue(csv, csv.contains("update_ms,1,2.000,2.000,2.000,2.000"));
+        assertTrue(csv, csv.contains("collision_simulations,1,3.000,3.000,3.000,3.000"));
+        assertTrue(csv, csv.contains("draw_ms,1,8.000,"));
+        assertTrue(csv, csv.contains("garbage_collections,0,"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the histogram's percentiles are within a bucket of the exact ones.
+ */
+public class GameHistogramTest {
+    @Test
+    public void smallValues_exact() {
+        GameHistogram histogram = new GameHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (int value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+        assertEquals(21, histogram.getTotalCount());
+        assertEquals(20, histogram.getMax());
+        assertEquals(10, histogram.getPercentile(50));
+        assertEquals(20, histogram.getPercentile(99));
+        assertEquals(0, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void buckets_coverEveryValueOnce() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 16_666_667, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = GameHistogram.bucketIndex(value);
+            assertTrue(value <= GameHistogram.bucketUpperBound(bucket));
+            if (bucket > 0) {
+                assertTrue(value > GameHistogram.bucketUpperBound(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void percentiles_withinAboutThreePercent() {
+        Random random = new Random(1);
+        GameHistogram histogram = new GameHistogram();
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // mostly around 4 ms with some slow ones, like update times
+            values[i] = (long) (4e6 * Math.exp(random.nextGaussian() * 0.5));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[]{50, 95, 99}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long approximate = histogram.getPercentile(percentile);
+            assertTrue(percentile + ": " + approximate + " vs " + exact, approximate >= exact && approximate <= exact * 1.04);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentile(100));
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * Checks taps come out in order exactly as they went in, including from another thread.
+ */
+public class TapQueueTest {
+    @Test
+    public void taps_comeOutInOrder() {
+        TapQueue queue = new TapQueue(4);
+        assertTrue(queue.offer(1.5f, -2));
+        assertTrue(queue.offer(Float.MAX_VALUE, 0));
+        ArrayList<float[]> taps = new ArrayList<>();
+        assertEquals(2, queue.pollTo((x, y) -> taps.add(new float[]{x, y})));
+        assertEquals(1.5f, taps.get(0)[0], 0);
+        assertEquals(-2, taps.get(0)[1], 0);
+        assertEquals(Float.MAX_VALUE, taps.get(1)[0], 0);
+        assertEquals(0, taps.get(1)[1], 0);
+        assertEquals(0, queue.pollTo((x, y) -> taps.add(new float[]{x, y})));
+    }
+
+    @Test
+    public void full_dropsNewTaps() {
+        TapQueue queue = new TapQueue(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i, i));
+        }
+        assertFalse(queue.offer(4, 4));
+        float[] lastX = {-1};
+        assertEquals(4, queue.pollTo((x, y) -> lastX[0] = x));
+        assertEquals(3, lastX[0], 0);
+        assertTrue(queue.offer(5, 5));
+    }
+
+    @Test
+    public void concurrently_everyTapArrivesOnceInOrder() throws InterruptedException {
+        final int tapCount = 50_000;
+        TapQueue queue = new TapQueue(64);
+        Thread uiThread = new Thread(() -> {
+            for (int i = 0; i < tapCount; i++) {
+                while (!queue.offer(i, -i)) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    Thread.yield();
+                }
+            }
+        });
+        // so a failed assert can't leave it spinning on a full queue and keep the test JVM running
+        uiThread.setDaemon(true);
+        uiThread.start();
+        try {
+            int[] next = {0};
+            while (next[0] < tapCount) {
+                queue.pollTo((x, y) -> {
+                    assertEquals(next[0], x, 0);
+                    assertEquals(-next[0], y, 0);
+                    next[0]++;
+                });
+            }
+        } finally {
+            uiThread.interrupt();
+        }
+        uiThread.join();
+    }
+}
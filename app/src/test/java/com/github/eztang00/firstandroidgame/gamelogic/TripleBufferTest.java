@@ -0,0 +1,73 @@
+package com.github.eztang00.firstandroidgame.gamelogic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the reader always gets the latest whole thing the writer published, and they never share a buffer.
+ */
+public class TripleBufferTest {
+    @Test
+    public void reader_getsTheLatestPublished() {
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[1], new long[1], new long[1]);
+        assertNull(buffer.acquireLatest());
+
+        buffer.getBackBuffer()[0] = 1;
+        buffer.publish();
+        buffer.getBackBuffer()[0] = 2;
+        buffer.publish();
+        long[] latest = buffer.acquireLatest();
+        assertEquals(2, latest[0]);
+        // nothing new, so the same one again
+        assertSame(latest, buffer.acquireLatest());
+
+        buffer.getBackBuffer()[0] = 3;
+        assertNotSame(latest, buffer.getBackBuffer());
+        buffer.publish();
+        assertEquals(3, buffer.acquireLatest()[0]);
+    }
+
+    /**
+     * The writer fills every element of a buffer with the same number, so if the reader ever sees a mixture
+     * the writer was writing into a buffer the reader had
+     */
+    @Test
+    public void concurrently_readerNeverSeesAHalfWrittenBuffer() throws InterruptedException {
+        final int length = 256;
+        final long publishes = 200_000;
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[length], new long[length], new long[length]);
+        Thread writer = new Thread(() -> {
+            for (long value = 1; value <= publishes; value++) {
+                long[] back = buffer.getBackBuffer();
+                for (int i = 0; i < length; i++) {
+                    back[i] = value;
+                }
+                buffer.publish();
+            }
+        });
+        writer.start();
+        long lastValue = 0;
+        int reads = 0;
+        while (lastValue < publishes) {
+            long[] latest = buffer.acquireLatest();
+            if (latest == null) {
+                continue;
+            }
+            long value = latest[0];
+            for (int i = 1; i < length; i++) {
+                assertEquals(value, latest[i]);
+            }
+            // never goes back to an older one
+            assertTrue(value >= lastValue);
+            lastValue = value;
+            reads++;
+        }
+        writer.join();
+        assertTrue(reads > 0);
+    }
+}
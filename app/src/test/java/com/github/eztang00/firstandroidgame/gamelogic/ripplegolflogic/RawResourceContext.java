@@ -0,0 +1,40 @@
+package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
+
+import android.content.ContextWrapper;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+
+import com.github.eztang00.firstandroidgame.R;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+/**
+ * Just enough of a Context for the levels, which only need it to read the maze out of res/raw.
+ * The tests run in the app module's folder, so the file is found from there.
+ */
+class RawResourceContext extends ContextWrapper {
+    private final Resources resources = new Resources((AssetManager) null, null, null) {
+        @Override
+        public InputStream openRawResource(int id) {
+            if (id != R.raw.maze_1_perfect_par_11_seed_neg_1791509761) {
+                throw new Resources.NotFoundException("only the level 8 maze is here, not " + id);
+            }
+            try {
+                return new FileInputStream("src/main/res/raw/maze_1_perfect_par_11_seed_neg_1791509761.json");
+            } catch (FileNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    RawResourceContext() {
+        super(null);
+    }
+
+    @Override
+    public Resources getResources() {
+        return resources;
+    }
+}
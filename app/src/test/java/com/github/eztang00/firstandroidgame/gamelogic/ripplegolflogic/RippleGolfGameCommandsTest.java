@@ -0,0 +1,42 @@
+package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import org.junit.Test;
+
+/**
+ * Checks changes the UI thread asks for (see Game.runOnUpdateThread()) don't touch the game
+ * until the update thread runs them, and then happen in the order they were asked for.
+ */
+public class RippleGolfGameCommandsTest {
+    @Test
+    public void commandsFromAnotherThread_onlyRunByTheUpdateThread() throws InterruptedException {
+        Context context = new RawResourceContext();
+        RippleGolfGame game = new RippleGolfGame(false);
+        game.setSize(context, 1080, 1920);
+        game.initiateLevel(context, 1, false);
+
+        Thread uiThread = new Thread(() -> {
+            game.runOnUpdateThread(updateThreadContext -> game.setSize(updateThreadContext, 720, 1280));
+            game.runOnUpdateThread(updateThreadContext -> game.initiateLevel(updateThreadContext, 3, false));
+            // runs after the level 3 one, so it sees level 3
+            game.runOnUpdateThread(updateThreadContext -> game.initiateLevel(updateThreadContext, game.level + 1, false));
+        });
+        uiThread.start();
+        uiThread.join();
+        assertEquals(1, game.level);
+        assertEquals(1080, game.width);
+
+        game.runCommandsFromOtherThreads(context);
+        assertEquals(4, game.level);
+        assertEquals(720, game.width);
+        assertEquals(1280, game.height);
+
+        // each command only runs once
+        game.initiateLevel(context, 2, false);
+        game.runCommandsFromOtherThreads(context);
+        assertEquals(2, game.level);
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import com.github.eztang00.firstandroidgame.gamephysics.GamePhysicsEngineMetrics;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Plays every level the way RippleGolfGame builds it, with the same taps every time, and writes down how fast
+ * GamePhysicsEngine.update() is and how much work it did each frame (collision simulations i.e. sub-steps, pair tests, contacts).
+ * It's a baseline to compare every physics change against: the counts come out exactly the same every run, only the times change.
+ *
+ * Run with ./gradlew :app:testDebugUnitTest --tests '*RippleGolfGameLevelBenchmark*' -PbenchmarkFrames=3000,
+ * the table is written to app/build/reports/ripple_golf_level_benchmark.txt. Without -PbenchmarkFrames only sameCountsEveryRun() runs.
+ * There's no real Context or Canvas, nothing is drawn and the maze in level 8 is read straight out of res/raw.
+ */
+public class RippleGolfGameLevelBenchmark {
+    private static final int[][] SCREEN_SIZES = {{1080, 1920}, {720, 1280}};
+    // where to tap, as fractions of the screen's width and height, one every TAP_INTERVAL_FRAMES frames as long as the last ripple's gone
+    private static final double[][] TAPS = {{0.5, 0.8}, {0.2, 0.15}, {0.85, 0.5}, {0.5, 0.05}, {0.1, 0.6}};
+    private static final int TAP_INTERVAL_FRAMES = 100;
+    private static final int WARM_UP_FRAMES = 300;
+    private static final String TABLE_FILE = "build/reports/ripple_golf_level_benchmark.txt";
+    private static final int LEVEL_COUNT = 8;
+
+    /**
+     * What happened over the measured frames of one level
+     */
+    static class LevelResult {
+        int frames = 0;
+        long nanos = 0;
+        long worstFrameNanos = 0;
+        long collisionSimulations = 0;
+        long skippedCollisionSimulations = 0;
+        long pairTests = 0;
+        long contacts = 0;
+        int holes = 0;
+        int taps = 0;
+
+        String toTableRow(int width, int height, int level) {
+            return String.format(Locale.ROOT, "%4dx%-4d level %d %8.0f fps %6.2f ms worst %6.1f sub-steps (+%5.1f skipped) %7.1f pair tests %6.1f contacts per frame, %d taps %d holes",
+                    width, height, level, frames / (nanos / 1e9), worstFrameNanos / 1e6,
+                    collisionSimulations / (double) frames, skippedCollisionSimulations / (double) frames,
+                    pairTests / (double) frames, contacts / (double) frames, taps, holes);
+        }
+    }
+
+    @Test
+    public void allLevels() throws IOException {
+        // takes a while, so only when asked for
+        Assume.assumeTrue(System.getProperty("benchmarkFrames") != null);
+        int measuredFrames = Integer.getInteger("benchmarkFrames");
+        Context context = new RawResourceContext();
+        StringBuilder table = new StringBuilder();
+        for (int[] size : SCREEN_SIZES) {
+            for (int level = 1; level <= LEVEL_COUNT; level++) {
+                LevelResult result = play(context, size[0], size[1], level, WARM_UP_FRAMES, measuredFrames);
+                assertEquals(measuredFrames, result.frames);
+                assertTrue("level " + level + " never collided with anything", result.contacts > 0);
+                table.append(result.toTableRow(size[0], size[1], level)).append('\n');
+            }
+        }
+        File tableFile = new File(TABLE_FILE);
+        tableFile.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(tableFile)) {
+            writer.print(table);
+        }
+    }
+
+    @Test
+    public void sameCountsEveryRun() {
+        Context context = new RawResourceContext();
+        for (int level = 1; level <= LEVEL_COUNT; level++) {
+            LevelResult result = play(context, 1080, 1920, level, 0, 250);
+            LevelResult again = play(context, 1080, 1920, level, 0, 250);
+            assertEquals(result.collisionSimulations, again.collisionSimulations);
+            assertEquals(result.skippedCollisionSimulations, again.skippedCollisionSimulations);
+            assertEquals(result.pairTests, again.pairTests);
+            assertEquals(result.contacts, again.contacts);
+        }
+    }
+
+    /**
+     * Plays the level for warmUpFrames then measures the next measuredFrames, starting it again whenever the ball goes in the hole
+     */
+    static LevelResult play(Context context, int width, int height, int level, int warmUpFrames, int measuredFrames) {
+        RippleGolfGame game = new RippleGolfGame(false);
+        // otherwise how many collision simulations it does depends on how fast the computer is
+        game.gamePhysicsEngine.removeCollisionSimulationTimeBudget();
+        game.setSize(context, width, height);
+        startLevel(context, game, level);
+        LevelResult result = new LevelResult();
+        for (int frame = 0; frame < warmUpFrames + measuredFrames; frame++) {
+            boolean measuring = frame >= warmUpFrames;
+            if (frame % TAP_INTERVAL_FRAMES == 0 && !game.isRippleAlive()) {
+                double[] tap = TAPS[(frame / TAP_INTERVAL_FRAMES) % TAPS.length];
+                game.onTap((float) (tap[0] * width), (float) (tap[1] * height));
+                if (measuring) {
+                    result.taps++;
+                }
+            }
+            long start = System.nanoTime();
+            game.update(context);
+            long frameNanos = System.nanoTime() - start;
+            if (measuring) {
+                GamePhysicsEngineMetrics metrics = game.gamePhysicsEngine.getMetrics();
+                result.frames++;
+                result.nanos += frameNanos;
+                result.worstFrameNanos = Math.max(result.worstFrameNanos, frameNanos);
+                result.collisionSimulations += metrics.getCollisionSimulationCount();
+                result.skippedCollisionSimulations += metrics.getSkippedCollisionSimulationCount();
+                result.pairTests += metrics.getPairTestCount();
+                result.contacts += metrics.getContactCount();
+            }
+            if (game.gameState != RippleGolfGame.GameState.PLAYING_LEVEL) {
+                if (measuring) {
+                    result.holes++;
+                }
+                startLevel(context, game, level);
+            }
+        }
+        return result;
+    }
+
+    private static void startLevel(Context context, RippleGolfGame game, int level) {
+        game.initiateLevel(context, level, true);
+        // skip the level's introduction, which waits for real time to pass
+        game.gameState = RippleGolfGame.GameState.PLAYING_LEVEL;
+        // otherwise the first frames depend on how fast the background thread builds it
+        game.gamePhysicsEngine.waitForWallDistanceField();
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.eztang00.firstandroidgame.gamelogic.ripplegolflogic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Checks a recorded game plays again exactly the same way, and replays a recording from a file
+ * with ./gradlew :app:testDebugUnitTest --tests '*RippleGolfReplayTest*' -PreplayFile=/path/to/recording
+ */
+public class RippleGolfReplayTest {
+    private static final int FRAMES = 600;
+
+    @Test
+    public void replay_endsWhereTheRecordedGameEnded() throws IOException {
+        Context context = new RawResourceContext();
+        for (int level : new int[]{3, 6, 8}) {
+            RippleGolfGame game = playAndRecord(context, level);
+            RippleGolfInputRecording recording = game.getInputRecording();
+            assertEquals(level, recording.level);
+            assertEquals(FRAMES, recording.getFrameCount());
+
+            RippleGolfReplay.Result result = RippleGolfReplay.replay(context, writeAndRead(recording));
+            assertEquals(RippleGolfReplay.hashShapePoses(game.gamePhysicsEngine), result.poseHash);
+            assertEquals(game.strokes, result.strokes);
+            assertEquals(FRAMES, result.frameNanos.length);
+        }
+    }
+
+    @Test
+    public void recording_isTheSameAfterSavingAndLoading() throws IOException {
+        Context context = new RawResourceContext();
+        RippleGolfInputRecording recording = playAndRecord(context, 8).getInputRecording();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recording.writeTo(bytes);
+        // mostly one byte a frame
+        assertTrue(bytes.size() < 64 + 2 * recording.getFrameCount() + 12 * recording.getTapCount());
+
+        RippleGolfInputRecording loaded = RippleGolfInputRecording.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(recording.level, loaded.level);
+        assertEquals(recording.width, loaded.width);
+        assertEquals(recording.height, loaded.height);
+        assertEquals(RippleGolfGameLevel8.MAZE_SEED, loaded.mazeSeed);
+        assertEquals(recording.levelIntroducingTime, loaded.levelIntroducingTime);
+        assertEquals(recording.getFrameCount(), loaded.getFrameCount());
+        for (int frame = 0; frame < recording.getFrameCount(); frame++) {
+            assertEquals(recording.frameTimeDifferences[frame], loaded.frameTimeDifferences[frame]);
+        }
+        assertEquals(recording.getTapCount(), loaded.getTapCount());
+        for (int tap = 0; tap < recording.getTapCount(); tap++) {
+            assertEquals(recording.tapFrames[tap], loaded.tapFrames[tap]);
+            assertEquals(recording.tapXs[tap], loaded.tapXs[tap], 0);
+            assertEquals(recording.tapYs[tap], loaded.tapYs[tap], 0);
+        }
+    }
+
+    /**
+     * Writes the hash and how long the frames took next to the recording, in .summary.txt, and every frame's time in .timings.csv
+     */
+    @Test
+    public void replayFile() throws IOException {
+        String replayFile = System.getProperty("replayFile");
+        Assume.assumeTrue(replayFile != null);
+        RippleGolfInputRecording recording;
+        try (InputStream in = new FileInputStream(replayFile)) {
+            recording = RippleGolfInputRecording.readFrom(in);
+        }
+        RippleGolfReplay.Result result = RippleGolfReplay.replay(new RawResourceContext(), recording);
+        String summary = String.format(Locale.ROOT, "level %d %dx%d, %d frames %d taps: pose hash %016x, %.1f ms total %.2f ms worst frame, ended on level %d with %d strokes",
+                recording.level, recording.width, recording.height, recording.getFrameCount(), recording.getTapCount(),
+                result.poseHash, result.getTotalNanos() / 1e6, result.getWorstFrameNanos() / 1e6, result.finalLevel, result.strokes);
+        assertTrue(summary, result.frameNanos.length == recording.getFrameCount());
+        try (PrintWriter summaryWriter = new PrintWriter(replayFile + ".summary.txt")) {
+            summaryWriter.println(summary);
+        }
+        try (PrintWriter timings = new PrintWriter(replayFile + ".timings.csv")) {
+            timings.println("frame,nanos");
+            for (int frame = 0; frame < result.frameNanos.length; frame++) {
+                timings.println(frame + "," + result.frameNanos[frame]);
+            }
+        }
+    }
+
+    /**
+     * Plays the level like someone tapping now and then, with a made up clock that sometimes has a slow frame
+     */
+    private static RippleGolfGame playAndRecord(Context context, int level) {
+        long[] time = {1_000_000};
+        RippleGolfGame game = new RippleGolfGame(false);
+        game.setClock(() -> time[0]);
+        // the same as the replay, so this is exactly what happened
+        game.gamePhysicsEngine.removeCollisionSimulationTimeBudget();
+        game.setRecordingInput(true);
+        game.level = level;
+        game.setSize(context, 1080, 1920);
+        for (int frame = 0; frame < FRAMES; frame++) {
+            time[0] += (frame % 100 == 99) ? 300 : 16 + frame % 2;
+            if (frame % 90 == 20) {
+                game.onTap(100 + 7 * (frame % 130), 1900 - 3 * frame);
+            }
+            game.gamePhysicsEngine.waitForWallDistanceField();
+            game.update(context);
+        }
+        return game;
+    }
+
+    private static RippleGolfInputRecording writeAndRead(RippleGolfInputRecording recording) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recording.writeTo(bytes);
+        return RippleGolfInputRecording.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three kernels at the bottom of every polyarcgon collision, which work out how one pair of edges adds to the overlap.
+ * Each benchmark goes through EDGE_PAIRS pairs of edges from two overlapping rounded rectangles, only pairs close enough
+ * that the edge trees would have let them through, so the score is nanoseconds per pair of edges.
+ *
+ * Run with ./gradlew :gamephysics:jmh, the gc profiler adds gc.alloc.rate.norm (bytes allocated per op), which should be 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EdgeIntersectionBenchmark {
+    static final int EDGE_PAIRS = 256;
+
+    @Param
+    public OverlapCalculatorKind calculatorKind;
+
+    private GamePolyarcgon shape;
+    private GamePolyarcgon otherShape;
+    private PolyarcgonGeometry geometry;
+    private PolyarcgonGeometry otherGeometry;
+    private OverlapCalculator calculator;
+    // the edges of each pair, the first from shape and the second from otherShape, except the line segment is always first for lineSegmentWithArc
+    private final int[] lineSegmentWithLineSegmentEdges = new int[2 * EDGE_PAIRS];
+    private final int[] lineSegmentWithArcEdges = new int[2 * EDGE_PAIRS];
+    private final boolean[] lineSegmentWithArcLineSegmentIsFirstShape = new boolean[EDGE_PAIRS];
+    private final int[] arcWithArcEdges = new int[2 * EDGE_PAIRS];
+
+    @Setup
+    public void setUp() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        // lots of short edges of both kinds, crossing each other at different angles
+        for (int i = 0; i < 6; i++) {
+            builder.addRoundedRectangleContour(100 + 70 * i, 100, 150 + 70 * i, 500, 20, true);
+        }
+        shape = builder.buildAndReset();
+        for (int i = 0; i < 6; i++) {
+            builder.addRoundedRectangleContour(100, 100 + 70 * i, 500, 150 + 70 * i, 20, true);
+        }
+        otherShape = builder.buildAndReset();
+        otherShape.setRotation(0.2);
+        shape.updateCollisionCaches();
+        otherShape.updateCollisionCaches();
+        geometry = shape.geometryCache.get();
+        otherGeometry = otherShape.geometryCache.get();
+        calculator = calculatorKind.make(shape, otherShape);
+
+        int lineSegmentWithLineSegmentCount = 0;
+        int lineSegmentWithArcCount = 0;
+        int arcWithArcCount = 0;
+        // goes round and round the close pairs until each list is full
+        while (lineSegmentWithLineSegmentCount < EDGE_PAIRS || lineSegmentWithArcCount < EDGE_PAIRS || arcWithArcCount < EDGE_PAIRS) {
+            int foundBefore = lineSegmentWithLineSegmentCount + lineSegmentWithArcCount + arcWithArcCount;
+            for (int edge = 0; edge < geometry.pointCount; edge++) {
+                for (int otherEdge = 0; otherEdge < otherGeometry.pointCount; otherEdge++) {
+                    if (!edgeBoxesOverlap(geometry, edge, otherGeometry, otherEdge)) {
+                        continue;
+                    }
+                    byte kind = geometry.edgeKinds[edge];
+                    byte otherKind = otherGeometry.edgeKinds[otherEdge];
+                    if (kind == PolyarcgonGeometry.STRAIGHT_EDGE && otherKind == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                        if (lineSegmentWithLineSegmentCount < EDGE_PAIRS) {
+                            lineSegmentWithLineSegmentEdges[2 * lineSegmentWithLineSegmentCount] = edge;
+                            lineSegmentWithLineSegmentEdges[2 * lineSegmentWithLineSegmentCount + 1] = otherEdge;
+                            lineSegmentWithLineSegmentCount++;
+                        }
+                    } else if (kind == PolyarcgonGeometry.ARC_EDGE && otherKind == PolyarcgonGeometry.ARC_EDGE) {
+                        if (arcWithArcCount < EDGE_PAIRS) {
+                            arcWithArcEdges[2 * arcWithArcCount] = edge;
+                            arcWithArcEdges[2 * arcWithArcCount + 1] = otherEdge;
+                            arcWithArcCount++;
+                        }
+                    } else if (kind != PolyarcgonGeometry.NO_EDGE && otherKind != PolyarcgonGeometry.NO_EDGE) {
+                        if (lineSegmentWithArcCount < EDGE_PAIRS) {
+                            boolean lineSegmentIsFirstShape = kind == PolyarcgonGeometry.STRAIGHT_EDGE;
+                            lineSegmentWithArcEdges[2 * lineSegmentWithArcCount] = lineSegmentIsFirstShape ? edge : otherEdge;
+                            lineSegmentWithArcEdges[2 * lineSegmentWithArcCount + 1] = lineSegmentIsFirstShape ? otherEdge : edge;
+                            lineSegmentWithArcLineSegmentIsFirstShape[lineSegmentWithArcCount] = lineSegmentIsFirstShape;
+                            lineSegmentWithArcCount++;
+                        }
+                    }
+                }
+            }
+            if (lineSegmentWithLineSegmentCount + lineSegmentWithArcCount + arcWithArcCount == foundBefore) {
+                throw new IllegalStateException("the shapes don't have close edges of every kind");
+            }
+        }
+    }
+
+    /**
+     * Whether the boxes around the edges overlap, using the arcs' whole circles
+     */
+    private static boolean edgeBoxesOverlap(PolyarcgonGeometry geometry, int edge, PolyarcgonGeometry otherGeometry, int otherEdge) {
+        double[] box = edgeBox(geometry, edge);
+        double[] otherBox = edgeBox(otherGeometry, otherEdge);
+        return box[0] <= otherBox[2] && otherBox[0] <= box[2] && box[1] <= otherBox[3] && otherBox[1] <= box[3];
+    }
+
+    private static double[] edgeBox(PolyarcgonGeometry geometry, int edge) {
+        if (geometry.edgeKinds[edge] == PolyarcgonGeometry.ARC_EDGE) {
+            double radius = geometry.radiiOfCurvature[edge];
+            return new double[] {geometry.arcCenterXs[edge] - radius, geometry.arcCenterYs[edge] - radius, geometry.arcCenterXs[edge] + radius, geometry.arcCenterYs[edge] + radius};
+        }
+        int lastPoint = geometry.previousPoint(edge);
+        return new double[] {Math.min(geometry.xs[lastPoint], geometry.xs[edge]), Math.min(geometry.ys[lastPoint], geometry.ys[edge]),
+                Math.max(geometry.xs[lastPoint], geometry.xs[edge]), Math.max(geometry.ys[lastPoint], geometry.ys[edge])};
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDGE_PAIRS)
+    public double lineSegmentWithLineSegment() {
+        OverlapCalculatorKind.reset(calculator, shape, otherShape);
+        for (int i = 0; i < EDGE_PAIRS; i++) {
+            int edge = lineSegmentWithLineSegmentEdges[2 * i];
+            int otherEdge = lineSegmentWithLineSegmentEdges[2 * i + 1];
+            GamePolyarcgon.addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(calculator, geometry, geometry.previousPoint(edge), edge, otherGeometry, otherGeometry.previousPoint(otherEdge), otherEdge);
+        }
+        return OverlapCalculatorKind.overlapArea(calculator);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDGE_PAIRS)
+    public double lineSegmentWithArc() {
+        OverlapCalculatorKind.reset(calculator, shape, otherShape);
+        for (int i = 0; i < EDGE_PAIRS; i++) {
+            boolean lineSegmentIsFirstShape = lineSegmentWithArcLineSegmentIsFirstShape[i];
+            PolyarcgonGeometry lineSegmentGeometry = lineSegmentIsFirstShape ? geometry : otherGeometry;
+            PolyarcgonGeometry arcGeometry = lineSegmentIsFirstShape ? otherGeometry : geometry;
+            int lineSegmentEdge = lineSegmentWithArcEdges[2 * i];
+            int arcEdge = lineSegmentWithArcEdges[2 * i + 1];
+            GamePolyarcgon.addPotentialLineSegmentIntersectionWithArcToOverlap(calculator, lineSegmentGeometry, lineSegmentGeometry.previousPoint(lineSegmentEdge), lineSegmentEdge, arcGeometry, arcGeometry.previousPoint(arcEdge), arcEdge, lineSegmentIsFirstShape);
+        }
+        return OverlapCalculatorKind.overlapArea(calculator);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDGE_PAIRS)
+    public double arcWithArc() {
+        OverlapCalculatorKind.reset(calculator, shape, otherShape);
+        for (int i = 0; i < EDGE_PAIRS; i++) {
+            int edge = arcWithArcEdges[2 * i];
+            int otherEdge = arcWithArcEdges[2 * i + 1];
+            GamePolyarcgon.addPotentialArcIntersectionWithArcToOverlap(calculator, geometry, geometry.previousPoint(edge), edge, otherGeometry, otherGeometry.previousPoint(otherEdge), otherEdge);
+        }
+        return OverlapCalculatorKind.overlapArea(calculator);
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * The OverlapCalculators the benchmarks feed the collision code into, as a JMH @Param
+ */
+public enum OverlapCalculatorKind {
+    // what the engine uses for collisions, only needs the totals
+    GRADIENT_FORCE {
+        @Override
+        OverlapCalculator make(GameShape firstShape, GameShape otherShape) {
+            return new OverlapGradientForceCalculator(firstShape, otherShape);
+        }
+    },
+    // what e.g. the center of mass is worked out with, wants every edge
+    AREA_INTEGRAL {
+        @Override
+        OverlapCalculator make(GameShape firstShape, GameShape otherShape) {
+            return new OverlapAreaIntegralCalculator(firstShape, otherShape);
+        }
+    };
+
+    abstract OverlapCalculator make(GameShape firstShape, GameShape otherShape);
+
+    static void reset(OverlapCalculator calculator, GameShape firstShape, GameShape otherShape) {
+        if (calculator instanceof OverlapGradientForceCalculator) {
+            ((OverlapGradientForceCalculator) calculator).reset(firstShape, otherShape);
+        } else {
+            ((OverlapAreaIntegralCalculator) calculator).reset(firstShape, otherShape);
+        }
+    }
+
+    static double overlapArea(OverlapCalculator calculator) {
+        if (calculator instanceof OverlapGradientForceCalculator) {
+            return ((OverlapGradientForceCalculator) calculator).overlapArea;
+        } else {
+            return ((OverlapAreaIntegralCalculator) calculator).overlapArea;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import com.github.eztang00.firstandroidgame.gamelogic.gameobstacles.GameMaze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One whole GamePolyarcgon.collision() between shapes like the ones in the levels, the ball touching a wall:
+ * - BALL_VS_MAZE: the ball against the level 7 style circular maze, both in world coordinates (as two movable shapes would be)
+ * - BALL_VS_WALL_FRAME: the same but the maze is a rotated wall, so the ball is moved into the maze's frame instead (see WallFrame)
+ * - WINDMILL_VS_BALL: the ball against a spinning kinematic windmill, which turns one angle step before every collision,
+ *   so it includes bringing the windmill's pose cache and the ball's wall frame up to date
+ *
+ * Run with ./gradlew :gamephysics:jmh, the gc profiler adds gc.alloc.rate.norm (bytes allocated per op), which should be 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolyarcgonCollisionBenchmark {
+    public enum Scene {
+        BALL_VS_MAZE,
+        BALL_VS_WALL_FRAME,
+        WINDMILL_VS_BALL
+    }
+
+    // the windmill goes back and forth over this many angle steps, staying in touch with the ball
+    private static final int WINDMILL_ANGLE_STEPS = 16;
+
+    @Param
+    public Scene scene;
+
+    @Param
+    public OverlapCalculatorKind calculatorKind;
+
+    private GamePolyarcgon ball;
+    private GamePolyarcgon wall;
+    private boolean wallIsMovable;
+    private OverlapCalculator calculator;
+    private double windmillRotation;
+    private int windmillAngleStep = 0;
+
+    @Setup
+    public void setUp() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        double ballRadius = 12;
+        if (scene == Scene.WINDMILL_VS_BALL) {
+            wall = makeWindmill(builder, 540, 960, 400, 60, Math.PI / 3.0);
+            wall.enablePoseCache();
+            wallIsMovable = false;
+        } else {
+            GameMaze.GameCircularMaze maze = new GameMaze.GameCircularMaze(540, 960, 8, 2 * ballRadius * 1.2, 2 * ballRadius * 0.7, false);
+            maze.randomize(540, 960, 540, 500, 12345);
+            maze.build(builder);
+            wall = builder.buildAndReset();
+            if (scene == Scene.BALL_VS_WALL_FRAME) {
+                wall.setRotation(0.3);
+                wallIsMovable = false;
+            } else {
+                wallIsMovable = true;
+            }
+        }
+        ball = builder.addCircleContour(0, 0, ballRadius, true).buildAndReset();
+        calculator = calculatorKind.make(ball, wall);
+        placeBallTouchingWall();
+    }
+
+    /**
+     * Moves the ball outwards from the middle until it's overlapping the wall by a bit, like it would be when pushed into it
+     */
+    private void placeBallTouchingWall() {
+        wall.updateCollisionCaches();
+        OverlapGradientForceCalculator overlap = new OverlapGradientForceCalculator(ball, wall);
+        for (double distance = 0; distance < 1000; distance += 0.5) {
+            ball.setPos(wall.x + distance * Math.cos(0.7), wall.y + distance * Math.sin(0.7));
+            ball.updateCollisionCaches();
+            overlap.reset(ball, wall);
+            ball.collision(wall, true, wallIsMovable, true, overlap);
+            if (overlap.overlapArea > 0.05 * ball.getArea()) {
+                windmillRotation = wall.rotationRadians;
+                return;
+            }
+        }
+        throw new IllegalStateException("the ball never touched the wall");
+    }
+
+    // same shape as RippleGolfGame.makeWindmill()
+    private static GamePolyarcgon makeWindmill(GamePolyarcgonBuilder builder, double x, double y, double outerRadius, double holeRadius, double bladeAngle) {
+        for (int i = 0; i < 4; i++) {
+            double cosSecondRay = Math.cos(2.0 * Math.PI * (((double) i) / 4.0 + 1.0 / 8.0) - bladeAngle / 2.0);
+            double sinSecondRay = Math.sin(2.0 * Math.PI * (((double) i) / 4.0 + 1.0 / 8.0) - bladeAngle / 2.0);
+            double cosThirdRay = Math.cos(2.0 * Math.PI * (((double) i) / 4.0 + 1.0 / 8.0) + bladeAngle / 2.0);
+            double sinThirdRay = Math.sin(2.0 * Math.PI * (((double) i) / 4.0 + 1.0 / 8.0) + bladeAngle / 2.0);
+
+            builder.newContour();
+            builder.lineTo(x + outerRadius * cosSecondRay, y + outerRadius * sinSecondRay);
+            builder.lineTo(x + outerRadius * cosThirdRay, y + outerRadius * sinThirdRay);
+            builder.lineTo(x + holeRadius * cosThirdRay, y + holeRadius * sinThirdRay);
+            builder.lineTo(x + holeRadius * cosSecondRay, y + holeRadius * sinSecondRay);
+        }
+        return builder.buildAndReset();
+    }
+
+    @Benchmark
+    public double collision() {
+        if (scene == Scene.WINDMILL_VS_BALL) {
+            windmillAngleStep = (windmillAngleStep + 1) % (2 * WINDMILL_ANGLE_STEPS);
+            int stepsFromStart = windmillAngleStep < WINDMILL_ANGLE_STEPS ? windmillAngleStep : 2 * WINDMILL_ANGLE_STEPS - windmillAngleStep;
+            wall.setRotation(PolyarcgonPoseCache.roundToAngleStep(windmillRotation - stepsFromStart * PolyarcgonPoseCache.ANGLE_STEP));
+            wall.updateCollisionCaches();
+        }
+        OverlapCalculatorKind.reset(calculator, ball, wall);
+        ball.collision(wall, true, wallIsMovable, true, calculator);
+        return OverlapCalculatorKind.overlapArea(calculator);
+    }
+}
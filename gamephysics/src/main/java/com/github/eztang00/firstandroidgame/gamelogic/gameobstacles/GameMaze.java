@@ -1,10 +1,5 @@
 package com.github.eztang00.firstandroidgame.gamelogic.gameobstacles;
 
-import android.content.Context;
-
-import androidx.annotation.NonNull;
-
-import com.github.eztang00.firstandroidgame.SaveAndLoad;
 import com.github.eztang00.firstandroidgame.gamephysics.DoublePoint;
 import com.github.eztang00.firstandroidgame.gamephysics.GamePolyarcgon;
 import com.github.eztang00.firstandroidgame.gamephysics.GamePolyarcgonBuilder;
@@ -13,6 +8,7 @@ import com.github.eztang00.firstandroidgame.gamephysics.PolyarcgonPoint;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -243,6 +239,10 @@ public class GameMaze {
 
     ArrayList<GameMazeWall> walls;
 
+    // what saveMaze() prints, for loading it with gson
+    public static final Type TEMPLATE_WALLS_TYPE = new TypeToken<ArrayList<GameMazeWall>>() {
+    }.getType();
+
     public static void saveMaze(GameMaze maze, double x, double y, double pathThickness) {
         ArrayList<GameMazeWall> templateWalls = new ArrayList<>();
         for (GameMazeWall wall : maze.walls) {
@@ -256,9 +256,10 @@ public class GameMaze {
         System.out.println(json);
     }
 
-    public static GameMaze loadMaze(Context context, int id, double x, double y, double pathThickness) {
-        ArrayList<GameMazeWall> templateWalls = SaveAndLoad.gsonLoadRawResource(context, id, new TypeToken<ArrayList<GameMazeWall>>() {
-        }.getType());
+    /**
+     * @param templateWalls what saveMaze() printed, loaded as TEMPLATE_WALLS_TYPE
+     */
+    public static GameMaze loadMaze(ArrayList<GameMazeWall> templateWalls, double x, double y, double pathThickness) {
         GameMaze maze = new GameMaze();
         for (GameMazeWall wall : templateWalls) {
             maze.walls.add(new GameMazeWall(wall.start.x * pathThickness + x, wall.start.y * pathThickness + y, wall.end.x * pathThickness + x, wall.end.y * pathThickness + y, wall.arcAngleChange));
@@ -450,9 +451,8 @@ public class GameMaze {
     }
 
     public static class GameMazeWall {
-        @NonNull
+        // never null
         DoublePoint start;
-        @NonNull
         DoublePoint end;
         double arcAngleChange;
 
@@ -460,7 +460,7 @@ public class GameMaze {
             this(new DoublePoint(x1, y1), new DoublePoint(x2, y2), arcAngleChange);
         }
 
-        public GameMazeWall(@NonNull DoublePoint start, @NonNull DoublePoint end, double arcAngleChange) {
+        public GameMazeWall(DoublePoint start, DoublePoint end, double arcAngleChange) {
             this.start = start;
             this.end = end;
             this.arcAngleChange = arcAngleChange;
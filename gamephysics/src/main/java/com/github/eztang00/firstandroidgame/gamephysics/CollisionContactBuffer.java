@@ -0,0 +1,110 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import java.util.Arrays;
+
+/**
+ * Stores the collisions (contacts) found during one collision simulation in plain arrays,
+ * so the physics engine can reuse the same memory every time instead of allocating
+ * an OverlapGradientForceCalculator and ArrayList entries for every contact.
+ *
+ * Shapes are referred to by their index among the movable shapes.
+ * Each movable shape has a linked list of its contacts, kept in the order they were added.
+ */
+class CollisionContactBuffer {
+    // the other "shape" of a contact can also be a wall or a force field
+    static final int NOT_A_MOVABLE_SHAPE = -1;
+    static final int FORCE_FIELD = -2;
+    static final int NO_CONTACT = -1;
+
+    int contactCount = 0;
+    int[] firstShapes = new int[16];
+    int[] otherShapes = new int[16];
+    double[] overlapGradientForcesX = new double[16];
+    double[] overlapGradientForcesY = new double[16];
+    double[] overlapGradientTorquesOnFirstShape = new double[16];
+    double[] overlapGradientTorquesOnOtherShape = new double[16];
+    double[] overlapAreas = new double[16];
+    double[] overlapPerimeters = new double[16];
+
+    private int[] nextContactsOfFirstShape = new int[16];
+    private int[] nextContactsOfOtherShape = new int[16];
+    int[] firstContactOfShapes = new int[0];
+    private int[] lastContactOfShapes = new int[0];
+
+    void clear(int movableShapeCount) {
+        contactCount = 0;
+        if (firstContactOfShapes.length < movableShapeCount) {
+            firstContactOfShapes = new int[movableShapeCount];
+            lastContactOfShapes = new int[movableShapeCount];
+        }
+        Arrays.fill(firstContactOfShapes, 0, movableShapeCount, NO_CONTACT);
+        Arrays.fill(lastContactOfShapes, 0, movableShapeCount, NO_CONTACT);
+    }
+
+    void addContact(int firstShape, int otherShape, OverlapGradientForceCalculator collision) {
+        addContact(firstShape, otherShape, collision.overlapGradientForceX, collision.overlapGradientForceY, collision.overlapGradientTorqueOnFirstShape, collision.overlapGradientTorqueOnOtherShape, collision.overlapArea, collision.overlapPerimeter);
+    }
+
+    /**
+     * A push from a force field on a single shape. Like ForceAndTorque.asOverlapGradientForceCalculator(),
+     * the area and perimeter are both 1 so the force isn't changed by the overlap depth.
+     */
+    void addForceFieldContact(int shape, ForceAndTorque forceFromFields) {
+        addContact(shape, FORCE_FIELD, forceFromFields.forceActingOnShapeX, forceFromFields.forceActingOnShapeY, forceFromFields.torqueActingOnShape, 0, 1, 1);
+    }
+
+    void addContact(int firstShape, int otherShape, double overlapGradientForceX, double overlapGradientForceY, double overlapGradientTorqueOnFirstShape, double overlapGradientTorqueOnOtherShape, double overlapArea, double overlapPerimeter) {
+        if (contactCount == firstShapes.length) {
+            int newLength = 2 * contactCount;
+            firstShapes = Arrays.copyOf(firstShapes, newLength);
+            otherShapes = Arrays.copyOf(otherShapes, newLength);
+            overlapGradientForcesX = Arrays.copyOf(overlapGradientForcesX, newLength);
+            overlapGradientForcesY = Arrays.copyOf(overlapGradientForcesY, newLength);
+            overlapGradientTorquesOnFirstShape = Arrays.copyOf(overlapGradientTorquesOnFirstShape, newLength);
+            overlapGradientTorquesOnOtherShape = Arrays.copyOf(overlapGradientTorquesOnOtherShape, newLength);
+            overlapAreas = Arrays.copyOf(overlapAreas, newLength);
+            overlapPerimeters = Arrays.copyOf(overlapPerimeters, newLength);
+            nextContactsOfFirstShape = Arrays.copyOf(nextContactsOfFirstShape, newLength);
+            nextContactsOfOtherShape = Arrays.copyOf(nextContactsOfOtherShape, newLength);
+        }
+        int contact = contactCount++;
+        firstShapes[contact] = firstShape;
+        otherShapes[contact] = otherShape;
+        overlapGradientForcesX[contact] = overlapGradientForceX;
+        overlapGradientForcesY[contact] = overlapGradientForceY;
+        overlapGradientTorquesOnFirstShape[contact] = overlapGradientTorqueOnFirstShape;
+        overlapGradientTorquesOnOtherShape[contact] = overlapGradientTorqueOnOtherShape;
+        overlapAreas[contact] = overlapArea;
+        overlapPerimeters[contact] = overlapPerimeter;
+        nextContactsOfFirstShape[contact] = NO_CONTACT;
+        nextContactsOfOtherShape[contact] = NO_CONTACT;
+        addToContactList(firstShape, contact);
+        if (otherShape >= 0) {
+            addToContactList(otherShape, contact);
+        }
+    }
+
+    private void addToContactList(int shape, int contact) {
+        int lastContact = lastContactOfShapes[shape];
+        if (lastContact == NO_CONTACT) {
+            firstContactOfShapes[shape] = contact;
+        } else if (firstShapes[lastContact] == shape) {
+            nextContactsOfFirstShape[lastContact] = contact;
+        } else {
+            nextContactsOfOtherShape[lastContact] = contact;
+        }
+        lastContactOfShapes[shape] = contact;
+    }
+
+    int nextContactOfShape(int contact, int shape) {
+        if (firstShapes[contact] == shape) {
+            return nextContactsOfFirstShape[contact];
+        } else {
+            return nextContactsOfOtherShape[contact];
+        }
+    }
+
+    boolean shapeHasContacts(int shape) {
+        return firstContactOfShapes[shape] != NO_CONTACT;
+    }
+}
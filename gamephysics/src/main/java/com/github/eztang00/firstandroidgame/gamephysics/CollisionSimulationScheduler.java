@@ -0,0 +1,81 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Picks how many collision simulations the GamePhysicsEngine does each frame,
+ * instead of always doing SHAPE_COLLISION_SIMULATIONS_PER_FRAME.
+ *
+ * Shapes always move the same total distance per frame (split between the simulations),
+ * so the game runs at the same speed, just with finer or coarser steps.
+ *
+ * Two things decide the number:
+ * - How deep shapes ended up inside each other last frame. Deep overlaps mean the steps
+ * are too coarse so do more of them, shallow overlaps mean we can get away with fewer (saves battery).
+ * - How long a collision simulation takes on this device. The simulations have to fit in the
+ * frame time budget, so a slow device does fewer, coarser steps instead of dropping frames.
+ */
+class CollisionSimulationScheduler {
+    static final int MIN_SIMULATIONS_PER_FRAME = 15;
+    static final int MAX_SIMULATIONS_PER_FRAME = 60;
+    // in pixels, overlap area divided by overlap perimeter
+    static final double TARGET_PENETRATION_DEPTH = 1;
+    // how quickly the measured time per simulation follows changes, between 0 and 1
+    static final double TIME_SMOOTHING_FACTOR = 0.1;
+
+    private final double frameTimeBudgetNanos;
+    private final LongSupplier nanoTimeClock;
+
+    private int simulationsForPenetration = GamePhysicsEngine.SHAPE_COLLISION_SIMULATIONS_PER_FRAME;
+    private int simulationsThisFrame = GamePhysicsEngine.SHAPE_COLLISION_SIMULATIONS_PER_FRAME;
+    private double averageNanosPerSimulation = 0;
+    private double deepestPenetrationThisFrame = 0;
+    private long frameStartNanos;
+
+    CollisionSimulationScheduler(double frameTimeBudgetMillis, LongSupplier nanoTimeClock) {
+        this.frameTimeBudgetNanos = frameTimeBudgetMillis * 1000000;
+        this.nanoTimeClock = nanoTimeClock;
+    }
+
+    /**
+     * @return how many collision simulations to do this frame, at most
+     */
+    int startFrame() {
+        int simulations = simulationsForPenetration;
+        if (averageNanosPerSimulation > 0) {
+            int simulationsThatFitInBudget = (int) (frameTimeBudgetNanos / averageNanosPerSimulation);
+            simulations = Math.min(simulations, simulationsThatFitInBudget);
+        }
+        simulationsThisFrame = Math.max(MIN_SIMULATIONS_PER_FRAME, Math.min(MAX_SIMULATIONS_PER_FRAME, simulations));
+        deepestPenetrationThisFrame = 0;
+        frameStartNanos = nanoTimeClock.getAsLong();
+        return simulationsThisFrame;
+    }
+
+    void recordPenetrationDepth(double penetrationDepth) {
+        if (penetrationDepth > deepestPenetrationThisFrame) {
+            deepestPenetrationThisFrame = penetrationDepth;
+        }
+    }
+
+    void endFrame(int simulationsDone) {
+        if (simulationsDone > 0) {
+            double nanosPerSimulation = (double) (nanoTimeClock.getAsLong() - frameStartNanos) / simulationsDone;
+            if (averageNanosPerSimulation == 0) {
+                averageNanosPerSimulation = nanosPerSimulation;
+            } else {
+                averageNanosPerSimulation += TIME_SMOOTHING_FACTOR * (nanosPerSimulation - averageNanosPerSimulation);
+            }
+        }
+        // only change a bit each frame, so the steps don't suddenly jump around
+        if (deepestPenetrationThisFrame > TARGET_PENETRATION_DEPTH) {
+            simulationsForPenetration = Math.min(MAX_SIMULATIONS_PER_FRAME, simulationsForPenetration + Math.max(1, simulationsForPenetration / 4));
+        } else if (deepestPenetrationThisFrame < TARGET_PENETRATION_DEPTH / 4) {
+            simulationsForPenetration = Math.max(MIN_SIMULATIONS_PER_FRAME, simulationsForPenetration - 1);
+        }
+    }
+
+    double getDeepestPenetrationThisFrame() {
+        return deepestPenetrationThisFrame;
+    }
+}
@@ -46,6 +46,24 @@ public class ForceAndTorque {
         }
     }
 
+    /**
+     * Like the constructor, but adds to this force and torque instead of making a new one.
+     */
+    public void addForceActingAtPoint(double x, double y, double forceActingOnShapeX, double forceActingOnShapeY) {
+        this.forceActingOnShapeX += forceActingOnShapeX;
+        this.forceActingOnShapeY += forceActingOnShapeY;
+        if (shape != null) {
+            torqueActingOnShape += (x - shape.getX()) * forceActingOnShapeY - (y - shape.getY()) * forceActingOnShapeX;
+        }
+    }
+
+    void reset(GameShape shape) {
+        this.shape = shape;
+        forceActingOnShapeX = 0;
+        forceActingOnShapeY = 0;
+        torqueActingOnShape = 0;
+    }
+
     public void addForceAndTorque(ForceAndTorque other) {
         torqueActingOnShape += other.torqueActingOnShape;
         forceActingOnShapeX += other.forceActingOnShapeX;
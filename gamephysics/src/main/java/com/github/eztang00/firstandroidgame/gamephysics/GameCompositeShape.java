@@ -1,11 +1,5 @@
 package com.github.eztang00.firstandroidgame.gamephysics;
 
-import android.graphics.BlurMaskFilter;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.MaskFilter;
-import android.graphics.Paint;
-
 import java.util.ArrayList;
 import java.util.HashSet;
 
@@ -33,6 +27,7 @@ public class GameCompositeShape implements GameShape {
     double momentOfInertia;
     double boundingRadius;
     double rotationRadians;
+    int collisionLayer = 0;
 
     private double xWhenLastUpdatedShapes = 0;
     private double yWhenLastUpdatedShapes = 0;
@@ -94,7 +89,10 @@ public class GameCompositeShape implements GameShape {
 
     public void collision(GameShape otherShape, boolean isThisMovable, boolean isOtherShapeMovable, boolean thisIsFirstShape, OverlapCalculator overlapCalculator) {
         if (Math.sqrt((otherShape.getX() - x) * (otherShape.getX() - x) + (otherShape.getY() - y) * (otherShape.getY() - y)) < boundingRadius + otherShape.getBoundingRadius()) {
-            for (GameShape shape : getAllShapes()) {
+            ArrayList<GameShape> allShapes = getAllShapes();
+            // indexed loop so colliding doesn't allocate an iterator
+            for (int i = 0; i < allShapes.size(); i++) {
+                GameShape shape = allShapes.get(i);
                 // note if the other shape is also a composite shape, this will end up calling the same function
                 // from the other shape, colliding against part of this shape
                 shape.collision(otherShape, isThisMovable, isOtherShapeMovable, thisIsFirstShape, overlapCalculator);
@@ -102,68 +100,21 @@ public class GameCompositeShape implements GameShape {
         }
     }
 
-
     @Override
-    public void draw(Canvas canvas) {
-//        for (GameShape shape : getAllShapes()) {
-//            shape.draw(canvas); //ahh screw negative shapes for now
-//        }
-        drawWithBorder(canvas);
-    }
-
-    public void drawWithBorder(Canvas canvas) {
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-            double blurRadius = 20;
-//            Bitmap imageToDraw = Bitmap.createBitmap((int) (2*boundingRadius+1), (int) (2*boundingRadius+1), Bitmap.Config.ARGB_8888, true);
-//            Canvas imageCanvas = new Canvas(imageToDraw);
-//            imageCanvas.translate((int) (boundingRadius-x), (int) (boundingRadius-y));
-            Paint paint = new Paint();
-            paint.setColor(Color.rgb(0, 255, 255));
-            paint.setStyle(Paint.Style.FILL);
-            MaskFilter filter = paint.getMaskFilter();
-            paint.setMaskFilter(new BlurMaskFilter((float) blurRadius, BlurMaskFilter.Blur.OUTER));
-            for (GameShape shape : getAllShapes()) {
-//                if (shape instanceof GameConvexPolygon) {
-//
-//                    Path path = new Path();
-//                    DoublePoint[] corners = ((GameConvexPolygon) shape).getCorners();
-//                    path.moveTo((float) corners[corners.length-1].x, (float) corners[corners.length-1].y); // used for first point
-//                    for (int i=0; i<corners.length; i++) {
-//                        path.lineTo((float) corners[i].x, (float) corners[i].y);
-//                    }
-//                    canvas.drawPath(path, paint);
-//                } else {
-////                    shape.draw(imageCanvas);
-//                    shape.draw(canvas);
-//                }
-                shape.draw(canvas);
-            }
-            paint.setMaskFilter(filter);
-            paint.setColor(Color.rgb(0, 128, 128));
-            for (GameShape shape : getAllShapes()) {
-//                if (shape instanceof GameConvexPolygon) {
-//                    Path path = new Path();
-//                    DoublePoint[] corners = ((GameConvexPolygon) shape).getCorners();
-//                    path.moveTo((float) corners[corners.length-1].x, (float) corners[corners.length-1].y); // used for first point
-//                    for (int i=0; i<corners.length; i++) {
-//                        path.lineTo((float) corners[i].x, (float) corners[i].y);
-//                    }
-//                    canvas.drawPath(path, paint);
-//                } else {
-//                    shape.draw(canvas);
-//                }
-                shape.draw(canvas);
-
-            }
-//            Paint paint = new Paint();
-//            canvas.drawBitmap(imageToDraw, (int) (x-boundingRadius), (int) (y-boundingRadius), paint);
-        } else {
-            for (GameShape shape : getAllShapes()) {
-                shape.draw(canvas); //ahh screw negative shapes for now
-            }
+    public void updateCollisionCaches() {
+        // positioning the parts is also done lazily
+        ArrayList<GameShape> allShapes = getAllShapes();
+        for (int i = 0; i < allShapes.size(); i++) {
+            allShapes.get(i).updateCollisionCaches();
         }
     }
 
+
+    @Override
+    public void draw(GameShapeRenderer renderer) {
+        renderer.drawCompositeShape(this);
+    }
+
     @Override
     public void receiveForce(ForceAndTorque collision) {
 //        if (this == collision.shape1) {
@@ -207,6 +158,11 @@ public class GameCompositeShape implements GameShape {
         return y;
     }
 
+    @Override
+    public double getRotation() {
+        return rotationRadians;
+    }
+
     @Override
     public double getMomentOfInertia() {
         return momentOfInertia;
@@ -223,6 +179,16 @@ public class GameCompositeShape implements GameShape {
         this.rotationRadians = rotationRadians;
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return collisionLayer;
+    }
+
+    @Override
+    public void setCollisionLayer(int collisionLayer) {
+        this.collisionLayer = collisionLayer;
+    }
+
     public ArrayList<GameShape> getAllShapes() {
         if (xWhenLastUpdatedShapes != x || yWhenLastUpdatedShapes != y || rotationWhenLastUpdatedShapes != rotationRadians) {
             double cos = Math.cos(rotationRadians);
@@ -0,0 +1,158 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * A circle whose radius grows with time, e.g. the area of a ripple.
+ * Its overlap with other shapes is calculated straight from the center and radius
+ * (see PolyarcgonCircleOverlap), so growing it is just changing the time,
+ * rather than building a new GamePolyarcgon every frame.
+ *
+ * That only works with OverlapCalculators that only need the totals (see OverlapCalculator.onlyNeedsOverlapTotals()),
+ * which is all a GameForceField uses. Other calculators get a GamePolyarcgon circle of the same size instead.
+ */
+public class GameExpandingCircle implements GameShape {
+    public double centerX;
+    public double centerY;
+    public double initialRadius;
+    public double expansionRate;
+    public double time;
+    public double rotationRadians;
+    public int collisionLayer = 0;
+    public final Object additionalAttributes;
+    // for calculators that need the edges, only rebuilt when the radius changes
+    private GamePolyarcgon polyarcgonCircle;
+    private double polyarcgonCircleRadius;
+
+    public GameExpandingCircle(double centerX, double centerY, double initialRadius, double expansionRate, Object additionalAttributes) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.initialRadius = initialRadius;
+        this.expansionRate = expansionRate;
+        this.additionalAttributes = additionalAttributes;
+    }
+
+    public double getRadius() {
+        return initialRadius + expansionRate * time;
+    }
+
+    /**
+     * Moves the circle to a new center and shrinks it back to its initial radius
+     */
+    public void restart(double centerX, double centerY) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        time = 0;
+    }
+
+    @Override
+    public void collision(GameShape otherShape, boolean isThisMovable, boolean isOtherShapeMovable, boolean thisIsFirstShape, OverlapCalculator overlapCalculator) {
+        if (!overlapCalculator.onlyNeedsOverlapTotals()) {
+            // the calculator needs edges, so use the general polyarcgon code
+            GameShape otherShapeForPolyarcgon = otherShape instanceof GameExpandingCircle ? ((GameExpandingCircle) otherShape).asPolyarcgonCircle() : otherShape;
+            asPolyarcgonCircle().collision(otherShapeForPolyarcgon, isThisMovable, isOtherShapeMovable, thisIsFirstShape, overlapCalculator);
+        } else if (otherShape instanceof GamePolyarcgon) {
+            PolyarcgonCircleOverlap.addCircleOverlap(overlapCalculator, centerX, centerY, getRadius(), thisIsFirstShape, (GamePolyarcgon) otherShape);
+        } else if (otherShape instanceof GameExpandingCircle) {
+            GameExpandingCircle otherCircle = (GameExpandingCircle) otherShape;
+            if (thisIsFirstShape) {
+                PolyarcgonCircleOverlap.addCircleCircleOverlap(overlapCalculator, centerX, centerY, getRadius(), otherCircle.centerX, otherCircle.centerY, otherCircle.getRadius());
+            } else {
+                PolyarcgonCircleOverlap.addCircleCircleOverlap(overlapCalculator, otherCircle.centerX, otherCircle.centerY, otherCircle.getRadius(), centerX, centerY, getRadius());
+            }
+        } else {
+            otherShape.collision(this, isOtherShapeMovable, isThisMovable, !thisIsFirstShape, overlapCalculator);
+        }
+    }
+
+    /**
+     * A GamePolyarcgon circle with the same center and radius as this right now
+     */
+    GamePolyarcgon asPolyarcgonCircle() {
+        double radius = getRadius();
+        if (polyarcgonCircle == null || polyarcgonCircleRadius != radius) {
+            polyarcgonCircle = new GamePolyarcgonBuilder().addCircleContour(centerX, centerY, radius, true).buildAndReset();
+            polyarcgonCircleRadius = radius;
+        } else {
+            polyarcgonCircle.setPos(centerX, centerY);
+        }
+        return polyarcgonCircle;
+    }
+
+    @Override
+    public void updateCollisionCaches() {
+        // nothing is cached, the overlap comes straight from the center and radius
+    }
+
+    @Override
+    public void draw(GameShapeRenderer renderer) {
+        renderer.drawExpandingCircle(this);
+    }
+
+    @Override
+    public void receiveForce(ForceAndTorque collision) {
+        //same as GamePolyarcgon, no inertia so the force just moves it
+        centerX += collision.forceActingOnShapeX / getMass();
+        centerY += collision.forceActingOnShapeY / getMass();
+        rotationRadians += collision.torqueActingOnShape / getMomentOfInertia();
+    }
+
+    /**
+     * With a density of 1
+     */
+    @Override
+    public double getMass() {
+        return getArea();
+    }
+
+    @Override
+    public double getArea() {
+        double radius = getRadius();
+        return Math.PI * radius * radius;
+    }
+
+    @Override
+    public double getBoundingRadius() {
+        return getRadius();
+    }
+
+    @Override
+    public double getX() {
+        return centerX;
+    }
+
+    @Override
+    public double getY() {
+        return centerY;
+    }
+
+    @Override
+    public double getRotation() {
+        return rotationRadians;
+    }
+
+    @Override
+    public double getMomentOfInertia() {
+        double radius = getRadius();
+        return getMass() * radius * radius / 2;
+    }
+
+    @Override
+    public void setPos(double x, double y) {
+        this.centerX = x;
+        this.centerY = y;
+    }
+
+    @Override
+    public void setRotation(double rotationRadians) {
+        this.rotationRadians = rotationRadians;
+    }
+
+    @Override
+    public int getCollisionLayer() {
+        return collisionLayer;
+    }
+
+    @Override
+    public void setCollisionLayer(int collisionLayer) {
+        this.collisionLayer = collisionLayer;
+    }
+}
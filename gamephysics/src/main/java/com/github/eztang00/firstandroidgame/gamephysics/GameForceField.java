@@ -1,10 +1,9 @@
 package com.github.eztang00.firstandroidgame.gamephysics;
 
-import java.util.function.BiFunction;
-
 /**
  * An area (represented by a GameShape) that can push other shapes inside it.
- * In ripple golf this would be the ripple that pushes the ball (or other shapes)
+ * In ripple golf this would be the ripple that pushes the ball (or other shapes),
+ * whose area is a GameExpandingCircle so it can grow without building a new shape every frame
  */
 public class GameForceField {
     /**
@@ -13,34 +12,45 @@ public class GameForceField {
     public static final double PREFERRED_STRENGTH = 0.01;
 
     public GameShape affectedArea;
-    BiFunction<GameShape, OverlapAreaIntegralCalculator, ForceAndTorque> forceFunction;
+    ForceFunction forceFunction;
 
-    public GameForceField(GameShape affectedArea, BiFunction<GameShape, OverlapAreaIntegralCalculator, ForceAndTorque> forceFunction) {
+    /**
+     * Adds the force on a shape to forceToAddTo rather than returning a new ForceAndTorque,
+     * so the physics engine doesn't have to allocate anything every collision simulation.
+     */
+    public interface ForceFunction {
+        void addForce(GameShape shape, OverlapAreaIntegralCalculator overlapAreaIntegralCalculator, ForceAndTorque forceToAddTo);
+    }
+
+    public GameForceField(GameShape affectedArea, ForceFunction forceFunction) {
         this.affectedArea = affectedArea;
         this.forceFunction = forceFunction;
     }
 
     public ForceAndTorque apply(GameShape shape) {
+        ForceAndTorque force = new ForceAndTorque(0, 0, 0, 0, shape);
+        addForceTo(shape, new OverlapAreaIntegralCalculator(shape, affectedArea), force);
+        return force;
+    }
+
+    void addForceTo(GameShape shape, OverlapAreaIntegralCalculator reusableCalculator, ForceAndTorque forceToAddTo) {
         if (affectedArea != null) {
-            OverlapAreaIntegralCalculator calculator = new OverlapAreaIntegralCalculator(shape, affectedArea);
-            shape.collision(affectedArea, true, false, true, calculator);
-            if (!calculator.isAlmostZero()) {
-                return forceFunction.apply(shape, calculator);
+            reusableCalculator.reset(shape, affectedArea);
+            shape.collision(affectedArea, true, false, true, reusableCalculator);
+            if (!reusableCalculator.isAlmostZero()) {
+                forceFunction.addForce(shape, reusableCalculator, forceToAddTo);
             }
         }
-        return new ForceAndTorque(0, 0, 0, 0, shape);
     }
 
     public static GameForceField pushAwayForceField(GameShape affectedArea, double centerX, double centerY, double strength) {
-        return new GameForceField(affectedArea, (shape, overlapAreaIntegralCalculator) -> {
+        return new GameForceField(affectedArea, (shape, overlapAreaIntegralCalculator, forceToAddTo) -> {
             double xDisplacement = overlapAreaIntegralCalculator.overlapXAreaIntegral / overlapAreaIntegralCalculator.overlapArea - centerX;
             double yDisplacement = overlapAreaIntegralCalculator.overlapYAreaIntegral / overlapAreaIntegralCalculator.overlapArea - centerY;
             double resultingForce = strength * overlapAreaIntegralCalculator.overlapArea / shape.getArea();
             double distance = Math.sqrt(xDisplacement * xDisplacement + yDisplacement * yDisplacement);
             if (distance != 0) { // distance might equal zero if the force field is inside
-                return new ForceAndTorque(centerX, centerY, resultingForce * xDisplacement / distance, resultingForce * yDisplacement / distance, shape);
-            } else {
-                return new ForceAndTorque(0, 0, 0, 0, shape);
+                forceToAddTo.addForceActingAtPoint(centerX, centerY, resultingForce * xDisplacement / distance, resultingForce * yDisplacement / distance);
             }
         });
     }
@@ -48,15 +58,13 @@ public class GameForceField {
     public static GameForceField simplePushAwayForceField(GameShape affectedArea, double strength) {
         GameForceField newForceField = new GameForceField(affectedArea, null);
         //we have to have the force function reference the force field so have to make it after
-        newForceField.forceFunction = (shape, overlapAreaIntegralCalculator) -> {
+        newForceField.forceFunction = (shape, overlapAreaIntegralCalculator, forceToAddTo) -> {
             double xDisplacement = overlapAreaIntegralCalculator.overlapXAreaIntegral / overlapAreaIntegralCalculator.overlapArea - newForceField.affectedArea.getX();
             double yDisplacement = overlapAreaIntegralCalculator.overlapYAreaIntegral / overlapAreaIntegralCalculator.overlapArea - newForceField.affectedArea.getY();
             double resultingForce = strength * overlapAreaIntegralCalculator.overlapArea;
             double distance = Math.sqrt(xDisplacement * xDisplacement + yDisplacement * yDisplacement);
             if (distance != 0) { // distance might equal zero if the force field is inside
-                return new ForceAndTorque(newForceField.affectedArea.getX(), newForceField.affectedArea.getY(), resultingForce * xDisplacement / distance, resultingForce * yDisplacement / distance, shape);
-            } else {
-                return new ForceAndTorque(0, 0, 0, 0, shape);
+                forceToAddTo.addForceActingAtPoint(newForceField.affectedArea.getX(), newForceField.affectedArea.getY(), resultingForce * xDisplacement / distance, resultingForce * yDisplacement / distance);
             }
         };
         return newForceField;
@@ -0,0 +1,1405 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * This 2D physics engine has no inertia so objects stop where they stand as soon as forces stop.
+ */
+public class GamePhysicsEngine {
+    // 1 does not push things out of walls (thanks to more shape collisions than ripple collision simulations
+    static final double RIPPLE_COLLISION_FACTOR = 1;
+//    static final double RIPPLE_COLLISION_FACTOR = 0.000001;
+
+    static final double PREFERRED_MAX_ANGLE_BETWEEN_NET_FORCE_AND_FORCE_FIELDS_FORCE = Math.PI * 3 / 4;
+    // try 0.5 since not that much risk pushing into walls?
+    // no 0.5 too much because long rectangle can stab into walls being pushed by ripple alone
+    static final double RIPPLE_WEAKENING_FACTOR_WHEN_MOVING = 0.2;
+
+    // want 30 because otherwise movement resolution too low things don't move smoothly
+    static final int SHAPE_COLLISION_SIMULATIONS_PER_FRAME = 30;
+
+    // 0.499 sometimes pushes things sorta deep into walls though not through
+//    static final int SHAPE_RIPPLE_COLLISION_SIMULATIONS_PER_FRAME = (int) (0.499 * SHAPE_COLLISION_SIMULATIONS_PER_FRAME);
+    // 0.3 I feel is the best because avoid ever pushing things too deep into walls
+    // now 0.8 because reduced force
+    static final double FRACTION_OF_SHAPE_COLLISION_SIMULATIONS_WITH_FORCE_FIELDS = 0.8;
+    static final int SHAPE_COLLISION_SIMULATIONS_WITH_FORCE_FIELDS_PER_FRAME = (int) (FRACTION_OF_SHAPE_COLLISION_SIMULATIONS_WITH_FORCE_FIELDS * SHAPE_COLLISION_SIMULATIONS_PER_FRAME);
+
+    // want 100 otherwise things don't move far enough stop before hitting corner
+    static final double SHAPE_COLLISION_MOVEMENT_PER_FRAME = 100;
+    static final double SHAPE_COLLISION_SIMULATION_MOVEMENT_SPEED = SHAPE_COLLISION_MOVEMENT_PER_FRAME / SHAPE_COLLISION_SIMULATIONS_PER_FRAME;
+
+    // a movable shape that hasn't touched anything (including force fields) for this many collision simulations goes to sleep,
+    // sleeping shapes aren't tested against walls or other sleeping shapes because nothing there could have changed
+    static final int SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING = 10;
+    // a circle pushed along by a force field with nothing else nearby moves several collision simulations' worth at once
+    // (conservative advancement), this many times looking for the nearest thing and moving that far
+    static final int MAX_CONSERVATIVE_ADVANCEMENT_STEPS = 8;
+    // a circle moving more than this times its radius in one go is stopped short of walls, otherwise a thin wall can't push back enough to stop it,
+    // slower circles are pushed back out by the collisions like any other shape
+    static final double MAX_UNCHECKED_MOVEMENT_PER_RADIUS = 0.5;
+    final ArrayList<GameShape> unmovableShapes;
+    final ArrayList<GameShape> movableShapes;
+    public final ArrayList<GameForceField> forceFields;
+    // slower than collision layers, but can decide anything, e.g. depending on what's happening in the game
+    final ArrayList<BiPredicate<GameShape, GameShape>> collisionRules;
+    public static final int MAX_COLLISION_LAYERS = 32;
+    // bit j of collisionLayerMasks[i] is whether shapes on layer i collide with shapes on layer j, see setLayersCollide()
+    private final int[] collisionLayerMasks = new int[MAX_COLLISION_LAYERS];
+    // compiled from the shapes' layers at the start of every update(), so checking a pair is just one AND
+    private int[] collisionLayerBitsByBroadPhaseIndex = new int[0];
+    private int[] collisionMasksByBroadPhaseIndex = new int[0];
+    // unmovable shapes that are moved by a script instead of by collisions, see addKinematicShape()
+    final ArrayList<GameShape> kinematicShapes;
+    final ArrayList<KinematicPose> kinematicPoses;
+    // whether each kinematic shape's rotation is rounded so it can use a pose cache
+    private final ArrayList<Boolean> kinematicRotationsRounded;
+    private long kinematicFrame = 0;
+
+    // broad phase, unmovable shapes get indices 0 to unmovableShapes.size() - 1, then movable shapes come after
+    private final SpatialHashGrid broadPhase = new SpatialHashGrid();
+    private GameShape[] shapesByBroadPhaseIndex = new GameShape[0];
+    private boolean broadPhaseNeedsRebuild = true;
+    private int[] broadPhaseCandidates = new int[16];
+    // for findClearance(), room for every shape
+    private int[] nearbyShapes = new int[0];
+
+    // everything below is reused every collision simulation so the simulation doesn't allocate anything once warmed up
+    // collisions on each movable shape during one collision simulation, indexed the same as movableShapes
+    private final CollisionContactBuffer contacts = new CollisionContactBuffer();
+    private final OverlapGradientForceCalculator reusableCollision = new OverlapGradientForceCalculator(null, null);
+    private final OverlapAreaIntegralCalculator reusableForceFieldOverlap = new OverlapAreaIntegralCalculator(null, null);
+    private final ForceAndTorque reusableForceFromFields = new ForceAndTorque(0, 0, 0, 0, null);
+    private final ForceAndTorque reusableForceToApply = new ForceAndTorque(0, 0, 0, 0, null);
+    private double[] totalForcesOnMovableShapesX = new double[0];
+    private double[] totalForcesOnMovableShapesY = new double[0];
+    private double[] totalTorquesOnMovableShapes = new double[0];
+    // sleeping, indexed the same as movableShapes
+    private int[] simulationsWithoutContact = new int[0];
+    private boolean[] movableShapeIsSleeping = new boolean[0];
+    private int sleepingShapeCount = 0;
+    // where each shape (by broad phase index) was at the end of the last update, to notice shapes moved outside the engine
+    private double[] lastKnownXs = new double[0];
+    private double[] lastKnownYs = new double[0];
+    private double[] lastKnownRotations = new double[0];
+    private final GamePhysicsEngineMetrics metrics = new GamePhysicsEngineMetrics();
+    // null means always do SHAPE_COLLISION_SIMULATIONS_PER_FRAME, see setCollisionSimulationTimeBudget()
+    private CollisionSimulationScheduler collisionSimulationScheduler = null;
+    private double deepestPenetrationThisSimulation = 0;
+    // for the metrics, how many pairs of shapes the narrow phase tested and how many were touching
+    private int pairTestCountThisSimulation = 0;
+    private int contactCountThisSimulation = 0;
+    // conservative advancement, how many of the frame's collision simulations the last one counted for
+    private int collisionSimulationsThisSimulation = 1;
+    // indexed the same as movableShapes, how far (in collision simulations' worth of movement) each shape can go at once,
+    // and how much it overlaps the force field pushing it, 0 if it's more than one
+    private double[] safeSimulationsOfMovement = new double[0];
+    private double[] forceFieldOverlapAreas = new double[0];
+
+    // optional parallel narrow phase, see setNarrowPhasePool()
+    private ForkJoinPool narrowPhasePool = null;
+    private NarrowPhaseChunk[] narrowPhaseChunks = new NarrowPhaseChunk[0];
+    private final RecursiveAction narrowPhaseAllChunks = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            invokeAll(narrowPhaseChunks);
+        }
+    };
+    // the broad phase candidates of movable shape i are narrowPhaseCandidates[narrowPhaseCandidateStarts[i]] to narrowPhaseCandidates[narrowPhaseCandidateStarts[i + 1] - 1]
+    private int[] narrowPhaseCandidateStarts = new int[1];
+    private int[] narrowPhaseCandidates = new int[16];
+    // where each movable shape's contacts are in its chunk's contact buffer
+    private int[] narrowPhaseContactStarts = new int[0];
+    private int[] narrowPhaseContactEnds = new int[0];
+    private double[] forcesFromFieldsX = new double[0];
+    private double[] forcesFromFieldsY = new double[0];
+    private double[] torquesFromFields = new double[0];
+    // union find, shapes pushing on each other are in the same contact island
+    private int[] contactIslandParents = new int[0];
+    private int[] contactIslandSizes = new int[0];
+    private double[] contactIslandMaxMovements = new double[0];
+    // indexed the same as movableShapes, the root of each shape's contact island this collision simulation
+    private int[] contactIslandsOfShapes = new int[0];
+    // for solving contact islands in parallel, the shapes of the island with root i are
+    // contactIslandShapes[contactIslandShapeStarts[i]] to contactIslandShapes[contactIslandShapeStarts[i + 1] - 1]
+    private int[] contactIslandShapeStarts = new int[1];
+    private int[] contactIslandShapeEnds = new int[0];
+    private int[] contactIslandShapes = new int[0];
+    private ContactIslandChunk[] contactIslandChunks = new ContactIslandChunk[0];
+    private final RecursiveAction contactIslandAllChunks = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            invokeAll(contactIslandChunks);
+        }
+    };
+
+    // optional, see enableWallDistanceField(), a cell size of 0 means it's off
+    private double wallDistanceFieldCellSize = 0;
+    private long wallDistanceFieldMaxMemoryBytes = 0;
+    private WallDistanceField.BackgroundBuild wallDistanceFieldBuild = null;
+    WallDistanceField wallDistanceField = null;
+    private boolean wallDistanceFieldMightBeOutOfDate = false;
+    // walls that were moved outside the engine, so they're left out when the field is built again
+    private final ArrayList<GameShape> wallsLeftOutOfDistanceField = new ArrayList<>();
+    private boolean[] wallIsInDistanceFieldByBroadPhaseIndex = new boolean[0];
+    private int wallDistanceFieldLayerBits = 0;
+
+    public GamePhysicsEngine() {
+        unmovableShapes = new ArrayList<>();
+        movableShapes = new ArrayList<>();
+        forceFields = new ArrayList<>();
+        collisionRules = new ArrayList<>();
+        Arrays.fill(collisionLayerMasks, ~0);
+        kinematicShapes = new ArrayList<>();
+        kinematicPoses = new ArrayList<>();
+        kinematicRotationsRounded = new ArrayList<>();
+    }
+
+    /**
+     * Where a kinematic shape should be, see addKinematicShape()
+     */
+    public interface KinematicPose {
+        /**
+         * Moves and rotates the shape to where it should be after this many calls to update()
+         */
+        void moveToPose(GameShape shape, long frame);
+    }
+
+    public void addWall(GameShape shape) {
+        unmovableShapes.add(shape);
+        broadPhaseNeedsRebuild = true;
+    }
+
+    public void addMovableShape(GameShape shape) {
+        movableShapes.add(shape);
+        broadPhaseNeedsRebuild = true;
+    }
+
+    /**
+     * Adds a shape that collides like a wall, but is moved by the pose at the start of every update(), e.g. a spinning windmill.
+     * The shape is left exactly where the pose puts it.
+     */
+    public void addKinematicShape(GameShape shape, KinematicPose pose) {
+        addKinematicShape(shape, pose, false);
+    }
+
+    /**
+     * @param roundRotationForPoseCache if true, a GamePolyarcgon's rotation is rounded a tiny bit (see PolyarcgonPoseCache.roundToAngleStep()),
+     *                                  so when it comes back to the same rotation its geometry can be copied from the last time instead of worked out again.
+     *                                  Worth it for shapes that keep spinning round, as long as being up to 1/7200 of a turn off doesn't matter.
+     */
+    public void addKinematicShape(GameShape shape, KinematicPose pose, boolean roundRotationForPoseCache) {
+        kinematicShapes.add(shape);
+        kinematicPoses.add(pose);
+        kinematicRotationsRounded.add(roundRotationForPoseCache && shape instanceof GamePolyarcgon);
+        if (roundRotationForPoseCache && shape instanceof GamePolyarcgon) {
+            ((GamePolyarcgon) shape).enablePoseCache();
+        }
+        moveKinematicShape(kinematicShapes.size() - 1);
+        addWall(shape);
+    }
+
+    private void moveKinematicShape(int kinematicShapeIndex) {
+        GameShape shape = kinematicShapes.get(kinematicShapeIndex);
+        kinematicPoses.get(kinematicShapeIndex).moveToPose(shape, kinematicFrame);
+        if (kinematicRotationsRounded.get(kinematicShapeIndex)) {
+            GamePolyarcgon polyarcgon = (GamePolyarcgon) shape;
+            polyarcgon.rotationRadians = PolyarcgonPoseCache.roundToAngleStep(polyarcgon.rotationRadians);
+        }
+    }
+
+    public void update() {
+        kinematicFrame++;
+        for (int i = 0; i < kinematicShapes.size(); i++) {
+            moveKinematicShape(i);
+        }
+
+        // shapes can be moved outside the engine (teleported, rotated by level rules etc.) so sync the grid first
+        if (broadPhaseNeedsRebuild) {
+            rebuildBroadPhase();
+        } else {
+            broadPhase.updateAllShapes();
+        }
+        wakeShapesMovedOutsideEngine();
+        compileCollisionLayers();
+        updateWallDistanceField();
+
+        int simulationsPerFrame = SHAPE_COLLISION_SIMULATIONS_PER_FRAME;
+        int simulationsWithForceFieldsPerFrame = SHAPE_COLLISION_SIMULATIONS_WITH_FORCE_FIELDS_PER_FRAME;
+        double movementSpeed = SHAPE_COLLISION_SIMULATION_MOVEMENT_SPEED;
+        if (collisionSimulationScheduler != null) {
+            simulationsPerFrame = collisionSimulationScheduler.startFrame();
+            simulationsWithForceFieldsPerFrame = (int) (FRACTION_OF_SHAPE_COLLISION_SIMULATIONS_WITH_FORCE_FIELDS * simulationsPerFrame);
+            movementSpeed = SHAPE_COLLISION_MOVEMENT_PER_FRAME / simulationsPerFrame;
+        }
+
+        //collision
+        int simulationsDone = 0;
+        int simulationsSkipped = 0;
+        double deepestPenetration = 0;
+        int pairTestCount = 0;
+        int contactCount = 0;
+        for (int collisionSimulations = 0; collisionSimulations < simulationsPerFrame; collisionSimulations += collisionSimulationsThisSimulation) {
+            boolean includeForceFieldsInSimulation = (collisionSimulations < simulationsWithForceFieldsPerFrame);
+            // a big step can't go past where the force fields stop or the end of the frame
+            int maxCollisionSimulations = (includeForceFieldsInSimulation ? simulationsWithForceFieldsPerFrame : simulationsPerFrame) - collisionSimulations;
+            boolean collided = updateCollisionSimulationAndReturnWhetherCollided(includeForceFieldsInSimulation, movementSpeed, maxCollisionSimulations);
+            simulationsDone++;
+            simulationsSkipped += collisionSimulationsThisSimulation - 1;
+            deepestPenetration = Math.max(deepestPenetration, deepestPenetrationThisSimulation);
+            pairTestCount += pairTestCountThisSimulation;
+            contactCount += contactCountThisSimulation;
+            if (collisionSimulationScheduler != null) {
+                collisionSimulationScheduler.recordPenetrationDepth(deepestPenetrationThisSimulation);
+            }
+            if (!collided) {
+                break;
+            }
+        }
+        if (collisionSimulationScheduler != null) {
+            collisionSimulationScheduler.endFrame(simulationsDone);
+        }
+        metrics.collisionSimulationCount = simulationsDone;
+        metrics.skippedCollisionSimulationCount = simulationsSkipped;
+        metrics.maxCollisionSimulationCount = simulationsPerFrame;
+        metrics.deepestPenetration = deepestPenetration;
+        metrics.pairTestCount = pairTestCount;
+        metrics.contactCount = contactCount;
+        rememberPositions();
+        metrics.movableShapeCount = shapesByBroadPhaseIndex.length - unmovableShapes.size();
+        metrics.sleepingShapeCount = sleepingShapeCount;
+    }
+
+    /**
+     * Instead of always doing SHAPE_COLLISION_SIMULATIONS_PER_FRAME collision simulations,
+     * pick the number each frame based on how deep shapes go into each other
+     * and how many simulations fit in the given time.
+     * See CollisionSimulationScheduler
+     */
+    public void setCollisionSimulationTimeBudget(double frameTimeBudgetMillis) {
+        setCollisionSimulationTimeBudget(frameTimeBudgetMillis, System::nanoTime);
+    }
+
+    /**
+     * For tests and replays, which need a clock that doesn't depend on how fast the device is.
+     */
+    void setCollisionSimulationTimeBudget(double frameTimeBudgetMillis, LongSupplier nanoTimeClock) {
+        collisionSimulationScheduler = new CollisionSimulationScheduler(frameTimeBudgetMillis, nanoTimeClock);
+    }
+
+    /**
+     * Go back to always doing SHAPE_COLLISION_SIMULATIONS_PER_FRAME collision simulations.
+     */
+    public void removeCollisionSimulationTimeBudget() {
+        collisionSimulationScheduler = null;
+    }
+
+    public GamePhysicsEngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Wakes up every movable shape, e.g. if a collision rule changed its mind about shapes that were resting.
+     * Moving, rotating or adding shapes wakes up the shapes that need it automatically.
+     */
+    public void wakeAllShapes() {
+        for (int i = 0; i < movableShapeIsSleeping.length; i++) {
+            wakeShape(i);
+        }
+    }
+
+    private void wakeShape(int movableShapeIndex) {
+        simulationsWithoutContact[movableShapeIndex] = 0;
+        if (movableShapeIsSleeping[movableShapeIndex]) {
+            movableShapeIsSleeping[movableShapeIndex] = false;
+            sleepingShapeCount--;
+        }
+    }
+
+    private void wakeShapesMovedOutsideEngine() {
+        int unmovableShapeCount = unmovableShapes.size();
+        for (int shapeIndex = 0; shapeIndex < shapesByBroadPhaseIndex.length; shapeIndex++) {
+            GameShape shape = shapesByBroadPhaseIndex[shapeIndex];
+            if (shape.getX() != lastKnownXs[shapeIndex] || shape.getY() != lastKnownYs[shapeIndex] || shape.getRotation() != lastKnownRotations[shapeIndex]) {
+                if (shapeIndex >= unmovableShapeCount) {
+                    wakeShape(shapeIndex - unmovableShapeCount);
+                } else {
+                    if (wallDistanceField != null && wallIsInDistanceFieldByBroadPhaseIndex[shapeIndex]) {
+                        // the field is wrong now, and the wall will probably move again, so build it again without the wall
+                        wallsLeftOutOfDistanceField.add(shape);
+                        discardWallDistanceField();
+                    }
+                    if (sleepingShapeCount > 0) {
+                        // a wall moved (e.g. a spinning wall), so the sleeping shapes near it need checking again
+                        int candidateCount = findBroadPhaseCandidates(shapeIndex);
+                        for (int i = 0; i < candidateCount; i++) {
+                            if (broadPhaseCandidates[i] >= unmovableShapeCount) {
+                                wakeShape(broadPhaseCandidates[i] - unmovableShapeCount);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether shapes on one layer collide with shapes on another (see GameShape.getCollisionLayer()), by default everything collides.
+     * Unlike collision rules, this is checked with a single AND before the collision is tested,
+     * and shapes that can't collide are left out as soon as the broad phase finds them.
+     * Force fields only push shapes on layers that collide with the layer of the force field's affectedArea.
+     */
+    public void setLayersCollide(int layer, int otherLayer, boolean collide) {
+        if (layer < 0 || layer >= MAX_COLLISION_LAYERS || otherLayer < 0 || otherLayer >= MAX_COLLISION_LAYERS) {
+            throw new IllegalArgumentException("collision layers need to be between 0 and " + (MAX_COLLISION_LAYERS - 1) + ", not " + layer + " and " + otherLayer);
+        }
+        if (collide) {
+            collisionLayerMasks[layer] |= 1 << otherLayer;
+            collisionLayerMasks[otherLayer] |= 1 << layer;
+        } else {
+            collisionLayerMasks[layer] &= ~(1 << otherLayer);
+            collisionLayerMasks[otherLayer] &= ~(1 << layer);
+        }
+        // shapes on those layers that were resting might touch now
+        wakeAllShapes();
+    }
+
+    private boolean layersCollide(GameShape shape, GameShape otherShape) {
+        return (collisionLayerMasks[shape.getCollisionLayer()] & collisionLayerBit(otherShape)) != 0;
+    }
+
+    private static int collisionLayerBit(GameShape shape) {
+        int layer = shape.getCollisionLayer();
+        if (layer < 0 || layer >= MAX_COLLISION_LAYERS) {
+            throw new IllegalArgumentException("collision layers need to be between 0 and " + (MAX_COLLISION_LAYERS - 1) + ", not " + layer);
+        }
+        return 1 << layer;
+    }
+
+    private void compileCollisionLayers() {
+        if (collisionLayerBitsByBroadPhaseIndex.length != shapesByBroadPhaseIndex.length) {
+            collisionLayerBitsByBroadPhaseIndex = new int[shapesByBroadPhaseIndex.length];
+            collisionMasksByBroadPhaseIndex = new int[shapesByBroadPhaseIndex.length];
+        }
+        boolean changed = false;
+        for (int shapeIndex = 0; shapeIndex < shapesByBroadPhaseIndex.length; shapeIndex++) {
+            GameShape shape = shapesByBroadPhaseIndex[shapeIndex];
+            int layerBit = collisionLayerBit(shape);
+            int mask = collisionLayerMasks[shape.getCollisionLayer()];
+            if (layerBit != collisionLayerBitsByBroadPhaseIndex[shapeIndex] || mask != collisionMasksByBroadPhaseIndex[shapeIndex]) {
+                collisionLayerBitsByBroadPhaseIndex[shapeIndex] = layerBit;
+                collisionMasksByBroadPhaseIndex[shapeIndex] = mask;
+                changed = true;
+            }
+        }
+        if (changed) {
+            // a shape changed layer, so shapes that were resting might touch now
+            wakeAllShapes();
+        }
+    }
+
+    private void rememberPositions() {
+        for (int shapeIndex = 0; shapeIndex < shapesByBroadPhaseIndex.length; shapeIndex++) {
+            GameShape shape = shapesByBroadPhaseIndex[shapeIndex];
+            lastKnownXs[shapeIndex] = shape.getX();
+            lastKnownYs[shapeIndex] = shape.getY();
+            lastKnownRotations[shapeIndex] = shape.getRotation();
+        }
+    }
+
+    /**
+     * Call after finding the contacts of a collision simulation.
+     * A shape that was touched wakes up, and one that's gone untouched long enough falls asleep.
+     */
+    private void updateSleeping(int movableShapeCount) {
+        for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+            if (contacts.shapeHasContacts(movableShapeIndex)) {
+                wakeShape(movableShapeIndex);
+            } else if (!movableShapeIsSleeping[movableShapeIndex]) {
+                simulationsWithoutContact[movableShapeIndex]++;
+                if (simulationsWithoutContact[movableShapeIndex] >= SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING) {
+                    movableShapeIsSleeping[movableShapeIndex] = true;
+                    sleepingShapeCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param maxCollisionSimulations how many collision simulations' worth of movement shapes with nothing near them can make at once,
+     * see findSafeSimulationsOfMovement()
+     */
+    private boolean updateCollisionSimulationAndReturnWhetherCollided(boolean applyForceFields, double movementSpeed, int maxCollisionSimulations) {
+        /*
+        TODO: replace collision algorithm with one that enforces objects pushing away never move towards each other
+         */
+        int unmovableShapeCount = unmovableShapes.size();
+        int movableShapeCount = shapesByBroadPhaseIndex.length - unmovableShapeCount;
+        if (sleepingShapeCount == movableShapeCount && (!applyForceFields || forceFields.isEmpty())) {
+            // everything's asleep and nothing that could wake it has moved (see wakeShapesMovedOutsideEngine()), so there's nothing to find
+            pairTestCountThisSimulation = 0;
+            contactCountThisSimulation = 0;
+            deepestPenetrationThisSimulation = 0;
+            collisionSimulationsThisSimulation = 1;
+            return false;
+        }
+        resetContactIslands(movableShapeCount);
+        contacts.clear(movableShapeCount);
+        pairTestCountThisSimulation = 0;
+        if (narrowPhasePool != null && movableShapeCount > 1) {
+            findContactsInParallel(applyForceFields, unmovableShapeCount, movableShapeCount);
+        } else {
+            findContacts(applyForceFields, unmovableShapeCount, movableShapeCount);
+        }
+        contactCountThisSimulation = 0;
+        for (int contact = 0; contact < contacts.contactCount; contact++) {
+            if (contacts.otherShapes[contact] != CollisionContactBuffer.FORCE_FIELD) {
+                contactCountThisSimulation++;
+            }
+        }
+        updateSleeping(movableShapeCount);
+
+        // shapes pushing each other form an "island" that has to move at the same speed,
+        // so first add up the push on each shape and find how fast each island would move,
+        // then move each shape so the fastest shape in its island moves movementSpeed (times the collision simulations this counts for)
+        boolean collided = false;
+        for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+            if (contacts.shapeHasContacts(movableShapeIndex)) {
+                collided = true;
+                // found here once, since finding it rearranges the islands and so can't be done from several threads
+                contactIslandsOfShapes[movableShapeIndex] = findContactIsland(movableShapeIndex);
+            }
+        }
+        deepestPenetrationThisSimulation = 0;
+        // shapes that are just being pushed along by a force field with nothing nearby can take a bigger step,
+        // and if they all can the simulations in between are skipped
+        collisionSimulationsThisSimulation = collided ? maxCollisionSimulations : 1;
+        if (narrowPhasePool != null && movableShapeCount > 1) {
+            solveContactIslandsInParallel(unmovableShapeCount, movableShapeCount, movementSpeed, maxCollisionSimulations);
+        } else {
+            for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+                if (contacts.shapeHasContacts(movableShapeIndex)) {
+                    deepestPenetrationThisSimulation = Math.max(deepestPenetrationThisSimulation, addUpContactForces(movableShapeIndex, unmovableShapeCount));
+                }
+            }
+            for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+                if (contacts.shapeHasContacts(movableShapeIndex)) {
+                    collisionSimulationsThisSimulation = Math.min(collisionSimulationsThisSimulation, findAndRememberSafeSimulationsOfMovement(movableShapeIndex, unmovableShapeCount, movementSpeed, maxCollisionSimulations, nearbyShapes));
+                }
+            }
+            for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+                if (contacts.shapeHasContacts(movableShapeIndex)) {
+                    moveByContactForces(movableShapeIndex, unmovableShapeCount, movementSpeed, reusableForceToApply);
+                }
+            }
+        }
+        for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+            if (contacts.shapeHasContacts(movableShapeIndex)) {
+                broadPhase.updateShape(unmovableShapeCount + movableShapeIndex);
+            }
+        }
+        return collided;
+    }
+
+    /**
+     * Adds up the push from every contact on the shape, and raises the max movement of its island to the shape's movement if it's more.
+     * Only touches the shape and its island, so different islands can be done on different threads.
+     *
+     * @return how deep the shape's deepest contact is, not counting force fields
+     */
+    private double addUpContactForces(int movableShapeIndex, int unmovableShapeCount) {
+        GameShape shape = shapesByBroadPhaseIndex[unmovableShapeCount + movableShapeIndex];
+        double deepestPenetration = 0;
+        double totalForceX = 0;
+        double totalForceY = 0;
+        double totalTorque = 0;
+        // same as ForceAndTorque.addForceAndTorque(OverlapGradientForceCalculator), just on the contact buffer
+        for (int contact = contacts.firstContactOfShapes[movableShapeIndex]; contact != CollisionContactBuffer.NO_CONTACT; contact = contacts.nextContactOfShape(contact, movableShapeIndex)) {
+            // divide by overlap perimeter not force otherwise torque becomes near infinite if force zero
+            if (contacts.overlapPerimeters[contact] != 0) {
+                double depth = contacts.overlapAreas[contact] / contacts.overlapPerimeters[contact];
+                if (contacts.otherShapes[contact] != CollisionContactBuffer.FORCE_FIELD && depth > deepestPenetration) {
+                    deepestPenetration = depth;
+                }
+                int factor;
+                if (contacts.firstShapes[contact] == movableShapeIndex) {
+                    factor = 1;
+                    totalTorque += contacts.overlapGradientTorquesOnFirstShape[contact] * depth;
+                } else {
+                    factor = -1;
+                    totalTorque += contacts.overlapGradientTorquesOnOtherShape[contact] * depth;
+                }
+                totalForceX += factor * contacts.overlapGradientForcesX[contact] * depth;
+                totalForceY += factor * contacts.overlapGradientForcesY[contact] * depth;
+            }
+        }
+        totalForcesOnMovableShapesX[movableShapeIndex] = totalForceX;
+        totalForcesOnMovableShapesY[movableShapeIndex] = totalForceY;
+        totalTorquesOnMovableShapes[movableShapeIndex] = totalTorque;
+        double translationMovement = Math.sqrt(totalForceX * totalForceX + totalForceY * totalForceY) / shape.getMass();
+        double rotationMovement = Math.abs(totalTorque / shape.getMomentOfInertia() * shape.getBoundingRadius());
+        double movement = translationMovement + rotationMovement;
+        int island = contactIslandsOfShapes[movableShapeIndex];
+        if (movement > contactIslandMaxMovements[island]) {
+            contactIslandMaxMovements[island] = movement;
+        }
+        return deepestPenetration;
+    }
+
+    /**
+     * @return how many collision simulations the whole simulation can count for as far as this shape is concerned, at least 1
+     */
+    private int findAndRememberSafeSimulationsOfMovement(int movableShapeIndex, int unmovableShapeCount, double movementSpeed, int maxCollisionSimulations, int[] nearbyShapes) {
+        double safeSimulationsOfMovement = findSafeSimulationsOfMovement(movableShapeIndex, unmovableShapeCount, movementSpeed, maxCollisionSimulations, nearbyShapes);
+        this.safeSimulationsOfMovement[movableShapeIndex] = safeSimulationsOfMovement;
+        return Math.max(1, (int) safeSimulationsOfMovement);
+    }
+
+    /**
+     * Call once every shape in the island has had addUpContactForces() and collisionSimulationsThisSimulation is decided.
+     */
+    private void moveByContactForces(int movableShapeIndex, int unmovableShapeCount, double movementSpeed, ForceAndTorque reusableForceToApply) {
+        GameShape shape = shapesByBroadPhaseIndex[unmovableShapeCount + movableShapeIndex];
+        double maxMovement = contactIslandMaxMovements[contactIslandsOfShapes[movableShapeIndex]];
+//            Log.i("me", String.format("max movement: %.2f", maxMovement));
+        ForceAndTorque totalCollision = reusableForceToApply;
+        totalCollision.reset(shape);
+        totalCollision.forceActingOnShapeX = totalForcesOnMovableShapesX[movableShapeIndex];
+        totalCollision.forceActingOnShapeY = totalForcesOnMovableShapesY[movableShapeIndex];
+        totalCollision.torqueActingOnShape = totalTorquesOnMovableShapes[movableShapeIndex];
+        totalCollision.multiplyIntensity(movementSpeed * Math.min(collisionSimulationsThisSimulation, safeSimulationsOfMovement[movableShapeIndex]) / maxMovement);
+        shape.receiveForce(totalCollision);
+    }
+
+    /**
+     * Same as the one-thread part of updateCollisionSimulationAndReturnWhetherCollided(), but with the contact islands on the narrowPhasePool.
+     * Islands don't push each other, so each island is done by one thread with its shapes in index order,
+     * and the results are exactly the same down to the last bit.
+     */
+    private void solveContactIslandsInParallel(int unmovableShapeCount, int movableShapeCount, double movementSpeed, int maxCollisionSimulations) {
+        // sort the shapes by island (the index of the island's root shape), a counting sort so each island's shapes stay in index order
+        if (contactIslandShapeStarts.length < movableShapeCount + 1) {
+            contactIslandShapeStarts = new int[movableShapeCount + 1];
+            contactIslandShapeEnds = new int[movableShapeCount];
+            contactIslandShapes = new int[movableShapeCount];
+        }
+        Arrays.fill(contactIslandShapeStarts, 0, movableShapeCount + 1, 0);
+        for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+            if (contacts.shapeHasContacts(movableShapeIndex)) {
+                contactIslandShapeStarts[contactIslandsOfShapes[movableShapeIndex] + 1]++;
+            }
+        }
+        for (int island = 0; island < movableShapeCount; island++) {
+            contactIslandShapeStarts[island + 1] += contactIslandShapeStarts[island];
+            contactIslandShapeEnds[island] = contactIslandShapeStarts[island];
+        }
+        for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+            if (contacts.shapeHasContacts(movableShapeIndex)) {
+                contactIslandShapes[contactIslandShapeEnds[contactIslandsOfShapes[movableShapeIndex]]++] = movableShapeIndex;
+            }
+        }
+
+        // split the islands into chunks with about the same number of shapes each, same as findContactsInParallel()
+        int shapesWithContacts = contactIslandShapeStarts[movableShapeCount];
+        int chunkCount = contactIslandChunks.length;
+        int chunkStart = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int chunkEnd = chunkStart;
+            long shapesUpToChunkEnd = (long) shapesWithContacts * (chunk + 1) / chunkCount;
+            while (chunkEnd < movableShapeCount && (contactIslandShapeStarts[chunkEnd] < shapesUpToChunkEnd || chunk == chunkCount - 1)) {
+                chunkEnd++;
+            }
+            contactIslandChunks[chunk].prepare(contactIslandShapeStarts[chunkStart], contactIslandShapeStarts[chunkEnd], unmovableShapeCount, movementSpeed, maxCollisionSimulations);
+            chunkStart = chunkEnd;
+        }
+        contactIslandAllChunks.reinitialize();
+        narrowPhasePool.invoke(contactIslandAllChunks);
+
+        // every shape has to make the same number of collision simulations' worth of movement, so that has to wait for every island
+        for (ContactIslandChunk chunk : contactIslandChunks) {
+            deepestPenetrationThisSimulation = Math.max(deepestPenetrationThisSimulation, chunk.deepestPenetration);
+            collisionSimulationsThisSimulation = Math.min(collisionSimulationsThisSimulation, chunk.collisionSimulations);
+            chunk.moving = true;
+            chunk.reinitialize();
+        }
+        contactIslandAllChunks.reinitialize();
+        narrowPhasePool.invoke(contactIslandAllChunks);
+    }
+
+    /**
+     * Some contact islands, for solveContactIslandsInParallel(). First adds up the forces on their shapes, then after
+     * the number of collision simulations is decided, moves them.
+     */
+    private class ContactIslandChunk extends RecursiveAction {
+        // never actually serialized, ForkJoinTask is just Serializable
+        private static final long serialVersionUID = 1L;
+        private final ForceAndTorque forceToApply = new ForceAndTorque(0, 0, 0, 0, null);
+        // this chunk's own, since the engine's is used by the other threads too
+        private int[] nearbyShapes = new int[0];
+        // positions in contactIslandShapes
+        private int start;
+        private int end;
+        private int unmovableShapeCount;
+        private double movementSpeed;
+        private int maxCollisionSimulations;
+        boolean moving;
+        // results of adding up the forces
+        double deepestPenetration;
+        int collisionSimulations;
+
+        void prepare(int start, int end, int unmovableShapeCount, double movementSpeed, int maxCollisionSimulations) {
+            this.start = start;
+            this.end = end;
+            this.unmovableShapeCount = unmovableShapeCount;
+            this.movementSpeed = movementSpeed;
+            this.maxCollisionSimulations = maxCollisionSimulations;
+            if (nearbyShapes.length < shapesByBroadPhaseIndex.length) {
+                nearbyShapes = new int[shapesByBroadPhaseIndex.length];
+            }
+            moving = false;
+            deepestPenetration = 0;
+            collisionSimulations = maxCollisionSimulations;
+            reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            if (moving) {
+                for (int i = start; i < end; i++) {
+                    moveByContactForces(contactIslandShapes[i], unmovableShapeCount, movementSpeed, forceToApply);
+                }
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                deepestPenetration = Math.max(deepestPenetration, addUpContactForces(contactIslandShapes[i], unmovableShapeCount));
+            }
+            for (int i = start; i < end; i++) {
+                collisionSimulations = Math.min(collisionSimulations, findAndRememberSafeSimulationsOfMovement(contactIslandShapes[i], unmovableShapeCount, movementSpeed, maxCollisionSimulations, nearbyShapes));
+            }
+        }
+    }
+
+    /**
+     * How many collision simulations' worth of movement a shape can make in one go.
+     * A circle with nothing touching it but one force field does conservative advancement: it can go as far as the nearest thing is,
+     * then look again from there, up to where the force field might stop pushing it.
+     * A circle going more than MAX_UNCHECKED_MOVEMENT_PER_RADIUS times its radius also never goes so far its center gets within half its radius of a wall's edge,
+     * otherwise a wall thinner than it can't push back enough to stop it going right through.
+     * Anything else gets 1, the same as always.
+     */
+    private double findSafeSimulationsOfMovement(int movableShapeIndex, int unmovableShapeCount, double movementSpeed, int maxCollisionSimulations, int[] nearbyShapes) {
+        int shapeIndex = unmovableShapeCount + movableShapeIndex;
+        if (!(shapesByBroadPhaseIndex[shapeIndex] instanceof GamePolyarcgon)) {
+            return 1;
+        }
+        PolyarcgonGeometry geometry = ((GamePolyarcgon) shapesByBroadPhaseIndex[shapeIndex]).geometryCache.get();
+        double force = Math.sqrt(totalForcesOnMovableShapesX[movableShapeIndex] * totalForcesOnMovableShapesX[movableShapeIndex] + totalForcesOnMovableShapesY[movableShapeIndex] * totalForcesOnMovableShapesY[movableShapeIndex]);
+        if (geometry.circleEdge < 0 || geometry.circleWindingFactor != 1 || force == 0) {
+            return 1;
+        }
+        double centerX = geometry.arcCenterXs[geometry.circleEdge];
+        double centerY = geometry.arcCenterYs[geometry.circleEdge];
+        double radius = geometry.radiiOfCurvature[geometry.circleEdge];
+        double directionX = totalForcesOnMovableShapesX[movableShapeIndex] / force;
+        double directionY = totalForcesOnMovableShapesY[movableShapeIndex] / force;
+
+        double distance = movementSpeed;
+        int contact = contacts.firstContactOfShapes[movableShapeIndex];
+        if (contacts.otherShapes[contact] == CollisionContactBuffer.FORCE_FIELD && contacts.nextContactOfShape(contact, movableShapeIndex) == CollisionContactBuffer.NO_CONTACT
+                && forceFieldOverlapAreas[movableShapeIndex] > 0) {
+            // moving a circle changes its overlap with the force field by at most the distance times its diameter,
+            // so it's still being pushed at least until it's gone overlap area / diameter
+            double maxDistance = Math.min(maxCollisionSimulations, forceFieldOverlapAreas[movableShapeIndex] / (2 * radius * movementSpeed)) * movementSpeed;
+            double clearDistance = 0;
+            for (int step = 0; step < MAX_CONSERVATIVE_ADVANCEMENT_STEPS && clearDistance < maxDistance; step++) {
+                double clearance = findClearance(shapeIndex, unmovableShapeCount, centerX + directionX * clearDistance, centerY + directionY * clearDistance, maxDistance - clearDistance + radius, maxDistance, false, nearbyShapes) - radius;
+                if (clearance <= 0) {
+                    break;
+                }
+                clearDistance = Math.min(maxDistance, clearDistance + clearance);
+            }
+            // near something it's back to normal steps
+            distance = Math.max(distance, clearDistance);
+        }
+
+        if (distance <= radius * MAX_UNCHECKED_MOVEMENT_PER_RADIUS) {
+            return distance / movementSpeed;
+        }
+        double startClearance = findClearance(shapeIndex, unmovableShapeCount, centerX, centerY, radius, 0, true, nearbyShapes);
+        // if it's already that deep it just can't go any deeper
+        double minClearance = Math.min(radius / 2, startClearance);
+        if (findClearance(shapeIndex, unmovableShapeCount, centerX + directionX * distance, centerY + directionY * distance, radius, 0, true, nearbyShapes) < minClearance) {
+            double safeDistance = 0;
+            double unsafeDistance = distance;
+            for (int i = 0; i < 8; i++) {
+                double middleDistance = (safeDistance + unsafeDistance) / 2;
+                if (findClearance(shapeIndex, unmovableShapeCount, centerX + directionX * middleDistance, centerY + directionY * middleDistance, radius, 0, true, nearbyShapes) < minClearance) {
+                    unsafeDistance = middleDistance;
+                } else {
+                    safeDistance = middleDistance;
+                }
+            }
+            distance = safeDistance;
+        }
+        return distance / movementSpeed;
+    }
+
+    /**
+     * How far (x, y) is from the nearest wall edge or other shape the shape collides with, up to maxDistance.
+     * Shapes other than GamePolyarcgon walls just count as their bounding circle.
+     * Only shapes the broad phase finds within reach are looked at.
+     *
+     * @param movableShapeAllowance how far other movable shapes might move towards it meanwhile
+     * @param wallsOnly whether to leave out movable shapes
+     * @param nearbyShapes room for every shape, to put the ones within reach in
+     */
+    private double findClearance(int shapeIndex, int unmovableShapeCount, double x, double y, double maxDistance, double movableShapeAllowance, boolean wallsOnly, int[] nearbyShapes) {
+        GameShape shape = shapesByBroadPhaseIndex[shapeIndex];
+        double reach = maxDistance + (wallsOnly ? 0 : movableShapeAllowance);
+        int nearbyShapeCount = broadPhase.findShapesTouchingBox(x - reach, y - reach, x + reach, y + reach, nearbyShapes);
+        for (int i = 0; i < nearbyShapeCount; i++) {
+            int otherShapeIndex = nearbyShapes[i];
+            if (otherShapeIndex == shapeIndex || (wallsOnly && otherShapeIndex >= unmovableShapeCount)
+                    || (collisionMasksByBroadPhaseIndex[shapeIndex] & collisionLayerBitsByBroadPhaseIndex[otherShapeIndex]) == 0) {
+                continue;
+            }
+            GameShape otherShape = shapesByBroadPhaseIndex[otherShapeIndex];
+            boolean isOtherShapeMovable = otherShapeIndex >= unmovableShapeCount;
+            double boundingCircleClearance = Math.hypot(otherShape.getX() - x, otherShape.getY() - y) - otherShape.getBoundingRadius() - (isOtherShapeMovable ? movableShapeAllowance : 0);
+            if (boundingCircleClearance >= maxDistance || !collisionRulesAllow(shape, otherShape)) {
+                continue;
+            }
+            if (!isOtherShapeMovable && otherShape instanceof GamePolyarcgon) {
+                // walls don't move during the update, so use the edges in the wall's own frame
+                GamePolyarcgon wall = (GamePolyarcgon) otherShape;
+                double cos = Math.cos(wall.rotationRadians);
+                double sin = Math.sin(wall.rotationRadians);
+                double wallFrameX = (x - wall.x) * cos + (y - wall.y) * sin;
+                double wallFrameY = (y - wall.y) * cos - (x - wall.x) * sin;
+                maxDistance = wall.templateEdgeTree.distanceToNearestEdge(wall.templateGeometry, wallFrameX, wallFrameY, maxDistance);
+            } else {
+                maxDistance = Math.max(0, boundingCircleClearance);
+            }
+        }
+        return maxDistance;
+    }
+
+    private void findContacts(boolean applyForceFields, int unmovableShapeCount, int movableShapeCount) {
+        for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+            int shapeIndex = unmovableShapeCount + movableShapeIndex;
+            GameShape shape = shapesByBroadPhaseIndex[shapeIndex];
+            int candidateCount = findNarrowPhaseCandidates(shapeIndex, movableShapeIndex, unmovableShapeCount, movableShapeCount);
+            int wallDistanceFieldResult = collideWithWallDistanceField(shape, movableShapeIndex, reusableCollision);
+            if (wallDistanceFieldResult >= 0) {
+                contacts.addContact(movableShapeIndex, CollisionContactBuffer.NOT_A_MOVABLE_SHAPE, reusableCollision);
+            }
+            // candidates are in index order so the unmovable shapes come first, same as testing every shape
+            for (int i = 0; i < candidateCount; i++) {
+                int otherShapeIndex = broadPhaseCandidates[i];
+                boolean isOtherShapeMovable = otherShapeIndex >= unmovableShapeCount;
+                if (!isOtherShapeMovable && wallDistanceFieldResult != WallDistanceField.CANT_TELL && wallIsInDistanceFieldByBroadPhaseIndex[otherShapeIndex]) {
+                    continue;
+                }
+                OverlapGradientForceCalculator collision = reusableCollision;
+                pairTestCountThisSimulation++;
+                if (collideIfRulesAllow(shape, shapesByBroadPhaseIndex[otherShapeIndex], isOtherShapeMovable, collision)) {
+//                    Log.i("me", String.format("%.2f, %.2f", collision.repulsionForceAwayFromShape1x, collision.repulsionForceAwayFromShape1y));
+                    if (isOtherShapeMovable) {
+                        contacts.addContact(movableShapeIndex, otherShapeIndex - unmovableShapeCount, collision);
+                        joinContactIslands(movableShapeIndex, otherShapeIndex - unmovableShapeCount);
+                    } else {
+                        contacts.addContact(movableShapeIndex, CollisionContactBuffer.NOT_A_MOVABLE_SHAPE, collision);
+                    }
+                }
+            }
+            forceFieldOverlapAreas[movableShapeIndex] = 0;
+            if (applyForceFields) {
+                ForceAndTorque forceFromFields = reusableForceFromFields;
+                forceFromFields.reset(shape);
+                forceFieldOverlapAreas[movableShapeIndex] = addForceFromFields(shape, reusableForceFieldOverlap, forceFromFields);
+                addForceFieldContact(movableShapeIndex, forceFromFields);
+            }
+        }
+    }
+
+    /**
+     * Same as findContacts(), except the collision tests and force fields are done on the narrowPhasePool.
+     * Each chunk of shapes gets its own contact buffer, and the buffers are copied into the
+     * main one in the same order findContacts() would have added them,
+     * so the results are exactly the same down to the last bit.
+     */
+    private void findContactsInParallel(boolean applyForceFields, int unmovableShapeCount, int movableShapeCount) {
+        // the broad phase and the shapes' lazy caches aren't thread safe, so do those here first
+        for (GameShape shape : shapesByBroadPhaseIndex) {
+            shape.updateCollisionCaches();
+        }
+        if (applyForceFields) {
+            for (int i = 0; i < forceFields.size(); i++) {
+                GameShape affectedArea = forceFields.get(i).affectedArea;
+                if (affectedArea != null) {
+                    affectedArea.updateCollisionCaches();
+                }
+            }
+        }
+        if (narrowPhaseCandidateStarts.length < movableShapeCount + 1) {
+            narrowPhaseCandidateStarts = new int[movableShapeCount + 1];
+            narrowPhaseContactStarts = new int[movableShapeCount];
+            narrowPhaseContactEnds = new int[movableShapeCount];
+            forcesFromFieldsX = new double[movableShapeCount];
+            forcesFromFieldsY = new double[movableShapeCount];
+            torquesFromFields = new double[movableShapeCount];
+        }
+        int totalCandidateCount = 0;
+        for (int movableShapeIndex = 0; movableShapeIndex < movableShapeCount; movableShapeIndex++) {
+            int candidateCount = findNarrowPhaseCandidates(unmovableShapeCount + movableShapeIndex, movableShapeIndex, unmovableShapeCount, movableShapeCount);
+            narrowPhaseCandidateStarts[movableShapeIndex] = totalCandidateCount;
+            if (narrowPhaseCandidates.length < totalCandidateCount + candidateCount) {
+                narrowPhaseCandidates = Arrays.copyOf(narrowPhaseCandidates, Math.max(2 * narrowPhaseCandidates.length, totalCandidateCount + candidateCount));
+            }
+            System.arraycopy(broadPhaseCandidates, 0, narrowPhaseCandidates, totalCandidateCount, candidateCount);
+            totalCandidateCount += candidateCount;
+        }
+        narrowPhaseCandidateStarts[movableShapeCount] = totalCandidateCount;
+
+        // split the shapes into chunks with about the same number of candidates each,
+        // several per thread so a chunk with a few expensive shapes doesn't hold everything up
+        int chunkCount = narrowPhaseChunks.length;
+        int chunkStart = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int chunkEnd = chunkStart;
+            long candidatesUpToChunkEnd = (long) totalCandidateCount * (chunk + 1) / chunkCount;
+            while (chunkEnd < movableShapeCount && (narrowPhaseCandidateStarts[chunkEnd] < candidatesUpToChunkEnd || chunk == chunkCount - 1)) {
+                chunkEnd++;
+            }
+            narrowPhaseChunks[chunk].prepare(chunkStart, chunkEnd, applyForceFields, unmovableShapeCount, movableShapeCount);
+            chunkStart = chunkEnd;
+        }
+        narrowPhaseAllChunks.reinitialize();
+        narrowPhasePool.invoke(narrowPhaseAllChunks);
+
+        for (NarrowPhaseChunk chunk : narrowPhaseChunks) {
+            CollisionContactBuffer chunkContacts = chunk.contacts;
+            pairTestCountThisSimulation += chunk.pairTestCount;
+            for (int movableShapeIndex = chunk.firstMovableShapeIndex; movableShapeIndex < chunk.endMovableShapeIndex; movableShapeIndex++) {
+                for (int contact = narrowPhaseContactStarts[movableShapeIndex]; contact < narrowPhaseContactEnds[movableShapeIndex]; contact++) {
+                    int otherMovableShapeIndex = chunkContacts.otherShapes[contact];
+                    contacts.addContact(movableShapeIndex, otherMovableShapeIndex, chunkContacts.overlapGradientForcesX[contact], chunkContacts.overlapGradientForcesY[contact], chunkContacts.overlapGradientTorquesOnFirstShape[contact], chunkContacts.overlapGradientTorquesOnOtherShape[contact], chunkContacts.overlapAreas[contact], chunkContacts.overlapPerimeters[contact]);
+                    if (otherMovableShapeIndex >= 0) {
+                        joinContactIslands(movableShapeIndex, otherMovableShapeIndex);
+                    }
+                }
+                if (applyForceFields) {
+                    // how much of the force to use depends on the other contacts on the shape, so that part has to wait till now
+                    ForceAndTorque forceFromFields = reusableForceFromFields;
+                    forceFromFields.reset(shapesByBroadPhaseIndex[unmovableShapeCount + movableShapeIndex]);
+                    forceFromFields.forceActingOnShapeX = forcesFromFieldsX[movableShapeIndex];
+                    forceFromFields.forceActingOnShapeY = forcesFromFieldsY[movableShapeIndex];
+                    forceFromFields.torqueActingOnShape = torquesFromFields[movableShapeIndex];
+                    addForceFieldContact(movableShapeIndex, forceFromFields);
+                }
+            }
+        }
+    }
+
+    /**
+     * Some movable shapes and everything they collide with, for the parallel narrow phase.
+     */
+    private class NarrowPhaseChunk extends RecursiveAction {
+        // never actually serialized, ForkJoinTask is just Serializable
+        private static final long serialVersionUID = 1L;
+        final CollisionContactBuffer contacts = new CollisionContactBuffer();
+        private final OverlapGradientForceCalculator collision = new OverlapGradientForceCalculator(null, null);
+        private final OverlapAreaIntegralCalculator forceFieldOverlap = new OverlapAreaIntegralCalculator(null, null);
+        private final ForceAndTorque forceFromFields = new ForceAndTorque(0, 0, 0, 0, null);
+        int firstMovableShapeIndex;
+        int endMovableShapeIndex;
+        int pairTestCount;
+        private boolean applyForceFields;
+        private int unmovableShapeCount;
+        private int movableShapeCount;
+
+        void prepare(int firstMovableShapeIndex, int endMovableShapeIndex, boolean applyForceFields, int unmovableShapeCount, int movableShapeCount) {
+            this.firstMovableShapeIndex = firstMovableShapeIndex;
+            this.endMovableShapeIndex = endMovableShapeIndex;
+            this.applyForceFields = applyForceFields;
+            this.unmovableShapeCount = unmovableShapeCount;
+            this.movableShapeCount = movableShapeCount;
+            reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            contacts.clear(movableShapeCount);
+            pairTestCount = 0;
+            for (int movableShapeIndex = firstMovableShapeIndex; movableShapeIndex < endMovableShapeIndex; movableShapeIndex++) {
+                GameShape shape = shapesByBroadPhaseIndex[unmovableShapeCount + movableShapeIndex];
+                narrowPhaseContactStarts[movableShapeIndex] = contacts.contactCount;
+                int wallDistanceFieldResult = collideWithWallDistanceField(shape, movableShapeIndex, collision);
+                if (wallDistanceFieldResult >= 0) {
+                    contacts.addContact(movableShapeIndex, CollisionContactBuffer.NOT_A_MOVABLE_SHAPE, collision);
+                }
+                for (int i = narrowPhaseCandidateStarts[movableShapeIndex]; i < narrowPhaseCandidateStarts[movableShapeIndex + 1]; i++) {
+                    int otherShapeIndex = narrowPhaseCandidates[i];
+                    boolean isOtherShapeMovable = otherShapeIndex >= unmovableShapeCount;
+                    if (!isOtherShapeMovable && wallDistanceFieldResult != WallDistanceField.CANT_TELL && wallIsInDistanceFieldByBroadPhaseIndex[otherShapeIndex]) {
+                        continue;
+                    }
+                    pairTestCount++;
+                    if (collideIfRulesAllow(shape, shapesByBroadPhaseIndex[otherShapeIndex], isOtherShapeMovable, collision)) {
+                        contacts.addContact(movableShapeIndex, isOtherShapeMovable ? otherShapeIndex - unmovableShapeCount : CollisionContactBuffer.NOT_A_MOVABLE_SHAPE, collision);
+                    }
+                }
+                narrowPhaseContactEnds[movableShapeIndex] = contacts.contactCount;
+                forceFieldOverlapAreas[movableShapeIndex] = 0;
+                if (applyForceFields) {
+                    forceFromFields.reset(shape);
+                    forceFieldOverlapAreas[movableShapeIndex] = addForceFromFields(shape, forceFieldOverlap, forceFromFields);
+                    forcesFromFieldsX[movableShapeIndex] = forceFromFields.forceActingOnShapeX;
+                    forcesFromFieldsY[movableShapeIndex] = forceFromFields.forceActingOnShapeY;
+                    torquesFromFields[movableShapeIndex] = forceFromFields.torqueActingOnShape;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the shapes are colliding, if so the collision is left in the calculator
+     */
+    private boolean collideIfRulesAllow(GameShape shape, GameShape otherShape, boolean isOtherShapeMovable, OverlapGradientForceCalculator collision) {
+        if (!collisionRulesAllow(shape, otherShape)) {
+            return false;
+        }
+        collision.reset(shape, otherShape);
+        shape.collision(otherShape, true, isOtherShapeMovable, true, collision);
+        return !collision.isAlmostZero();
+    }
+
+    private boolean collisionRulesAllow(GameShape shape, GameShape otherShape) {
+        // indexed loops rather than for each, so no iterators are made
+        for (int rule = 0; rule < collisionRules.size(); rule++) {
+            if (!collisionRules.get(rule).test(shape, otherShape)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resetContactIslands(int movableShapeCount) {
+        if (contactIslandParents.length < movableShapeCount) {
+            contactIslandParents = new int[movableShapeCount];
+            contactIslandSizes = new int[movableShapeCount];
+            contactIslandMaxMovements = new double[movableShapeCount];
+            contactIslandsOfShapes = new int[movableShapeCount];
+            totalForcesOnMovableShapesX = new double[movableShapeCount];
+            totalForcesOnMovableShapesY = new double[movableShapeCount];
+            totalTorquesOnMovableShapes = new double[movableShapeCount];
+            safeSimulationsOfMovement = new double[movableShapeCount];
+            forceFieldOverlapAreas = new double[movableShapeCount];
+        }
+        for (int i = 0; i < movableShapeCount; i++) {
+            contactIslandParents[i] = i;
+            contactIslandSizes[i] = 1;
+            contactIslandMaxMovements[i] = 0.001;
+        }
+    }
+
+    /**
+     * Union find "find", with path halving so islands stay shallow.
+     */
+    private int findContactIsland(int movableShapeIndex) {
+        while (contactIslandParents[movableShapeIndex] != movableShapeIndex) {
+            contactIslandParents[movableShapeIndex] = contactIslandParents[contactIslandParents[movableShapeIndex]];
+            movableShapeIndex = contactIslandParents[movableShapeIndex];
+        }
+        return movableShapeIndex;
+    }
+
+    private void joinContactIslands(int movableShapeIndex, int otherMovableShapeIndex) {
+        int island = findContactIsland(movableShapeIndex);
+        int otherIsland = findContactIsland(otherMovableShapeIndex);
+        if (island == otherIsland) {
+            return;
+        }
+        if (contactIslandSizes[island] < contactIslandSizes[otherIsland]) {
+            int swap = island;
+            island = otherIsland;
+            otherIsland = swap;
+        }
+        contactIslandParents[otherIsland] = island;
+        contactIslandSizes[island] += contactIslandSizes[otherIsland];
+    }
+
+    private void rebuildBroadPhase() {
+        shapesByBroadPhaseIndex = new GameShape[unmovableShapes.size() + movableShapes.size()];
+        int index = 0;
+        for (GameShape shape : unmovableShapes) {
+            shapesByBroadPhaseIndex[index++] = shape;
+        }
+        double[] movableShapeBoundingRadii = new double[movableShapes.size()];
+        for (int i = 0; i < movableShapes.size(); i++) {
+            GameShape shape = movableShapes.get(i);
+            shapesByBroadPhaseIndex[index++] = shape;
+            movableShapeBoundingRadii[i] = shape.getBoundingRadius();
+        }
+        // cells about the size of a typical moving shape, big shapes just end up in more cells
+        double cellSize = SpatialHashGrid.MIN_CELL_SIZE;
+        if (movableShapeBoundingRadii.length > 0) {
+            Arrays.sort(movableShapeBoundingRadii);
+            cellSize = 2 * movableShapeBoundingRadii[movableShapeBoundingRadii.length / 2];
+        }
+        broadPhase.rebuild(shapesByBroadPhaseIndex, shapesByBroadPhaseIndex.length, cellSize);
+        broadPhaseNeedsRebuild = false;
+        if (nearbyShapes.length < shapesByBroadPhaseIndex.length) {
+            nearbyShapes = new int[shapesByBroadPhaseIndex.length];
+        }
+
+        // everything starts awake
+        simulationsWithoutContact = new int[movableShapes.size()];
+        movableShapeIsSleeping = new boolean[movableShapes.size()];
+        sleepingShapeCount = 0;
+        lastKnownXs = new double[shapesByBroadPhaseIndex.length];
+        lastKnownYs = new double[shapesByBroadPhaseIndex.length];
+        lastKnownRotations = new double[shapesByBroadPhaseIndex.length];
+        rememberPositions();
+
+        // there might be new walls for the wall distance field
+        wallIsInDistanceFieldByBroadPhaseIndex = new boolean[shapesByBroadPhaseIndex.length];
+        wallDistanceFieldMightBeOutOfDate = true;
+    }
+
+    /**
+     * Like findBroadPhaseCandidates(), but without shapes on layers this shape doesn't collide with (see setLayersCollide()),
+     * and a sleeping shape only gets the awake movable shapes,
+     * since it was already not touching the walls and the other sleeping shapes, and none of them have moved.
+     */
+    private int findNarrowPhaseCandidates(int shapeIndex, int movableShapeIndex, int unmovableShapeCount, int movableShapeCount) {
+        boolean isSleeping = movableShapeIsSleeping[movableShapeIndex];
+        if (isSleeping && sleepingShapeCount == movableShapeCount) {
+            return 0;
+        }
+        int candidateCount = findBroadPhaseCandidates(shapeIndex);
+        int collisionMask = collisionMasksByBroadPhaseIndex[shapeIndex];
+        int narrowPhaseCandidateCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int otherShapeIndex = broadPhaseCandidates[i];
+            if ((collisionMask & collisionLayerBitsByBroadPhaseIndex[otherShapeIndex]) != 0
+                    && (!isSleeping || (otherShapeIndex >= unmovableShapeCount && !movableShapeIsSleeping[otherShapeIndex - unmovableShapeCount]))) {
+                broadPhaseCandidates[narrowPhaseCandidateCount++] = otherShapeIndex;
+            }
+        }
+        return narrowPhaseCandidateCount;
+    }
+
+    private int findBroadPhaseCandidates(int shapeIndex) {
+        int candidateCount = broadPhase.findCandidates(shapeIndex, broadPhaseCandidates);
+        while (candidateCount < 0) {
+            broadPhaseCandidates = new int[broadPhaseCandidates.length * 2];
+            candidateCount = broadPhase.findCandidates(shapeIndex, broadPhaseCandidates);
+        }
+        return candidateCount;
+    }
+
+    public void draw(GameShapeRenderer renderer) {
+        if (renderer != null) {
+            for (GameShape s : unmovableShapes) {
+                s.draw(renderer);
+            }
+            for (GameShape s : movableShapes) {
+                s.draw(renderer);
+            }
+            for (GameForceField f : forceFields) {
+                f.affectedArea.draw(renderer);
+            }
+        }
+    }
+
+    //TODO: make force strong enough the object doesn't move towards ripple at too direct an angle
+    //this ensures either there is always something moving rather than just back and forth, or
+    //the ripple continuously applies force without doing anything
+    //avoids cases where the ball is against the wall at too direct an angle and refuses to move,
+    //or the ball is against a heavy shape that's able to move but refuses to push it
+    //maybe angle can be 180 degrees?
+
+    //also how much it pushes an object should depend on whether other things
+    //are pushing that object in the same direction. This prevents the ripple
+    //from piling a bunch of objects and exerting a small force on each one of them
+    //adding up to a huge force that shoves the last object through the wall
+    /**
+     * @return the overlap area with the force field if just one touches the shape, otherwise 0, see findSafeSimulationsOfMovement()
+     */
+    private double addForceFromFields(GameShape shape, OverlapAreaIntegralCalculator reusableOverlap, ForceAndTorque forceFromFields) {
+        int collisionRuleCount = collisionRules.size();
+        int forceFieldsTouching = 0;
+        double overlapArea = 0;
+        forceFieldsLoop:
+        for (int i = 0; i < forceFields.size(); i++) {
+            GameForceField forceField = forceFields.get(i);
+            if (forceField.affectedArea != null && !layersCollide(shape, forceField.affectedArea)) {
+                continue;
+            }
+            for (int rule = 0; rule < collisionRuleCount; rule++) {
+                if (!collisionRules.get(rule).test(shape, forceField.affectedArea)) {
+                    continue forceFieldsLoop;
+                }
+            }
+            forceField.addForceTo(shape, reusableOverlap, forceFromFields);
+            if (forceField.affectedArea != null && !reusableOverlap.isAlmostZero()) {
+                forceFieldsTouching++;
+                overlapArea = reusableOverlap.overlapArea;
+            }
+        }
+        return forceFieldsTouching == 1 ? overlapArea : 0;
+    }
+
+    private void addForceFieldContact(int movableShapeIndex, ForceAndTorque forceFromFields) {
+        if (!forceFromFields.isAlmostZero()) {
+            if (!contacts.shapeHasContacts(movableShapeIndex)) {
+                contacts.addForceFieldContact(movableShapeIndex, forceFromFields);
+            } else {
+                double repulsionCollisionMagnitude = Math.sqrt(forceFromFields.forceActingOnShapeX * forceFromFields.forceActingOnShapeX + forceFromFields.forceActingOnShapeY * forceFromFields.forceActingOnShapeY);
+                double netForceX = 0;
+                double netForceY = 0;
+                double grossForceParallelToRepulsionCollision = 0;
+                for (int otherCollision = contacts.firstContactOfShapes[movableShapeIndex]; otherCollision != CollisionContactBuffer.NO_CONTACT; otherCollision = contacts.nextContactOfShape(otherCollision, movableShapeIndex)) {
+                    double forceX;
+                    double forceY;
+                    if (contacts.firstShapes[otherCollision] == movableShapeIndex) {
+                        forceX = contacts.overlapGradientForcesX[otherCollision];
+                        forceY = contacts.overlapGradientForcesY[otherCollision];
+                    } else {
+                        forceX = -contacts.overlapGradientForcesX[otherCollision];
+                        forceY = -contacts.overlapGradientForcesY[otherCollision];
+                    }
+                    netForceX += forceX;
+                    netForceY += forceY;
+                    double dotProduct = forceX * forceFromFields.forceActingOnShapeX + forceY * forceFromFields.forceActingOnShapeY;
+                    if (dotProduct >= 0) {
+                        grossForceParallelToRepulsionCollision += dotProduct / repulsionCollisionMagnitude;
+                    }
+                }
+                double netForceCrossProduct = Math.abs(netForceX * forceFromFields.forceActingOnShapeY + netForceY * forceFromFields.forceActingOnShapeX);
+                double netForceDotProduct = netForceX * forceFromFields.forceActingOnShapeX + netForceY * forceFromFields.forceActingOnShapeY;
+                double preferredRepulsionForce = (netForceCrossProduct / Math.tan(PREFERRED_MAX_ANGLE_BETWEEN_NET_FORCE_AND_FORCE_FIELDS_FORCE) + netForceDotProduct) / repulsionCollisionMagnitude;
+                if (preferredRepulsionForce < repulsionCollisionMagnitude) {
+                    if (preferredRepulsionForce > repulsionCollisionMagnitude * RIPPLE_WEAKENING_FACTOR_WHEN_MOVING) {
+                        forceFromFields.multiplyIntensity(preferredRepulsionForce / repulsionCollisionMagnitude);
+                        repulsionCollisionMagnitude *= preferredRepulsionForce / repulsionCollisionMagnitude;
+                    } else {
+                        forceFromFields.multiplyIntensity(RIPPLE_WEAKENING_FACTOR_WHEN_MOVING);
+                        repulsionCollisionMagnitude *= RIPPLE_WEAKENING_FACTOR_WHEN_MOVING;
+                    }
+                }
+                if (grossForceParallelToRepulsionCollision < repulsionCollisionMagnitude) {
+                    if (grossForceParallelToRepulsionCollision > 0) {
+                        forceFromFields.multiplyIntensity(1 - grossForceParallelToRepulsionCollision / repulsionCollisionMagnitude);
+                    }
+                    contacts.addForceFieldContact(movableShapeIndex, forceFromFields);
+                }
+            }
+        }
+    }
+
+    /**
+     * Does the collision tests between shapes (the "narrow phase") on the given pool's threads,
+     * and adds up and applies the forces of separate contact islands (groups of shapes pushing on each other) on them too.
+     * The results are exactly the same as without a pool, it's just faster with lots of shapes on a phone with several cores.
+     * Collision rules and force fields get used from the pool's threads, so they shouldn't change anything.
+     * Pass null to go back to doing everything on the thread calling update().
+     */
+    public void setNarrowPhasePool(ForkJoinPool pool) {
+        narrowPhasePool = pool;
+        if (pool == null) {
+            narrowPhaseChunks = new NarrowPhaseChunk[0];
+            contactIslandChunks = new ContactIslandChunk[0];
+        } else {
+            narrowPhaseChunks = new NarrowPhaseChunk[4 * pool.getParallelism()];
+            for (int i = 0; i < narrowPhaseChunks.length; i++) {
+                narrowPhaseChunks[i] = new NarrowPhaseChunk();
+            }
+            contactIslandChunks = new ContactIslandChunk[4 * pool.getParallelism()];
+            for (int i = 0; i < contactIslandChunks.length; i++) {
+                contactIslandChunks[i] = new ContactIslandChunk();
+            }
+        }
+    }
+
+    /**
+     * Puts the walls (unmovable GamePolyarcgons that aren't kinematic) into a WallDistanceField, built on a background thread.
+     * Once it's ready, circles like the ball collide with the walls by looking up a few cells instead of searching the walls' edges,
+     * and the normal collision code is only needed near corners, arcs and anything else more complicated than one straight edge.
+     * Until it's ready everything collides as usual. It's thrown away (and the memory let go) by removeAllShapes(),
+     * then built again for the next walls.
+     *
+     * @param cellSize how big the field's cells are, smaller cells use the normal collision code less often but take more memory and longer to build
+     * @param maxMemoryBytes if the field would need more memory than this, the cells are made bigger until it fits
+     */
+    public void enableWallDistanceField(double cellSize, long maxMemoryBytes) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("the wall distance field's cell size needs to be more than 0, not " + cellSize);
+        }
+        discardWallDistanceField();
+        wallDistanceFieldCellSize = cellSize;
+        wallDistanceFieldMaxMemoryBytes = maxMemoryBytes;
+    }
+
+    public void disableWallDistanceField() {
+        discardWallDistanceField();
+        wallDistanceFieldCellSize = 0;
+    }
+
+    /**
+     * Waits until the wall distance field is built, rather than using the normal collision code until it's ready,
+     * so the results don't depend on how fast the background thread is, e.g. for tests and replays.
+     */
+    public void waitForWallDistanceField() {
+        startWallDistanceFieldIfOutOfDate();
+        if (wallDistanceFieldBuild != null) {
+            wallDistanceFieldBuild.waitUntilFinished();
+        }
+    }
+
+    private void discardWallDistanceField() {
+        if (wallDistanceFieldBuild != null) {
+            wallDistanceFieldBuild.cancel();
+            wallDistanceFieldBuild = null;
+        }
+        wallDistanceField = null;
+        wallDistanceFieldMightBeOutOfDate = true;
+    }
+
+    /**
+     * Starts building the wall distance field in the background if the walls have changed, and starts using it once it's built.
+     */
+    private void updateWallDistanceField() {
+        startWallDistanceFieldIfOutOfDate();
+        if (wallDistanceFieldBuild != null && wallDistanceFieldBuild.isFinished()) {
+            WallDistanceField field = wallDistanceFieldBuild.getResult();
+            if (field != null && !field.wallsHaveNotMoved()) {
+                // a wall moved while it was being built
+                for (int wall = 0; wall < field.walls.length; wall++) {
+                    if (field.walls[wall].x != field.wallXs[wall] || field.walls[wall].y != field.wallYs[wall] || field.walls[wall].rotationRadians != field.wallRotations[wall]) {
+                        wallsLeftOutOfDistanceField.add(field.walls[wall]);
+                    }
+                }
+                discardWallDistanceField();
+                return;
+            }
+            // if it didn't fit in memory this stays null, and it isn't tried again until the walls change
+            wallDistanceField = field;
+            wallDistanceFieldBuild = null;
+        }
+        if (wallDistanceField != null) {
+            // the field's walls are in the same order as in unmovableShapes
+            WallDistanceField field = wallDistanceField;
+            int wall = 0;
+            wallDistanceFieldLayerBits = 0;
+            for (int shapeIndex = 0; shapeIndex < unmovableShapes.size(); shapeIndex++) {
+                wallIsInDistanceFieldByBroadPhaseIndex[shapeIndex] = wall < field.walls.length && shapesByBroadPhaseIndex[shapeIndex] == field.walls[wall];
+                if (wallIsInDistanceFieldByBroadPhaseIndex[shapeIndex]) {
+                    wallDistanceFieldLayerBits |= collisionLayerBitsByBroadPhaseIndex[shapeIndex];
+                    wall++;
+                }
+            }
+        }
+    }
+
+    private void startWallDistanceFieldIfOutOfDate() {
+        if (!wallDistanceFieldMightBeOutOfDate || wallDistanceFieldCellSize == 0) {
+            return;
+        }
+        wallDistanceFieldMightBeOutOfDate = false;
+        ArrayList<GamePolyarcgon> walls = new ArrayList<>();
+        for (GameShape shape : unmovableShapes) {
+            if (shape instanceof GamePolyarcgon && !kinematicShapes.contains(shape) && !wallsLeftOutOfDistanceField.contains(shape)) {
+                walls.add((GamePolyarcgon) shape);
+            }
+        }
+        GameShape[] currentWalls = wallDistanceFieldBuild != null ? wallDistanceFieldBuild.walls : wallDistanceField != null ? wallDistanceField.walls : null;
+        if (currentWalls != null && Arrays.asList(currentWalls).equals(walls)) {
+            return;
+        }
+        discardWallDistanceField();
+        wallDistanceFieldMightBeOutOfDate = false;
+        if (!walls.isEmpty()) {
+            wallDistanceFieldBuild = new WallDistanceField.BackgroundBuild(walls.toArray(new GamePolyarcgon[0]), wallDistanceFieldCellSize, wallDistanceFieldMaxMemoryBytes);
+        }
+    }
+
+    /**
+     * Collides a circle with the walls in the wall distance field, if the field is ready.
+     * Called from the narrowPhasePool's threads too, so it only reads the field.
+     *
+     * @return WallDistanceField.CANT_TELL if the walls in the field need colliding with as usual,
+     * otherwise the walls in the field can be skipped, and if it's 0 or more it's touching one and the contact is left in collision
+     */
+    private int collideWithWallDistanceField(GameShape shape, int movableShapeIndex, OverlapGradientForceCalculator collision) {
+        WallDistanceField field = wallDistanceField;
+        // a sleeping shape isn't tested against walls anyway, and collision rules could say anything about each wall
+        if (field == null || !(shape instanceof GamePolyarcgon) || movableShapeIsSleeping[movableShapeIndex] || !collisionRules.isEmpty()) {
+            return WallDistanceField.CANT_TELL;
+        }
+        int shapeIndex = unmovableShapes.size() + movableShapeIndex;
+        if ((collisionMasksByBroadPhaseIndex[shapeIndex] & wallDistanceFieldLayerBits) != wallDistanceFieldLayerBits) {
+            return WallDistanceField.CANT_TELL;
+        }
+        PolyarcgonGeometry geometry = ((GamePolyarcgon) shape).geometryCache.get();
+        if (geometry.circleEdge < 0 || geometry.circleWindingFactor < 0) {
+            return WallDistanceField.CANT_TELL;
+        }
+        int line = field.findTouchingLine(geometry.arcCenterXs[geometry.circleEdge], geometry.arcCenterYs[geometry.circleEdge], geometry.radiiOfCurvature[geometry.circleEdge]);
+        if (line >= 0) {
+            collision.reset(shape, field.getWall(line));
+            field.addOverlap(collision, line, geometry);
+            if (collision.isAlmostZero()) {
+                return WallDistanceField.NO_CONTACT;
+            }
+        }
+        return line;
+    }
+
+    public double distanceBetween(GameShape shape1, GameShape shape2) {
+        double xDifference = shape2.getX() - shape1.getX();
+        double yDifference = shape2.getY() - shape1.getY();
+        return Math.sqrt(xDifference * xDifference + yDifference * yDifference);
+    }
+
+    public void removeAllShapes() {
+        unmovableShapes.clear();
+        movableShapes.clear();
+        forceFields.clear();
+        collisionRules.clear();
+        Arrays.fill(collisionLayerMasks, ~0);
+        kinematicShapes.clear();
+        kinematicPoses.clear();
+        kinematicRotationsRounded.clear();
+        kinematicFrame = 0;
+        broadPhaseNeedsRebuild = true;
+        // let the wall distance field's memory go, it's built again for the next walls
+        discardWallDistanceField();
+        wallsLeftOutOfDistanceField.clear();
+    }
+
+    /**
+     * Shapes (and force fields' affected areas) only collide if every rule says they do.
+     * Rules are checked for every pair in every collision simulation, so anything that can be done with
+     * collision layers (see setLayersCollide()) is much faster that way.
+     */
+    public void addCollisionRule(BiPredicate<GameShape, GameShape> rule) {
+        collisionRules.add(rule);
+        // the new rule might let shapes that were resting touch
+        wakeAllShapes();
+    }
+
+    public ArrayList<GameShape> getAllShapes() {
+        ArrayList<GameShape> list = new ArrayList<>();
+        list.addAll(unmovableShapes);
+        list.addAll(movableShapes);
+        return list;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * Numbers about what the GamePhysicsEngine did in its last update(), for debugging and tuning.
+ */
+public class GamePhysicsEngineMetrics {
+    int movableShapeCount = 0;
+    int sleepingShapeCount = 0;
+    int collisionSimulationCount = 0;
+    int maxCollisionSimulationCount = 0;
+    int skippedCollisionSimulationCount = 0;
+    double deepestPenetration = 0;
+    int pairTestCount = 0;
+    int contactCount = 0;
+
+    public int getMovableShapeCount() {
+        return movableShapeCount;
+    }
+
+    /**
+     * Movable shapes that haven't touched anything for a while, so the engine mostly skips them.
+     * See GamePhysicsEngine.SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING
+     */
+    public int getSleepingShapeCount() {
+        return sleepingShapeCount;
+    }
+
+    /**
+     * How many collision simulations (sub-steps) were actually done, it stops early once nothing collides
+     */
+    public int getCollisionSimulationCount() {
+        return collisionSimulationCount;
+    }
+
+    /**
+     * How many collision simulations were allowed, this changes if there's a time budget
+     */
+    public int getMaxCollisionSimulationCount() {
+        return maxCollisionSimulationCount;
+    }
+
+    /**
+     * How many of the allowed collision simulations were skipped because everything moving had nothing near it
+     * and could do several simulations' worth of moving at once (conservative advancement)
+     */
+    public int getSkippedCollisionSimulationCount() {
+        return skippedCollisionSimulationCount;
+    }
+
+    /**
+     * The deepest two shapes were inside each other during any collision simulation,
+     * as overlap area divided by overlap perimeter
+     */
+    public double getDeepestPenetration() {
+        return deepestPenetration;
+    }
+
+    /**
+     * How many pairs of shapes the broad phase let through to a proper collision test, added up over all the collision simulations
+     */
+    public int getPairTestCount() {
+        return pairTestCount;
+    }
+
+    /**
+     * How many of those pairs were touching, plus shapes touching a wall in the wall distance field,
+     * added up over all the collision simulations (force fields pushing shapes aren't counted)
+     */
+    public int getContactCount() {
+        return contactCount;
+    }
+}
@@ -1,11 +1,5 @@
 package com.github.eztang00.firstandroidgame.gamephysics;
 
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Matrix;
-import android.graphics.Paint;
-import android.graphics.Path;
-
 /**
  * A generalization of a polygon, which can have arcs instead of just straight edges.
  * It's more limited than Android's Path class, but has methods for collision physics,
@@ -16,16 +10,51 @@ public class GamePolyarcgon implements GameShape {
     public double y;
     public double boundingRadius;
     public double rotationRadians;
+    public int collisionLayer = 0;
 
     public final Object additionalAttributes;
+    // for the GameShapeRenderer to remember things between frames, e.g. the drawing path, the physics never touches it
+    public Object renderingCache = null;
     private double density;
     private double mass;
     private double momentOfInertia;
 
     private final PolyarcgonPoint[] templatePoints;
-    private final Path templatePathForDrawing;
+    // where the points are now, packed into arrays for the collision loops
+    final Cache<PolyarcgonGeometry> geometryCache;
+    // the same PolyarcgonGeometry, but only the points' positions are brought up to date, not the edges
+    final Cache<PolyarcgonGeometry> pointPositionsCache;
+    // the same thing as objects, only filled in when something asks for them
     final Cache<PolyarcgonPointCache[]> pointsCache;
-    private final Cache<Path> pathForDrawingCache;
+    final Cache<PolyarcgonEdgeTree> edgeTreeCache;
+    // edge pairs from collisions where this is the first shape, reused while the shapes barely move
+    private final PolyarcgonEdgePairCache edgePairCache = new PolyarcgonEdgePairCache();
+    // the points relative to the shape's own center and rotation, worked out once and never changed afterwards,
+    // so movable shapes can collide with this one in its own frame (see WallFrame) from any thread
+    final PolyarcgonGeometry templateGeometry;
+    final PolyarcgonEdgeTree templateEdgeTree;
+    // this shape's geometry relative to the last few unmovable shapes it collided with
+    static final int MAX_WALL_FRAMES = 4;
+    private final WallFrame[] wallFrames = new WallFrame[MAX_WALL_FRAMES];
+    private int nextWallFrameToReplace = 0;
+    // only for shapes that keep coming back to the same rotations, see enablePoseCache()
+    private PolyarcgonPoseCache poseCache = null;
+    public static final int POSE_CACHE_ANGLE_STEPS_PER_REVOLUTION = PolyarcgonPoseCache.ANGLE_STEPS_PER_REVOLUTION;
+
+    // below this many pairs of edges it's faster to just check every pair than to search the edge trees
+    static final int MAX_EDGE_PAIRS_TO_CHECK_WITHOUT_EDGE_TREES = 64;
+    private static final ThreadLocal<PolyarcgonEdgeTree.EdgePairSearch> edgePairSearches = new ThreadLocal<PolyarcgonEdgeTree.EdgePairSearch>() {
+        @Override
+        protected PolyarcgonEdgeTree.EdgePairSearch initialValue() {
+            return new PolyarcgonEdgeTree.EdgePairSearch();
+        }
+    };
+    private static final ThreadLocal<WallFrameOverlapCalculator> wallFrameOverlapCalculators = new ThreadLocal<WallFrameOverlapCalculator>() {
+        @Override
+        protected WallFrameOverlapCalculator initialValue() {
+            return new WallFrameOverlapCalculator();
+        }
+    };
 
     public GamePolyarcgon(GamePolyarcgonBuilder gamePolyarcgonBuilder) {
 
@@ -34,18 +63,6 @@ public class GamePolyarcgon implements GameShape {
         templatePoints = gamePolyarcgonBuilder.generatePoints().toArray(new PolyarcgonPoint[0]);
 
         PolyarcgonPointCache[] pointsCachePoints = new PolyarcgonPointCache[templatePoints.length];
-        pointsCache = new Cache<>(pointsCachePoints, ((newX, newY, newRotation) -> {
-            double cosRotation = Math.cos(rotationRadians);
-            double sinRotation = Math.sin(rotationRadians);
-            for (PolyarcgonPointCache pointCache : pointsCachePoints) {
-                pointCache.updatePositionCache(x, y, cosRotation, sinRotation);
-            }
-            PolyarcgonPointCache lastPointCache = pointsCachePoints[pointsCachePoints.length - 1];
-            for (PolyarcgonPointCache pointCache : pointsCachePoints) {
-                pointCache.updateLineOrArcCache(lastPointCache);
-                lastPointCache = pointCache;
-            }
-        }));
         for (int i = 0; i < templatePoints.length; i++) {
             if (templatePoints[i].isAlmostStraight()) {
                 pointsCachePoints[i] = new PolyarcgonStraightPointCache(templatePoints[i]);
@@ -53,18 +70,51 @@ public class GamePolyarcgon implements GameShape {
                 pointsCachePoints[i] = new PolyarcgonArcedPointCache(templatePoints[i]);
             }
         }
+        PolyarcgonGeometry geometry = new PolyarcgonGeometry(templatePoints, pointsCachePoints);
+        pointPositionsCache = new Cache<>(geometry, geometry::updatePointPositions, geometry::translatePointPositions);
+        geometryCache = new Cache<>(geometry, ((newX, newY, newRotation) -> {
+            PolyarcgonPoseCache.Pose pose = poseCache == null ? null : poseCache.get(newX, newY, newRotation);
+            if (pose != null) {
+                geometry.copyFrom(pose.geometry);
+                if (newX != pose.x || newY != pose.y) {
+                    geometry.translatePointPositions(newX - pose.x, newY - pose.y);
+                    geometry.translateEdges(newX - pose.x, newY - pose.y);
+                }
+                // the points didn't come from pointPositionsCache, so it doesn't know where they are
+                pointPositionsCache.invalidate();
+            } else {
+                pointPositionsCache.get();
+                geometry.updateEdges();
+            }
+        }), ((xChange, yChange) -> {
+            pointPositionsCache.get();
+            geometry.translateEdges(xChange, yChange);
+        }));
+        pointsCache = new Cache<>(pointsCachePoints, ((newX, newY, newRotation) -> geometryCache.get().copyToPointCaches()));
 
         initiateXYMassMomentOfInertiaBoundingRadiusAndTemplatePoints(gamePolyarcgonBuilder.centerOfMassX, gamePolyarcgonBuilder.centerOfMassY, gamePolyarcgonBuilder.centerOfMassIsRelativeToDefaultCenterOfMass); //needs to be after pointsCache exists
+        geometry.templatePointsMoved(); // the template points were just moved so the center of mass is at 0, 0
+        // so the caches can't just be translated from where they were
+        pointPositionsCache.invalidate();
+        geometryCache.invalidate();
+
+        PolyarcgonEdgeTree edgeTree = new PolyarcgonEdgeTree(geometryCache.get()); //needs to be after x and y are final
+        edgeTreeCache = new Cache<>(edgeTree, ((newX, newY, newRotation) -> {
+            PolyarcgonPoseCache.Pose pose = poseCache == null ? null : poseCache.get(newX, newY, newRotation);
+            if (pose != null) {
+                edgeTree.copyBoxesFrom(pose.edgeTree);
+                if (newX != pose.x || newY != pose.y) {
+                    edgeTree.translate(newX - pose.x, newY - pose.y);
+                }
+            } else {
+                edgeTree.refit(geometryCache.get());
+            }
+        }), edgeTree::translate);
 
-        templatePathForDrawing = initiatePath(); //needs to be after pointsCache exists
-        Path pathForDrawingCachePath = new Path();
-        pathForDrawingCache = new Cache<>(pathForDrawingCachePath, ((newX, newY, newRotation) -> {
-            Matrix matrix = new Matrix();
-            matrix.setTranslate((float) newX, (float) newY);
-            matrix.preRotate((float) (newRotation * 180.0 / Math.PI));
-            pathForDrawingCachePath.set(templatePathForDrawing);
-            pathForDrawingCachePath.transform(matrix);
-        }));
+        templateGeometry = new PolyarcgonGeometry(templatePoints, pointsCachePoints); //needs to be after the template points are moved
+        templateGeometry.updatePointPositions(0, 0, 0);
+        templateGeometry.updateEdges();
+        templateEdgeTree = new PolyarcgonEdgeTree(templateGeometry);
     }
 
     private void initiateXYMassMomentOfInertiaBoundingRadiusAndTemplatePoints(double centerOfMassX, double centerOfMassY, boolean centerOfMassIsRelativeToDefaultCenterOfMass) {
@@ -150,40 +200,182 @@ public class GamePolyarcgon implements GameShape {
         }
     }
 
+    // after this many translations in a row a cache is worked out from scratch again, so rounding errors can't build up
+    static final int MAX_CACHE_TRANSLATIONS_BETWEEN_UPDATES = 256;
+
     class Cache<T> {
         private double xWhenLastUpdatedCache = Double.NaN;
         private double yWhenLastUpdatedCache = Double.NaN;
         private double rotationWhenLastUpdatedCache = Double.NaN;
+        private int translationsSinceLastUpdate = 0;
         private final T cache;
         private final CacheUpdateFunction cacheUpdateFunction;
+        private final CacheTranslateFunction cacheTranslateFunction;
 
         Cache(T cache, CacheUpdateFunction cacheUpdateFunction) {
+            this(cache, cacheUpdateFunction, null);
+        }
+
+        /**
+         * @param cacheTranslateFunction for when the shape only moved and didn't rotate (e.g. most moves of a ball),
+         *                               which is usually much cheaper than updating everything, or null to always update everything
+         */
+        Cache(T cache, CacheUpdateFunction cacheUpdateFunction, CacheTranslateFunction cacheTranslateFunction) {
             this.cache = cache;
             this.cacheUpdateFunction = cacheUpdateFunction;
+            this.cacheTranslateFunction = cacheTranslateFunction;
         }
 
         public T get() {
-            if (xWhenLastUpdatedCache != x || yWhenLastUpdatedCache != y || rotationWhenLastUpdatedCache != rotationRadians) {
-                cacheUpdateFunction.updateCache(x, y, rotationRadians);
-                xWhenLastUpdatedCache = x;
-                yWhenLastUpdatedCache = y;
-                rotationWhenLastUpdatedCache = rotationRadians;
+            return get(x, y, rotationRadians);
+        }
+
+        /**
+         * Same as get() but for some other position and rotation than the shape's, e.g. relative to a wall (see WallFrame)
+         */
+        T get(double currentX, double currentY, double currentRotation) {
+            if (xWhenLastUpdatedCache != currentX || yWhenLastUpdatedCache != currentY || rotationWhenLastUpdatedCache != currentRotation) {
+                // (the first time, rotationWhenLastUpdatedCache is NaN so it's never just a translation)
+                if (cacheTranslateFunction != null && rotationWhenLastUpdatedCache == currentRotation && translationsSinceLastUpdate < MAX_CACHE_TRANSLATIONS_BETWEEN_UPDATES) {
+                    cacheTranslateFunction.translateCache(currentX - xWhenLastUpdatedCache, currentY - yWhenLastUpdatedCache);
+                    translationsSinceLastUpdate++;
+                } else {
+                    cacheUpdateFunction.updateCache(currentX, currentY, currentRotation);
+                    translationsSinceLastUpdate = 0;
+                }
+                xWhenLastUpdatedCache = currentX;
+                yWhenLastUpdatedCache = currentY;
+                rotationWhenLastUpdatedCache = currentRotation;
             }
             return cache;
         }
+
+        /**
+         * Makes the next get() update everything, e.g. because the template points changed
+         */
+        void invalidate() {
+            xWhenLastUpdatedCache = Double.NaN;
+            yWhenLastUpdatedCache = Double.NaN;
+            rotationWhenLastUpdatedCache = Double.NaN;
+        }
     }
 
     interface CacheUpdateFunction {
         void updateCache(double newX, double newY, double newRotation);
     }
 
+    interface CacheTranslateFunction {
+        void translateCache(double xChange, double yChange);
+    }
+
+    /**
+     * This shape's points relative to an unmovable shape (a wall), i.e. in the frame where the wall's center is at 0, 0 and its rotation is 0.
+     * Then the collision can use the wall's templateGeometry, which never changes,
+     * instead of the wall's geometry for where it is now, which would have to be worked out for every position and rotation
+     * and couldn't be shared between threads while that's happening.
+     * It's only this (usually much smaller) shape that needs to be moved.
+     */
+    private class WallFrame {
+        private GamePolyarcgon wall;
+        private double xRelativeToWall;
+        private double yRelativeToWall;
+        private double rotationRelativeToWall;
+        private final Cache<PolyarcgonGeometry> pointPositionsCache;
+        private final Cache<PolyarcgonGeometry> geometryCache;
+        private final Cache<PolyarcgonEdgeTree> edgeTreeCache;
+
+        WallFrame(GamePolyarcgon wall) {
+            this.wall = wall;
+            PolyarcgonGeometry geometry = new PolyarcgonGeometry(templatePoints, templateGeometry.pointCaches);
+            pointPositionsCache = new Cache<>(geometry, geometry::updatePointPositions, geometry::translatePointPositions);
+            geometryCache = new Cache<>(geometry, ((newX, newY, newRotation) -> {
+                pointPositionsCache.get(newX, newY, newRotation);
+                geometry.updateEdges();
+            }), ((xChange, yChange) -> {
+                pointPositionsCache.get(xRelativeToWall, yRelativeToWall, rotationRelativeToWall);
+                geometry.translateEdges(xChange, yChange);
+            }));
+            PolyarcgonEdgeTree edgeTree = new PolyarcgonEdgeTree(geometryCache.get(0, 0, 0));
+            edgeTreeCache = new Cache<>(edgeTree, ((newX, newY, newRotation) -> edgeTree.refit(geometryCache.get(newX, newY, newRotation))), edgeTree::translate);
+        }
+
+        /**
+         * Reuses this for another wall, so colliding with lots of walls doesn't keep making new ones
+         */
+        void setWall(GamePolyarcgon wall) {
+            this.wall = wall;
+            pointPositionsCache.invalidate();
+            geometryCache.invalidate();
+            edgeTreeCache.invalidate();
+        }
+
+        /**
+         * Works out where this shape is relative to the wall now
+         */
+        void update(double cosWallRotation, double sinWallRotation) {
+            double xChange = x - wall.x;
+            double yChange = y - wall.y;
+            xRelativeToWall = xChange * cosWallRotation + yChange * sinWallRotation;
+            yRelativeToWall = yChange * cosWallRotation - xChange * sinWallRotation;
+            rotationRelativeToWall = rotationRadians - wall.rotationRadians;
+        }
+
+        PolyarcgonGeometry getGeometry() {
+            return geometryCache.get(xRelativeToWall, yRelativeToWall, rotationRelativeToWall);
+        }
+
+        PolyarcgonEdgeTree getEdgeTree() {
+            return edgeTreeCache.get(xRelativeToWall, yRelativeToWall, rotationRelativeToWall);
+        }
+    }
+
+    private WallFrame getWallFrame(GamePolyarcgon wall) {
+        for (WallFrame wallFrame : wallFrames) {
+            if (wallFrame != null && wallFrame.wall == wall) {
+                return wallFrame;
+            }
+        }
+        WallFrame wallFrame = wallFrames[nextWallFrameToReplace];
+        if (wallFrame == null) {
+            wallFrame = new WallFrame(wall);
+            wallFrames[nextWallFrameToReplace] = wallFrame;
+        } else {
+            wallFrame.setWall(wall);
+        }
+        nextWallFrameToReplace = (nextWallFrameToReplace + 1) % MAX_WALL_FRAMES;
+        return wallFrame;
+    }
+
+    /**
+     * For shapes that keep coming back to the same rotations, e.g. a spinning windmill,
+     * remembers the geometry etc. at each rotation (see PolyarcgonPoseCache) instead of working it out again every time.
+     * Only rotations rounded with PolyarcgonPoseCache.roundToAngleStep() are remembered.
+     */
+    void enablePoseCache() {
+        if (poseCache == null) {
+            poseCache = new PolyarcgonPoseCache(templatePoints, templateGeometry.pointCaches, edgeTreeCache.cache);
+        }
+    }
+
+    /**
+     * Whether enablePoseCache() was called, i.e. the shape keeps coming back to the same rotations
+     * (whole numbers of 2 pi / POSE_CACHE_ANGLE_STEPS_PER_REVOLUTION), so a renderer can remember its drawing path at each of them too
+     */
+    public boolean isPoseCacheEnabled() {
+        return poseCache != null;
+    }
+
     public PolyarcgonPoint[] getTemplatePoints() {
         return templatePoints;
     }
 
     public void collision(GameShape otherShape, boolean isThisMovable, boolean isOtherShapeMovable, boolean thisIsFirstShape, OverlapCalculator overlapCalculator) {
         if (otherShape instanceof GamePolyarcgon) {
-            if (thisIsFirstShape) {
+            if (isThisMovable && !isOtherShapeMovable) {
+                wallFrameCollision(this, (GamePolyarcgon) otherShape, thisIsFirstShape, overlapCalculator);
+            } else if (!isThisMovable && isOtherShapeMovable) {
+                wallFrameCollision((GamePolyarcgon) otherShape, this, !thisIsFirstShape, overlapCalculator);
+            } else if (thisIsFirstShape) {
                 collision(this, (GamePolyarcgon) otherShape, overlapCalculator);
             } else {
                 collision((GamePolyarcgon) otherShape, this, overlapCalculator);
@@ -193,43 +385,42 @@ public class GamePolyarcgon implements GameShape {
         }
     }
 
-    public Path getPathForDrawing() {
-        return pathForDrawingCache.get();
+    @Override
+    public void updateCollisionCaches() {
+        geometryCache.get();
+        edgeTreeCache.get();
     }
 
     @Override
-    public void draw(Canvas canvas) {
-        Path path = pathForDrawingCache.get();
-        path.setFillType(Path.FillType.EVEN_ODD);
-        Paint paint = new Paint();
-        paint.setColor(Color.RED);
-        paint.setStyle(Paint.Style.FILL);
-        canvas.drawPath(path, paint);
+    public void draw(GameShapeRenderer renderer) {
+        renderer.drawPolyarcgon(this);
     }
 
-    private Path initiatePath() {
-        Path path = new Path();
-        PolyarcgonPointCache[] gotPointsCache = pointsCache.get();
-        for (int i = 0; i <= gotPointsCache.length; i++) {
-            PolyarcgonPointCache pointI = gotPointsCache[i % gotPointsCache.length];
-            if (i == 0 || pointI.getNonCachePoint().isMoveToWithoutLineEtc) {
-                if (i != gotPointsCache.length) {
-                    path.moveTo((float) pointI.getNonCachePoint().x, (float) pointI.getNonCachePoint().y);
+    /**
+     * Gives the outline of every contour to the path, relative to the shape's own center and rotation
+     * (i.e. as if it was at 0, 0 with rotation 0), since it doesn't change as the shape moves.
+     * Holes are contours going the other way, so the path should be filled with the even-odd rule.
+     */
+    public void addContoursTo(PolyarcgonPathBuilder path) {
+        // the template geometry never changes, so unlike pointsCache it's fine to read from the drawing thread
+        PolyarcgonGeometry template = templateGeometry;
+        int pointCount = template.pointCount;
+        for (int i = 0; i <= pointCount; i++) {
+            int pointI = i % pointCount;
+            if (i == 0 || template.edgeKinds[pointI] == PolyarcgonGeometry.NO_EDGE) {
+                if (i != pointCount) {
+                    path.moveTo(template.xs[pointI], template.ys[pointI]);
                 }
-            } else {
-                if (pointI instanceof PolyarcgonStraightPointCache) {
-                    PolyarcgonPointCache pointI1 = gotPointsCache[(i + 1) % gotPointsCache.length];
-                    if (!(pointI1 instanceof PolyarcgonArcedPointCache && i != gotPointsCache.length)) {
-                        path.lineTo((float) pointI.getNonCachePoint().x, (float) pointI.getNonCachePoint().y);
-                    }
-                } else if (pointI instanceof PolyarcgonArcedPointCache) {
-                    PolyarcgonArcedPointCache pointIArc = (PolyarcgonArcedPointCache) pointI;
-                    path.arcTo((float) (pointIArc.arcCenterX - x - pointIArc.radiusOfCurvature), (float) (pointIArc.arcCenterY - y - pointIArc.radiusOfCurvature), (float) (pointIArc.arcCenterX - x + pointIArc.radiusOfCurvature), (float) (pointIArc.arcCenterY - y + pointIArc.radiusOfCurvature), (float) (pointIArc.startAngle * 180.0 / Math.PI), (float) (pointIArc.nonCachePoint.arcAngleChange * 180.0 / Math.PI), false);
+            } else if (template.edgeKinds[pointI] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                // an arc next draws a line to its start anyway
+                boolean nextPointIsArced = template.pointCaches[(i + 1) % pointCount] instanceof PolyarcgonArcedPointCache;
+                if (!(nextPointIsArced && i != pointCount)) {
+                    path.lineTo(template.xs[pointI], template.ys[pointI]);
                 }
+            } else {
+                path.arcTo(template.arcCenterXs[pointI], template.arcCenterYs[pointI], template.radiiOfCurvature[pointI], template.startAngles[pointI], template.arcAngleChanges[pointI]);
             }
         }
-//        path.close(); not necessary
-        return path;
     }
 
     @Override
@@ -275,6 +466,11 @@ public class GamePolyarcgon implements GameShape {
         return y;
     }
 
+    @Override
+    public double getRotation() {
+        return rotationRadians;
+    }
+
     @Override
     public double getMomentOfInertia() {
         return momentOfInertia;
@@ -291,66 +487,162 @@ public class GamePolyarcgon implements GameShape {
         this.rotationRadians = rotationRadians;
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return collisionLayer;
+    }
+
+    @Override
+    public void setCollisionLayer(int collisionLayer) {
+        this.collisionLayer = collisionLayer;
+    }
+
     public static void collision(GamePolyarcgon firstShape, GamePolyarcgon otherShape, OverlapCalculator handler) {
-        double distSq = (firstShape.x - otherShape.x) * (firstShape.x - otherShape.x) + (firstShape.y - otherShape.y) * (firstShape.y - otherShape.y);
-        if (Math.sqrt(distSq) < firstShape.boundingRadius + otherShape.boundingRadius) {
-            //maybe at some point add ability to check if bounding radius of one shape collides with another shape at all (mostly for a wall)?
-            //though won't help much
-
-            /*
-            We use the shoelace formula (see https://en.wikipedia.org/wiki/Shoelace_formula)
-            To calculate the area and area integrals
-             */
-
-            PolyarcgonPointCache[] points = firstShape.pointsCache.get();
-            PolyarcgonPointCache[] otherPoints = otherShape.pointsCache.get();
-
-            PolyarcgonPointCache lastPoint = points[points.length - 1];
-            for (PolyarcgonPointCache nextPoint : points) {
-                if (!nextPoint.getNonCachePoint().isMoveToWithoutLineEtc) { // make sure the line/arc from last point to next point exists
-//                double pointToPointX = nextPoint.x - lastPoint.x;
-//                double pointToPointY = nextPoint.y - lastPoint.y;
-//                double pointToPointDistance = Math.sqrt(pointToPointX*pointToPointX + pointToPointY*pointToPointY);
-
-
-                    PolyarcgonPointCache otherLastPoint = otherPoints[otherPoints.length - 1];
-                    for (PolyarcgonPointCache otherNextPoint : otherPoints) {
-                        if (!otherNextPoint.getNonCachePoint().isMoveToWithoutLineEtc) {
-//                        double otherPointToPointX = otherNextPoint.x - otherLastPoint.x;
-//                        double otherPointToPointY = otherNextPoint.y - otherLastPoint.y;
-//                    double otherPointToPointDistance = Math.sqrt(otherPointToPointX*otherPointToPointX + otherPointToPointY*otherPointToPointY);
-
-
-                            if (nextPoint instanceof PolyarcgonStraightPointCache) {
-                                if (otherNextPoint instanceof PolyarcgonStraightPointCache) {
-                                    addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(handler, lastPoint, (PolyarcgonStraightPointCache) nextPoint, otherLastPoint, (PolyarcgonStraightPointCache) otherNextPoint, 0);
-                                } else if (otherNextPoint instanceof PolyarcgonArcedPointCache) {
-                                    addPotentialLineSegmentIntersectionWithArcToOverlap(handler, lastPoint, (PolyarcgonStraightPointCache) nextPoint, otherLastPoint, (PolyarcgonArcedPointCache) otherNextPoint, true, 0);
-                                }
-                            } else if (nextPoint instanceof PolyarcgonArcedPointCache) {
-                                if (otherNextPoint instanceof PolyarcgonStraightPointCache) {
-                                    addPotentialLineSegmentIntersectionWithArcToOverlap(handler, otherLastPoint, (PolyarcgonStraightPointCache) otherNextPoint, lastPoint, (PolyarcgonArcedPointCache) nextPoint, false, 0);
-                                } else if (otherNextPoint instanceof PolyarcgonArcedPointCache) {
-                                    addPotentialArcIntersectionWithArcToOverlap(handler, lastPoint, (PolyarcgonArcedPointCache) nextPoint, otherLastPoint, (PolyarcgonArcedPointCache) otherNextPoint, 0);
-                                }
-                            }
+        if (boundingCirclesOverlap(firstShape, otherShape)) {
+            collision(firstShape, firstShape.geometryCache.get(), firstShape.edgeTreeCache.get(), otherShape, otherShape.geometryCache.get(), otherShape.edgeTreeCache.get(), firstShape.edgePairCache, handler);
+        }
+    }
+
+    private static boolean boundingCirclesOverlap(GamePolyarcgon shape, GamePolyarcgon otherShape) {
+        double distSq = (shape.x - otherShape.x) * (shape.x - otherShape.x) + (shape.y - otherShape.y) * (shape.y - otherShape.y);
+        //maybe at some point add ability to check if bounding radius of one shape collides with another shape at all (mostly for a wall)?
+        //though won't help much
+        return Math.sqrt(distSq) < shape.boundingRadius + otherShape.boundingRadius;
+    }
+
+    /**
+     * Same as collision(), but works out the overlap in the wall's own frame with its templateGeometry,
+     * moving only the movable shape (see WallFrame), then the handler gets everything moved back to where it really is.
+     * The wall's geometry for where it is now isn't touched.
+     */
+    static void wallFrameCollision(GamePolyarcgon movableShape, GamePolyarcgon wall, boolean movableShapeIsFirstShape, OverlapCalculator handler) {
+        if (boundingCirclesOverlap(movableShape, wall)) {
+            double cosWallRotation = 1;
+            double sinWallRotation = 0;
+            if (wall.rotationRadians != 0) { // most walls are never rotated
+                cosWallRotation = Math.cos(wall.rotationRadians);
+                sinWallRotation = Math.sin(wall.rotationRadians);
+            }
+            WallFrame wallFrame = movableShape.getWallFrame(wall);
+            wallFrame.update(cosWallRotation, sinWallRotation);
+            WallFrameOverlapCalculator wallFrameHandler = wallFrameOverlapCalculators.get();
+            wallFrameHandler.set(handler, wall.x, wall.y, cosWallRotation, sinWallRotation);
+            if (movableShapeIsFirstShape) {
+                collision(movableShape, wallFrame.getGeometry(), wallFrame.getEdgeTree(), wall, wall.templateGeometry, wall.templateEdgeTree, movableShape.edgePairCache, wallFrameHandler);
+            } else {
+                // the wall's edge pair cache isn't used, another thread might be using the same wall
+                collision(wall, wall.templateGeometry, wall.templateEdgeTree, movableShape, wallFrame.getGeometry(), wallFrame.getEdgeTree(), null, wallFrameHandler);
+            }
+        }
+    }
+
+    private static void collision(GamePolyarcgon firstShape, PolyarcgonGeometry geometry, PolyarcgonEdgeTree edgeTree, GamePolyarcgon otherShape, PolyarcgonGeometry otherGeometry, PolyarcgonEdgeTree otherEdgeTree, PolyarcgonEdgePairCache edgePairCache, OverlapCalculator handler) {
+        /*
+        We use the shoelace formula (see https://en.wikipedia.org/wiki/Shoelace_formula)
+        To calculate the area and area integrals
+         */
+
+        if (handler.onlyNeedsOverlapTotals() && PolyarcgonCircleOverlap.addOverlapIfCircle(handler, geometry, edgeTree, otherGeometry, otherEdgeTree)) {
+            return;
+        }
+
+        if ((long) edgeTree.edgeCount * otherEdgeTree.edgeCount <= MAX_EDGE_PAIRS_TO_CHECK_WITHOUT_EDGE_TREES || (long) geometry.pointCount * otherGeometry.pointCount > Integer.MAX_VALUE) {
+            int lastPoint = geometry.pointCount - 1;
+            for (int nextPoint = 0; nextPoint < geometry.pointCount; nextPoint++) {
+                // one loop for each kind of edge in this shape, so the inner loop only checks the other shape's edge kind
+                if (geometry.edgeKinds[nextPoint] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                    int otherLastPoint = otherGeometry.pointCount - 1;
+                    for (int otherNextPoint = 0; otherNextPoint < otherGeometry.pointCount; otherNextPoint++) {
+                        byte otherEdgeKind = otherGeometry.edgeKinds[otherNextPoint];
+                        if (otherEdgeKind == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                            addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(handler, geometry, lastPoint, nextPoint, otherGeometry, otherLastPoint, otherNextPoint);
+                        } else if (otherEdgeKind == PolyarcgonGeometry.ARC_EDGE) {
+                            addPotentialLineSegmentIntersectionWithArcToOverlap(handler, geometry, lastPoint, nextPoint, otherGeometry, otherLastPoint, otherNextPoint, true);
+                        }
+                        otherLastPoint = otherNextPoint;
+                    }
+                } else if (geometry.edgeKinds[nextPoint] == PolyarcgonGeometry.ARC_EDGE) {
+                    int otherLastPoint = otherGeometry.pointCount - 1;
+                    for (int otherNextPoint = 0; otherNextPoint < otherGeometry.pointCount; otherNextPoint++) {
+                        byte otherEdgeKind = otherGeometry.edgeKinds[otherNextPoint];
+                        if (otherEdgeKind == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                            addPotentialLineSegmentIntersectionWithArcToOverlap(handler, otherGeometry, otherLastPoint, otherNextPoint, geometry, lastPoint, nextPoint, false);
+                        } else if (otherEdgeKind == PolyarcgonGeometry.ARC_EDGE) {
+                            addPotentialArcIntersectionWithArcToOverlap(handler, geometry, lastPoint, nextPoint, otherGeometry, otherLastPoint, otherNextPoint);
                         }
                         otherLastPoint = otherNextPoint;
                     }
                 }
                 lastPoint = nextPoint;
             }
+        } else {
+            // only look at the pairs of edges which might add something, in the same order as above
+            int[] edgePairs;
+            int edgePairCount;
+            int cacheEntry = edgePairCache == null ? -1 : edgePairCache.findValidEntry(firstShape, otherShape);
+            if (cacheEntry >= 0) {
+                edgePairs = edgePairCache.getEdgePairs(cacheEntry);
+                edgePairCount = edgePairCache.getEdgePairCount(cacheEntry);
+            } else {
+                PolyarcgonEdgeTree.EdgePairSearch edgePairSearch = edgePairSearches.get();
+                edgePairSearch.findEdgePairs(geometry, edgeTree, otherGeometry, otherEdgeTree, PolyarcgonEdgePairCache.MARGIN);
+                if (edgePairCache != null) {
+                    edgePairCache.store(firstShape, otherShape, edgePairSearch.edgePairs, edgePairSearch.edgePairCount);
+                }
+                edgePairs = edgePairSearch.edgePairs;
+                edgePairCount = edgePairSearch.edgePairCount;
+            }
+            for (int i = 0; i < edgePairCount; i++) {
+                int edge = edgePairs[i] / otherGeometry.pointCount;
+                int otherEdge = edgePairs[i] % otherGeometry.pointCount;
+                addPotentialEdgeIntersectionToOverlap(handler, geometry, geometry.previousPoint(edge), edge, otherGeometry, otherGeometry.previousPoint(otherEdge), otherEdge);
+            }
         }
     }
 
+    private static void addPotentialEdgeIntersectionToOverlap(OverlapCalculator handler, PolyarcgonGeometry geometry, int lastPoint, int nextPoint, PolyarcgonGeometry otherGeometry, int otherLastPoint, int otherNextPoint) {
+        if (geometry.edgeKinds[nextPoint] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+            if (otherGeometry.edgeKinds[otherNextPoint] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(handler, geometry, lastPoint, nextPoint, otherGeometry, otherLastPoint, otherNextPoint);
+            } else {
+                addPotentialLineSegmentIntersectionWithArcToOverlap(handler, geometry, lastPoint, nextPoint, otherGeometry, otherLastPoint, otherNextPoint, true);
+            }
+        } else {
+            if (otherGeometry.edgeKinds[otherNextPoint] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                addPotentialLineSegmentIntersectionWithArcToOverlap(handler, otherGeometry, otherLastPoint, otherNextPoint, geometry, lastPoint, nextPoint, false);
+            } else {
+                addPotentialArcIntersectionWithArcToOverlap(handler, geometry, lastPoint, nextPoint, otherGeometry, otherLastPoint, otherNextPoint);
+            }
+        }
+    }
+
+    static void addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(OverlapCalculator handler, PolyarcgonGeometry geometry, int lastPoint, int nextPoint, PolyarcgonGeometry otherGeometry, int otherLastPoint, int otherNextPoint) {
+        addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(handler, geometry.xs[lastPoint], geometry.ys[lastPoint], geometry.xs[nextPoint], geometry.ys[nextPoint], geometry.pointToPointXs[nextPoint], geometry.pointToPointYs[nextPoint], geometry.pointCaches[nextPoint],
+                otherGeometry.xs[otherLastPoint], otherGeometry.ys[otherLastPoint], otherGeometry.xs[otherNextPoint], otherGeometry.ys[otherNextPoint], otherGeometry.pointToPointXs[otherNextPoint], otherGeometry.pointToPointYs[otherNextPoint], otherGeometry.pointCaches[otherNextPoint], 0);
+    }
+
+    static void addPotentialLineSegmentIntersectionWithArcToOverlap(OverlapCalculator handler, PolyarcgonGeometry lineSegmentGeometry, int lineSegmentLastPoint, int lineSegmentNextPoint, PolyarcgonGeometry arcGeometry, int arcLastPoint, int arcNextPoint, boolean lineSegmentIsFirstShape) {
+        addPotentialLineSegmentIntersectionWithArcToOverlap(handler, lineSegmentGeometry.xs[lineSegmentLastPoint], lineSegmentGeometry.ys[lineSegmentLastPoint], lineSegmentGeometry.xs[lineSegmentNextPoint], lineSegmentGeometry.ys[lineSegmentNextPoint], lineSegmentGeometry.pointToPointXs[lineSegmentNextPoint], lineSegmentGeometry.pointToPointYs[lineSegmentNextPoint], lineSegmentGeometry.pointCaches[lineSegmentNextPoint],
+                arcGeometry.xs[arcLastPoint], arcGeometry.ys[arcLastPoint], arcGeometry.xs[arcNextPoint], arcGeometry.ys[arcNextPoint], arcGeometry.arcCenterXs[arcNextPoint], arcGeometry.arcCenterYs[arcNextPoint], arcGeometry.radiiOfCurvature[arcNextPoint], arcGeometry.startAngles[arcNextPoint], arcGeometry.endAngles[arcNextPoint], arcGeometry.arcAngleChanges[arcNextPoint], arcGeometry.pointCaches[arcNextPoint],
+                lineSegmentIsFirstShape, 0);
+    }
+
+    static void addPotentialArcIntersectionWithArcToOverlap(OverlapCalculator handler, PolyarcgonGeometry geometry, int lastPoint, int nextPoint, PolyarcgonGeometry otherGeometry, int otherLastPoint, int otherNextPoint) {
+        addPotentialArcIntersectionWithArcToOverlap(handler, geometry.xs[lastPoint], geometry.ys[lastPoint], geometry.xs[nextPoint], geometry.ys[nextPoint], geometry.arcCenterXs[nextPoint], geometry.arcCenterYs[nextPoint], geometry.radiiOfCurvature[nextPoint], geometry.startAngles[nextPoint], geometry.endAngles[nextPoint], geometry.arcAngleChanges[nextPoint], geometry.pointCaches[nextPoint],
+                otherGeometry.xs[otherLastPoint], otherGeometry.ys[otherLastPoint], otherGeometry.xs[otherNextPoint], otherGeometry.ys[otherNextPoint], otherGeometry.arcCenterXs[otherNextPoint], otherGeometry.arcCenterYs[otherNextPoint], otherGeometry.radiiOfCurvature[otherNextPoint], otherGeometry.startAngles[otherNextPoint], otherGeometry.endAngles[otherNextPoint], otherGeometry.arcAngleChanges[otherNextPoint], otherGeometry.pointCaches[otherNextPoint],
+                0);
+    }
+
     public static void addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(OverlapCalculator overlap, PolyarcgonPointCache lastPoint, PolyarcgonStraightPointCache nextPoint, PolyarcgonPointCache otherLastPoint, PolyarcgonStraightPointCache otherNextPoint, double maxRoundingErrorForNearCollisions) {
-        double edgeCrossProduct = nextPoint.pointToPointX * otherNextPoint.pointToPointY - nextPoint.pointToPointY * otherNextPoint.pointToPointX;
-        double lastPointX = lastPoint.getX();
-        double lastPointY = lastPoint.getY();
-        double otherLastPointX = otherLastPoint.getX();
-        double otherLastPointY = otherLastPoint.getY();
-        double edgeDistanceCrossProduct = otherNextPoint.pointToPointX * (lastPointY - otherLastPointY) - otherNextPoint.pointToPointY * (lastPointX - otherLastPointX);
-        double otherEdgeDistanceCrossProduct = nextPoint.pointToPointX * (lastPointY - otherLastPointY) - nextPoint.pointToPointY * (lastPointX - otherLastPointX);
+        addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(overlap, lastPoint.getX(), lastPoint.getY(), nextPoint.x, nextPoint.y, nextPoint.pointToPointX, nextPoint.pointToPointY, nextPoint,
+                otherLastPoint.getX(), otherLastPoint.getY(), otherNextPoint.x, otherNextPoint.y, otherNextPoint.pointToPointX, otherNextPoint.pointToPointY, otherNextPoint, maxRoundingErrorForNearCollisions);
+    }
+
+    static void addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(OverlapCalculator overlap, double lastPointX, double lastPointY, double nextPointX, double nextPointY, double pointToPointX, double pointToPointY, PolyarcgonPointCache nextPoint,
+                                                                             double otherLastPointX, double otherLastPointY, double otherNextPointX, double otherNextPointY, double otherPointToPointX, double otherPointToPointY, PolyarcgonPointCache otherNextPoint, double maxRoundingErrorForNearCollisions) {
+        double edgeCrossProduct = pointToPointX * otherPointToPointY - pointToPointY * otherPointToPointX;
+        double edgeDistanceCrossProduct = otherPointToPointX * (lastPointY - otherLastPointY) - otherPointToPointY * (lastPointX - otherLastPointX);
+        double otherEdgeDistanceCrossProduct = pointToPointX * (lastPointY - otherLastPointY) - pointToPointY * (lastPointX - otherLastPointX);
 
         //check whether the two edges are parallel
         if ((Math.abs(edgeDistanceCrossProduct) + Math.abs(otherEdgeDistanceCrossProduct)) / 1000000 >= Math.abs(edgeCrossProduct)) {
@@ -384,14 +676,14 @@ public class GamePolyarcgon implements GameShape {
                 double newInterceptX = 0;
                 double newInterceptY = 0;
                 if (lineSegmentIntersectsOtherRay && otherLineSegmentIntersectsRay) {
-                    newInterceptX = lastPointX + nextPoint.pointToPointX * newInterceptRelativeToPointToPoint;
-                    newInterceptY = lastPointY + nextPoint.pointToPointY * newInterceptRelativeToPointToPoint;
+                    newInterceptX = lastPointX + pointToPointX * newInterceptRelativeToPointToPoint;
+                    newInterceptY = lastPointY + pointToPointY * newInterceptRelativeToPointToPoint;
                 } else if (lineSegmentIntersectsOtherRay) {
-                    newInterceptX = otherNextPoint.x;
-                    newInterceptY = otherNextPoint.y;
+                    newInterceptX = otherNextPointX;
+                    newInterceptY = otherNextPointY;
                 } else if (otherLineSegmentIntersectsRay) {
-                    newInterceptX = nextPoint.x;
-                    newInterceptY = nextPoint.y;
+                    newInterceptX = nextPointX;
+                    newInterceptY = nextPointY;
                 }
                 int windingFactor;
                 if (edgeCrossProduct > 0) {
@@ -410,20 +702,24 @@ public class GamePolyarcgon implements GameShape {
     }
 
     public static void addPotentialLineSegmentIntersectionWithArcToOverlap(OverlapCalculator overlap, PolyarcgonPointCache lineSegmentLastPoint, PolyarcgonStraightPointCache lineSegmentNextPoint, PolyarcgonPointCache arcLastPoint, PolyarcgonArcedPointCache arcNextPoint, boolean lineSegmentIsFirstShape, double maxRoundingErrorForNearCollisions) {
-        double pointToPointDistance = Math.sqrt(lineSegmentNextPoint.pointToPointX * lineSegmentNextPoint.pointToPointX + lineSegmentNextPoint.pointToPointY * lineSegmentNextPoint.pointToPointY);
+        addPotentialLineSegmentIntersectionWithArcToOverlap(overlap, lineSegmentLastPoint.getX(), lineSegmentLastPoint.getY(), lineSegmentNextPoint.x, lineSegmentNextPoint.y, lineSegmentNextPoint.pointToPointX, lineSegmentNextPoint.pointToPointY, lineSegmentNextPoint,
+                arcLastPoint.getX(), arcLastPoint.getY(), arcNextPoint.x, arcNextPoint.y, arcNextPoint.arcCenterX, arcNextPoint.arcCenterY, arcNextPoint.radiusOfCurvature, arcNextPoint.startAngle, arcNextPoint.endAngle, arcNextPoint.nonCachePoint.arcAngleChange, arcNextPoint,
+                lineSegmentIsFirstShape, maxRoundingErrorForNearCollisions);
+    }
 
-        double lineSegmentLastPointX = lineSegmentLastPoint.getX();
-        double lineSegmentLastPointY = lineSegmentLastPoint.getY();
-        double arcLastPointX = arcLastPoint.getX();
-        double arcLastPointY = arcLastPoint.getY();
+    static void addPotentialLineSegmentIntersectionWithArcToOverlap(OverlapCalculator overlap, double lineSegmentLastPointX, double lineSegmentLastPointY, double lineSegmentNextPointX, double lineSegmentNextPointY, double lineSegmentPointToPointX, double lineSegmentPointToPointY, PolyarcgonPointCache lineSegmentNextPoint,
+                                                                     double arcLastPointX, double arcLastPointY, double arcNextPointX, double arcNextPointY, double arcCenterX, double arcCenterY, double radiusOfCurvature, double arcStartAngle, double arcEndAngle, double arcAngleChange, PolyarcgonPointCache arcNextPoint,
+                                                                     boolean lineSegmentIsFirstShape, double maxRoundingErrorForNearCollisions) {
+        double pointToPointDistance = Math.sqrt(lineSegmentPointToPointX * lineSegmentPointToPointX + lineSegmentPointToPointY * lineSegmentPointToPointY);
 
-        double pointToArcCenterX = arcNextPoint.arcCenterX - lineSegmentLastPointX;
-        double pointToArcCenterY = arcNextPoint.arcCenterY - lineSegmentLastPointY;
 
-        double lastPointAngleFromArcCenter = Math.atan2(lineSegmentLastPointY - arcNextPoint.arcCenterY, lineSegmentLastPointX - arcNextPoint.arcCenterX);
-        double nextPointAngleFromArcCenter = Math.atan2(lineSegmentNextPoint.y - arcNextPoint.arcCenterY, lineSegmentNextPoint.x - arcNextPoint.arcCenterX);
+        double pointToArcCenterX = arcCenterX - lineSegmentLastPointX;
+        double pointToArcCenterY = arcCenterY - lineSegmentLastPointY;
 
-        double crossProduct = lineSegmentNextPoint.pointToPointX * pointToArcCenterY - lineSegmentNextPoint.pointToPointY * pointToArcCenterX;
+        double lastPointAngleFromArcCenter = Math.atan2(lineSegmentLastPointY - arcCenterY, lineSegmentLastPointX - arcCenterX);
+        double nextPointAngleFromArcCenter = Math.atan2(lineSegmentNextPointY - arcCenterY, lineSegmentNextPointX - arcCenterX);
+
+        double crossProduct = lineSegmentPointToPointX * pointToArcCenterY - lineSegmentPointToPointY * pointToArcCenterX;
         double centerPerpendicularSignedDistance = crossProduct / pointToPointDistance;
 
         boolean lineSegmentIntersectsArcRay = false; //this boolean, unlike others, is false until proven true because there are multiple ways for it to be true
@@ -432,20 +728,20 @@ public class GamePolyarcgon implements GameShape {
         boolean lineSegmentFullyInsideCircle = true;
 
         if (maxRoundingErrorForNearCollisions > 0) {
-            if (Math.abs(centerPerpendicularSignedDistance) >= arcNextPoint.radiusOfCurvature && Math.abs(centerPerpendicularSignedDistance) < arcNextPoint.radiusOfCurvature + maxRoundingErrorForNearCollisions) {
+            if (Math.abs(centerPerpendicularSignedDistance) >= radiusOfCurvature && Math.abs(centerPerpendicularSignedDistance) < radiusOfCurvature + maxRoundingErrorForNearCollisions) {
                 centerPerpendicularSignedDistance -= Math.copySign(maxRoundingErrorForNearCollisions, centerPerpendicularSignedDistance);
             }
         }
 
-        if (Math.abs(centerPerpendicularSignedDistance) >= arcNextPoint.radiusOfCurvature) {
+        if (Math.abs(centerPerpendicularSignedDistance) >= radiusOfCurvature) {
             //line does not go through circle at all
             lineSegmentIntersectsCircle1 = false;
             lineSegmentIntersectsCircle2 = false;
             lineSegmentFullyInsideCircle = false;
         } else {
-            double dotProduct = pointToArcCenterX * lineSegmentNextPoint.pointToPointX + pointToArcCenterY * lineSegmentNextPoint.pointToPointY;
+            double dotProduct = pointToArcCenterX * lineSegmentPointToPointX + pointToArcCenterY * lineSegmentPointToPointY;
             double centerParallelDistance = dotProduct / pointToPointDistance;
-            double interceptParallelDistance = Math.sqrt(arcNextPoint.radiusOfCurvature * arcNextPoint.radiusOfCurvature - centerPerpendicularSignedDistance * centerPerpendicularSignedDistance);
+            double interceptParallelDistance = Math.sqrt(radiusOfCurvature * radiusOfCurvature - centerPerpendicularSignedDistance * centerPerpendicularSignedDistance);
 
             boolean lineSegmentIntersectsArc1 = true;
             boolean lineSegmentIntersectsArc2 = true;
@@ -491,8 +787,8 @@ public class GamePolyarcgon implements GameShape {
                 cappedIntercept2Position = intercept2Position;
             }
 
-            double cosLineAngle = lineSegmentNextPoint.pointToPointX / pointToPointDistance;
-            double sinLineAngle = lineSegmentNextPoint.pointToPointY / pointToPointDistance;
+            double cosLineAngle = lineSegmentPointToPointX / pointToPointDistance;
+            double sinLineAngle = lineSegmentPointToPointY / pointToPointDistance;
 
             double intercept1AngleFromArcCenter = 0;
             double intercept1AngleFromArcCenterRelativeToArcStart = 0;
@@ -503,16 +799,16 @@ public class GamePolyarcgon implements GameShape {
                 double intercept1X = lineSegmentLastPointX + cosLineAngle * intercept1Position;
                 double intercept1Y = lineSegmentLastPointY + sinLineAngle * intercept1Position;
 
-                intercept1AngleFromArcCenter = Math.atan2(intercept1Y - arcNextPoint.arcCenterY, intercept1X - arcNextPoint.arcCenterX);
-                if (arcNextPoint.nonCachePoint.arcAngleChange > 0) {
-                    intercept1AngleFromArcCenterRelativeToArcStart = (intercept1AngleFromArcCenter - arcNextPoint.startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
-                    if (intercept1AngleFromArcCenterRelativeToArcStart >= arcNextPoint.nonCachePoint.arcAngleChange + maxRoundingErrorForNearCollisions) {
+                intercept1AngleFromArcCenter = Math.atan2(intercept1Y - arcCenterY, intercept1X - arcCenterX);
+                if (arcAngleChange > 0) {
+                    intercept1AngleFromArcCenterRelativeToArcStart = (intercept1AngleFromArcCenter - arcStartAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
+                    if (intercept1AngleFromArcCenterRelativeToArcStart >= arcAngleChange + maxRoundingErrorForNearCollisions) {
                         lineSegmentIntersectsArc1 = false;
                         arc1IntersectsRay = false;
                     }
                 } else {
-                    intercept1AngleFromArcCenterRelativeToArcStart = (intercept1AngleFromArcCenter - arcNextPoint.startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
-                    if (intercept1AngleFromArcCenterRelativeToArcStart <= arcNextPoint.nonCachePoint.arcAngleChange - maxRoundingErrorForNearCollisions) {
+                    intercept1AngleFromArcCenterRelativeToArcStart = (intercept1AngleFromArcCenter - arcStartAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
+                    if (intercept1AngleFromArcCenterRelativeToArcStart <= arcAngleChange - maxRoundingErrorForNearCollisions) {
                         lineSegmentIntersectsArc1 = false;
                         arc1IntersectsRay = false;
                     }
@@ -535,16 +831,16 @@ public class GamePolyarcgon implements GameShape {
                 double intercept2X = lineSegmentLastPointX + cosLineAngle * intercept2Position;
                 double intercept2Y = lineSegmentLastPointY + sinLineAngle * intercept2Position;
 
-                intercept2AngleFromArcCenter = Math.atan2(intercept2Y - arcNextPoint.arcCenterY, intercept2X - arcNextPoint.arcCenterX);
-                if (arcNextPoint.nonCachePoint.arcAngleChange > 0) {
-                    intercept2AngleFromArcCenterRelativeToArcStart = (intercept2AngleFromArcCenter - arcNextPoint.startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
-                    if (intercept2AngleFromArcCenterRelativeToArcStart >= arcNextPoint.nonCachePoint.arcAngleChange + maxRoundingErrorForNearCollisions) {
+                intercept2AngleFromArcCenter = Math.atan2(intercept2Y - arcCenterY, intercept2X - arcCenterX);
+                if (arcAngleChange > 0) {
+                    intercept2AngleFromArcCenterRelativeToArcStart = (intercept2AngleFromArcCenter - arcStartAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
+                    if (intercept2AngleFromArcCenterRelativeToArcStart >= arcAngleChange + maxRoundingErrorForNearCollisions) {
                         lineSegmentIntersectsArc2 = false;
                         arc2IntersectsRay = false;
                     }
                 } else {
-                    intercept2AngleFromArcCenterRelativeToArcStart = (intercept2AngleFromArcCenter - arcNextPoint.startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
-                    if (intercept2AngleFromArcCenterRelativeToArcStart <= arcNextPoint.nonCachePoint.arcAngleChange - maxRoundingErrorForNearCollisions) {
+                    intercept2AngleFromArcCenterRelativeToArcStart = (intercept2AngleFromArcCenter - arcStartAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
+                    if (intercept2AngleFromArcCenterRelativeToArcStart <= arcAngleChange - maxRoundingErrorForNearCollisions) {
                         lineSegmentIntersectsArc2 = false;
                         arc2IntersectsRay = false;
                     }
@@ -560,29 +856,29 @@ public class GamePolyarcgon implements GameShape {
 
             if (lineSegmentIntersectsCircle1) {
                 if (centerPerpendicularSignedDistance > 0) {
-                    if ((intercept1AngleFromArcCenter - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (arcNextPoint.endAngle - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
+                    if ((intercept1AngleFromArcCenter - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (arcEndAngle - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
                         lineSegmentIntersectsArcRay = true;
                     }
                 } else {
-                    if ((-(intercept1AngleFromArcCenter - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI) > (-(arcNextPoint.endAngle - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI)) {
+                    if ((-(intercept1AngleFromArcCenter - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI) > (-(arcEndAngle - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI)) {
                         lineSegmentIntersectsArcRay = true;
                     }
                 }
             }
             if (lineSegmentIntersectsCircle2) {
                 if (centerPerpendicularSignedDistance > 0) {
-                    if ((nextPointAngleFromArcCenter - intercept2AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (arcNextPoint.endAngle - intercept2AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
+                    if ((nextPointAngleFromArcCenter - intercept2AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (arcEndAngle - intercept2AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
                         lineSegmentIntersectsArcRay = true;
                     }
                 } else {
-                    if ((-(nextPointAngleFromArcCenter - intercept2AngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI) > (-(arcNextPoint.endAngle - intercept2AngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI)) {
+                    if ((-(nextPointAngleFromArcCenter - intercept2AngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI) > (-(arcEndAngle - intercept2AngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI)) {
                         lineSegmentIntersectsArcRay = true;
                     }
                 }
             }
 
             int windingFactor;
-            if (arcNextPoint.nonCachePoint.arcAngleChange > 0) {
+            if (arcAngleChange > 0) {
                 windingFactor = 1;
             } else {
                 windingFactor = -1;
@@ -595,47 +891,51 @@ public class GamePolyarcgon implements GameShape {
                 overlap.addLineSegmentToOverlap(lineSegmentLastPointX, lineSegmentLastPointY, cappedIntercept2X, cappedIntercept2Y, windingFactor, lineSegmentIsFirstShape, lineSegmentNextPoint, lineSegmentIntersectsArc2);
             }
             if (lineSegmentIntersectsArc1) {
-                overlap.addArcToOverlap(arcNextPoint.radiusOfCurvature, arcNextPoint.arcCenterX, arcNextPoint.arcCenterY, arcLastPointX, arcLastPointY, cappedIntercept1X, cappedIntercept1Y, intercept1AngleFromArcCenterRelativeToArcStart, windingFactor, !lineSegmentIsFirstShape, arcNextPoint, true);
+                overlap.addArcToOverlap(radiusOfCurvature, arcCenterX, arcCenterY, arcLastPointX, arcLastPointY, cappedIntercept1X, cappedIntercept1Y, intercept1AngleFromArcCenterRelativeToArcStart, windingFactor, !lineSegmentIsFirstShape, arcNextPoint, true);
             }
             if (lineSegmentIntersectsArc2) {
-                overlap.addArcToOverlap(arcNextPoint.radiusOfCurvature, arcNextPoint.arcCenterX, arcNextPoint.arcCenterY, arcLastPointX, arcLastPointY, cappedIntercept2X, cappedIntercept2Y, intercept2AngleFromArcCenterRelativeToArcStart, -windingFactor, !lineSegmentIsFirstShape, arcNextPoint, true);
+                overlap.addArcToOverlap(radiusOfCurvature, arcCenterX, arcCenterY, arcLastPointX, arcLastPointY, cappedIntercept2X, cappedIntercept2Y, intercept2AngleFromArcCenterRelativeToArcStart, -windingFactor, !lineSegmentIsFirstShape, arcNextPoint, true);
             }
         }
 
         if (!lineSegmentIntersectsCircle1 && !lineSegmentIntersectsCircle2 && !lineSegmentFullyInsideCircle) {
             if (centerPerpendicularSignedDistance > 0) {
-                if ((nextPointAngleFromArcCenter - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (arcNextPoint.endAngle - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
+                if ((nextPointAngleFromArcCenter - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (arcEndAngle - lastPointAngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
                     lineSegmentIntersectsArcRay = true;
                 }
             } else {
-                if ((-(nextPointAngleFromArcCenter - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI) > (-(arcNextPoint.endAngle - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI)) {
+                if ((-(nextPointAngleFromArcCenter - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI) > (-(arcEndAngle - lastPointAngleFromArcCenter) + 10 * Math.PI) % (2 * Math.PI)) {
                     lineSegmentIntersectsArcRay = true;
                 }
             }
         }
         if (lineSegmentIntersectsArcRay) {
             int rayWindingFactor = (centerPerpendicularSignedDistance > 0) ? 1 : -1;
-            overlap.addArcToOverlap(arcNextPoint.radiusOfCurvature, arcNextPoint.arcCenterX, arcNextPoint.arcCenterY, arcLastPointX, arcLastPointY, arcNextPoint.x, arcNextPoint.y, arcNextPoint.nonCachePoint.arcAngleChange, rayWindingFactor, !lineSegmentIsFirstShape, arcNextPoint, false);
+            overlap.addArcToOverlap(radiusOfCurvature, arcCenterX, arcCenterY, arcLastPointX, arcLastPointY, arcNextPointX, arcNextPointY, arcAngleChange, rayWindingFactor, !lineSegmentIsFirstShape, arcNextPoint, false);
         }
     }
 
     public static void addPotentialArcIntersectionWithArcToOverlap(OverlapCalculator overlap, PolyarcgonPointCache lastPoint, PolyarcgonArcedPointCache nextPoint, PolyarcgonPointCache otherLastPoint, PolyarcgonArcedPointCache otherNextPoint, double maxRoundingErrorForNearCollisions) {
-        double lastPointX = lastPoint.getX();
-        double lastPointY = lastPoint.getY();
-        double otherLastPointX = otherLastPoint.getX();
-        double otherLastPointY = otherLastPoint.getY();
+        addPotentialArcIntersectionWithArcToOverlap(overlap, lastPoint.getX(), lastPoint.getY(), nextPoint.x, nextPoint.y, nextPoint.arcCenterX, nextPoint.arcCenterY, nextPoint.radiusOfCurvature, nextPoint.startAngle, nextPoint.endAngle, nextPoint.nonCachePoint.arcAngleChange, nextPoint,
+                otherLastPoint.getX(), otherLastPoint.getY(), otherNextPoint.x, otherNextPoint.y, otherNextPoint.arcCenterX, otherNextPoint.arcCenterY, otherNextPoint.radiusOfCurvature, otherNextPoint.startAngle, otherNextPoint.endAngle, otherNextPoint.nonCachePoint.arcAngleChange, otherNextPoint,
+                maxRoundingErrorForNearCollisions);
+    }
+
+    static void addPotentialArcIntersectionWithArcToOverlap(OverlapCalculator overlap, double lastPointX, double lastPointY, double nextPointX, double nextPointY, double arcCenterX, double arcCenterY, double radiusOfCurvature, double startAngle, double endAngle, double arcAngleChange, PolyarcgonPointCache nextPoint,
+                                                            double otherLastPointX, double otherLastPointY, double otherNextPointX, double otherNextPointY, double otherArcCenterX, double otherArcCenterY, double otherRadiusOfCurvature, double otherStartAngle, double otherEndAngle, double otherArcAngleChange, PolyarcgonPointCache otherNextPoint,
+                                                            double maxRoundingErrorForNearCollisions) {
 
-        double distanceSq = (otherNextPoint.arcCenterX - nextPoint.arcCenterX) * (otherNextPoint.arcCenterX - nextPoint.arcCenterX) + (otherNextPoint.arcCenterY - nextPoint.arcCenterY) * (otherNextPoint.arcCenterY - nextPoint.arcCenterY);
+        double distanceSq = (otherArcCenterX - arcCenterX) * (otherArcCenterX - arcCenterX) + (otherArcCenterY - arcCenterY) * (otherArcCenterY - arcCenterY);
         double distance = Math.sqrt(distanceSq);
 
-        double angleOfArcStartFromOtherArcCenter = Math.atan2(lastPointY - otherNextPoint.arcCenterY, lastPointX - otherNextPoint.arcCenterX);
-        double angleOfArcEndFromOtherArcCenter = Math.atan2(nextPoint.y - otherNextPoint.arcCenterY, nextPoint.x - otherNextPoint.arcCenterX);
+        double angleOfArcStartFromOtherArcCenter = Math.atan2(lastPointY - otherArcCenterY, lastPointX - otherArcCenterX);
+        double angleOfArcEndFromOtherArcCenter = Math.atan2(nextPointY - otherArcCenterY, nextPointX - otherArcCenterX);
 
-        double angleOfOtherArcStartFromArcCenter = Math.atan2(otherLastPointY - nextPoint.arcCenterY, otherLastPointX - nextPoint.arcCenterX);
-        double angleOfOtherArcEndFromArcCenter = Math.atan2(otherNextPoint.y - nextPoint.arcCenterY, otherNextPoint.x - nextPoint.arcCenterX);
+        double angleOfOtherArcStartFromArcCenter = Math.atan2(otherLastPointY - arcCenterY, otherLastPointX - arcCenterX);
+        double angleOfOtherArcEndFromArcCenter = Math.atan2(otherNextPointY - arcCenterY, otherNextPointX - arcCenterX);
 
-        int windingFactor = (nextPoint.nonCachePoint.arcAngleChange > 0) ? 1 : -1;
-        int otherWindingFactor = (otherNextPoint.nonCachePoint.arcAngleChange > 0) ? 1 : -1;
+        int windingFactor = (arcAngleChange > 0) ? 1 : -1;
+        int otherWindingFactor = (otherArcAngleChange > 0) ? 1 : -1;
 
         boolean arcIntersectsOtherCircle1 = true;
         boolean arcIntersectsOtherCircle2 = true;
@@ -649,17 +949,17 @@ public class GamePolyarcgon implements GameShape {
         int numberOfTimesOtherArcIntersectsRayClockwise = 0;
 
         if (maxRoundingErrorForNearCollisions > 0) {
-            if (distance >= nextPoint.radiusOfCurvature + otherNextPoint.radiusOfCurvature && distance - maxRoundingErrorForNearCollisions < nextPoint.radiusOfCurvature + otherNextPoint.radiusOfCurvature) {
+            if (distance >= radiusOfCurvature + otherRadiusOfCurvature && distance - maxRoundingErrorForNearCollisions < radiusOfCurvature + otherRadiusOfCurvature) {
                 distance -= maxRoundingErrorForNearCollisions;
                 distanceSq = distance * distance;
-            } else if ((nextPoint.radiusOfCurvature >= distance + otherNextPoint.radiusOfCurvature && nextPoint.radiusOfCurvature < distance + maxRoundingErrorForNearCollisions + otherNextPoint.radiusOfCurvature)
-                    || (otherNextPoint.radiusOfCurvature >= distance + nextPoint.radiusOfCurvature) && (otherNextPoint.radiusOfCurvature < distance + maxRoundingErrorForNearCollisions + nextPoint.radiusOfCurvature)) {
+            } else if ((radiusOfCurvature >= distance + otherRadiusOfCurvature && radiusOfCurvature < distance + maxRoundingErrorForNearCollisions + otherRadiusOfCurvature)
+                    || (otherRadiusOfCurvature >= distance + radiusOfCurvature) && (otherRadiusOfCurvature < distance + maxRoundingErrorForNearCollisions + radiusOfCurvature)) {
                 distance += maxRoundingErrorForNearCollisions;
                 distanceSq = distance * distance;
             }
         }
 
-        if (distance >= nextPoint.radiusOfCurvature + otherNextPoint.radiusOfCurvature) {
+        if (distance >= radiusOfCurvature + otherRadiusOfCurvature) {
             arcIntersectsOtherCircle1 = false;
             arcIntersectsOtherCircle2 = false;
             otherArcIntersectsCircle1 = false;
@@ -668,14 +968,14 @@ public class GamePolyarcgon implements GameShape {
             otherCircleContainsArcStart = false;
             circleContainsOtherArcCenter = false;
             otherCircleContainsArcCenter = false;
-        } else if (nextPoint.radiusOfCurvature >= distance + otherNextPoint.radiusOfCurvature) {
+        } else if (radiusOfCurvature >= distance + otherRadiusOfCurvature) {
             arcIntersectsOtherCircle1 = false;
             arcIntersectsOtherCircle2 = false;
             otherArcIntersectsCircle1 = false;
             otherArcIntersectsCircle2 = false;
             otherCircleContainsArcStart = false;
             otherCircleContainsArcCenter = false;
-        } else if (otherNextPoint.radiusOfCurvature >= distance + nextPoint.radiusOfCurvature) {
+        } else if (otherRadiusOfCurvature >= distance + radiusOfCurvature) {
             arcIntersectsOtherCircle1 = false;
             arcIntersectsOtherCircle2 = false;
             otherArcIntersectsCircle1 = false;
@@ -683,23 +983,23 @@ public class GamePolyarcgon implements GameShape {
             circleContainsOtherArcStart = false;
             circleContainsOtherArcCenter = false;
         } else {
-            circleContainsOtherArcCenter = nextPoint.radiusOfCurvature > distance;
-            otherCircleContainsArcCenter = otherNextPoint.radiusOfCurvature > distance;
+            circleContainsOtherArcCenter = radiusOfCurvature > distance;
+            otherCircleContainsArcCenter = otherRadiusOfCurvature > distance;
 
-            double radiusSq = nextPoint.radiusOfCurvature * nextPoint.radiusOfCurvature;
-            double otherRadiusSq = otherNextPoint.radiusOfCurvature * otherNextPoint.radiusOfCurvature;
+            double radiusSq = radiusOfCurvature * radiusOfCurvature;
+            double otherRadiusSq = otherRadiusOfCurvature * otherRadiusOfCurvature;
 
             //let the point P refer to one of the two points where the two circles intersect
             //let point A be the center of this circle, and point B be the center of the other circle
 
             //the angle PAB
-            double angleAtArcCenterBetweenOtherArcCenterAndIntersections = Math.acos((radiusSq - otherRadiusSq + distanceSq) / (2.0 * nextPoint.radiusOfCurvature * distance));
+            double angleAtArcCenterBetweenOtherArcCenterAndIntersections = Math.acos((radiusSq - otherRadiusSq + distanceSq) / (2.0 * radiusOfCurvature * distance));
 
             //the angle PBA
-            double angleAtOtherArcCenterBetweenArcCenterAndIntersections = Math.acos((otherRadiusSq - radiusSq + distanceSq) / (2.0 * otherNextPoint.radiusOfCurvature * distance));
+            double angleAtOtherArcCenterBetweenArcCenterAndIntersections = Math.acos((otherRadiusSq - radiusSq + distanceSq) / (2.0 * otherRadiusOfCurvature * distance));
 
             //the angle from this circle to the other circle
-            double angleFromArcCenterToOtherArcCenter = Math.atan2(otherNextPoint.arcCenterY - nextPoint.arcCenterY, otherNextPoint.arcCenterX - nextPoint.arcCenterX);
+            double angleFromArcCenterToOtherArcCenter = Math.atan2(otherArcCenterY - arcCenterY, otherArcCenterX - arcCenterX);
             double angleFromOtherArcCenterToArcCenter = angleFromArcCenterToOtherArcCenter + Math.PI;
 
             double intersection1AngleFromArcCenter = angleFromArcCenterToOtherArcCenter - angleAtArcCenterBetweenOtherArcCenterAndIntersections;
@@ -708,30 +1008,30 @@ public class GamePolyarcgon implements GameShape {
             double intersection1AngleFromOtherArcCenter = angleFromOtherArcCenterToArcCenter + angleAtOtherArcCenterBetweenArcCenterAndIntersections;
             double intersection2AngleFromOtherArcCenter = angleFromOtherArcCenterToArcCenter - angleAtOtherArcCenterBetweenArcCenterAndIntersections;
 
-            double intersection1X = nextPoint.arcCenterX + nextPoint.radiusOfCurvature * Math.cos(intersection1AngleFromArcCenter);
-            double intersection1Y = nextPoint.arcCenterY + nextPoint.radiusOfCurvature * Math.sin(intersection1AngleFromArcCenter);
+            double intersection1X = arcCenterX + radiusOfCurvature * Math.cos(intersection1AngleFromArcCenter);
+            double intersection1Y = arcCenterY + radiusOfCurvature * Math.sin(intersection1AngleFromArcCenter);
 
-            double intersection2X = nextPoint.arcCenterX + nextPoint.radiusOfCurvature * Math.cos(intersection2AngleFromArcCenter);
-            double intersection2Y = nextPoint.arcCenterY + nextPoint.radiusOfCurvature * Math.sin(intersection2AngleFromArcCenter);
+            double intersection2X = arcCenterX + radiusOfCurvature * Math.cos(intersection2AngleFromArcCenter);
+            double intersection2Y = arcCenterY + radiusOfCurvature * Math.sin(intersection2AngleFromArcCenter);
 
             double angleBetweenIntercept1AndArcStartFromArcCenter;
             double angleBetweenIntercept2AndArcStartFromArcCenter;
-            if (nextPoint.nonCachePoint.arcAngleChange > 0) {
-                angleBetweenIntercept1AndArcStartFromArcCenter = (intersection1AngleFromArcCenter - nextPoint.startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept1AndArcStartFromArcCenter >= nextPoint.nonCachePoint.arcAngleChange + maxRoundingErrorForNearCollisions) {
+            if (arcAngleChange > 0) {
+                angleBetweenIntercept1AndArcStartFromArcCenter = (intersection1AngleFromArcCenter - startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept1AndArcStartFromArcCenter >= arcAngleChange + maxRoundingErrorForNearCollisions) {
                     arcIntersectsOtherCircle1 = false;
                 }
-                angleBetweenIntercept2AndArcStartFromArcCenter = (intersection2AngleFromArcCenter - nextPoint.startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept2AndArcStartFromArcCenter >= nextPoint.nonCachePoint.arcAngleChange + maxRoundingErrorForNearCollisions) {
+                angleBetweenIntercept2AndArcStartFromArcCenter = (intersection2AngleFromArcCenter - startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept2AndArcStartFromArcCenter >= arcAngleChange + maxRoundingErrorForNearCollisions) {
                     arcIntersectsOtherCircle2 = false;
                 }
             } else {
-                angleBetweenIntercept1AndArcStartFromArcCenter = (intersection1AngleFromArcCenter - nextPoint.startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept1AndArcStartFromArcCenter <= nextPoint.nonCachePoint.arcAngleChange - maxRoundingErrorForNearCollisions) {
+                angleBetweenIntercept1AndArcStartFromArcCenter = (intersection1AngleFromArcCenter - startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept1AndArcStartFromArcCenter <= arcAngleChange - maxRoundingErrorForNearCollisions) {
                     arcIntersectsOtherCircle1 = false;
                 }
-                angleBetweenIntercept2AndArcStartFromArcCenter = (intersection2AngleFromArcCenter - nextPoint.startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept2AndArcStartFromArcCenter <= nextPoint.nonCachePoint.arcAngleChange - maxRoundingErrorForNearCollisions) {
+                angleBetweenIntercept2AndArcStartFromArcCenter = (intersection2AngleFromArcCenter - startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept2AndArcStartFromArcCenter <= arcAngleChange - maxRoundingErrorForNearCollisions) {
                     arcIntersectsOtherCircle2 = false;
                 }
             }
@@ -740,22 +1040,22 @@ public class GamePolyarcgon implements GameShape {
             }
             double angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter;
             double angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter;
-            if (otherNextPoint.nonCachePoint.arcAngleChange > 0) {
-                angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter = (intersection1AngleFromOtherArcCenter - otherNextPoint.startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter >= otherNextPoint.nonCachePoint.arcAngleChange + maxRoundingErrorForNearCollisions) {
+            if (otherArcAngleChange > 0) {
+                angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter = (intersection1AngleFromOtherArcCenter - otherStartAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter >= otherArcAngleChange + maxRoundingErrorForNearCollisions) {
                     otherArcIntersectsCircle1 = false;
                 }
-                angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter = (intersection2AngleFromOtherArcCenter - otherNextPoint.startAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter >= otherNextPoint.nonCachePoint.arcAngleChange + maxRoundingErrorForNearCollisions) {
+                angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter = (intersection2AngleFromOtherArcCenter - otherStartAngle + maxRoundingErrorForNearCollisions + 10 * Math.PI) % (2 * Math.PI) - maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter >= otherArcAngleChange + maxRoundingErrorForNearCollisions) {
                     otherArcIntersectsCircle2 = false;
                 }
             } else {
-                angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter = (intersection1AngleFromOtherArcCenter - otherNextPoint.startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter <= otherNextPoint.nonCachePoint.arcAngleChange - maxRoundingErrorForNearCollisions) {
+                angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter = (intersection1AngleFromOtherArcCenter - otherStartAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter <= otherArcAngleChange - maxRoundingErrorForNearCollisions) {
                     otherArcIntersectsCircle1 = false;
                 }
-                angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter = (intersection2AngleFromOtherArcCenter - otherNextPoint.startAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
-                if (angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter <= otherNextPoint.nonCachePoint.arcAngleChange - maxRoundingErrorForNearCollisions) {
+                angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter = (intersection2AngleFromOtherArcCenter - otherStartAngle - maxRoundingErrorForNearCollisions - 10 * Math.PI) % (2 * Math.PI) + maxRoundingErrorForNearCollisions;
+                if (angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter <= otherArcAngleChange - maxRoundingErrorForNearCollisions) {
                     otherArcIntersectsCircle2 = false;
                 }
             }
@@ -763,55 +1063,55 @@ public class GamePolyarcgon implements GameShape {
                 circleContainsOtherArcStart = false; //because the other arc starts outside the circle
             }
             if (arcIntersectsOtherCircle1 && arcIntersectsOtherCircle2 && otherCircleContainsArcStart) {
-                if ((intersection1AngleFromOtherArcCenter - intersection2AngleFromOtherArcCenter + 10 * Math.PI) % (2 * Math.PI) > (otherNextPoint.endAngle - intersection2AngleFromOtherArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
+                if ((intersection1AngleFromOtherArcCenter - intersection2AngleFromOtherArcCenter + 10 * Math.PI) % (2 * Math.PI) > (otherEndAngle - intersection2AngleFromOtherArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
                     numberOfTimesArcIntersectsOtherRayClockwise += windingFactor;
                 }
             } else {
                 double angleBetweenArcStartAndArcCenterFromOtherArcCenter = ((angleOfArcStartFromOtherArcCenter - angleFromOtherArcCenterToArcCenter + 11 * Math.PI) % (2 * Math.PI)) - Math.PI;
                 double angleBetweenArcEndAndArcCenterFromOtherArcCenter = ((angleOfArcEndFromOtherArcCenter - angleFromOtherArcCenterToArcCenter + 11 * Math.PI) % (2 * Math.PI)) - Math.PI;
                 if (arcIntersectsOtherCircle1) {
-                    numberOfTimesArcIntersectsOtherRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(otherNextPoint.endAngle, intersection1AngleFromOtherArcCenter, angleAtOtherArcCenterBetweenArcCenterAndIntersections, angleBetweenArcStartAndArcCenterFromOtherArcCenter, angleBetweenArcEndAndArcCenterFromOtherArcCenter, windingFactor, 1);
+                    numberOfTimesArcIntersectsOtherRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(otherEndAngle, intersection1AngleFromOtherArcCenter, angleAtOtherArcCenterBetweenArcCenterAndIntersections, angleBetweenArcStartAndArcCenterFromOtherArcCenter, angleBetweenArcEndAndArcCenterFromOtherArcCenter, windingFactor, 1);
                 }
                 if (arcIntersectsOtherCircle2) {
-                    numberOfTimesArcIntersectsOtherRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(otherNextPoint.endAngle, intersection2AngleFromOtherArcCenter, angleAtOtherArcCenterBetweenArcCenterAndIntersections, angleBetweenArcStartAndArcCenterFromOtherArcCenter, angleBetweenArcEndAndArcCenterFromOtherArcCenter, windingFactor, -1);
+                    numberOfTimesArcIntersectsOtherRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(otherEndAngle, intersection2AngleFromOtherArcCenter, angleAtOtherArcCenterBetweenArcCenterAndIntersections, angleBetweenArcStartAndArcCenterFromOtherArcCenter, angleBetweenArcEndAndArcCenterFromOtherArcCenter, windingFactor, -1);
                 }
             }
 
             if (otherArcIntersectsCircle1 && otherArcIntersectsCircle2 && circleContainsOtherArcStart) {
-                if ((intersection2AngleFromArcCenter - intersection1AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (nextPoint.endAngle - intersection1AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
+                if ((intersection2AngleFromArcCenter - intersection1AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI) > (endAngle - intersection1AngleFromArcCenter + 10 * Math.PI) % (2 * Math.PI)) {
                     numberOfTimesOtherArcIntersectsRayClockwise += otherWindingFactor;
                 }
             } else {
                 double angleBetweenOtherArcStartAndOtherArcCenterFromArcCenter = ((angleOfOtherArcStartFromArcCenter - angleFromArcCenterToOtherArcCenter + 11 * Math.PI) % (2 * Math.PI)) - Math.PI;
                 double angleBetweenOtherArcEndAndOtherArcCenterFromArcCenter = ((angleOfOtherArcEndFromArcCenter - angleFromArcCenterToOtherArcCenter + 11 * Math.PI) % (2 * Math.PI)) - Math.PI;
                 if (otherArcIntersectsCircle1) {
-                    numberOfTimesOtherArcIntersectsRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(nextPoint.endAngle, intersection1AngleFromArcCenter, angleAtArcCenterBetweenOtherArcCenterAndIntersections, angleBetweenOtherArcStartAndOtherArcCenterFromArcCenter, angleBetweenOtherArcEndAndOtherArcCenterFromArcCenter, otherWindingFactor, -1);
+                    numberOfTimesOtherArcIntersectsRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(endAngle, intersection1AngleFromArcCenter, angleAtArcCenterBetweenOtherArcCenterAndIntersections, angleBetweenOtherArcStartAndOtherArcCenterFromArcCenter, angleBetweenOtherArcEndAndOtherArcCenterFromArcCenter, otherWindingFactor, -1);
                 }
                 if (otherArcIntersectsCircle2) {
-                    numberOfTimesOtherArcIntersectsRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(nextPoint.endAngle, intersection2AngleFromArcCenter, angleAtArcCenterBetweenOtherArcCenterAndIntersections, angleBetweenOtherArcStartAndOtherArcCenterFromArcCenter, angleBetweenOtherArcEndAndOtherArcCenterFromArcCenter, otherWindingFactor, 1);
+                    numberOfTimesOtherArcIntersectsRayClockwise += getSignedNumberOfTimesArcAComingOutOfIntersectionCIntersectsRayOfArcB(endAngle, intersection2AngleFromArcCenter, angleAtArcCenterBetweenOtherArcCenterAndIntersections, angleBetweenOtherArcStartAndOtherArcCenterFromArcCenter, angleBetweenOtherArcEndAndOtherArcCenterFromArcCenter, otherWindingFactor, 1);
                 }
             }
             if (arcIntersectsOtherCircle1 && otherArcIntersectsCircle1) {
-                overlap.addArcToOverlap(nextPoint.radiusOfCurvature, nextPoint.arcCenterX, nextPoint.arcCenterY, lastPointX, lastPointY, intersection1X, intersection1Y, angleBetweenIntercept1AndArcStartFromArcCenter, -windingFactor * otherWindingFactor, true, nextPoint, true);
-                overlap.addArcToOverlap(otherNextPoint.radiusOfCurvature, otherNextPoint.arcCenterX, otherNextPoint.arcCenterY, otherLastPointX, otherLastPointY, intersection1X, intersection1Y, angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter, windingFactor * otherWindingFactor, false, otherNextPoint, true);
+                overlap.addArcToOverlap(radiusOfCurvature, arcCenterX, arcCenterY, lastPointX, lastPointY, intersection1X, intersection1Y, angleBetweenIntercept1AndArcStartFromArcCenter, -windingFactor * otherWindingFactor, true, nextPoint, true);
+                overlap.addArcToOverlap(otherRadiusOfCurvature, otherArcCenterX, otherArcCenterY, otherLastPointX, otherLastPointY, intersection1X, intersection1Y, angleBetweenIntercept1AndOtherArcStartFromOtherArcCenter, windingFactor * otherWindingFactor, false, otherNextPoint, true);
             }
             if (arcIntersectsOtherCircle2 && otherArcIntersectsCircle2) {
-                overlap.addArcToOverlap(nextPoint.radiusOfCurvature, nextPoint.arcCenterX, nextPoint.arcCenterY, lastPointX, lastPointY, intersection2X, intersection2Y, angleBetweenIntercept2AndArcStartFromArcCenter, windingFactor * otherWindingFactor, true, nextPoint, true);
-                overlap.addArcToOverlap(otherNextPoint.radiusOfCurvature, otherNextPoint.arcCenterX, otherNextPoint.arcCenterY, otherLastPointX, otherLastPointY, intersection2X, intersection2Y, angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter, -windingFactor * otherWindingFactor, false, otherNextPoint, true);
+                overlap.addArcToOverlap(radiusOfCurvature, arcCenterX, arcCenterY, lastPointX, lastPointY, intersection2X, intersection2Y, angleBetweenIntercept2AndArcStartFromArcCenter, windingFactor * otherWindingFactor, true, nextPoint, true);
+                overlap.addArcToOverlap(otherRadiusOfCurvature, otherArcCenterX, otherArcCenterY, otherLastPointX, otherLastPointY, intersection2X, intersection2Y, angleBetweenIntercept2AndOtherArcStartFromOtherArcCenter, -windingFactor * otherWindingFactor, false, otherNextPoint, true);
             }
         }
         if (!otherArcIntersectsCircle1 && !otherArcIntersectsCircle2 && !circleContainsOtherArcStart) {
-            numberOfTimesOtherArcIntersectsRayClockwise += getSignedNumberOfTimesArcAThatIsOutsideCircleBIntersectsRayOfArcB(nextPoint.endAngle, otherNextPoint.nonCachePoint.arcAngleChange, angleOfOtherArcStartFromArcCenter, angleOfOtherArcEndFromArcCenter, otherCircleContainsArcCenter);
+            numberOfTimesOtherArcIntersectsRayClockwise += getSignedNumberOfTimesArcAThatIsOutsideCircleBIntersectsRayOfArcB(endAngle, otherArcAngleChange, angleOfOtherArcStartFromArcCenter, angleOfOtherArcEndFromArcCenter, otherCircleContainsArcCenter);
         }
         if (!arcIntersectsOtherCircle1 && !arcIntersectsOtherCircle2 && !otherCircleContainsArcStart) {
-            numberOfTimesArcIntersectsOtherRayClockwise += getSignedNumberOfTimesArcAThatIsOutsideCircleBIntersectsRayOfArcB(otherNextPoint.endAngle, nextPoint.nonCachePoint.arcAngleChange, angleOfArcStartFromOtherArcCenter, angleOfArcEndFromOtherArcCenter, circleContainsOtherArcCenter);
+            numberOfTimesArcIntersectsOtherRayClockwise += getSignedNumberOfTimesArcAThatIsOutsideCircleBIntersectsRayOfArcB(otherEndAngle, arcAngleChange, angleOfArcStartFromOtherArcCenter, angleOfArcEndFromOtherArcCenter, circleContainsOtherArcCenter);
         }
         // Note it is logically impossible for these to be different than -1, 0, or 1
         if (numberOfTimesOtherArcIntersectsRayClockwise != 0) {
-            overlap.addArcToOverlap(nextPoint.radiusOfCurvature, nextPoint.arcCenterX, nextPoint.arcCenterY, lastPointX, lastPointY, nextPoint.x, nextPoint.y, nextPoint.nonCachePoint.arcAngleChange, numberOfTimesOtherArcIntersectsRayClockwise, true, nextPoint, false);
+            overlap.addArcToOverlap(radiusOfCurvature, arcCenterX, arcCenterY, lastPointX, lastPointY, nextPointX, nextPointY, arcAngleChange, numberOfTimesOtherArcIntersectsRayClockwise, true, nextPoint, false);
         }
         if (numberOfTimesArcIntersectsOtherRayClockwise != 0) {
-            overlap.addArcToOverlap(otherNextPoint.radiusOfCurvature, otherNextPoint.arcCenterX, otherNextPoint.arcCenterY, otherLastPointX, otherLastPointY, otherNextPoint.x, otherNextPoint.y, otherNextPoint.nonCachePoint.arcAngleChange, numberOfTimesArcIntersectsOtherRayClockwise, false, otherNextPoint, false);
+            overlap.addArcToOverlap(otherRadiusOfCurvature, otherArcCenterX, otherArcCenterY, otherLastPointX, otherLastPointY, otherNextPointX, otherNextPointY, otherArcAngleChange, numberOfTimesArcIntersectsOtherRayClockwise, false, otherNextPoint, false);
         }
     }
 
@@ -1,7 +1,5 @@
 package com.github.eztang00.firstandroidgame.gamephysics;
 
-import androidx.annotation.NonNull;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -44,7 +42,7 @@ public class GamePolyarcgonBuilder {
         double roundedTurnEndX;
         double roundedTurnEndY;
 
-        @NonNull
+        @Override
         public GamePolyarcgonBuilderPoint clone() {
             try {
                 return (GamePolyarcgonBuilderPoint) super.clone();
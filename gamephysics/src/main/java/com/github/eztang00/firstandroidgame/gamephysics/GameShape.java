@@ -1,7 +1,5 @@
 package com.github.eztang00.firstandroidgame.gamephysics;
 
-import android.graphics.Canvas;
-
 /**
  * These are shapes inside the game.
  * The main class that implements this is the GamePolyarcgon
@@ -9,7 +7,13 @@ import android.graphics.Canvas;
 public interface GameShape {
     void collision(GameShape shape, boolean isThisMovable, boolean isOtherShapeMovable, boolean thisIsFirstShape, OverlapCalculator overlapCalculator);
 
-    void draw(Canvas canvas);
+    /**
+     * Brings any lazily calculated data collision() uses up to date for the shape's current position,
+     * so that afterwards collision() only reads it and can be called from several threads at once.
+     */
+    void updateCollisionCaches();
+
+    void draw(GameShapeRenderer renderer);
 
     void receiveForce(ForceAndTorque collision);
 
@@ -25,9 +29,19 @@ public interface GameShape {
 
     double getY();
 
+    double getRotation();
+
     double getMomentOfInertia();
 
     void setPos(double x, double y);
 
     void setRotation(double rotationRadians);
+
+    /**
+     * Which of the GamePhysicsEngine's collision layers the shape is on, from 0 to GamePhysicsEngine.MAX_COLLISION_LAYERS - 1,
+     * see GamePhysicsEngine.setLayersCollide(). 0 unless it's set to something else.
+     */
+    int getCollisionLayer();
+
+    void setCollisionLayer(int collisionLayer);
 }
@@ -0,0 +1,140 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A copy of where the engine's shapes were before and after a physics tick, so another thread can draw them
+ * while the engine carries on, and draw them part of the way between the two poses when frames aren't drawn
+ * at exactly the same rate as the ticks.
+ * <p>
+ * The thread updating the engine calls rememberPreviousPoses() before GamePhysicsEngine.update()
+ * and rememberCurrentPoses() after it, then hands the snapshot over (e.g. through a triple buffer)
+ * and doesn't touch it again till it gets it back. The shapes themselves are only there to say what to draw,
+ * reading their poses from the drawing thread would race with the engine, use getX() etc. instead.
+ * Nothing is allocated once the arrays are big enough.
+ */
+public class GameShapePoseSnapshot {
+    private GameShape[] previousShapes = new GameShape[16];
+    private double[] previousXs = new double[16];
+    private double[] previousYs = new double[16];
+    private double[] previousRotations = new double[16];
+    private int previousShapeCount = 0;
+    private GameShape[] shapes = new GameShape[16];
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private double[] rotations = new double[16];
+    // false if the shape jumped further than its own size in the tick (teleported, e.g. through a wormhole or into the hole)
+    // or wasn't there before it, so it's drawn where it is now
+    private boolean[] interpolatable = new boolean[16];
+    private int shapeCount = 0;
+
+    public void rememberPreviousPoses(GamePhysicsEngine engine) {
+        int lastCount = previousShapeCount;
+        previousShapeCount = 0;
+        previousShapeCount = rememberPoses(engine.unmovableShapes, previousShapeCount, true);
+        previousShapeCount = rememberPoses(engine.movableShapes, previousShapeCount, true);
+        // don't hang on to shapes that have gone, e.g. from the last level
+        if (previousShapeCount < lastCount) {
+            Arrays.fill(previousShapes, previousShapeCount, lastCount, null);
+        }
+    }
+
+    public void rememberCurrentPoses(GamePhysicsEngine engine) {
+        int lastCount = shapeCount;
+        shapeCount = 0;
+        shapeCount = rememberPoses(engine.unmovableShapes, shapeCount, false);
+        shapeCount = rememberPoses(engine.movableShapes, shapeCount, false);
+        if (shapeCount < lastCount) {
+            Arrays.fill(shapes, shapeCount, lastCount, null);
+        }
+        for (int i = 0; i < shapeCount; i++) {
+            double xDifference = xs[i] - previousXs[i];
+            double yDifference = ys[i] - previousYs[i];
+            double boundingRadius = shapes[i].getBoundingRadius();
+            // the engine keeps shapes in the order they were added, so unless shapes were added or removed in the tick they line up
+            interpolatable[i] = i < previousShapeCount && previousShapes[i] == shapes[i]
+                    && xDifference * xDifference + yDifference * yDifference <= boundingRadius * boundingRadius;
+        }
+    }
+
+    private int rememberPoses(ArrayList<GameShape> engineShapes, int count, boolean previous) {
+        ensureCapacity(count + engineShapes.size());
+        GameShape[] shapesToFill = previous ? previousShapes : shapes;
+        double[] xsToFill = previous ? previousXs : xs;
+        double[] ysToFill = previous ? previousYs : ys;
+        double[] rotationsToFill = previous ? previousRotations : rotations;
+        // indexed loop rather than for each, so no iterator is made
+        for (int i = 0; i < engineShapes.size(); i++) {
+            GameShape shape = engineShapes.get(i);
+            shapesToFill[count] = shape;
+            xsToFill[count] = shape.getX();
+            ysToFill[count] = shape.getY();
+            rotationsToFill[count] = shape.getRotation();
+            count++;
+        }
+        return count;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > shapes.length) {
+            int newLength = Math.max(needed, 2 * shapes.length);
+            previousShapes = Arrays.copyOf(previousShapes, newLength);
+            previousXs = Arrays.copyOf(previousXs, newLength);
+            previousYs = Arrays.copyOf(previousYs, newLength);
+            previousRotations = Arrays.copyOf(previousRotations, newLength);
+            shapes = Arrays.copyOf(shapes, newLength);
+            xs = Arrays.copyOf(xs, newLength);
+            ys = Arrays.copyOf(ys, newLength);
+            rotations = Arrays.copyOf(rotations, newLength);
+            interpolatable = Arrays.copyOf(interpolatable, newLength);
+        }
+    }
+
+    /**
+     * @return how many shapes the engine had after the tick, in the order they were added (unmovable ones first)
+     */
+    public int getShapeCount() {
+        return shapeCount;
+    }
+
+    public GameShape getShape(int index) {
+        return shapes[index];
+    }
+
+    /**
+     * @return the index of the shape, or -1 if the engine didn't have it after the tick
+     */
+    public int indexOf(GameShape shape) {
+        for (int i = 0; i < shapeCount; i++) {
+            if (shapes[i] == shape) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param fractionOfTick 0 for the pose before the tick, 1 (or more) for the pose after it
+     */
+    public double getX(int index, double fractionOfTick) {
+        return interpolate(previousXs, xs, index, fractionOfTick);
+    }
+
+    public double getY(int index, double fractionOfTick) {
+        return interpolate(previousYs, ys, index, fractionOfTick);
+    }
+
+    public double getRotation(int index, double fractionOfTick) {
+        return interpolate(previousRotations, rotations, index, fractionOfTick);
+    }
+
+    private double interpolate(double[] previousValues, double[] values, int index, double fractionOfTick) {
+        // exactly the current value at 1, so things that haven't moved keep their cached paths
+        if (!(fractionOfTick < 1) || !interpolatable[index]) {
+            return values[index];
+        }
+        double fraction = Math.max(0, fractionOfTick);
+        return previousValues[index] + fraction * (values[index] - previousValues[index]);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * Draws shapes for GameShape.draw(), so the physics doesn't depend on a drawing library like Android's Canvas
+ * and can run on a plain JVM (tests, benchmarks, simulating lots of shots at once).
+ * The app's one draws onto a Canvas, see AndroidShapeRenderer.
+ */
+public interface GameShapeRenderer {
+    void drawPolyarcgon(GamePolyarcgon polyarcgon);
+
+    void drawExpandingCircle(GameExpandingCircle circle);
+
+    void drawCompositeShape(GameCompositeShape compositeShape);
+}
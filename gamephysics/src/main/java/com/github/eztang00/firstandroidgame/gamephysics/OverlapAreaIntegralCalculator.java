@@ -12,8 +12,8 @@ package com.github.eztang00.firstandroidgame.gamephysics;
  * from the other area integrals.
  */
 class OverlapAreaIntegralCalculator implements OverlapCalculator {
-    public final GameShape firstShape;
-    public final GameShape otherShape;
+    public GameShape firstShape;
+    public GameShape otherShape;
     double overlapArea = 0;
     double overlapXAreaIntegral = 0;
     double overlapYAreaIntegral = 0;
@@ -25,6 +25,18 @@ class OverlapAreaIntegralCalculator implements OverlapCalculator {
         this.otherShape = otherShape;
     }
 
+    /**
+     * So a force field can reuse one calculator for every shape instead of making a new one.
+     */
+    void reset(GameShape firstShape, GameShape otherShape) {
+        this.firstShape = firstShape;
+        this.otherShape = otherShape;
+        overlapArea = 0;
+        overlapXAreaIntegral = 0;
+        overlapYAreaIntegral = 0;
+        overlapXSqPlusYSqAreaIntegral = 0;
+    }
+
     public void addLineSegmentToOverlap(double startX, double startY, double endX, double endY, int windingFactor, boolean lineSegmentIsFirstShape, GamePolyarcgon.PolyarcgonPointCache nextPoint, boolean isRealIntersection) {
         double overlapAreaContribution = (startX * endY - startY * endX) / 2.0;
         this.overlapArea += windingFactor * overlapAreaContribution;
@@ -66,6 +78,11 @@ class OverlapAreaIntegralCalculator implements OverlapCalculator {
                 - (overlapWedgeCenterOfAreaRelativeToCenterX * overlapWedgeCenterOfAreaRelativeToCenterX + overlapWedgeCenterOfAreaRelativeToCenterY * overlapWedgeCenterOfAreaRelativeToCenterY));
     }
 
+    @Override
+    public boolean onlyNeedsOverlapTotals() {
+        return true;
+    }
+
     public boolean isAlmostZero() {
         return overlapArea / (firstShape.getArea() + otherShape.getArea()) < 0.000001;
     }
@@ -27,4 +27,13 @@ public interface OverlapCalculator {
      */
     void addArcToOverlap(double radiusOfCurvature, double arcCenterX, double arcCenterY, double arcStartX, double arcStartY, double arcEndX, double arcEndY, double arcAngleChange, int windingFactor, boolean arcIsFirstShape, GamePolyarcgon.PolyarcgonPointCache nextPoint, boolean isRealIntersection);
 
+    /**
+     * Whether this calculator only adds up totals (area, force etc.) and doesn't care which edges
+     * the line segments and arcs came from. If so, collisions with circles can give it the overlap
+     * in fewer, bigger pieces (see PolyarcgonCircleOverlap), and nextPoint is just some point of the shape.
+     */
+    default boolean onlyNeedsOverlapTotals() {
+        return false;
+    }
+
 }
@@ -28,8 +28,8 @@ package com.github.eztang00.firstandroidgame.gamephysics;
  *
  */
 class OverlapGradientForceCalculator implements OverlapCalculator {
-    public final GameShape firstShape;
-    public final GameShape otherShape;
+    public GameShape firstShape;
+    public GameShape otherShape;
     double overlapGradientForceX = 0;
     double overlapGradientForceY = 0;
     double overlapGradientTorqueOnFirstShape = 0;
@@ -42,6 +42,20 @@ class OverlapGradientForceCalculator implements OverlapCalculator {
         this.otherShape = otherShape;
     }
 
+    /**
+     * So the physics engine can reuse one calculator for every pair of shapes instead of making a new one.
+     */
+    void reset(GameShape firstShape, GameShape otherShape) {
+        this.firstShape = firstShape;
+        this.otherShape = otherShape;
+        overlapGradientForceX = 0;
+        overlapGradientForceY = 0;
+        overlapGradientTorqueOnFirstShape = 0;
+        overlapGradientTorqueOnOtherShape = 0;
+        overlapPerimeter = 0;
+        overlapArea = 0;
+    }
+
     public void addLineSegmentToOverlap(double startX, double startY, double endX, double endY, int windingFactor, boolean lineSegmentIsFirstShape, GamePolyarcgon.PolyarcgonPointCache nextPoint, boolean isRealIntersection) {
         double forceX = -(endY - startY);
         double forceY = endX - startX;
@@ -78,6 +92,11 @@ class OverlapGradientForceCalculator implements OverlapCalculator {
         this.overlapPerimeter += windingFactor * radiusOfCurvature*Math.abs(arcAngleChange);
     }
 
+    @Override
+    public boolean onlyNeedsOverlapTotals() {
+        return true;
+    }
+
     public boolean isAlmostZero() {
         double area = firstShape.getArea() + otherShape.getArea();
         return (overlapGradientForceX * overlapGradientForceX + overlapGradientForceY * overlapGradientForceY) / area + (overlapGradientTorqueOnFirstShape * overlapGradientTorqueOnFirstShape + overlapGradientTorqueOnOtherShape * overlapGradientTorqueOnOtherShape) / area / area < 0.000001 * 0.000001;
@@ -0,0 +1,440 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import java.util.Arrays;
+
+/**
+ * Shortcuts for collisions with a circle (a GamePolyarcgon that's just one circle, like the ball,
+ * the hole, wormholes and ripples), for OverlapCalculators that only need the totals,
+ * see OverlapCalculator.onlyNeedsOverlapTotals().
+ *
+ * Two overlapping circles overlap in a lens shape with just two arcs around it, so instead of going
+ * through the general arc-arc code for every pair of arcs, we work out those two arcs directly and give
+ * them to the calculator. The calculator's arc formulas then give the area, center, second moment and
+ * gradient force of the lens in closed form.
+ *
+ * A circle and some other polyarcgon often don't touch even though their bounding circles overlap
+ * (e.g. the ball in the middle of a maze corridor). If no edge of the other shape comes near the circle,
+ * the circle is either completely inside or completely outside it, which just needs a ray crossing count.
+ * If edges do come near it, this gives up and the general code is used.
+ *
+ * Either way the results are the same as the general code, except for rounding.
+ *
+ * Circles which aren't GamePolyarcgons at all (see GameExpandingCircle) also come through here,
+ * and since there's no general code to fall back on, they clip the polyarcgon's edges to the circle instead.
+ */
+final class PolyarcgonCircleOverlap {
+    private PolyarcgonCircleOverlap() {
+    }
+
+    /**
+     * @return false if neither shape is a circle or no shortcut works, so the general code needs to be used
+     */
+    static boolean addOverlapIfCircle(OverlapCalculator handler, PolyarcgonGeometry geometry, PolyarcgonEdgeTree edgeTree, PolyarcgonGeometry otherGeometry, PolyarcgonEdgeTree otherEdgeTree) {
+        if (geometry.circleEdge >= 0 && otherGeometry.circleEdge >= 0) {
+            int edge = geometry.circleEdge;
+            int otherEdge = otherGeometry.circleEdge;
+            addLensOverlap(handler, geometry.arcCenterXs[edge], geometry.arcCenterYs[edge], geometry.radiiOfCurvature[edge], geometry.circleWindingFactor, geometry,
+                    otherGeometry.arcCenterXs[otherEdge], otherGeometry.arcCenterYs[otherEdge], otherGeometry.radiiOfCurvature[otherEdge], otherGeometry.circleWindingFactor, otherGeometry);
+            return true;
+        } else if (geometry.circleEdge >= 0) {
+            return addCircleOverlapIfNoEdgesNearby(handler, geometry, otherGeometry, otherEdgeTree, true);
+        } else if (otherGeometry.circleEdge >= 0) {
+            return addCircleOverlapIfNoEdgesNearby(handler, otherGeometry, geometry, edgeTree, false);
+        }
+        return false;
+    }
+
+    /**
+     * The overlap between a circle that isn't a GamePolyarcgon (e.g. a GameExpandingCircle) and a polyarcgon.
+     * The circle counts as a normal shape (not a hole).
+     */
+    static void addCircleOverlap(OverlapCalculator handler, double centerX, double centerY, double radius, boolean circleIsFirstShape, GamePolyarcgon shape) {
+        double distanceSq = (shape.x - centerX) * (shape.x - centerX) + (shape.y - centerY) * (shape.y - centerY);
+        if (Math.sqrt(distanceSq) >= radius + shape.boundingRadius) {
+            return;
+        }
+        PolyarcgonGeometry geometry = shape.geometryCache.get();
+        if (geometry.circleEdge >= 0) {
+            int edge = geometry.circleEdge;
+            if (circleIsFirstShape) {
+                addLensOverlap(handler, centerX, centerY, radius, 1, null, geometry.arcCenterXs[edge], geometry.arcCenterYs[edge], geometry.radiiOfCurvature[edge], geometry.circleWindingFactor, geometry);
+            } else {
+                addLensOverlap(handler, geometry.arcCenterXs[edge], geometry.arcCenterYs[edge], geometry.radiiOfCurvature[edge], geometry.circleWindingFactor, geometry, centerX, centerY, radius, 1, null);
+            }
+        } else {
+            addClippedOverlap(handler, centerX, centerY, radius, circleIsFirstShape, geometry, shape.edgeTreeCache.get());
+        }
+    }
+
+    /**
+     * The overlap between two circles that aren't GamePolyarcgons, both counting as normal shapes.
+     */
+    static void addCircleCircleOverlap(OverlapCalculator handler, double centerX, double centerY, double radius, double otherCenterX, double otherCenterY, double otherRadius) {
+        addLensOverlap(handler, centerX, centerY, radius, 1, null, otherCenterX, otherCenterY, otherRadius, 1, null);
+    }
+
+    /**
+     * @param circle the first circle's GamePolyarcgon, or null if it isn't one, same for otherCircle
+     */
+    private static void addLensOverlap(OverlapCalculator handler, double centerX, double centerY, double radius, int windingFactor, PolyarcgonGeometry circle,
+                                       double otherCenterX, double otherCenterY, double otherRadius, int otherWindingFactor, PolyarcgonGeometry otherCircle) {
+        double centerToCenterX = otherCenterX - centerX;
+        double centerToCenterY = otherCenterY - centerY;
+        double distance = Math.sqrt(centerToCenterX * centerToCenterX + centerToCenterY * centerToCenterY);
+        if (distance >= radius + otherRadius) {
+            return;
+        }
+        if (distance <= Math.abs(radius - otherRadius)) {
+            // one circle is completely inside the other, so the overlap is just the smaller circle
+            if (radius <= otherRadius) {
+                addWholeCircle(handler, circle, centerX, centerY, radius, otherWindingFactor, true);
+            } else {
+                addWholeCircle(handler, otherCircle, otherCenterX, otherCenterY, otherRadius, windingFactor, false);
+            }
+            return;
+        }
+
+        // the two intersections are on a line at right angles to the line between the centers (the chord),
+        // see https://mathworld.wolfram.com/Circle-CircleIntersection.html
+        double distanceToChord = (distance * distance + radius * radius - otherRadius * otherRadius) / (2 * distance);
+        double halfChord = Math.sqrt(Math.max(0, radius * radius - distanceToChord * distanceToChord));
+        double directionX = centerToCenterX / distance;
+        double directionY = centerToCenterY / distance;
+        double chordCenterX = centerX + directionX * distanceToChord;
+        double chordCenterY = centerY + directionY * distanceToChord;
+        // intersection 1 is at a larger angle than the other center seen from this center, and a smaller angle than this center seen from the other center
+        double intersection1X = chordCenterX - directionY * halfChord;
+        double intersection1Y = chordCenterY + directionX * halfChord;
+        double intersection2X = chordCenterX + directionY * halfChord;
+        double intersection2Y = chordCenterY - directionX * halfChord;
+        // angle at each center between the line between centers and either intersection
+        double halfAngle = Math.atan2(halfChord, distanceToChord);
+        double otherHalfAngle = Math.atan2(halfChord, distance - distanceToChord);
+
+        // the arc of each circle inside the other circle, going the same way round as the circle
+        // and counted as many times as the other circle winds around it (like the general code)
+        GamePolyarcgon.PolyarcgonPointCache nextPoint = circle == null ? null : circle.pointCaches[circle.circleEdge];
+        GamePolyarcgon.PolyarcgonPointCache otherNextPoint = otherCircle == null ? null : otherCircle.pointCaches[otherCircle.circleEdge];
+        if (windingFactor > 0) {
+            handler.addArcToOverlap(radius, centerX, centerY, intersection2X, intersection2Y, intersection1X, intersection1Y, 2 * halfAngle, otherWindingFactor, true, nextPoint, true);
+        } else {
+            handler.addArcToOverlap(radius, centerX, centerY, intersection1X, intersection1Y, intersection2X, intersection2Y, -2 * halfAngle, otherWindingFactor, true, nextPoint, true);
+        }
+        if (otherWindingFactor > 0) {
+            handler.addArcToOverlap(otherRadius, otherCenterX, otherCenterY, intersection1X, intersection1Y, intersection2X, intersection2Y, 2 * otherHalfAngle, windingFactor, false, otherNextPoint, true);
+        } else {
+            handler.addArcToOverlap(otherRadius, otherCenterX, otherCenterY, intersection2X, intersection2Y, intersection1X, intersection1Y, -2 * otherHalfAngle, windingFactor, false, otherNextPoint, true);
+        }
+    }
+
+    private static boolean addCircleOverlapIfNoEdgesNearby(OverlapCalculator handler, PolyarcgonGeometry circle, PolyarcgonGeometry shape, PolyarcgonEdgeTree shapeEdgeTree, boolean circleIsFirstShape) {
+        double centerX = circle.arcCenterXs[circle.circleEdge];
+        double centerY = circle.arcCenterYs[circle.circleEdge];
+        double radius = circle.radiiOfCurvature[circle.circleEdge];
+        // a little extra so an edge which just touches the circle goes through the general code
+        if (shapeEdgeTree.someEdgeComesWithinDistance(shape, centerX, centerY, radius * 1.000001 + PolyarcgonEdgeTree.BOX_PADDING)) {
+            return false;
+        }
+        int windingNumber = shapeEdgeTree.windingNumberAround(shape, centerX, centerY);
+        if (windingNumber != 0) {
+            addWholeCircle(handler, circle, centerX, centerY, radius, windingNumber, circleIsFirstShape);
+        }
+        return true;
+    }
+
+    /**
+     * The whole circle is inside the other shape, so it's all part of the overlap, same as the "fake" intersections in the general code.
+     *
+     * @param circle the circle's GamePolyarcgon, or null if it isn't one
+     */
+    private static void addWholeCircle(OverlapCalculator handler, PolyarcgonGeometry circle, double centerX, double centerY, double radius, int windingFactor, boolean circleIsFirstShape) {
+        if (circle == null) {
+            handler.addArcToOverlap(radius, centerX, centerY, centerX + radius, centerY, centerX + radius, centerY, 2 * Math.PI, windingFactor, circleIsFirstShape, null, false);
+            return;
+        }
+        int lastPoint = circle.pointCount - 1;
+        for (int i = 0; i < circle.pointCount; i++) {
+            if (circle.edgeKinds[i] == PolyarcgonGeometry.ARC_EDGE) {
+                handler.addArcToOverlap(circle.radiiOfCurvature[i], circle.arcCenterXs[i], circle.arcCenterYs[i], circle.xs[lastPoint], circle.ys[lastPoint], circle.xs[i], circle.ys[i], circle.arcAngleChanges[i], windingFactor, circleIsFirstShape, circle.pointCaches[i], false);
+            }
+            lastPoint = i;
+        }
+    }
+
+    /**
+     * Reusable memory for clipping a shape to a circle, one per thread so nothing is allocated each collision.
+     */
+    private static class CircleCrossings {
+        int[] edges = new int[16];
+        // where the shape's edges cross the circle
+        int count = 0;
+        double[] angles = new double[16];
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+        // how the shape's winding number changes going past the crossing in the direction of increasing angle
+        int[] windingNumberChanges = new int[16];
+        // so they can be sorted by angle without moving everything else
+        int[] order = new int[16];
+
+        void add(double x, double y, double centerX, double centerY, int windingNumberChange) {
+            if (count == angles.length) {
+                angles = Arrays.copyOf(angles, count * 2);
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+                windingNumberChanges = Arrays.copyOf(windingNumberChanges, count * 2);
+                order = Arrays.copyOf(order, count * 2);
+            }
+            angles[count] = Math.atan2(y - centerY, x - centerX);
+            xs[count] = x;
+            ys[count] = y;
+            windingNumberChanges[count] = windingNumberChange;
+            order[count] = count;
+            count++;
+        }
+
+        void sortByAngle() {
+            // insertion sort, there are only ever a few crossings
+            for (int i = 1; i < count; i++) {
+                int crossing = order[i];
+                int j = i - 1;
+                while (j >= 0 && angles[order[j]] > angles[crossing]) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = crossing;
+            }
+        }
+    }
+
+    private static final ThreadLocal<CircleCrossings> circleCrossings = new ThreadLocal<CircleCrossings>() {
+        @Override
+        protected CircleCrossings initialValue() {
+            return new CircleCrossings();
+        }
+    };
+
+    /**
+     * The boundary of the overlap is the parts of the shape's edges inside the circle,
+     * plus the parts of the circle inside the shape (counted as many times as the shape winds around them).
+     *
+     * Whether a point is inside the circle is decided once for each point of the shape, so two edges
+     * sharing a point never disagree about it, and every edge goes in and out of the circle the right number of times.
+     */
+    private static void addClippedOverlap(OverlapCalculator handler, double centerX, double centerY, double radius, boolean circleIsFirstShape, PolyarcgonGeometry shape, PolyarcgonEdgeTree shapeEdgeTree) {
+        CircleCrossings crossings = circleCrossings.get();
+        crossings.count = 0;
+        if (crossings.edges.length < shape.pointCount) {
+            crossings.edges = new int[shape.pointCount];
+        }
+        // edges completely outside the circle's box can't add anything or cross the circle
+        int edgeCount = shapeEdgeTree.findEdgesTouchingBox(centerX - radius, centerY - radius, centerX + radius, centerY + radius, crossings.edges);
+        for (int i = 0; i < edgeCount; i++) {
+            int edge = crossings.edges[i];
+            if (shape.edgeKinds[edge] != PolyarcgonGeometry.NO_EDGE) {
+                clipEdge(handler, centerX, centerY, radius, !circleIsFirstShape, shape, edge, crossings);
+            }
+        }
+
+        if (crossings.count == 0) {
+            int windingNumber = windingNumberOnCircle(shape, shapeEdgeTree, centerX, centerY, radius, 0, 2 * Math.PI);
+            if (windingNumber != 0) {
+                addWholeCircle(handler, null, centerX, centerY, radius, windingNumber, circleIsFirstShape);
+            }
+            return;
+        }
+        crossings.sortByAngle();
+        // find the winding number somewhere on the circle well away from any crossing (in the biggest gap),
+        // then keep track of it going round the circle from there
+        int biggestGapStart = crossings.count - 1;
+        double biggestGap = crossings.angles[crossings.order[0]] + 2 * Math.PI - crossings.angles[crossings.order[crossings.count - 1]];
+        for (int i = 0; i < crossings.count - 1; i++) {
+            double gap = crossings.angles[crossings.order[i + 1]] - crossings.angles[crossings.order[i]];
+            if (gap > biggestGap) {
+                biggestGap = gap;
+                biggestGapStart = i;
+            }
+        }
+        int windingNumber = windingNumberOnCircle(shape, shapeEdgeTree, centerX, centerY, radius, crossings.angles[crossings.order[biggestGapStart]], biggestGap);
+        for (int i = 0; i < crossings.count; i++) {
+            int crossing = crossings.order[(biggestGapStart + i) % crossings.count];
+            int nextCrossing = crossings.order[(biggestGapStart + i + 1) % crossings.count];
+            if (i > 0) {
+                windingNumber += crossings.windingNumberChanges[crossing];
+            }
+            if (windingNumber != 0) {
+                double angleChange = crossings.angles[nextCrossing] - crossings.angles[crossing];
+                if (angleChange < 0 || crossings.count == 1) {
+                    angleChange += 2 * Math.PI;
+                }
+                handler.addArcToOverlap(radius, centerX, centerY, crossings.xs[crossing], crossings.ys[crossing], crossings.xs[nextCrossing], crossings.ys[nextCrossing], angleChange, windingNumber, circleIsFirstShape, null, true);
+            }
+        }
+    }
+
+    /**
+     * The winding number of the shape around some point of the circle between the two angles, where no edges cross the circle.
+     * An edge can still just touch the circle there (e.g. the circle's right side is on a wall when the circle is at whole numbers)
+     * so it tries a few points until one isn't right on an edge.
+     */
+    private static final double[] WINDING_NUMBER_POINT_FRACTIONS = {0.5, 0.3, 0.7, 0.2, 0.8, 0.4, 0.6, 0.1, 0.9};
+
+    private static int windingNumberOnCircle(PolyarcgonGeometry shape, PolyarcgonEdgeTree shapeEdgeTree, double centerX, double centerY, double radius, double startAngle, double angleChange) {
+        double x = 0;
+        double y = 0;
+        for (double fraction : WINDING_NUMBER_POINT_FRACTIONS) {
+            x = centerX + radius * Math.cos(startAngle + angleChange * fraction);
+            y = centerY + radius * Math.sin(startAngle + angleChange * fraction);
+            if (!shapeEdgeTree.someEdgeComesWithinDistance(shape, x, y, radius * 0.000001)) {
+                break;
+            }
+        }
+        return shapeEdgeTree.windingNumberAround(shape, x, y);
+    }
+
+    /**
+     * Finds the parts of the edge inside the circle, adds them to the overlap, and notes where the edge crosses the circle.
+     *
+     * Positions along the edge are fractions of the way along for line segments and
+     * angles along the arc (as positive angles from its start) for arcs.
+     */
+    private static void clipEdge(OverlapCalculator handler, double centerX, double centerY, double radius, boolean edgeIsFirstShape, PolyarcgonGeometry shape, int edge, CircleCrossings crossings) {
+        int lastPoint = shape.previousPoint(edge);
+        boolean startIsInside = (shape.xs[lastPoint] - centerX) * (shape.xs[lastPoint] - centerX) + (shape.ys[lastPoint] - centerY) * (shape.ys[lastPoint] - centerY) < radius * radius;
+        boolean endIsInside = (shape.xs[edge] - centerX) * (shape.xs[edge] - centerX) + (shape.ys[edge] - centerY) * (shape.ys[edge] - centerY) < radius * radius;
+        double edgeLength;
+        // where the line or the arc's circle goes into and out of the circle, NaN if it doesn't
+        double enterPosition = Double.NaN;
+        double exitPosition = Double.NaN;
+        // whether it's inside at the start according to enterPosition and exitPosition (rather than according to startIsInside)
+        boolean wouldBeInsideAtStart;
+
+        if (shape.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+            edgeLength = 1;
+            double startToCenterX = shape.xs[lastPoint] - centerX;
+            double startToCenterY = shape.ys[lastPoint] - centerY;
+            // solve for where the line is radius away from the center, a quadratic
+            double a = shape.pointToPointXs[edge] * shape.pointToPointXs[edge] + shape.pointToPointYs[edge] * shape.pointToPointYs[edge];
+            double halfB = startToCenterX * shape.pointToPointXs[edge] + startToCenterY * shape.pointToPointYs[edge];
+            double c = startToCenterX * startToCenterX + startToCenterY * startToCenterY - radius * radius;
+            double discriminant = halfB * halfB - a * c;
+            if (a > 0 && discriminant > 0) {
+                double squareRoot = Math.sqrt(discriminant);
+                enterPosition = (-halfB - squareRoot) / a;
+                exitPosition = (-halfB + squareRoot) / a;
+            }
+            wouldBeInsideAtStart = enterPosition < 0 && exitPosition > 0;
+            if (!wouldBeInsideAtStart && !(enterPosition >= 0)) {
+                // the line only goes through the circle behind the start, or not at all
+                enterPosition = exitPosition = Double.NaN;
+            }
+        } else {
+            double arcCenterX = shape.arcCenterXs[edge];
+            double arcCenterY = shape.arcCenterYs[edge];
+            double radiusOfCurvature = shape.radiiOfCurvature[edge];
+            edgeLength = Math.abs(shape.arcAngleChanges[edge]);
+            double distance = Math.hypot(centerX - arcCenterX, centerY - arcCenterY);
+            // the part of the arc's circle inside the circle is the part within this angle of the direction towards the circle's center
+            double cosHalfAngleInside = distance == 0 ? Double.NaN : (distance * distance + radiusOfCurvature * radiusOfCurvature - radius * radius) / (2 * distance * radiusOfCurvature);
+            if (cosHalfAngleInside > -1 && cosHalfAngleInside < 1) {
+                double halfAngleInside = Math.acos(cosHalfAngleInside);
+                double angleTowardsCenter = Math.atan2(centerY - arcCenterY, centerX - arcCenterX);
+                double direction = Math.signum(shape.arcAngleChanges[edge]);
+                enterPosition = angleAlongArc(angleTowardsCenter - direction * halfAngleInside, shape.startAngles[edge], shape.arcAngleChanges[edge]);
+                exitPosition = angleAlongArc(angleTowardsCenter + direction * halfAngleInside, shape.startAngles[edge], shape.arcAngleChanges[edge]);
+                wouldBeInsideAtStart = exitPosition < enterPosition;
+            } else {
+                // the arc's circle is either completely inside or completely outside the circle,
+                // or just touches it, in which case it only touches it at one point so it's all still inside or outside
+                wouldBeInsideAtStart = distance == 0 ? radiusOfCurvature < radius : cosHalfAngleInside <= -1;
+            }
+        }
+
+        /*
+        Go along the edge, going in and out at (up to) 3 places: the start, enterPosition and exitPosition.
+        Whether the start is inside was decided by startIsInside, since the last edge ended there,
+        so if the enter and exit positions disagree, rounding put them on the wrong side of the start
+        and the start is where it should go in or out.
+        An arc whose circle is inside at the start can also go out and back in again.
+         */
+        boolean isInside = startIsInside;
+        double insideSince = 0;
+        for (int step = 0; step < 3; step++) {
+            double position;
+            boolean isEntering;
+            if (step == 0) {
+                position = 0;
+                isEntering = wouldBeInsideAtStart;
+            } else if (wouldBeInsideAtStart) {
+                position = step == 1 ? exitPosition : enterPosition;
+                isEntering = step == 2;
+            } else {
+                position = step == 1 ? enterPosition : exitPosition;
+                isEntering = step == 1;
+            }
+            // (a line's enterPosition is behind the start if it's inside at the start)
+            if (!(position >= 0 && position < edgeLength) || isInside == isEntering) {
+                continue;
+            }
+            double x = position == 0 ? shape.xs[lastPoint] : xAlongEdge(shape, edge, position);
+            double y = position == 0 ? shape.ys[lastPoint] : yAlongEdge(shape, edge, position);
+            if (isEntering) {
+                insideSince = position;
+                crossings.add(x, y, centerX, centerY, -1);
+            } else {
+                if (position > insideSince) {
+                    addPartOfEdge(handler, shape, lastPoint, edge, insideSince, position, edgeLength, edgeIsFirstShape);
+                }
+                crossings.add(x, y, centerX, centerY, 1);
+            }
+            isInside = isEntering;
+        }
+        if (isInside) {
+            addPartOfEdge(handler, shape, lastPoint, edge, insideSince, edgeLength, edgeLength, edgeIsFirstShape);
+        }
+        if (isInside != endIsInside) {
+            // it goes in or out right at the end, but rounding hid it, so count it there so the next edge agrees
+            crossings.add(shape.xs[edge], shape.ys[edge], centerX, centerY, isInside ? 1 : -1);
+        }
+    }
+
+    private static double xAlongEdge(PolyarcgonGeometry shape, int edge, double position) {
+        if (shape.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+            return shape.xs[shape.previousPoint(edge)] + position * shape.pointToPointXs[edge];
+        } else {
+            return shape.arcCenterXs[edge] + shape.radiiOfCurvature[edge] * Math.cos(shape.startAngles[edge] + Math.signum(shape.arcAngleChanges[edge]) * position);
+        }
+    }
+
+    private static double yAlongEdge(PolyarcgonGeometry shape, int edge, double position) {
+        if (shape.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+            return shape.ys[shape.previousPoint(edge)] + position * shape.pointToPointYs[edge];
+        } else {
+            return shape.arcCenterYs[edge] + shape.radiiOfCurvature[edge] * Math.sin(shape.startAngles[edge] + Math.signum(shape.arcAngleChanges[edge]) * position);
+        }
+    }
+
+    private static void addPartOfEdge(OverlapCalculator handler, PolyarcgonGeometry shape, int lastPoint, int edge, double fromPosition, double toPosition, double edgeLength, boolean edgeIsFirstShape) {
+        // use the actual points at the ends so nothing is lost to rounding
+        double fromX = fromPosition == 0 ? shape.xs[lastPoint] : xAlongEdge(shape, edge, fromPosition);
+        double fromY = fromPosition == 0 ? shape.ys[lastPoint] : yAlongEdge(shape, edge, fromPosition);
+        double toX = toPosition == edgeLength ? shape.xs[edge] : xAlongEdge(shape, edge, toPosition);
+        double toY = toPosition == edgeLength ? shape.ys[edge] : yAlongEdge(shape, edge, toPosition);
+        boolean isRealIntersection = fromPosition != 0 || toPosition != edgeLength;
+        if (shape.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+            handler.addLineSegmentToOverlap(fromX, fromY, toX, toY, 1, edgeIsFirstShape, shape.pointCaches[edge], isRealIntersection);
+        } else {
+            handler.addArcToOverlap(shape.radiiOfCurvature[edge], shape.arcCenterXs[edge], shape.arcCenterYs[edge], fromX, fromY, toX, toY, Math.signum(shape.arcAngleChanges[edge]) * (toPosition - fromPosition), 1, edgeIsFirstShape, shape.pointCaches[edge], isRealIntersection);
+        }
+    }
+
+    /**
+     * How far along an arc (as a positive angle from its start) the given direction from the arc center is, between 0 and 2 pi.
+     */
+    private static double angleAlongArc(double angle, double startAngle, double arcAngleChange) {
+        double angleAlongArc = (angle - startAngle) % (2 * Math.PI);
+        if (arcAngleChange < 0) {
+            angleAlongArc = -angleAlongArc;
+        }
+        return angleAlongArc < 0 ? angleAlongArc + 2 * Math.PI : angleAlongArc;
+    }
+}
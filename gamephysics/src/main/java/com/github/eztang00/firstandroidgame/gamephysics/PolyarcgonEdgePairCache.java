@@ -0,0 +1,92 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * Remembers the pairs of edges found by the edge trees the last few times a GamePolyarcgon
+ * collided with other polyarcgons, so the next collision simulation can reuse them instead of searching again.
+ * Shapes that are touching usually stay touching for lots of collision simulations, and
+ * only move a few pixels each time, so this saves most of the searching.
+ *
+ * We can't just remember the edges that actually intersected, because edges far away still add to
+ * the overlap by crossing rays (see PolyarcgonEdgeTree). So instead the pairs are searched for with every box
+ * grown by MARGIN, and they stay valid until the shapes have moved far enough that
+ * an edge or ray might have moved more than MARGIN relative to the other shape.
+ * The pairs are always a superset of what a fresh search would find, in the same order,
+ * so the collision result is exactly the same.
+ *
+ * Each shape only caches the collisions where it's the first shape, so in the GamePhysicsEngine
+ * only the thread simulating that shape touches its cache.
+ */
+class PolyarcgonEdgePairCache {
+    // in pixels, bigger means the pairs stay valid longer, but there are more of them
+    static final double MARGIN = 8;
+    static final int MAX_OTHER_SHAPES = 8;
+
+    private final GamePolyarcgon[] otherShapes = new GamePolyarcgon[MAX_OTHER_SHAPES];
+    private final double[] xs = new double[MAX_OTHER_SHAPES];
+    private final double[] ys = new double[MAX_OTHER_SHAPES];
+    private final double[] rotations = new double[MAX_OTHER_SHAPES];
+    private final double[] otherXs = new double[MAX_OTHER_SHAPES];
+    private final double[] otherYs = new double[MAX_OTHER_SHAPES];
+    private final double[] otherRotations = new double[MAX_OTHER_SHAPES];
+    private final int[][] edgePairs = new int[MAX_OTHER_SHAPES][];
+    private final int[] edgePairCounts = new int[MAX_OTHER_SHAPES];
+    private int nextEntryToReplace = 0;
+
+    /**
+     * @return the entry with pairs that are still valid for these shapes where they are now, or -1 if there isn't one
+     */
+    int findValidEntry(GamePolyarcgon shape, GamePolyarcgon otherShape) {
+        for (int entry = 0; entry < MAX_OTHER_SHAPES; entry++) {
+            if (otherShapes[entry] == otherShape) {
+                /*
+                A point at distance d from a shape's center moves at most |movement| + |rotation| * d.
+                Points that matter are on the other shape or on a ray that touches the other shape,
+                so they're within (distance between centers + both bounding radii) of either center.
+                 */
+                double distance = Math.hypot(shape.x - otherShape.x, shape.y - otherShape.y) + shape.boundingRadius + otherShape.boundingRadius;
+                double relativeMovement = Math.hypot(shape.x - xs[entry], shape.y - ys[entry])
+                        + Math.hypot(otherShape.x - otherXs[entry], otherShape.y - otherYs[entry])
+                        + (Math.abs(shape.rotationRadians - rotations[entry]) + Math.abs(otherShape.rotationRadians - otherRotations[entry])) * distance;
+                return relativeMovement <= MARGIN ? entry : -1; // also -1 if anything is NaN
+            }
+        }
+        return -1;
+    }
+
+    int[] getEdgePairs(int entry) {
+        return edgePairs[entry];
+    }
+
+    int getEdgePairCount(int entry) {
+        return edgePairCounts[entry];
+    }
+
+    /**
+     * Remembers edge pairs found with MARGIN for these shapes where they are now.
+     */
+    void store(GamePolyarcgon shape, GamePolyarcgon otherShape, int[] newEdgePairs, int newEdgePairCount) {
+        int entry = -1;
+        for (int i = 0; i < MAX_OTHER_SHAPES; i++) {
+            if (otherShapes[i] == otherShape) {
+                entry = i;
+                break;
+            }
+        }
+        if (entry == -1) {
+            entry = nextEntryToReplace;
+            nextEntryToReplace = (nextEntryToReplace + 1) % MAX_OTHER_SHAPES;
+            otherShapes[entry] = otherShape;
+        }
+        xs[entry] = shape.x;
+        ys[entry] = shape.y;
+        rotations[entry] = shape.rotationRadians;
+        otherXs[entry] = otherShape.x;
+        otherYs[entry] = otherShape.y;
+        otherRotations[entry] = otherShape.rotationRadians;
+        if (edgePairs[entry] == null || edgePairs[entry].length < newEdgePairCount) {
+            edgePairs[entry] = new int[Math.max(64, newEdgePairCount * 2)];
+        }
+        System.arraycopy(newEdgePairs, 0, edgePairs[entry], 0, newEdgePairCount);
+        edgePairCounts[entry] = newEdgePairCount;
+    }
+}
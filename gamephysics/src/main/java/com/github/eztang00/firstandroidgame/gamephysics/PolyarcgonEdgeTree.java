@@ -0,0 +1,529 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A bounding box tree (a "BVH") over the edges of a GamePolyarcgon, so colliding two
+ * polyarcgons with lots of edges (like a maze) doesn't need to look at every pair of edges.
+ *
+ * This is trickier than a normal BVH because the collision algorithm doesn't just
+ * look at edges that actually intersect. It also counts how many times an edge crosses the "ray"
+ * of an edge in the other shape, which is how it knows an edge is completely inside the other shape.
+ * The ray of a line segment starts at its start and goes through its end to infinity.
+ * The ray of an arc starts at its end and points directly away from the arc center.
+ *
+ * So two edges E and F can only add anything to the overlap if the "reach" of E (E plus its ray)
+ * touches F, or the reach of F touches E. We find all those pairs by searching the other shape's tree
+ * with the reach of each edge in this shape, and then this shape's tree with the reach of each edge
+ * in the other shape.
+ *
+ * The tree structure is built once from the template, then the boxes are refit every time the
+ * shape moves or rotates.
+ */
+class PolyarcgonEdgeTree {
+    static final int MAX_EDGES_PER_LEAF = 4;
+    // boxes are padded a bit so rounding error never makes us skip a pair of edges that just touch
+    static final double BOX_PADDING = 0.000001;
+
+    final int edgeCount;
+
+    // indexed by point index, the edge from the previous point to this point
+    final double[] edgeMinX;
+    final double[] edgeMinY;
+    final double[] edgeMaxX;
+    final double[] edgeMaxY;
+
+    // the point index of each edge, ordered so each leaf's edges are next to each other
+    private final int[] edgesInTreeOrder;
+
+    // nodes are stored parent first, so children always have a larger index than their parent
+    private int nodeCount = 0;
+    private final int[] nodeFirstEdge;
+    private final int[] nodeEdgeCount; // 0 means not a leaf
+    private final int[] nodeLeftChild;
+    private final int[] nodeRightChild;
+    private final double[] nodeMinX;
+    private final double[] nodeMinY;
+    private final double[] nodeMaxX;
+    private final double[] nodeMaxY;
+
+    PolyarcgonEdgeTree(PolyarcgonGeometry geometry) {
+        edgeMinX = new double[geometry.pointCount];
+        edgeMinY = new double[geometry.pointCount];
+        edgeMaxX = new double[geometry.pointCount];
+        edgeMaxY = new double[geometry.pointCount];
+
+        int count = 0;
+        for (int i = 0; i < geometry.pointCount; i++) {
+            if (geometry.edgeKinds[i] != PolyarcgonGeometry.NO_EDGE) {
+                count++;
+            }
+        }
+        edgeCount = count;
+        edgesInTreeOrder = new int[edgeCount];
+        count = 0;
+        for (int i = 0; i < geometry.pointCount; i++) {
+            if (geometry.edgeKinds[i] != PolyarcgonGeometry.NO_EDGE) {
+                edgesInTreeOrder[count++] = i;
+            }
+        }
+
+        int maxNodes = Math.max(1, 2 * edgeCount);
+        nodeFirstEdge = new int[maxNodes];
+        nodeEdgeCount = new int[maxNodes];
+        nodeLeftChild = new int[maxNodes];
+        nodeRightChild = new int[maxNodes];
+        nodeMinX = new double[maxNodes];
+        nodeMinY = new double[maxNodes];
+        nodeMaxX = new double[maxNodes];
+        nodeMaxY = new double[maxNodes];
+
+        updateEdgeBoxes(geometry);
+        if (edgeCount > 0) {
+            // the tree is only built once, so it's fine to use objects here
+            Integer[] edgeOrder = new Integer[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                edgeOrder[i] = edgesInTreeOrder[i];
+            }
+            buildNode(edgeOrder, 0, edgeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                edgesInTreeOrder[i] = edgeOrder[i];
+            }
+        }
+        refit(geometry);
+    }
+
+    /**
+     * A tree with the same structure as treeWithSameEdges but its own boxes,
+     * e.g. for the same shape at another rotation (see PolyarcgonPoseCache)
+     */
+    PolyarcgonEdgeTree(PolyarcgonEdgeTree treeWithSameEdges) {
+        edgeCount = treeWithSameEdges.edgeCount;
+        edgeMinX = treeWithSameEdges.edgeMinX.clone();
+        edgeMinY = treeWithSameEdges.edgeMinY.clone();
+        edgeMaxX = treeWithSameEdges.edgeMaxX.clone();
+        edgeMaxY = treeWithSameEdges.edgeMaxY.clone();
+        // the structure never changes after it's built, so it can be shared
+        edgesInTreeOrder = treeWithSameEdges.edgesInTreeOrder;
+        nodeCount = treeWithSameEdges.nodeCount;
+        nodeFirstEdge = treeWithSameEdges.nodeFirstEdge;
+        nodeEdgeCount = treeWithSameEdges.nodeEdgeCount;
+        nodeLeftChild = treeWithSameEdges.nodeLeftChild;
+        nodeRightChild = treeWithSameEdges.nodeRightChild;
+        nodeMinX = treeWithSameEdges.nodeMinX.clone();
+        nodeMinY = treeWithSameEdges.nodeMinY.clone();
+        nodeMaxX = treeWithSameEdges.nodeMaxX.clone();
+        nodeMaxY = treeWithSameEdges.nodeMaxY.clone();
+    }
+
+    private int buildNode(Integer[] edgeOrder, int from, int to) {
+        int node = nodeCount++;
+        nodeFirstEdge[node] = from;
+        if (to - from <= MAX_EDGES_PER_LEAF) {
+            nodeEdgeCount[node] = to - from;
+            return node;
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            int edge = edgeOrder[i];
+            minX = Math.min(minX, edgeMinX[edge] + edgeMaxX[edge]);
+            minY = Math.min(minY, edgeMinY[edge] + edgeMaxY[edge]);
+            maxX = Math.max(maxX, edgeMinX[edge] + edgeMaxX[edge]);
+            maxY = Math.max(maxY, edgeMinY[edge] + edgeMaxY[edge]);
+        }
+        // split at the median along the longer side
+        Comparator<Integer> byCenter;
+        if (maxX - minX >= maxY - minY) {
+            byCenter = Comparator.comparingDouble(edge -> edgeMinX[edge] + edgeMaxX[edge]);
+        } else {
+            byCenter = Comparator.comparingDouble(edge -> edgeMinY[edge] + edgeMaxY[edge]);
+        }
+        Arrays.sort(edgeOrder, from, to, byCenter);
+        int middle = (from + to) / 2;
+        nodeEdgeCount[node] = 0;
+        nodeLeftChild[node] = buildNode(edgeOrder, from, middle);
+        nodeRightChild[node] = buildNode(edgeOrder, middle, to);
+        return node;
+    }
+
+    /**
+     * Recalculates every box after the shape moved. The points need to be up to date already.
+     */
+    void refit(PolyarcgonGeometry geometry) {
+        updateEdgeBoxes(geometry);
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (nodeEdgeCount[node] > 0) {
+                double minX = Double.POSITIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                for (int i = nodeFirstEdge[node]; i < nodeFirstEdge[node] + nodeEdgeCount[node]; i++) {
+                    int edge = edgesInTreeOrder[i];
+                    minX = Math.min(minX, edgeMinX[edge]);
+                    minY = Math.min(minY, edgeMinY[edge]);
+                    maxX = Math.max(maxX, edgeMaxX[edge]);
+                    maxY = Math.max(maxY, edgeMaxY[edge]);
+                }
+                nodeMinX[node] = minX;
+                nodeMinY[node] = minY;
+                nodeMaxX[node] = maxX;
+                nodeMaxY[node] = maxY;
+            } else {
+                int left = nodeLeftChild[node];
+                int right = nodeRightChild[node];
+                nodeMinX[node] = Math.min(nodeMinX[left], nodeMinX[right]);
+                nodeMinY[node] = Math.min(nodeMinY[left], nodeMinY[right]);
+                nodeMaxX[node] = Math.max(nodeMaxX[left], nodeMaxX[right]);
+                nodeMaxY[node] = Math.max(nodeMaxY[left], nodeMaxY[right]);
+            }
+        }
+    }
+
+    /**
+     * Same as refit() when the shape has only moved, not rotated, which just moves every box.
+     */
+    void translate(double xChange, double yChange) {
+        for (int i = 0; i < edgeMinX.length; i++) {
+            edgeMinX[i] += xChange;
+            edgeMinY[i] += yChange;
+            edgeMaxX[i] += xChange;
+            edgeMaxY[i] += yChange;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            nodeMinX[node] += xChange;
+            nodeMinY[node] += yChange;
+            nodeMaxX[node] += xChange;
+            nodeMaxY[node] += yChange;
+        }
+    }
+
+    /**
+     * Same as refit() when treeWithSameEdges (made with the copy constructor) already has the boxes for where the shape is now
+     */
+    void copyBoxesFrom(PolyarcgonEdgeTree treeWithSameEdges) {
+        System.arraycopy(treeWithSameEdges.edgeMinX, 0, edgeMinX, 0, edgeMinX.length);
+        System.arraycopy(treeWithSameEdges.edgeMinY, 0, edgeMinY, 0, edgeMinY.length);
+        System.arraycopy(treeWithSameEdges.edgeMaxX, 0, edgeMaxX, 0, edgeMaxX.length);
+        System.arraycopy(treeWithSameEdges.edgeMaxY, 0, edgeMaxY, 0, edgeMaxY.length);
+        System.arraycopy(treeWithSameEdges.nodeMinX, 0, nodeMinX, 0, nodeCount);
+        System.arraycopy(treeWithSameEdges.nodeMinY, 0, nodeMinY, 0, nodeCount);
+        System.arraycopy(treeWithSameEdges.nodeMaxX, 0, nodeMaxX, 0, nodeCount);
+        System.arraycopy(treeWithSameEdges.nodeMaxY, 0, nodeMaxY, 0, nodeCount);
+    }
+
+    private void updateEdgeBoxes(PolyarcgonGeometry geometry) {
+        int lastPoint = geometry.pointCount - 1;
+        for (int i = 0; i < geometry.pointCount; i++) {
+            if (geometry.edgeKinds[i] != PolyarcgonGeometry.NO_EDGE) {
+                double minX = Math.min(geometry.xs[lastPoint], geometry.xs[i]);
+                double minY = Math.min(geometry.ys[lastPoint], geometry.ys[i]);
+                double maxX = Math.max(geometry.xs[lastPoint], geometry.xs[i]);
+                double maxY = Math.max(geometry.ys[lastPoint], geometry.ys[i]);
+                if (geometry.edgeKinds[i] == PolyarcgonGeometry.ARC_EDGE) {
+                    double arcCenterX = geometry.arcCenterXs[i];
+                    double arcCenterY = geometry.arcCenterYs[i];
+                    double radiusOfCurvature = geometry.radiiOfCurvature[i];
+                    // the arc sticks out past its end points wherever it passes straight right, up, left or down from the center
+                    if (arcPassesAngle(geometry, i, 0)) {
+                        maxX = Math.max(maxX, arcCenterX + radiusOfCurvature);
+                    }
+                    if (arcPassesAngle(geometry, i, Math.PI / 2)) {
+                        maxY = Math.max(maxY, arcCenterY + radiusOfCurvature);
+                    }
+                    if (arcPassesAngle(geometry, i, Math.PI)) {
+                        minX = Math.min(minX, arcCenterX - radiusOfCurvature);
+                    }
+                    if (arcPassesAngle(geometry, i, Math.PI * 3 / 2)) {
+                        minY = Math.min(minY, arcCenterY - radiusOfCurvature);
+                    }
+                }
+                if (Double.isNaN(minX) || Double.isNaN(minY) || Double.isNaN(maxX) || Double.isNaN(maxY)) {
+                    // shouldn't happen, but if it does then this edge can't be ruled out
+                    minX = Double.NEGATIVE_INFINITY;
+                    minY = Double.NEGATIVE_INFINITY;
+                    maxX = Double.POSITIVE_INFINITY;
+                    maxY = Double.POSITIVE_INFINITY;
+                }
+                edgeMinX[i] = minX - BOX_PADDING;
+                edgeMinY[i] = minY - BOX_PADDING;
+                edgeMaxX[i] = maxX + BOX_PADDING;
+                edgeMaxY[i] = maxY + BOX_PADDING;
+            }
+            lastPoint = i;
+        }
+    }
+
+    /**
+     * Whether any edge gets within distance of (x, y), see PolyarcgonGeometry.edgeComesWithinDistance.
+     */
+    boolean someEdgeComesWithinDistance(PolyarcgonGeometry geometry, double x, double y, double distance) {
+        return nodeCount > 0 && someEdgeComesWithinDistance(geometry, 0, x, y, distance);
+    }
+
+    private boolean someEdgeComesWithinDistance(PolyarcgonGeometry geometry, int node, double x, double y, double distance) {
+        if (nodeMinX[node] > x + distance || nodeMaxX[node] < x - distance || nodeMinY[node] > y + distance || nodeMaxY[node] < y - distance) {
+            return false;
+        }
+        if (nodeEdgeCount[node] > 0) {
+            for (int i = nodeFirstEdge[node]; i < nodeFirstEdge[node] + nodeEdgeCount[node]; i++) {
+                int edge = edgesInTreeOrder[i];
+                if (edgeMinX[edge] <= x + distance && edgeMaxX[edge] >= x - distance && edgeMinY[edge] <= y + distance && edgeMaxY[edge] >= y - distance
+                        && geometry.edgeComesWithinDistance(edge, x, y, distance)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        // recursion rather than a stack so nothing needs to be allocated, the tree is only about log2(edges) deep
+        return someEdgeComesWithinDistance(geometry, nodeLeftChild[node], x, y, distance) || someEdgeComesWithinDistance(geometry, nodeRightChild[node], x, y, distance);
+    }
+
+    /**
+     * How far (x, y) is from the closest edge, see PolyarcgonGeometry.edgeDistance, or maxDistance if nothing is closer than that.
+     */
+    double distanceToNearestEdge(PolyarcgonGeometry geometry, double x, double y, double maxDistance) {
+        return nodeCount > 0 ? distanceToNearestEdge(geometry, 0, x, y, maxDistance) : maxDistance;
+    }
+
+    private double distanceToNearestEdge(PolyarcgonGeometry geometry, int node, double x, double y, double maxDistance) {
+        if (boxDistance(nodeMinX[node], nodeMinY[node], nodeMaxX[node], nodeMaxY[node], x, y) >= maxDistance) {
+            return maxDistance;
+        }
+        if (nodeEdgeCount[node] > 0) {
+            for (int i = nodeFirstEdge[node]; i < nodeFirstEdge[node] + nodeEdgeCount[node]; i++) {
+                int edge = edgesInTreeOrder[i];
+                if (boxDistance(edgeMinX[edge], edgeMinY[edge], edgeMaxX[edge], edgeMaxY[edge], x, y) < maxDistance) {
+                    maxDistance = Math.min(maxDistance, geometry.edgeDistance(edge, x, y));
+                }
+            }
+            return maxDistance;
+        }
+        // whatever the left child finds makes the right child quicker to rule out
+        maxDistance = distanceToNearestEdge(geometry, nodeLeftChild[node], x, y, maxDistance);
+        return distanceToNearestEdge(geometry, nodeRightChild[node], x, y, maxDistance);
+    }
+
+    private static double boxDistance(double minX, double minY, double maxX, double maxY, double x, double y) {
+        double xDistance = Math.max(0, Math.max(minX - x, x - maxX));
+        double yDistance = Math.max(0, Math.max(minY - y, y - maxY));
+        return Math.sqrt(xDistance * xDistance + yDistance * yDistance);
+    }
+
+    /**
+     * Puts every edge whose box touches the given box into edges (which needs room for every edge), in tree order.
+     *
+     * @return how many edges were found
+     */
+    int findEdgesTouchingBox(double minX, double minY, double maxX, double maxY, int[] edges) {
+        return nodeCount > 0 ? findEdgesTouchingBox(0, minX, minY, maxX, maxY, edges, 0) : 0;
+    }
+
+    private int findEdgesTouchingBox(int node, double minX, double minY, double maxX, double maxY, int[] edges, int edgesFound) {
+        if (nodeMinX[node] > maxX || nodeMaxX[node] < minX || nodeMinY[node] > maxY || nodeMaxY[node] < minY) {
+            return edgesFound;
+        }
+        if (nodeEdgeCount[node] > 0) {
+            for (int i = nodeFirstEdge[node]; i < nodeFirstEdge[node] + nodeEdgeCount[node]; i++) {
+                int edge = edgesInTreeOrder[i];
+                if (edgeMinX[edge] <= maxX && edgeMaxX[edge] >= minX && edgeMinY[edge] <= maxY && edgeMaxY[edge] >= minY) {
+                    edges[edgesFound++] = edge;
+                }
+            }
+            return edgesFound;
+        }
+        edgesFound = findEdgesTouchingBox(nodeLeftChild[node], minX, minY, maxX, maxY, edges, edgesFound);
+        return findEdgesTouchingBox(nodeRightChild[node], minX, minY, maxX, maxY, edges, edgesFound);
+    }
+
+    /**
+     * How many times the shape winds around (x, y), e.g. 1 inside a normal shape and 0 outside it,
+     * by adding up the edges crossing a ray from (x, y), see PolyarcgonGeometry.signedRayCrossings.
+     * Only makes sense if (x, y) isn't right on an edge.
+     */
+    int windingNumberAround(PolyarcgonGeometry geometry, double x, double y) {
+        return nodeCount > 0 ? windingNumberAround(geometry, 0, x, y) : 0;
+    }
+
+    private int windingNumberAround(PolyarcgonGeometry geometry, int node, double x, double y) {
+        if (nodeMaxX[node] < x || nodeMinY[node] > y || nodeMaxY[node] < y) {
+            return 0;
+        }
+        if (nodeEdgeCount[node] > 0) {
+            int windingNumber = 0;
+            for (int i = nodeFirstEdge[node]; i < nodeFirstEdge[node] + nodeEdgeCount[node]; i++) {
+                int edge = edgesInTreeOrder[i];
+                if (edgeMaxX[edge] >= x && edgeMinY[edge] <= y && edgeMaxY[edge] >= y) {
+                    windingNumber += geometry.signedRayCrossings(edge, x, y);
+                }
+            }
+            return windingNumber;
+        }
+        return windingNumberAround(geometry, nodeLeftChild[node], x, y) + windingNumberAround(geometry, nodeRightChild[node], x, y);
+    }
+
+    private static boolean arcPassesAngle(PolyarcgonGeometry geometry, int arc, double angle) {
+        double arcAngleChange = geometry.arcAngleChanges[arc];
+        if (arcAngleChange > 0) {
+            return (angle - geometry.startAngles[arc] + 10 * Math.PI) % (2 * Math.PI) <= arcAngleChange;
+        } else {
+            return (angle - geometry.startAngles[arc] - 10 * Math.PI) % (2 * Math.PI) >= arcAngleChange;
+        }
+    }
+
+    /**
+     * Whether the reach of an edge (the edge plus its ray) might touch the given box.
+     */
+    static boolean edgeReachMightTouchBox(PolyarcgonGeometry geometry, PolyarcgonEdgeTree edgeTree, int edge, double minX, double minY, double maxX, double maxY) {
+        if (geometry.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+            int lastPoint = geometry.previousPoint(edge);
+            return rayMightTouchBox(geometry.xs[lastPoint], geometry.ys[lastPoint], geometry.pointToPointXs[edge], geometry.pointToPointYs[edge], minX, minY, maxX, maxY);
+        } else {
+            if (edgeTree.edgeMinX[edge] <= maxX && edgeTree.edgeMaxX[edge] >= minX && edgeTree.edgeMinY[edge] <= maxY && edgeTree.edgeMaxY[edge] >= minY) {
+                return true;
+            }
+            return rayMightTouchBox(geometry.xs[edge], geometry.ys[edge], geometry.xs[edge] - geometry.arcCenterXs[edge], geometry.ys[edge] - geometry.arcCenterYs[edge], minX, minY, maxX, maxY);
+        }
+    }
+
+    private static boolean rayMightTouchBox(double startX, double startY, double directionX, double directionY, double minX, double minY, double maxX, double maxY) {
+        if ((directionX == 0 && directionY == 0) || Double.isNaN(directionX) || Double.isNaN(directionY) || Double.isNaN(startX) || Double.isNaN(startY)) {
+            // a weird degenerate edge, don't try to rule it out
+            return true;
+        }
+        // the usual "slab" method, find the part of the ray between the left and right of the box, then top and bottom
+        double enterDistance = 0;
+        double exitDistance = Double.POSITIVE_INFINITY;
+        if (directionX == 0) {
+            if (startX < minX || startX > maxX) {
+                return false;
+            }
+        } else {
+            double distance1 = (minX - startX) / directionX;
+            double distance2 = (maxX - startX) / directionX;
+            enterDistance = Math.max(enterDistance, Math.min(distance1, distance2));
+            exitDistance = Math.min(exitDistance, Math.max(distance1, distance2));
+        }
+        if (directionY == 0) {
+            if (startY < minY || startY > maxY) {
+                return false;
+            }
+        } else {
+            double distance1 = (minY - startY) / directionY;
+            double distance2 = (maxY - startY) / directionY;
+            enterDistance = Math.max(enterDistance, Math.min(distance1, distance2));
+            exitDistance = Math.min(exitDistance, Math.max(distance1, distance2));
+        }
+        return enterDistance <= exitDistance;
+    }
+
+    /**
+     * Reusable memory for finding edge pairs, one per thread so nothing is allocated each collision.
+     */
+    static class EdgePairSearch {
+        private int[] nodeStack = new int[64];
+        int[] edgePairs = new int[64];
+        int edgePairCount = 0;
+
+        /**
+         * Finds every pair of edges which might add something to the overlap, as
+         * firstEdge * otherGeometry.pointCount + otherEdge, in increasing order (the same order as checking every pair).
+         *
+         * @param margin every box is grown by this much, so the pairs stay valid
+         *               while the shapes move a bit, see PolyarcgonEdgePairCache
+         */
+        void findEdgePairs(PolyarcgonGeometry geometry, PolyarcgonEdgeTree edgeTree, PolyarcgonGeometry otherGeometry, PolyarcgonEdgeTree otherEdgeTree, double margin) {
+            edgePairCount = 0;
+            if (edgeTree.nodeCount == 0 || otherEdgeTree.nodeCount == 0) {
+                return;
+            }
+            // pairs where the reach of an edge in this shape touches an edge in the other shape
+            for (int i = 0; i < edgeTree.edgeCount; i++) {
+                int edge = edgeTree.edgesInTreeOrder[i];
+                addEdgesReachedBy(geometry, edgeTree, edge, otherEdgeTree, null, 0, 0, 0, 0, false, otherGeometry.pointCount, margin);
+            }
+            // pairs where the reach of an edge in the other shape touches an edge in this shape,
+            // minus the ones already found
+            for (int i = 0; i < otherEdgeTree.edgeCount; i++) {
+                int otherEdge = otherEdgeTree.edgesInTreeOrder[i];
+                if (edgeReachMightTouchBox(otherGeometry, otherEdgeTree, otherEdge, edgeTree.nodeMinX[0] - margin, edgeTree.nodeMinY[0] - margin, edgeTree.nodeMaxX[0] + margin, edgeTree.nodeMaxY[0] + margin)) {
+                    addEdgesReachedBy(otherGeometry, otherEdgeTree, otherEdge, edgeTree, geometry, otherEdgeTree.edgeMinX[otherEdge] - margin, otherEdgeTree.edgeMinY[otherEdge] - margin, otherEdgeTree.edgeMaxX[otherEdge] + margin, otherEdgeTree.edgeMaxY[otherEdge] + margin, true, otherGeometry.pointCount, margin);
+                }
+            }
+            sortEdgePairs();
+        }
+
+        private void addEdgesReachedBy(PolyarcgonGeometry geometry, PolyarcgonEdgeTree edgeTree, int edge, PolyarcgonEdgeTree searchedTree, PolyarcgonGeometry searchedGeometry, double edgeMinX, double edgeMinY, double edgeMaxX, double edgeMaxY, boolean searchingFirstShape, int otherPointsLength, double margin) {
+            int stackSize = 0;
+            nodeStack[stackSize++] = 0;
+            while (stackSize > 0) {
+                int node = nodeStack[--stackSize];
+                if (!edgeReachMightTouchBox(geometry, edgeTree, edge, searchedTree.nodeMinX[node] - margin, searchedTree.nodeMinY[node] - margin, searchedTree.nodeMaxX[node] + margin, searchedTree.nodeMaxY[node] + margin)) {
+                    continue;
+                }
+                if (searchedTree.nodeEdgeCount[node] > 0) {
+                    for (int i = searchedTree.nodeFirstEdge[node]; i < searchedTree.nodeFirstEdge[node] + searchedTree.nodeEdgeCount[node]; i++) {
+                        int searchedEdge = searchedTree.edgesInTreeOrder[i];
+                        if (!edgeReachMightTouchBox(geometry, edgeTree, edge, searchedTree.edgeMinX[searchedEdge] - margin, searchedTree.edgeMinY[searchedEdge] - margin, searchedTree.edgeMaxX[searchedEdge] + margin, searchedTree.edgeMaxY[searchedEdge] + margin)) {
+                            continue;
+                        }
+                        if (searchingFirstShape) {
+                            // skip it if it was already found in the first search
+                            if (edgeReachMightTouchBox(searchedGeometry, searchedTree, searchedEdge, edgeMinX, edgeMinY, edgeMaxX, edgeMaxY)) {
+                                continue;
+                            }
+                            addEdgePair(searchedEdge * otherPointsLength + edge);
+                        } else {
+                            addEdgePair(edge * otherPointsLength + searchedEdge);
+                        }
+                    }
+                } else {
+                    if (stackSize + 2 > nodeStack.length) {
+                        nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+                    }
+                    nodeStack[stackSize++] = searchedTree.nodeRightChild[node];
+                    nodeStack[stackSize++] = searchedTree.nodeLeftChild[node];
+                }
+            }
+        }
+
+        private void addEdgePair(int edgePair) {
+            if (edgePairCount == edgePairs.length) {
+                edgePairs = Arrays.copyOf(edgePairs, edgePairs.length * 2);
+            }
+            edgePairs[edgePairCount++] = edgePair;
+        }
+
+        private void sortEdgePairs() {
+            // heapsort, since it sorts in place without allocating anything
+            for (int i = edgePairCount / 2 - 1; i >= 0; i--) {
+                siftDown(i, edgePairCount);
+            }
+            for (int end = edgePairCount - 1; end > 0; end--) {
+                int largest = edgePairs[0];
+                edgePairs[0] = edgePairs[end];
+                edgePairs[end] = largest;
+                siftDown(0, end);
+            }
+        }
+
+        private void siftDown(int i, int size) {
+            int value = edgePairs[i];
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && edgePairs[child + 1] > edgePairs[child]) {
+                    child++;
+                }
+                if (edgePairs[child] <= value) {
+                    break;
+                }
+                edgePairs[i] = edgePairs[child];
+                i = child;
+            }
+            edgePairs[i] = value;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * Where the points and edges of a GamePolyarcgon are right now, packed into parallel arrays
+ * (a "structure of arrays") so the collision loops read plain doubles instead of going through
+ * a PolyarcgonPointCache object and an instanceof check for every edge.
+ *
+ * Everything is indexed by point index, and edge i is the line or arc from point i - 1 to point i.
+ * Only the arrays for the kind of edge are meaningful, e.g. arcCenterXs of a straight edge is just 0.
+ *
+ * The PolyarcgonPointCache objects still exist for anything that wants them (see GamePolyarcgon.pointsCache),
+ * they are filled in from these arrays when asked for.
+ */
+class PolyarcgonGeometry {
+    static final byte NO_EDGE = 0; // a "move to" point, there's no line or arc leading to it
+    static final byte STRAIGHT_EDGE = 1;
+    static final byte ARC_EDGE = 2;
+
+    final int pointCount;
+    final byte[] edgeKinds;
+    private final PolyarcgonPoint[] templatePoints;
+    // copied out of templatePoints, see templatePointsMoved()
+    private final double[] templateXs;
+    private final double[] templateYs;
+    private final boolean[] pointIsArced; // unlike edgeKinds, also true for "move to" points made with an arc
+    // the objects handed to OverlapCalculators along with each line or arc
+    final GamePolyarcgon.PolyarcgonPointCache[] pointCaches;
+
+    final double[] xs;
+    final double[] ys;
+
+    // straight edges
+    final double[] pointToPointXs;
+    final double[] pointToPointYs;
+
+    // arc edges
+    final double[] arcCenterXs;
+    final double[] arcCenterYs;
+    final double[] radiiOfCurvature;
+    final double[] startAngles;
+    final double[] endAngles;
+    final double[] arcAngleChanges;
+    // worked out the first time and then reused, same as PolyarcgonArcedPointCache
+    private final double[] signedDistancesBetweenArcCenterAndPointToPointCenterRelativeToPointToPointDistance;
+
+    // if the shape is just one circle (like the ball), an arc edge to get the circle's center and radius from, otherwise -1
+    final int circleEdge;
+    // 1 if the circle is a normal shape, -1 if it's a hole on its own
+    final int circleWindingFactor;
+
+    PolyarcgonGeometry(PolyarcgonPoint[] templatePoints, GamePolyarcgon.PolyarcgonPointCache[] pointCaches) {
+        this.templatePoints = templatePoints;
+        this.pointCaches = pointCaches;
+        pointCount = templatePoints.length;
+        templateXs = new double[pointCount];
+        templateYs = new double[pointCount];
+        edgeKinds = new byte[pointCount];
+        pointIsArced = new boolean[pointCount];
+        xs = new double[pointCount];
+        ys = new double[pointCount];
+        pointToPointXs = new double[pointCount];
+        pointToPointYs = new double[pointCount];
+        arcCenterXs = new double[pointCount];
+        arcCenterYs = new double[pointCount];
+        radiiOfCurvature = new double[pointCount];
+        startAngles = new double[pointCount];
+        endAngles = new double[pointCount];
+        arcAngleChanges = new double[pointCount];
+        signedDistancesBetweenArcCenterAndPointToPointCenterRelativeToPointToPointDistance = new double[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            pointIsArced[i] = pointCaches[i] instanceof GamePolyarcgon.PolyarcgonArcedPointCache;
+            if (templatePoints[i].isMoveToWithoutLineEtc) {
+                edgeKinds[i] = NO_EDGE;
+            } else if (pointIsArced[i]) {
+                edgeKinds[i] = ARC_EDGE;
+            } else {
+                edgeKinds[i] = STRAIGHT_EDGE;
+            }
+            arcAngleChanges[i] = templatePoints[i].arcAngleChange;
+        }
+        circleEdge = findCircleEdge();
+        circleWindingFactor = circleEdge >= 0 && arcAngleChanges[circleEdge] < 0 ? -1 : 1;
+        templatePointsMoved();
+    }
+
+    /**
+     * Checks if the shape is a single circle, e.g. made with GamePolyarcgonBuilder.addCircleContour.
+     * That means one contour of arcs which all have the same center and radius, and which go around exactly once.
+     */
+    private int findCircleEdge() {
+        int moveToPoints = 0;
+        int firstArc = -1;
+        double totalAngleChange = 0;
+        double[] firstArcCenterAndSignedRadius = null;
+        int lastPoint = pointCount - 1;
+        for (int i = 0; i < pointCount; i++) {
+            if (edgeKinds[i] == NO_EDGE) {
+                moveToPoints++;
+            } else if (edgeKinds[i] == STRAIGHT_EDGE) {
+                return -1;
+            } else {
+                // only done once when the shape is built, so the allocation is fine
+                double[] arcCenterAndSignedRadius = GamePolyarcgon.getArcCenterAndSignedRadius(templatePoints[lastPoint].x, templatePoints[lastPoint].y, templatePoints[i].x, templatePoints[i].y, arcAngleChanges[i]);
+                if (firstArc < 0) {
+                    firstArc = i;
+                    firstArcCenterAndSignedRadius = arcCenterAndSignedRadius;
+                } else {
+                    double tolerance = 0.000000001 * Math.abs(firstArcCenterAndSignedRadius[2]);
+                    if (Math.abs(arcCenterAndSignedRadius[0] - firstArcCenterAndSignedRadius[0]) > tolerance
+                            || Math.abs(arcCenterAndSignedRadius[1] - firstArcCenterAndSignedRadius[1]) > tolerance
+                            || Math.abs(arcCenterAndSignedRadius[2] - firstArcCenterAndSignedRadius[2]) > tolerance) {
+                        return -1;
+                    }
+                }
+                totalAngleChange += arcAngleChanges[i];
+            }
+            lastPoint = i;
+        }
+        if (firstArc < 0 || moveToPoints > 1 || Math.abs(Math.abs(totalAngleChange) - 2 * Math.PI) > 0.000000001) {
+            return -1;
+        }
+        return firstArc;
+    }
+
+    /**
+     * Needs to be called if the template points are changed, e.g. to put the center of mass at 0, 0.
+     */
+    void templatePointsMoved() {
+        for (int i = 0; i < pointCount; i++) {
+            templateXs[i] = templatePoints[i].x;
+            templateYs[i] = templatePoints[i].y;
+        }
+    }
+
+    /**
+     * Works out where the points are for the shape's position and rotation, but not the edges, see updateEdges().
+     */
+    void updatePointPositions(double x, double y, double rotation) {
+        double cosRotation = Math.cos(rotation);
+        double sinRotation = Math.sin(rotation);
+        for (int i = 0; i < pointCount; i++) {
+            xs[i] = templateXs[i] * cosRotation - templateYs[i] * sinRotation + x;
+            ys[i] = templateYs[i] * cosRotation + templateXs[i] * sinRotation + y;
+        }
+    }
+
+    /**
+     * Same as updatePointPositions() when the shape has only moved, not rotated, but without any trig
+     */
+    void translatePointPositions(double xChange, double yChange) {
+        for (int i = 0; i < pointCount; i++) {
+            xs[i] += xChange;
+            ys[i] += yChange;
+        }
+    }
+
+    /**
+     * Works out the line segments and arcs from the points, so the points need to be up to date.
+     */
+    void updateEdges() {
+        int lastPoint = pointCount - 1;
+        for (int i = 0; i < pointCount; i++) {
+            if (pointIsArced[i]) {
+                updateArc(lastPoint, i);
+            } else {
+                pointToPointXs[i] = xs[i] - xs[lastPoint];
+                pointToPointYs[i] = ys[i] - ys[lastPoint];
+            }
+            lastPoint = i;
+        }
+    }
+
+    /**
+     * Same as updateEdges() when the shape has only moved, not rotated.
+     * Only the arc centers move, the line segments' directions, the radii and the angles all stay the same.
+     */
+    void translateEdges(double xChange, double yChange) {
+        for (int i = 0; i < pointCount; i++) {
+            if (pointIsArced[i]) {
+                arcCenterXs[i] += xChange;
+                arcCenterYs[i] += yChange;
+            }
+        }
+    }
+
+    private void updateArc(int lastPoint, int i) {
+        double lastPointX = xs[lastPoint];
+        double lastPointY = ys[lastPoint];
+        double x = xs[i];
+        double y = ys[i];
+        if (radiiOfCurvature[i] == 0 || signedDistancesBetweenArcCenterAndPointToPointCenterRelativeToPointToPointDistance[i] == 0) {
+            double arcPointToPointX = x - lastPointX;
+            double arcPointToPointY = y - lastPointY;
+            double arcPointToPointDistance = Math.sqrt(arcPointToPointX * arcPointToPointX + arcPointToPointY * arcPointToPointY);
+            double arcSignedRadiusOfCurvature = arcPointToPointDistance / (2.0 * Math.sin(arcAngleChanges[i] / 2.0));
+            double arcSignedDistanceBetweenArcCenterAndStraightEdge = arcSignedRadiusOfCurvature * Math.cos(arcAngleChanges[i] / 2.0);
+            signedDistancesBetweenArcCenterAndPointToPointCenterRelativeToPointToPointDistance[i] = arcSignedDistanceBetweenArcCenterAndStraightEdge / arcPointToPointDistance;
+            radiiOfCurvature[i] = Math.abs(arcSignedRadiusOfCurvature);
+        }
+        double signedDistance = signedDistancesBetweenArcCenterAndPointToPointCenterRelativeToPointToPointDistance[i];
+        arcCenterXs[i] = (lastPointX + x) / 2.0 + (-(y - lastPointY)) * signedDistance;
+        arcCenterYs[i] = (lastPointY + y) / 2.0 + (x - lastPointX) * signedDistance;
+        startAngles[i] = Math.atan2(lastPointY - arcCenterYs[i], lastPointX - arcCenterXs[i]);
+        endAngles[i] = startAngles[i] + arcAngleChanges[i];
+    }
+
+    /**
+     * Same as updatePointPositions() and updateEdges() when geometryOfSameShape already has the shape where it is now,
+     * e.g. from PolyarcgonPoseCache
+     */
+    void copyFrom(PolyarcgonGeometry geometryOfSameShape) {
+        System.arraycopy(geometryOfSameShape.xs, 0, xs, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.ys, 0, ys, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.pointToPointXs, 0, pointToPointXs, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.pointToPointYs, 0, pointToPointYs, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.arcCenterXs, 0, arcCenterXs, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.arcCenterYs, 0, arcCenterYs, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.radiiOfCurvature, 0, radiiOfCurvature, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.startAngles, 0, startAngles, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.endAngles, 0, endAngles, 0, pointCount);
+        System.arraycopy(geometryOfSameShape.signedDistancesBetweenArcCenterAndPointToPointCenterRelativeToPointToPointDistance, 0, signedDistancesBetweenArcCenterAndPointToPointCenterRelativeToPointToPointDistance, 0, pointCount);
+    }
+
+    /**
+     * Copies everything into the PolyarcgonPointCache objects, for code that uses them instead of the arrays.
+     */
+    void copyToPointCaches() {
+        for (int i = 0; i < pointCount; i++) {
+            if (pointIsArced[i]) {
+                GamePolyarcgon.PolyarcgonArcedPointCache arc = (GamePolyarcgon.PolyarcgonArcedPointCache) pointCaches[i];
+                arc.x = xs[i];
+                arc.y = ys[i];
+                arc.radiusOfCurvature = radiiOfCurvature[i];
+                arc.arcCenterX = arcCenterXs[i];
+                arc.arcCenterY = arcCenterYs[i];
+                arc.startAngle = startAngles[i];
+                arc.endAngle = endAngles[i];
+            } else {
+                GamePolyarcgon.PolyarcgonStraightPointCache straightPoint = (GamePolyarcgon.PolyarcgonStraightPointCache) pointCaches[i];
+                straightPoint.x = xs[i];
+                straightPoint.y = ys[i];
+                straightPoint.pointToPointX = pointToPointXs[i];
+                straightPoint.pointToPointY = pointToPointYs[i];
+            }
+        }
+    }
+
+    int previousPoint(int point) {
+        return point == 0 ? pointCount - 1 : point - 1;
+    }
+
+    /**
+     * Whether the edge gets within distance of (x, y) anywhere.
+     */
+    boolean edgeComesWithinDistance(int edge, double x, double y, double distance) {
+        int lastPoint = previousPoint(edge);
+        if (edgeKinds[edge] == STRAIGHT_EDGE) {
+            double pointToPointDistanceSq = pointToPointXs[edge] * pointToPointXs[edge] + pointToPointYs[edge] * pointToPointYs[edge];
+            double fractionAlongEdge = 0;
+            if (pointToPointDistanceSq > 0) {
+                fractionAlongEdge = ((x - xs[lastPoint]) * pointToPointXs[edge] + (y - ys[lastPoint]) * pointToPointYs[edge]) / pointToPointDistanceSq;
+                fractionAlongEdge = Math.max(0, Math.min(1, fractionAlongEdge));
+            }
+            double closestX = xs[lastPoint] + fractionAlongEdge * pointToPointXs[edge];
+            double closestY = ys[lastPoint] + fractionAlongEdge * pointToPointYs[edge];
+            return (x - closestX) * (x - closestX) + (y - closestY) * (y - closestY) <= distance * distance;
+        } else if (edgeKinds[edge] == ARC_EDGE) {
+            if ((x - xs[lastPoint]) * (x - xs[lastPoint]) + (y - ys[lastPoint]) * (y - ys[lastPoint]) <= distance * distance
+                    || (x - xs[edge]) * (x - xs[edge]) + (y - ys[edge]) * (y - ys[edge]) <= distance * distance) {
+                return true;
+            }
+            // otherwise the closest point has to be in the middle of the arc, in line with the arc center
+            double distanceFromArcCenter = Math.hypot(x - arcCenterXs[edge], y - arcCenterYs[edge]);
+            return Math.abs(distanceFromArcCenter - radiiOfCurvature[edge]) <= distance
+                    && angleAlongArc(edge, Math.atan2(y - arcCenterYs[edge], x - arcCenterXs[edge])) <= Math.abs(arcAngleChanges[edge]);
+        }
+        return false;
+    }
+
+    /**
+     * How far (x, y) is from the closest point of the edge.
+     */
+    double edgeDistance(int edge, double x, double y) {
+        int lastPoint = previousPoint(edge);
+        if (edgeKinds[edge] == STRAIGHT_EDGE) {
+            double pointToPointDistanceSq = pointToPointXs[edge] * pointToPointXs[edge] + pointToPointYs[edge] * pointToPointYs[edge];
+            double fractionAlongEdge = 0;
+            if (pointToPointDistanceSq > 0) {
+                fractionAlongEdge = ((x - xs[lastPoint]) * pointToPointXs[edge] + (y - ys[lastPoint]) * pointToPointYs[edge]) / pointToPointDistanceSq;
+                fractionAlongEdge = Math.max(0, Math.min(1, fractionAlongEdge));
+            }
+            return Math.hypot(x - (xs[lastPoint] + fractionAlongEdge * pointToPointXs[edge]), y - (ys[lastPoint] + fractionAlongEdge * pointToPointYs[edge]));
+        } else if (edgeKinds[edge] == ARC_EDGE) {
+            double distance = Math.min(Math.hypot(x - xs[lastPoint], y - ys[lastPoint]), Math.hypot(x - xs[edge], y - ys[edge]));
+            if (angleAlongArc(edge, Math.atan2(y - arcCenterYs[edge], x - arcCenterXs[edge])) <= Math.abs(arcAngleChanges[edge])) {
+                // in line with the arc center, so the closest point might be in the middle of the arc
+                distance = Math.min(distance, Math.abs(Math.hypot(x - arcCenterXs[edge], y - arcCenterYs[edge]) - radiiOfCurvature[edge]));
+            }
+            return distance;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * How many times the edge crosses the ray going in the positive x direction from (x, y),
+     * counting +1 for crossing in the positive y direction and -1 for the negative y direction.
+     * Adding this up for every edge gives how many times the shape winds around (x, y).
+     *
+     * An edge "crosses" when it goes from y <= ray y to y > ray y or the other way round,
+     * so an end point exactly on the ray is counted once between the two edges sharing it.
+     */
+    int signedRayCrossings(int edge, double x, double y) {
+        int lastPoint = previousPoint(edge);
+        if (edgeKinds[edge] == STRAIGHT_EDGE) {
+            double startY = ys[lastPoint];
+            double endY = ys[edge];
+            if ((startY <= y) == (endY <= y)) {
+                return 0;
+            }
+            double crossingX = xs[lastPoint] + (y - startY) / (endY - startY) * pointToPointXs[edge];
+            if (crossingX <= x) {
+                return 0;
+            }
+            return endY > startY ? 1 : -1;
+        } else if (edgeKinds[edge] == ARC_EDGE) {
+            // split the arc at the top and bottom of its circle, so each piece only goes one way in y like a line segment
+            double arcAngleChangeSize = Math.abs(arcAngleChanges[edge]);
+            double angleToTop = angleAlongArc(edge, Math.PI / 2);
+            double angleToBottom = angleAlongArc(edge, -Math.PI / 2);
+            double firstSplit = Math.min(angleToTop, angleToBottom);
+            double secondSplit = Math.max(angleToTop, angleToBottom);
+
+            int crossings = 0;
+            double pieceStartAngle = 0;
+            double pieceStartY = ys[lastPoint];
+            for (int piece = 0; piece < 3; piece++) {
+                double pieceEndAngle = piece == 0 ? firstSplit : piece == 1 ? secondSplit : arcAngleChangeSize;
+                if (pieceEndAngle <= pieceStartAngle || pieceEndAngle > arcAngleChangeSize) {
+                    continue;
+                }
+                double pieceEndY;
+                if (pieceEndAngle == arcAngleChangeSize) {
+                    pieceEndY = ys[edge];
+                } else if (pieceEndAngle == angleToTop) {
+                    pieceEndY = arcCenterYs[edge] + radiiOfCurvature[edge];
+                } else {
+                    pieceEndY = arcCenterYs[edge] - radiiOfCurvature[edge];
+                }
+                if ((pieceStartY <= y) != (pieceEndY <= y)) {
+                    // which side of the arc center this piece is on
+                    double pieceMiddleAngle = startAngles[edge] + Math.signum(arcAngleChanges[edge]) * (pieceStartAngle + pieceEndAngle) / 2;
+                    double halfChord = Math.sqrt(Math.max(0, radiiOfCurvature[edge] * radiiOfCurvature[edge] - (y - arcCenterYs[edge]) * (y - arcCenterYs[edge])));
+                    double crossingX = arcCenterXs[edge] + (Math.cos(pieceMiddleAngle) >= 0 ? halfChord : -halfChord);
+                    if (crossingX > x) {
+                        crossings += pieceEndY > pieceStartY ? 1 : -1;
+                    }
+                }
+                pieceStartAngle = pieceEndAngle;
+                pieceStartY = pieceEndY;
+            }
+            return crossings;
+        }
+        return 0;
+    }
+
+    /**
+     * How far along the arc (as a positive angle from its start) the given direction from the arc center is,
+     * between 0 and 2 pi. The arc passes that direction if this is at most the size of its angle change.
+     */
+    private double angleAlongArc(int arc, double angle) {
+        double angleAlongArc = (angle - startAngles[arc]) % (2 * Math.PI);
+        if (arcAngleChanges[arc] < 0) {
+            angleAlongArc = -angleAlongArc;
+        }
+        return angleAlongArc < 0 ? angleAlongArc + 2 * Math.PI : angleAlongArc;
+    }
+}
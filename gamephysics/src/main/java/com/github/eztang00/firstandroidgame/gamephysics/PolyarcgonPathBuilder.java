@@ -0,0 +1,17 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * Receives the outline of a GamePolyarcgon from GamePolyarcgon.addContoursTo(),
+ * e.g. to turn it into an Android Path for drawing.
+ */
+public interface PolyarcgonPathBuilder {
+    void moveTo(double x, double y);
+
+    void lineTo(double x, double y);
+
+    /**
+     * Same as Android's Path.arcTo() without forceMoveTo, i.e. there's a line from the last point to the start of the arc,
+     * except the arc is given by its circle's center and radius, and the angles are in radians.
+     */
+    void arcTo(double centerX, double centerY, double radius, double startAngle, double angleChange);
+}
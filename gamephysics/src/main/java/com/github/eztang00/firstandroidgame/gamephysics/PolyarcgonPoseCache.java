@@ -0,0 +1,84 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * Remembers a GamePolyarcgon's geometry and edge tree boxes at each rotation it's been at,
+ * for shapes that keep coming back to the same rotations, like a spinning windmill (see GamePhysicsEngine.addKinematicShape).
+ * After one full turn, moving the shape is just copying arrays instead of working everything out again.
+ *
+ * Only rotations that are a whole number of ANGLE_STEPs are remembered (see roundToAngleStep()),
+ * anything else is worked out as usual. At most MAX_POSES are remembered, after that the oldest is replaced.
+ */
+class PolyarcgonPoseCache {
+    static final int ANGLE_STEPS_PER_REVOLUTION = 3600;
+    static final double ANGLE_STEP = 2 * Math.PI / ANGLE_STEPS_PER_REVOLUTION;
+    // a windmill with a few dozen points takes a few kilobytes per pose
+    static final int MAX_POSES = 1024;
+
+    private final PolyarcgonPoint[] templatePoints;
+    private final GamePolyarcgon.PolyarcgonPointCache[] pointCaches;
+    private final PolyarcgonEdgeTree edgeTreeWithSameEdges;
+
+    private final Pose[] posesByAngleStep = new Pose[ANGLE_STEPS_PER_REVOLUTION];
+    private final Pose[] poses = new Pose[MAX_POSES];
+    private int nextPoseToReplace = 0;
+
+    static class Pose {
+        private long angleStep;
+        // where the shape was when the pose was worked out, it's moved from there if the shape has moved since
+        double x;
+        double y;
+        final PolyarcgonGeometry geometry;
+        final PolyarcgonEdgeTree edgeTree;
+
+        private Pose(PolyarcgonGeometry geometry, PolyarcgonEdgeTree edgeTree) {
+            this.geometry = geometry;
+            this.edgeTree = edgeTree;
+        }
+    }
+
+    PolyarcgonPoseCache(PolyarcgonPoint[] templatePoints, GamePolyarcgon.PolyarcgonPointCache[] pointCaches, PolyarcgonEdgeTree edgeTreeWithSameEdges) {
+        this.templatePoints = templatePoints;
+        this.pointCaches = pointCaches;
+        this.edgeTreeWithSameEdges = edgeTreeWithSameEdges;
+    }
+
+    /**
+     * The nearest rotation that can be remembered
+     */
+    static double roundToAngleStep(double rotation) {
+        return Math.rint(rotation / ANGLE_STEP) * ANGLE_STEP;
+    }
+
+    /**
+     * @return the pose with its geometry and edge tree boxes for this rotation, worked out at some position,
+     * or null if the rotation isn't a whole number of ANGLE_STEPs
+     */
+    Pose get(double x, double y, double rotation) {
+        double angleStepAsDouble = Math.rint(rotation / ANGLE_STEP);
+        if (angleStepAsDouble * ANGLE_STEP != rotation || Math.abs(angleStepAsDouble) > Long.MAX_VALUE / 2) {
+            return null;
+        }
+        long angleStep = (long) angleStepAsDouble;
+        int index = (int) Math.floorMod(angleStep, (long) ANGLE_STEPS_PER_REVOLUTION);
+        Pose pose = posesByAngleStep[index];
+        if (pose == null) {
+            pose = poses[nextPoseToReplace];
+            if (pose == null) {
+                pose = new Pose(new PolyarcgonGeometry(templatePoints, pointCaches), new PolyarcgonEdgeTree(edgeTreeWithSameEdges));
+                poses[nextPoseToReplace] = pose;
+            } else {
+                posesByAngleStep[(int) Math.floorMod(pose.angleStep, (long) ANGLE_STEPS_PER_REVOLUTION)] = null;
+            }
+            nextPoseToReplace = (nextPoseToReplace + 1) % MAX_POSES;
+            // one turn later it's the same pose, apart from rounding
+            pose.angleStep = angleStep;
+            pose.x = x;
+            pose.y = y;
+            pose.geometry.updatePointPositions(x, y, rotation);
+            pose.geometry.updateEdges();
+            pose.edgeTree.refit(pose.geometry);
+            posesByAngleStep[index] = pose;
+        }
+        return pose;
+    }
+}
@@ -0,0 +1,338 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * A uniform grid "broad phase" for the GamePhysicsEngine.
+ *
+ * Each shape is put into every grid cell its bounding box (x, y plus or minus
+ * the bounding radius) touches. Two shapes can only collide if their bounding
+ * circles overlap, which means they share at least one grid cell, so only
+ * shapes in the same cells need to be tested against each other.
+ *
+ * The cells are stored in a hash table rather than a 2D array, so the grid
+ * has no edges and shapes can go anywhere.
+ *
+ * Shapes that would cover too many cells (e.g. a wall frame around the whole
+ * screen) aren't put in the grid at all, they're just tested against everything.
+ */
+class SpatialHashGrid {
+    // a shape covering more cells than this is treated as a "large shape"
+    static final int MAX_CELLS_PER_SHAPE = 16;
+    static final double MIN_CELL_SIZE = 1;
+
+    private GameShape[] shapes = new GameShape[0];
+    private int shapeCount = 0;
+    private double cellSize = MIN_CELL_SIZE;
+
+    // the cells each shape is currently in, inclusive
+    private int[] shapeMinCellX = new int[0];
+    private int[] shapeMinCellY = new int[0];
+    private int[] shapeMaxCellX = new int[0];
+    private int[] shapeMaxCellY = new int[0];
+    private boolean[] shapeIsLarge = new boolean[0];
+    private boolean[] shapeIsInGrid = new boolean[0];
+
+    private int[] largeShapes = new int[0];
+    private int largeShapeCount = 0;
+
+    // the hash table, each bucket is a list of shape indices
+    // different cells can end up in the same bucket, that just means more candidates to reject later
+    private int[][] buckets = new int[0][];
+    private int[] bucketSizes = new int[0];
+    private int bucketMask = 0;
+
+    // used to avoid returning the same candidate twice when it's in multiple cells
+    private int[] shapeQueryStamps = new int[0];
+    private int queryStamp = 0;
+
+    /**
+     * Puts all the shapes into the grid from scratch.
+     * The index of each shape in the array is how the grid refers to it.
+     */
+    void rebuild(GameShape[] shapes, int shapeCount, double cellSize) {
+        this.shapes = shapes;
+        this.shapeCount = shapeCount;
+        this.cellSize = Math.max(cellSize, MIN_CELL_SIZE);
+
+        if (shapeMinCellX.length < shapeCount) {
+            shapeMinCellX = new int[shapeCount];
+            shapeMinCellY = new int[shapeCount];
+            shapeMaxCellX = new int[shapeCount];
+            shapeMaxCellY = new int[shapeCount];
+            shapeIsLarge = new boolean[shapeCount];
+            shapeIsInGrid = new boolean[shapeCount];
+            shapeQueryStamps = new int[shapeCount];
+            largeShapes = new int[shapeCount];
+        }
+        int bucketCount = 64;
+        while (bucketCount < 4 * shapeCount) {
+            bucketCount *= 2;
+        }
+        if (buckets.length != bucketCount) {
+            buckets = new int[bucketCount][];
+            bucketSizes = new int[bucketCount];
+        } else {
+            for (int i = 0; i < bucketCount; i++) {
+                bucketSizes[i] = 0;
+            }
+        }
+        bucketMask = bucketCount - 1;
+        largeShapeCount = 0;
+        for (int i = 0; i < shapeCount; i++) {
+            shapeIsInGrid[i] = false;
+            shapeIsLarge[i] = false;
+            shapeQueryStamps[i] = 0;
+        }
+        queryStamp = 0;
+
+        for (int i = 0; i < shapeCount; i++) {
+            updateShape(i);
+        }
+    }
+
+    /**
+     * Call after a shape moves so the grid knows which cells it's in now.
+     * This does nothing if the shape is still in the same cells, which is usual for small moves.
+     */
+    void updateShape(int index) {
+        GameShape shape = shapes[index];
+        double x = shape.getX();
+        double y = shape.getY();
+        double radius = shape.getBoundingRadius();
+        int minCellX = cellCoordinate(x - radius);
+        int minCellY = cellCoordinate(y - radius);
+        int maxCellX = cellCoordinate(x + radius);
+        int maxCellY = cellCoordinate(y + radius);
+
+        if (shapeIsInGrid[index] && minCellX == shapeMinCellX[index] && minCellY == shapeMinCellY[index] && maxCellX == shapeMaxCellX[index] && maxCellY == shapeMaxCellY[index]) {
+            return;
+        }
+
+        // long to avoid overflow if the shape flew off somewhere far away
+        long cellsCovered = ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+        boolean isLarge = cellsCovered > MAX_CELLS_PER_SHAPE || Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(radius);
+
+        if (shapeIsInGrid[index]) {
+            if (shapeIsLarge[index]) {
+                if (isLarge) {
+                    // still large, no need to move it around
+                    shapeMinCellX[index] = minCellX;
+                    shapeMinCellY[index] = minCellY;
+                    shapeMaxCellX[index] = maxCellX;
+                    shapeMaxCellY[index] = maxCellY;
+                    return;
+                }
+                removeLargeShape(index);
+            } else {
+                for (int cellX = shapeMinCellX[index]; cellX <= shapeMaxCellX[index]; cellX++) {
+                    for (int cellY = shapeMinCellY[index]; cellY <= shapeMaxCellY[index]; cellY++) {
+                        removeFromBucket(bucketOf(cellX, cellY), index);
+                    }
+                }
+            }
+        }
+
+        shapeMinCellX[index] = minCellX;
+        shapeMinCellY[index] = minCellY;
+        shapeMaxCellX[index] = maxCellX;
+        shapeMaxCellY[index] = maxCellY;
+        shapeIsLarge[index] = isLarge;
+        shapeIsInGrid[index] = true;
+
+        if (isLarge) {
+            addLargeShape(index);
+        } else {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                    addToBucket(bucketOf(cellX, cellY), index);
+                }
+            }
+        }
+    }
+
+    void updateAllShapes() {
+        for (int i = 0; i < shapeCount; i++) {
+            updateShape(i);
+        }
+    }
+
+    /**
+     * Finds every shape that might collide with the shape at the given index,
+     * not including the shape itself.
+     *
+     * @return the number of candidates put into candidatesToFill (in increasing order),
+     * or -1 if candidatesToFill is too small
+     */
+    int findCandidates(int index, int[] candidatesToFill) {
+        if (queryStamp == Integer.MAX_VALUE) {
+            for (int i = 0; i < shapeCount; i++) {
+                shapeQueryStamps[i] = 0;
+            }
+            queryStamp = 0;
+        }
+        queryStamp++;
+        shapeQueryStamps[index] = queryStamp;
+
+        int count = 0;
+        for (int i = 0; i < largeShapeCount; i++) {
+            int candidate = largeShapes[i];
+            if (shapeQueryStamps[candidate] != queryStamp) {
+                shapeQueryStamps[candidate] = queryStamp;
+                if (count == candidatesToFill.length) {
+                    return -1;
+                }
+                candidatesToFill[count++] = candidate;
+            }
+        }
+        if (shapeIsLarge[index]) {
+            // a large shape could be touching anything
+            for (int candidate = 0; candidate < shapeCount; candidate++) {
+                if (shapeQueryStamps[candidate] != queryStamp) {
+                    shapeQueryStamps[candidate] = queryStamp;
+                    if (count == candidatesToFill.length) {
+                        return -1;
+                    }
+                    candidatesToFill[count++] = candidate;
+                }
+            }
+        } else {
+            for (int cellX = shapeMinCellX[index]; cellX <= shapeMaxCellX[index]; cellX++) {
+                for (int cellY = shapeMinCellY[index]; cellY <= shapeMaxCellY[index]; cellY++) {
+                    int bucket = bucketOf(cellX, cellY);
+                    int[] bucketEntries = buckets[bucket];
+                    for (int i = bucketSizes[bucket] - 1; i >= 0; i--) {
+                        int candidate = bucketEntries[i];
+                        if (shapeQueryStamps[candidate] != queryStamp) {
+                            shapeQueryStamps[candidate] = queryStamp;
+                            if (count == candidatesToFill.length) {
+                                return -1;
+                            }
+                            candidatesToFill[count++] = candidate;
+                        }
+                    }
+                }
+            }
+        }
+
+        // insertion sort, the lists are short and this keeps collisions in the same order as before
+        for (int i = 1; i < count; i++) {
+            int candidate = candidatesToFill[i];
+            int j = i - 1;
+            while (j >= 0 && candidatesToFill[j] > candidate) {
+                candidatesToFill[j + 1] = candidatesToFill[j];
+                j--;
+            }
+            candidatesToFill[j + 1] = candidate;
+        }
+        return count;
+    }
+
+    /**
+     * Finds every shape whose bounding box might touch the box, e.g. to find how far the nearest shape is from somewhere.
+     * Unlike findCandidates() it doesn't change anything, so several threads can use it at once.
+     *
+     * @param shapesToFill needs room for every shape, since each one is put in at most once (in no particular order)
+     * @return the number of shapes put into shapesToFill
+     */
+    int findShapesTouchingBox(double minX, double minY, double maxX, double maxY, int[] shapesToFill) {
+        int minCellX = cellCoordinate(minX);
+        int minCellY = cellCoordinate(minY);
+        int maxCellX = cellCoordinate(maxX);
+        int maxCellY = cellCoordinate(maxY);
+        long cellsCovered = ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+        int count = 0;
+        if (cellsCovered > Math.max(MAX_CELLS_PER_SHAPE, shapeCount) || Double.isNaN(minX + minY + maxX + maxY)) {
+            // looking in every cell would take longer than just giving every shape
+            for (int i = 0; i < shapeCount; i++) {
+                shapesToFill[count++] = i;
+            }
+            return count;
+        }
+        for (int i = 0; i < largeShapeCount; i++) {
+            shapesToFill[count++] = largeShapes[i];
+        }
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                int bucket = bucketOf(cellX, cellY);
+                int[] bucketEntries = buckets[bucket];
+                for (int i = bucketSizes[bucket] - 1; i >= 0; i--) {
+                    int shape = bucketEntries[i];
+                    // only counted in the first cell it shares with the box, which also leaves out shapes
+                    // from other cells that just ended up in the same bucket
+                    if (Math.max(minCellX, shapeMinCellX[shape]) == cellX && Math.max(minCellY, shapeMinCellY[shape]) == cellY
+                            && shapeMaxCellX[shape] >= cellX && shapeMaxCellY[shape] >= cellY && !isLaterInBucket(bucketEntries, bucketSizes[bucket], i, shape)) {
+                        shapesToFill[count++] = shape;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether the shape is in the bucket again after position i, which happens when two of its cells end up in the same bucket
+     */
+    private static boolean isLaterInBucket(int[] bucketEntries, int bucketSize, int i, int shape) {
+        for (int j = i + 1; j < bucketSize; j++) {
+            if (bucketEntries[j] == shape) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int cellCoordinate(double position) {
+        double cell = Math.floor(position / cellSize);
+        // clamp so shapes that flew off to infinity don't overflow
+        if (cell > Integer.MAX_VALUE / 2) {
+            return Integer.MAX_VALUE / 2;
+        } else if (cell < Integer.MIN_VALUE / 2) {
+            return Integer.MIN_VALUE / 2;
+        }
+        return (int) cell;
+    }
+
+    private int bucketOf(int cellX, int cellY) {
+        return ((cellX * 73856093) ^ (cellY * 19349663)) & bucketMask;
+    }
+
+    private void addToBucket(int bucket, int index) {
+        int[] bucketEntries = buckets[bucket];
+        if (bucketEntries == null) {
+            bucketEntries = new int[4];
+            buckets[bucket] = bucketEntries;
+        } else if (bucketSizes[bucket] == bucketEntries.length) {
+            int[] newBucketEntries = new int[bucketEntries.length * 2];
+            System.arraycopy(bucketEntries, 0, newBucketEntries, 0, bucketEntries.length);
+            bucketEntries = newBucketEntries;
+            buckets[bucket] = bucketEntries;
+        }
+        bucketEntries[bucketSizes[bucket]++] = index;
+    }
+
+    private void removeFromBucket(int bucket, int index) {
+        int[] bucketEntries = buckets[bucket];
+        int size = bucketSizes[bucket];
+        for (int i = 0; i < size; i++) {
+            if (bucketEntries[i] == index) {
+                // order within a bucket doesn't matter since candidates get sorted
+                bucketEntries[i] = bucketEntries[size - 1];
+                bucketSizes[bucket] = size - 1;
+                return;
+            }
+        }
+    }
+
+    private void addLargeShape(int index) {
+        largeShapes[largeShapeCount++] = index;
+    }
+
+    private void removeLargeShape(int index) {
+        for (int i = 0; i < largeShapeCount; i++) {
+            if (largeShapes[i] == index) {
+                largeShapes[i] = largeShapes[largeShapeCount - 1];
+                largeShapeCount--;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,638 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * A grid over the walls that remembers, for each square cell, what the walls look like inside it:
+ * no walls at all, completely inside one wall, one straight edge of one wall going right across it,
+ * or something more complicated (a corner, an arc, two walls, a wall thinner than the cell...).
+ *
+ * For a straight edge the cell has the edge's line, so the signed distance from the wall and its gradient
+ * (the direction straight out of the wall) are exact anywhere in the cell, not interpolated.
+ * Then a circle (like the ball) only needs a few cell lookups instead of searching the walls' edges:
+ * if every cell it touches has no walls it isn't touching anything, and if every cell it touches is
+ * on the same side of the same line, the overlap is just the part of the circle past the line,
+ * which is one arc and one line segment (see addOverlap()).
+ * Anything else (e.g. the ball in a corner) gives CANT_TELL and the normal collision code is used.
+ *
+ * Cells are grouped into tiles of TILE_SIZE by TILE_SIZE cells, and a tile where every cell is the same
+ * (e.g. the open middle of a level) is just one number, so only tiles near edges take any memory.
+ *
+ * The walls must not move afterwards, and building one takes a while so it's done in the background, see BackgroundBuild.
+ */
+class WallDistanceField {
+    static final int TILE_SIZE = 16;
+    // what's in a cell, anything 0 or more is a line, see lineCode()
+    static final int OUTSIDE_WALLS = -1;
+    static final int TOO_COMPLICATED = -2;
+    // -3 is inside wall 0, -4 is inside wall 1 and so on
+    private static final int INSIDE_FIRST_WALL = -3;
+    // what findTouchingLine() can return other than a line
+    static final int NO_CONTACT = -1;
+    static final int CANT_TELL = -2;
+    // if the walls would need more memory than allowed, the cells are made this much bigger each time until they fit
+    private static final int MAX_CELL_SIZE_DOUBLINGS = 8;
+
+    final GamePolyarcgon[] walls;
+    // where the walls were when this was built
+    final double[] wallXs;
+    final double[] wallYs;
+    final double[] wallRotations;
+    private final double[] cosWallRotations;
+    private final double[] sinWallRotations;
+
+    final double cellSize;
+    private final double originX;
+    private final double originY;
+    private final int cellsX;
+    private final int cellsY;
+    private final int tilesX;
+    // null for a tile where every cell is the same, which is then in uniformTileCells
+    private final int[][] tileCells;
+    private final int[] uniformTileCells;
+    long memoryBytes;
+
+    // the line of every straight edge of every wall, the normal points to the right of the edge's direction
+    // (which might be into the wall or out of it, see lineCode()), and normal . point = offset on the line
+    private final int[] wallFirstLines;
+    private final int[] lineWalls;
+    private final int[] lineEdges;
+    private final double[] lineNormalXs;
+    private final double[] lineNormalYs;
+    private final double[] lineOffsets;
+
+    // only used while building
+    private int[][] edgesFoundForWalls;
+
+    private WallDistanceField(GamePolyarcgon[] walls, double[] wallXs, double[] wallYs, double[] wallRotations, double cellSize, double minX, double minY, double maxX, double maxY) {
+        this.walls = walls;
+        this.wallXs = wallXs;
+        this.wallYs = wallYs;
+        this.wallRotations = wallRotations;
+        this.cellSize = cellSize;
+        cosWallRotations = new double[walls.length];
+        sinWallRotations = new double[walls.length];
+        wallFirstLines = new int[walls.length + 1];
+        edgesFoundForWalls = new int[walls.length][];
+        for (int wall = 0; wall < walls.length; wall++) {
+            cosWallRotations[wall] = Math.cos(wallRotations[wall]);
+            sinWallRotations[wall] = Math.sin(wallRotations[wall]);
+            wallFirstLines[wall + 1] = wallFirstLines[wall] + walls[wall].templateGeometry.pointCount;
+            edgesFoundForWalls[wall] = new int[walls[wall].templateGeometry.pointCount];
+        }
+        int lineCount = wallFirstLines[walls.length];
+        lineWalls = new int[lineCount];
+        lineEdges = new int[lineCount];
+        lineNormalXs = new double[lineCount];
+        lineNormalYs = new double[lineCount];
+        lineOffsets = new double[lineCount];
+        for (int wall = 0; wall < walls.length; wall++) {
+            PolyarcgonGeometry geometry = walls[wall].templateGeometry;
+            for (int edge = 0; edge < geometry.pointCount; edge++) {
+                int line = wallFirstLines[wall] + edge;
+                lineWalls[line] = wall;
+                lineEdges[line] = edge;
+                if (geometry.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                    int lastPoint = geometry.previousPoint(edge);
+                    double startX = toWorldX(wall, geometry.xs[lastPoint], geometry.ys[lastPoint]);
+                    double startY = toWorldY(wall, geometry.xs[lastPoint], geometry.ys[lastPoint]);
+                    double directionX = toWorldX(wall, geometry.xs[edge], geometry.ys[edge]) - startX;
+                    double directionY = toWorldY(wall, geometry.xs[edge], geometry.ys[edge]) - startY;
+                    double length = Math.sqrt(directionX * directionX + directionY * directionY);
+                    if (length > 0) {
+                        lineNormalXs[line] = directionY / length;
+                        lineNormalYs[line] = -directionX / length;
+                        lineOffsets[line] = lineNormalXs[line] * startX + lineNormalYs[line] * startY;
+                    }
+                }
+            }
+        }
+
+        // a cell of margin all round, so anything past the edge of the grid is outside the walls
+        originX = minX - cellSize;
+        originY = minY - cellSize;
+        cellsX = (int) Math.ceil((maxX - minX) / cellSize) + 2;
+        cellsY = (int) Math.ceil((maxY - minY) / cellSize) + 2;
+        tilesX = (cellsX + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (cellsY + TILE_SIZE - 1) / TILE_SIZE;
+        tileCells = new int[tilesX * tilesY][];
+        uniformTileCells = new int[tilesX * tilesY];
+        memoryBytes = 4L * tileCells.length * 2 + 44L * lineCount;
+    }
+
+    /**
+     * @param cellSize how big each cell is, smaller cells can handle walls closer together but take more memory and longer to build
+     * @param maxMemoryBytes if the walls need more memory than this, the cells are made bigger
+     * @return null if it can't fit in the memory even with bigger cells, or the thread was interrupted
+     */
+    static WallDistanceField build(GamePolyarcgon[] walls, double[] wallXs, double[] wallYs, double[] wallRotations, double cellSize, long maxMemoryBytes) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int wall = 0; wall < walls.length; wall++) {
+            minX = Math.min(minX, wallXs[wall] - walls[wall].boundingRadius);
+            minY = Math.min(minY, wallYs[wall] - walls[wall].boundingRadius);
+            maxX = Math.max(maxX, wallXs[wall] + walls[wall].boundingRadius);
+            maxY = Math.max(maxY, wallYs[wall] + walls[wall].boundingRadius);
+        }
+        if (walls.length == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        for (int doublings = 0; doublings <= MAX_CELL_SIZE_DOUBLINGS; doublings++) {
+            WallDistanceField field = new WallDistanceField(walls, wallXs, wallYs, wallRotations, cellSize, minX, minY, maxX, maxY);
+            if (field.fillTiles(maxMemoryBytes)) {
+                field.edgesFoundForWalls = null;
+                return field;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            cellSize *= 2;
+        }
+        return null;
+    }
+
+    /**
+     * @return false if it needs more than maxMemoryBytes or the thread was interrupted
+     */
+    private boolean fillTiles(long maxMemoryBytes) {
+        // first find which tiles have edges in them, to see if they all fit
+        int tilesWithEdges = 0;
+        double tileWidth = cellSize * TILE_SIZE;
+        for (int tile = 0; tile < tileCells.length; tile++) {
+            double minX = originX + (tile % tilesX) * tileWidth;
+            double minY = originY + (tile / tilesX) * tileWidth;
+            uniformTileCells[tile] = classifyIfNoEdges(minX, minY, minX + tileWidth, minY + tileWidth);
+            if (uniformTileCells[tile] == TOO_COMPLICATED) {
+                tilesWithEdges++;
+            }
+        }
+        memoryBytes += 4L * TILE_SIZE * TILE_SIZE * tilesWithEdges;
+        if (memoryBytes > maxMemoryBytes) {
+            return false;
+        }
+        for (int tile = 0; tile < tileCells.length; tile++) {
+            if (uniformTileCells[tile] != TOO_COMPLICATED) {
+                continue;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            int[] cells = new int[TILE_SIZE * TILE_SIZE];
+            for (int i = 0; i < cells.length; i++) {
+                double minX = originX + ((tile % tilesX) * TILE_SIZE + i % TILE_SIZE) * cellSize;
+                double minY = originY + ((tile / tilesX) * TILE_SIZE + i / TILE_SIZE) * cellSize;
+                cells[i] = classify(minX, minY, minX + cellSize, minY + cellSize);
+            }
+            tileCells[tile] = cells;
+        }
+        return true;
+    }
+
+    /**
+     * @return what the walls look like in the box if no edges come into it, otherwise TOO_COMPLICATED
+     */
+    private int classifyIfNoEdges(double minX, double minY, double maxX, double maxY) {
+        for (int wall = 0; wall < walls.length; wall++) {
+            if (findEdgesTouchingBox(wall, minX, minY, maxX, maxY) > 0) {
+                return TOO_COMPLICATED;
+            }
+        }
+        return classifyByWindingNumbers((minX + maxX) / 2, (minY + maxY) / 2, -1);
+    }
+
+    /**
+     * @return what the walls look like in the cell
+     */
+    private int classify(double minX, double minY, double maxX, double maxY) {
+        // a little extra so edges just touching the cell count
+        double padding = 0.000001 * cellSize;
+        int lineWall = -1;
+        int line = -1;
+        for (int wall = 0; wall < walls.length; wall++) {
+            PolyarcgonGeometry geometry = walls[wall].templateGeometry;
+            int[] edges = edgesFoundForWalls[wall];
+            int edgeCount = findEdgesTouchingBox(wall, minX - padding, minY - padding, maxX + padding, maxY + padding);
+            for (int i = 0; i < edgeCount; i++) {
+                int edge = edges[i];
+                if (geometry.edgeKinds[edge] == PolyarcgonGeometry.ARC_EDGE) {
+                    double centerX = (minX + maxX) / 2;
+                    double centerY = (minY + maxY) / 2;
+                    if (geometry.edgeComesWithinDistance(edge, toWallX(wall, centerX, centerY), toWallY(wall, centerX, centerY), (maxX - minX) * Math.sqrt(0.5) + padding)) {
+                        return TOO_COMPLICATED;
+                    }
+                } else if (geometry.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                    int edgeLine = wallFirstLines[wall] + edge;
+                    int crossing = straightEdgeCrossing(wall, edge, edgeLine, minX - padding, minY - padding, maxX + padding, maxY + padding);
+                    if (crossing == TOO_COMPLICATED || (crossing == 1 && line >= 0)) {
+                        return TOO_COMPLICATED;
+                    } else if (crossing == 1) {
+                        line = edgeLine;
+                        lineWall = wall;
+                    }
+                }
+            }
+        }
+        if (line < 0) {
+            return classifyByWindingNumbers((minX + maxX) / 2, (minY + maxY) / 2, -1);
+        }
+
+        // the corners furthest from the line on each side, to see which side is inside the wall
+        double mostOnNormalSide = 0;
+        double mostOnOtherSide = 0;
+        double mostOnNormalSideX = 0;
+        double mostOnNormalSideY = 0;
+        double mostOnOtherSideX = 0;
+        double mostOnOtherSideY = 0;
+        for (int corner = 0; corner < 4; corner++) {
+            double x = (corner & 1) == 0 ? minX : maxX;
+            double y = (corner & 2) == 0 ? minY : maxY;
+            double signedDistance = lineNormalXs[line] * x + lineNormalYs[line] * y - lineOffsets[line];
+            if (signedDistance > mostOnNormalSide) {
+                mostOnNormalSide = signedDistance;
+                mostOnNormalSideX = x;
+                mostOnNormalSideY = y;
+            }
+            if (signedDistance < mostOnOtherSide) {
+                mostOnOtherSide = signedDistance;
+                mostOnOtherSideX = x;
+                mostOnOtherSideY = y;
+            }
+        }
+        if (mostOnNormalSide < padding || mostOnOtherSide > -padding) {
+            // the line only just clips the cell
+            return TOO_COMPLICATED;
+        }
+        int windingNumberOnNormalSide = windingNumber(lineWall, mostOnNormalSideX, mostOnNormalSideY);
+        int windingNumberOnOtherSide = windingNumber(lineWall, mostOnOtherSideX, mostOnOtherSideY);
+        // no other wall can be in the cell either, otherwise a circle here would touch two walls
+        if (classifyByWindingNumbers((minX + maxX) / 2, (minY + maxY) / 2, lineWall) != OUTSIDE_WALLS) {
+            return TOO_COMPLICATED;
+        }
+        if (windingNumberOnNormalSide == 0 && windingNumberOnOtherSide == 1) {
+            return lineCode(line, false);
+        } else if (windingNumberOnNormalSide == 1 && windingNumberOnOtherSide == 0) {
+            return lineCode(line, true);
+        }
+        return TOO_COMPLICATED;
+    }
+
+    /**
+     * @return 1 if the line of the edge goes right across the box and the edge covers all of that,
+     * 0 if the edge doesn't touch the box at all, and TOO_COMPLICATED if the edge ends in the box
+     */
+    private int straightEdgeCrossing(int wall, int edge, int line, double minX, double minY, double maxX, double maxY) {
+        PolyarcgonGeometry geometry = walls[wall].templateGeometry;
+        int lastPoint = geometry.previousPoint(edge);
+        double startX = toWorldX(wall, geometry.xs[lastPoint], geometry.ys[lastPoint]);
+        double startY = toWorldY(wall, geometry.xs[lastPoint], geometry.ys[lastPoint]);
+        double directionX = toWorldX(wall, geometry.xs[edge], geometry.ys[edge]) - startX;
+        double directionY = toWorldY(wall, geometry.xs[edge], geometry.ys[edge]) - startY;
+        if (lineNormalXs[line] == 0 && lineNormalYs[line] == 0) {
+            return TOO_COMPLICATED;
+        }
+        // clip the whole line to the box (Liang-Barsky), as fractions along the edge
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        for (int side = 0; side < 4; side++) {
+            double direction = side < 2 ? directionX : directionY;
+            double start = side < 2 ? startX : startY;
+            double boundary = side == 0 ? minX : side == 1 ? maxX : side == 2 ? minY : maxY;
+            boolean isMin = side == 0 || side == 2;
+            if (direction == 0) {
+                if (isMin ? start < boundary : start > boundary) {
+                    return 0;
+                }
+            } else {
+                double fraction = (boundary - start) / direction;
+                if (isMin == direction > 0) {
+                    enter = Math.max(enter, fraction);
+                } else {
+                    exit = Math.min(exit, fraction);
+                }
+            }
+        }
+        if (enter >= exit || exit < 0 || enter > 1) {
+            return 0;
+        } else if (enter >= 0 && exit <= 1) {
+            return 1;
+        }
+        return TOO_COMPLICATED;
+    }
+
+    /**
+     * @param wallToSkip a wall to leave out, or -1
+     * @return OUTSIDE_WALLS if no wall winds around the point, inside a wall if exactly one does once, otherwise TOO_COMPLICATED
+     */
+    private int classifyByWindingNumbers(double x, double y, int wallToSkip) {
+        int code = OUTSIDE_WALLS;
+        for (int wall = 0; wall < walls.length; wall++) {
+            if (wall == wallToSkip) {
+                continue;
+            }
+            int windingNumber = windingNumber(wall, x, y);
+            if (windingNumber != 0) {
+                if (windingNumber != 1 || code != OUTSIDE_WALLS) {
+                    return TOO_COMPLICATED;
+                }
+                code = INSIDE_FIRST_WALL - wall;
+            }
+        }
+        return code;
+    }
+
+    private int windingNumber(int wall, double x, double y) {
+        return walls[wall].templateEdgeTree.windingNumberAround(walls[wall].templateGeometry, toWallX(wall, x, y), toWallY(wall, x, y));
+    }
+
+    /**
+     * Finds the edges of the wall whose boxes touch the world box, into edgesFoundForWalls[wall]
+     */
+    private int findEdgesTouchingBox(int wall, double minX, double minY, double maxX, double maxY) {
+        double wallMinX = Double.POSITIVE_INFINITY;
+        double wallMinY = Double.POSITIVE_INFINITY;
+        double wallMaxX = Double.NEGATIVE_INFINITY;
+        double wallMaxY = Double.NEGATIVE_INFINITY;
+        for (int corner = 0; corner < 4; corner++) {
+            double x = (corner & 1) == 0 ? minX : maxX;
+            double y = (corner & 2) == 0 ? minY : maxY;
+            wallMinX = Math.min(wallMinX, toWallX(wall, x, y));
+            wallMinY = Math.min(wallMinY, toWallY(wall, x, y));
+            wallMaxX = Math.max(wallMaxX, toWallX(wall, x, y));
+            wallMaxY = Math.max(wallMaxY, toWallY(wall, x, y));
+        }
+        return walls[wall].templateEdgeTree.findEdgesTouchingBox(wallMinX, wallMinY, wallMaxX, wallMaxY, edgesFoundForWalls[wall]);
+    }
+
+    private double toWorldX(int wall, double x, double y) {
+        return x * cosWallRotations[wall] - y * sinWallRotations[wall] + wallXs[wall];
+    }
+
+    private double toWorldY(int wall, double x, double y) {
+        return y * cosWallRotations[wall] + x * sinWallRotations[wall] + wallYs[wall];
+    }
+
+    private double toWallX(int wall, double x, double y) {
+        return (x - wallXs[wall]) * cosWallRotations[wall] + (y - wallYs[wall]) * sinWallRotations[wall];
+    }
+
+    private double toWallY(int wall, double x, double y) {
+        return (y - wallYs[wall]) * cosWallRotations[wall] - (x - wallXs[wall]) * sinWallRotations[wall];
+    }
+
+    /**
+     * A cell with a line in it, flipped if the line's normal points into the wall instead of out of it
+     */
+    private static int lineCode(int line, boolean flipped) {
+        return 2 * line + (flipped ? 1 : 0);
+    }
+
+    /**
+     * The wall a line from findTouchingLine() belongs to, e.g. for the collision's other shape
+     */
+    GamePolyarcgon getWall(int lineCode) {
+        return walls[lineWalls[lineCode / 2]];
+    }
+
+    private double normalX(int lineCode) {
+        return (lineCode & 1) == 0 ? lineNormalXs[lineCode / 2] : -lineNormalXs[lineCode / 2];
+    }
+
+    private double normalY(int lineCode) {
+        return (lineCode & 1) == 0 ? lineNormalYs[lineCode / 2] : -lineNormalYs[lineCode / 2];
+    }
+
+    private double offset(int lineCode) {
+        return (lineCode & 1) == 0 ? lineOffsets[lineCode / 2] : -lineOffsets[lineCode / 2];
+    }
+
+    /**
+     * How far the point is out of the wall, going by the line (negative if it's in the wall)
+     */
+    double signedDistance(int lineCode, double x, double y) {
+        return normalX(lineCode) * x + normalY(lineCode) * y - offset(lineCode);
+    }
+
+    private boolean sameLine(int lineCode, int otherLineCode) {
+        if (lineCode == otherLineCode) {
+            return true;
+        }
+        // e.g. two edges of the same wall one after the other in a straight line
+        return lineWalls[lineCode / 2] == lineWalls[otherLineCode / 2]
+                && Math.abs(normalX(lineCode) - normalX(otherLineCode)) < 0.000000001
+                && Math.abs(normalY(lineCode) - normalY(otherLineCode)) < 0.000000001
+                && Math.abs(offset(lineCode) - offset(otherLineCode)) < 0.000000001 * (1 + Math.abs(offset(lineCode)));
+    }
+
+    /**
+     * What a circle touches, going by the cells it's in.
+     *
+     * @return NO_CONTACT if the circle doesn't touch any wall,
+     * the line code if all it touches is one wall with one straight line where it goes into the wall, see addOverlap(),
+     * or CANT_TELL if it's more complicated than that (a corner, an arc, deep in a wall...)
+     */
+    int findTouchingLine(double centerX, double centerY, double radius) {
+        int firstCellX = (int) Math.floor((centerX - radius - originX) / cellSize);
+        int lastCellX = (int) Math.floor((centerX + radius - originX) / cellSize);
+        int firstCellY = (int) Math.floor((centerY - radius - originY) / cellSize);
+        int lastCellY = (int) Math.floor((centerY + radius - originY) / cellSize);
+        // past the grid is outside every wall
+        boolean goesPastGrid = firstCellX < 0 || firstCellY < 0 || lastCellX >= cellsX || lastCellY >= cellsY;
+        firstCellX = Math.max(firstCellX, 0);
+        firstCellY = Math.max(firstCellY, 0);
+        lastCellX = Math.min(lastCellX, cellsX - 1);
+        lastCellY = Math.min(lastCellY, cellsY - 1);
+
+        // first just look for a line, going a tile at a time so the open parts of the level are quick
+        int line = -1;
+        boolean touchesInsideOfWall = false;
+        findLine:
+        for (int tileY = firstCellY / TILE_SIZE; tileY <= lastCellY / TILE_SIZE; tileY++) {
+            for (int tileX = firstCellX / TILE_SIZE; tileX <= lastCellX / TILE_SIZE; tileX++) {
+                int tile = tileY * tilesX + tileX;
+                int[] cells = tileCells[tile];
+                int tileFirstCellX = Math.max(firstCellX, tileX * TILE_SIZE);
+                int tileFirstCellY = Math.max(firstCellY, tileY * TILE_SIZE);
+                int tileLastCellX = Math.min(lastCellX, tileX * TILE_SIZE + TILE_SIZE - 1);
+                int tileLastCellY = Math.min(lastCellY, tileY * TILE_SIZE + TILE_SIZE - 1);
+                if (cells == null) {
+                    if (uniformTileCells[tile] != OUTSIDE_WALLS && cellsTouchCircle(tileFirstCellX, tileFirstCellY, tileLastCellX, tileLastCellY, centerX, centerY, radius)) {
+                        touchesInsideOfWall = true;
+                    }
+                    continue;
+                }
+                for (int cellY = tileFirstCellY; cellY <= tileLastCellY; cellY++) {
+                    for (int cellX = tileFirstCellX; cellX <= tileLastCellX; cellX++) {
+                        int code = cells[(cellY % TILE_SIZE) * TILE_SIZE + cellX % TILE_SIZE];
+                        if (code == OUTSIDE_WALLS || !cellsTouchCircle(cellX, cellY, cellX, cellY, centerX, centerY, radius)) {
+                            continue;
+                        }
+                        if (code == TOO_COMPLICATED) {
+                            return CANT_TELL;
+                        } else if (code >= 0) {
+                            line = code;
+                            break findLine;
+                        }
+                        touchesInsideOfWall = true;
+                    }
+                }
+            }
+        }
+        if (line < 0) {
+            return touchesInsideOfWall ? CANT_TELL : NO_CONTACT;
+        }
+        double signedDistance = signedDistance(line, centerX, centerY);
+        if (signedDistance <= -radius || goesPastGrid) {
+            return CANT_TELL;
+        }
+
+        // now check the walls in every cell really are just the part past the line
+        for (int tileY = firstCellY / TILE_SIZE; tileY <= lastCellY / TILE_SIZE; tileY++) {
+            for (int tileX = firstCellX / TILE_SIZE; tileX <= lastCellX / TILE_SIZE; tileX++) {
+                int tile = tileY * tilesX + tileX;
+                int[] cells = tileCells[tile];
+                int tileFirstCellX = Math.max(firstCellX, tileX * TILE_SIZE);
+                int tileFirstCellY = Math.max(firstCellY, tileY * TILE_SIZE);
+                int tileLastCellX = Math.min(lastCellX, tileX * TILE_SIZE + TILE_SIZE - 1);
+                int tileLastCellY = Math.min(lastCellY, tileY * TILE_SIZE + TILE_SIZE - 1);
+                if (cells == null && cellsAreOnRightSideOfLine(uniformTileCells[tile], line, tileFirstCellX, tileFirstCellY, tileLastCellX, tileLastCellY)) {
+                    continue;
+                }
+                // otherwise one cell at a time, since it might only be the corners that are on the wrong side and those might not touch the circle
+                for (int cellY = tileFirstCellY; cellY <= tileLastCellY; cellY++) {
+                    for (int cellX = tileFirstCellX; cellX <= tileLastCellX; cellX++) {
+                        int code = cells == null ? uniformTileCells[tile] : cells[(cellY % TILE_SIZE) * TILE_SIZE + cellX % TILE_SIZE];
+                        if (!cellsTouchCircle(cellX, cellY, cellX, cellY, centerX, centerY, radius)) {
+                            continue;
+                        }
+                        if (code == TOO_COMPLICATED || (code >= 0 && !sameLine(line, code))
+                                || (code < 0 && !cellsAreOnRightSideOfLine(code, line, cellX, cellY, cellX, cellY))) {
+                            return CANT_TELL;
+                        }
+                    }
+                }
+            }
+        }
+        return signedDistance >= radius ? NO_CONTACT : line;
+    }
+
+    /**
+     * Whether the cells from (firstCellX, firstCellY) to (lastCellX, lastCellY), which are all outside walls or all inside one wall,
+     * are wholly on that side of the line
+     */
+    private boolean cellsAreOnRightSideOfLine(int code, int lineCode, int firstCellX, int firstCellY, int lastCellX, int lastCellY) {
+        if (code != OUTSIDE_WALLS && code != INSIDE_FIRST_WALL - lineWalls[lineCode / 2]) {
+            return false;
+        }
+        double padding = 0.000001 * cellSize;
+        double minX = originX + firstCellX * cellSize;
+        double minY = originY + firstCellY * cellSize;
+        double maxX = originX + (lastCellX + 1) * cellSize;
+        double maxY = originY + (lastCellY + 1) * cellSize;
+        for (int corner = 0; corner < 4; corner++) {
+            double distance = signedDistance(lineCode, (corner & 1) == 0 ? minX : maxX, (corner & 2) == 0 ? minY : maxY);
+            if (code == OUTSIDE_WALLS ? distance < -padding : distance > padding) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean cellsTouchCircle(int firstCellX, int firstCellY, int lastCellX, int lastCellY, double centerX, double centerY, double radius) {
+        double closestX = Math.max(originX + firstCellX * cellSize, Math.min(originX + (lastCellX + 1) * cellSize, centerX));
+        double closestY = Math.max(originY + firstCellY * cellSize, Math.min(originY + (lastCellY + 1) * cellSize, centerY));
+        return (closestX - centerX) * (closestX - centerX) + (closestY - centerY) * (closestY - centerY) <= radius * radius;
+    }
+
+    /**
+     * Adds the overlap between a circle and the wall past a line from findTouchingLine(), which is the circular segment
+     * cut off by the line: the circle's arc going into the wall, then back along the wall's edge.
+     * Same as what the normal collision code would give for a circle against a straight wall, except for rounding.
+     *
+     * @param circle the circle's GamePolyarcgon geometry, which is the first shape
+     */
+    void addOverlap(OverlapCalculator handler, int lineCode, PolyarcgonGeometry circle) {
+        double centerX = circle.arcCenterXs[circle.circleEdge];
+        double centerY = circle.arcCenterYs[circle.circleEdge];
+        double radius = circle.radiiOfCurvature[circle.circleEdge];
+        // same as the lens in PolyarcgonCircleOverlap, with the other "circle" in direction (directionX, directionY) so big it's a line
+        double directionX = -normalX(lineCode);
+        double directionY = -normalY(lineCode);
+        double distanceToChord = signedDistance(lineCode, centerX, centerY);
+        double halfChord = Math.sqrt(Math.max(0, radius * radius - distanceToChord * distanceToChord));
+        double chordCenterX = centerX + directionX * distanceToChord;
+        double chordCenterY = centerY + directionY * distanceToChord;
+        double intersection1X = chordCenterX - directionY * halfChord;
+        double intersection1Y = chordCenterY + directionX * halfChord;
+        double intersection2X = chordCenterX + directionY * halfChord;
+        double intersection2Y = chordCenterY - directionX * halfChord;
+        double halfAngle = Math.atan2(halfChord, distanceToChord);
+        int line = lineCode / 2;
+        handler.addArcToOverlap(radius, centerX, centerY, intersection2X, intersection2Y, intersection1X, intersection1Y, 2 * halfAngle, 1, true, circle.pointCaches[circle.circleEdge], true);
+        handler.addLineSegmentToOverlap(intersection1X, intersection1Y, intersection2X, intersection2Y, 1, false, walls[lineWalls[line]].templateGeometry.pointCaches[lineEdges[line]], true);
+    }
+
+    /**
+     * Whether the walls are all still where they were when this was built
+     */
+    boolean wallsHaveNotMoved() {
+        for (int wall = 0; wall < walls.length; wall++) {
+            if (walls[wall].x != wallXs[wall] || walls[wall].y != wallYs[wall] || walls[wall].rotationRadians != wallRotations[wall]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a WallDistanceField on its own thread, see GamePhysicsEngine.enableWallDistanceField()
+     */
+    static class BackgroundBuild {
+        final GamePolyarcgon[] walls;
+        private final Thread thread;
+        private volatile boolean finished = false;
+        private volatile WallDistanceField result = null;
+
+        BackgroundBuild(GamePolyarcgon[] walls, double cellSize, long maxMemoryBytes) {
+            this.walls = walls;
+            // where the walls are now, the other thread can't read them while the game might be moving them
+            double[] wallXs = new double[walls.length];
+            double[] wallYs = new double[walls.length];
+            double[] wallRotations = new double[walls.length];
+            for (int wall = 0; wall < walls.length; wall++) {
+                wallXs[wall] = walls[wall].x;
+                wallYs[wall] = walls[wall].y;
+                wallRotations[wall] = walls[wall].rotationRadians;
+            }
+            thread = new Thread(() -> {
+                result = build(walls, wallXs, wallYs, wallRotations, cellSize, maxMemoryBytes);
+                finished = true;
+            }, "wall distance field");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+
+        /**
+         * @return null if it didn't fit in the memory allowed or was cancelled
+         */
+        WallDistanceField getResult() {
+            return result;
+        }
+
+        void waitUntilFinished() {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void cancel() {
+            thread.interrupt();
+        }
+    }
+}
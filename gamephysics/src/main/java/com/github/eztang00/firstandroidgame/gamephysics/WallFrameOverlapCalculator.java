@@ -0,0 +1,47 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+/**
+ * Passes line segments and arcs worked out in a wall's own frame (its template points, see GamePolyarcgon.templateGeometry)
+ * on to another OverlapCalculator, moved back to where they really are.
+ * So calculators don't need to know the collision was done in the wall's frame,
+ * and the areas, forces and torques they add up come out the same as usual (except for rounding).
+ */
+class WallFrameOverlapCalculator implements OverlapCalculator {
+    private OverlapCalculator handler;
+    private double wallX;
+    private double wallY;
+    private double cosWallRotation;
+    private double sinWallRotation;
+
+    void set(OverlapCalculator handler, double wallX, double wallY, double cosWallRotation, double sinWallRotation) {
+        this.handler = handler;
+        this.wallX = wallX;
+        this.wallY = wallY;
+        this.cosWallRotation = cosWallRotation;
+        this.sinWallRotation = sinWallRotation;
+    }
+
+    private double toWorldX(double x, double y) {
+        return x * cosWallRotation - y * sinWallRotation + wallX;
+    }
+
+    private double toWorldY(double x, double y) {
+        return y * cosWallRotation + x * sinWallRotation + wallY;
+    }
+
+    @Override
+    public void addLineSegmentToOverlap(double startX, double startY, double endX, double endY, int windingFactor, boolean lineSegmentIsFirstShape, GamePolyarcgon.PolyarcgonPointCache nextPoint, boolean isRealIntersection) {
+        handler.addLineSegmentToOverlap(toWorldX(startX, startY), toWorldY(startX, startY), toWorldX(endX, endY), toWorldY(endX, endY), windingFactor, lineSegmentIsFirstShape, nextPoint, isRealIntersection);
+    }
+
+    @Override
+    public void addArcToOverlap(double radiusOfCurvature, double arcCenterX, double arcCenterY, double arcStartX, double arcStartY, double arcEndX, double arcEndY, double arcAngleChange, int windingFactor, boolean arcIsFirstShape, GamePolyarcgon.PolyarcgonPointCache nextPoint, boolean isRealIntersection) {
+        // rotating doesn't change the radius or how far round the arc goes
+        handler.addArcToOverlap(radiusOfCurvature, toWorldX(arcCenterX, arcCenterY), toWorldY(arcCenterX, arcCenterY), toWorldX(arcStartX, arcStartY), toWorldY(arcStartX, arcStartY), toWorldX(arcEndX, arcEndY), toWorldY(arcEndX, arcEndY), arcAngleChange, windingFactor, arcIsFirstShape, nextPoint, isRealIntersection);
+    }
+
+    @Override
+    public boolean onlyNeedsOverlapTotals() {
+        return handler.onlyNeedsOverlapTotals();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CollisionSimulationSchedulerTest {
+    private long fakeNanoTime = 0;
+
+    @Test
+    public void slowSimulations_areCutToFitTheBudget() {
+        CollisionSimulationScheduler scheduler = new CollisionSimulationScheduler(20, () -> fakeNanoTime);
+        for (int frame = 0; frame < 5; frame++) {
+            int simulations = scheduler.startFrame();
+            // every simulation takes 1 ms on this pretend device
+            fakeNanoTime += simulations * 1000000L;
+            scheduler.recordPenetrationDepth(CollisionSimulationScheduler.TARGET_PENETRATION_DEPTH / 2);
+            scheduler.endFrame(simulations);
+        }
+        assertEquals(20, scheduler.startFrame());
+    }
+
+    @Test
+    public void penetrationDepth_changesSimulationCount() {
+        CollisionSimulationScheduler scheduler = new CollisionSimulationScheduler(1000, () -> fakeNanoTime);
+        int firstSimulations = scheduler.startFrame();
+        scheduler.recordPenetrationDepth(10 * CollisionSimulationScheduler.TARGET_PENETRATION_DEPTH);
+        scheduler.endFrame(firstSimulations);
+        int deeperSimulations = scheduler.startFrame();
+        assertTrue(deeperSimulations > firstSimulations);
+
+        for (int frame = 0; frame < 100; frame++) {
+            scheduler.endFrame(scheduler.startFrame());
+        }
+        assertEquals(CollisionSimulationScheduler.MIN_SIMULATIONS_PER_FRAME, scheduler.startFrame());
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Checks a GameExpandingCircle overlaps shapes the same as a GamePolyarcgon circle with the same center and radius.
+ */
+public class GameExpandingCircleTest {
+    /**
+     * @return whether the shapes overlap at all
+     */
+    private static boolean assertSameAsPolyarcgonCircle(GameExpandingCircle circle, GameShape otherShape, boolean circleIsFirstShape) {
+        GamePolyarcgon polyarcgonCircle = new GamePolyarcgonBuilder().addCircleContour(circle.centerX, circle.centerY, circle.getRadius(), true).buildAndReset();
+        GameShape firstShape = circleIsFirstShape ? circle : otherShape;
+        GameShape otherShapeForPolyarcgon = otherShape instanceof GameExpandingCircle
+                ? new GamePolyarcgonBuilder().addCircleContour(otherShape.getX(), otherShape.getY(), ((GameExpandingCircle) otherShape).getRadius(), true).buildAndReset()
+                : otherShape;
+        double area = Math.min(circle.getArea(), Math.abs(otherShape.getArea()));
+        double tolerance = 0.000000001 * area;
+        double integralTolerance = tolerance * 1000;
+        double lengthTolerance = Math.sqrt(tolerance);
+
+        OverlapAreaIntegralCalculator overlap = new OverlapAreaIntegralCalculator(firstShape, circleIsFirstShape ? otherShape : circle);
+        firstShape.collision(circleIsFirstShape ? otherShape : circle, true, true, true, overlap);
+        OverlapAreaIntegralCalculator expectedOverlap = new OverlapAreaIntegralCalculator(null, null);
+        OverlapGradientForceCalculator force = new OverlapGradientForceCalculator(firstShape, circleIsFirstShape ? otherShape : circle);
+        firstShape.collision(circleIsFirstShape ? otherShape : circle, true, true, true, force);
+        OverlapGradientForceCalculator expectedForce = new OverlapGradientForceCalculator(null, null);
+        if (circleIsFirstShape) {
+            expectedOverlap.reset(polyarcgonCircle, otherShapeForPolyarcgon);
+            GamePolyarcgon.collision(polyarcgonCircle, (GamePolyarcgon) otherShapeForPolyarcgon, PolyarcgonCircleOverlapTest.withoutShortcuts(expectedOverlap));
+            expectedForce.reset(polyarcgonCircle, otherShapeForPolyarcgon);
+            GamePolyarcgon.collision(polyarcgonCircle, (GamePolyarcgon) otherShapeForPolyarcgon, PolyarcgonCircleOverlapTest.withoutShortcuts(expectedForce));
+        } else {
+            expectedOverlap.reset(otherShapeForPolyarcgon, polyarcgonCircle);
+            GamePolyarcgon.collision((GamePolyarcgon) otherShapeForPolyarcgon, polyarcgonCircle, PolyarcgonCircleOverlapTest.withoutShortcuts(expectedOverlap));
+            expectedForce.reset(otherShapeForPolyarcgon, polyarcgonCircle);
+            GamePolyarcgon.collision((GamePolyarcgon) otherShapeForPolyarcgon, polyarcgonCircle, PolyarcgonCircleOverlapTest.withoutShortcuts(expectedForce));
+        }
+
+        assertEquals(expectedOverlap.overlapArea, overlap.overlapArea, tolerance);
+        assertEquals(expectedOverlap.overlapXAreaIntegral, overlap.overlapXAreaIntegral, integralTolerance);
+        assertEquals(expectedOverlap.overlapYAreaIntegral, overlap.overlapYAreaIntegral, integralTolerance);
+        assertEquals(expectedOverlap.overlapXSqPlusYSqAreaIntegral, overlap.overlapXSqPlusYSqAreaIntegral, integralTolerance * 1000);
+        assertEquals(expectedForce.overlapGradientForceX, force.overlapGradientForceX, lengthTolerance);
+        assertEquals(expectedForce.overlapGradientForceY, force.overlapGradientForceY, lengthTolerance);
+        assertEquals(expectedForce.overlapPerimeter, force.overlapPerimeter, lengthTolerance);
+        assertEquals(expectedForce.overlapArea, force.overlapArea, tolerance);
+
+        return Math.abs(expectedOverlap.overlapArea) > tolerance;
+    }
+
+    @Test
+    public void expandingCircleAndShapes_sameAsPolyarcgonCircle() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        builder.addRectangleContour(0, 0, 1000, 1000, true);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 5; j++) {
+                builder.addRoundedRectangleContour(50 + i * 90, 50 + j * 190, 100 + i * 90, 180 + j * 190, 10, false);
+            }
+        }
+        GamePolyarcgon maze = builder.buildAndReset();
+        GamePolyarcgon blob = new GamePolyarcgonBuilder().addRoundedRectangleContour(0, 0, 200, 120, 40, true).addCircleContour(100, 60, 20, false).buildAndReset();
+        GamePolyarcgon blade = new GamePolyarcgonBuilder().lineTo(0, 0).lineTo(100, 0).arcTo(50, 80, 0.7).buildAndReset();
+        GamePolyarcgon ball = new GamePolyarcgonBuilder().addCircleContour(0, 0, 30, true).buildAndReset();
+        GamePolyarcgon[] shapes = {maze, blob, blade, ball};
+
+        GameExpandingCircle circle = new GameExpandingCircle(0, 0, 1, 20, null);
+        Random random = new Random(3);
+        int overlapping = 0;
+        for (int i = 0; i < 2000; i++) {
+            GamePolyarcgon shape = shapes[i % shapes.length];
+            if (shape != maze) {
+                shape.setPos(random.nextDouble() * 1000, random.nextDouble() * 1000);
+                shape.setRotation(random.nextDouble() * 7);
+            }
+            // small ones inside the maze's corridors and big ones covering lots of it
+            circle.restart(random.nextDouble() * 1100 - 50, random.nextDouble() * 1100 - 50);
+            circle.time = random.nextDouble() * (random.nextBoolean() ? 3 : 30);
+            if (assertSameAsPolyarcgonCircle(circle, shape, random.nextBoolean())) {
+                overlapping++;
+            }
+        }
+        assertTrue(overlapping > 500);
+    }
+
+    @Test
+    public void twoExpandingCircles_sameAsPolyarcgonCircles() {
+        GameExpandingCircle circle = new GameExpandingCircle(0, 0, 1, 20, null);
+        GameExpandingCircle otherCircle = new GameExpandingCircle(0, 0, 5, 3, null);
+        Random random = new Random(4);
+        int overlapping = 0;
+        for (int i = 0; i < 500; i++) {
+            circle.restart(random.nextDouble() * 100, random.nextDouble() * 100);
+            circle.time = random.nextDouble() * 3;
+            otherCircle.restart(random.nextDouble() * 100, random.nextDouble() * 100);
+            otherCircle.time = random.nextDouble() * 10;
+            if (assertSameAsPolyarcgonCircle(circle, otherCircle, random.nextBoolean())) {
+                overlapping++;
+            }
+        }
+        assertTrue(overlapping > 200);
+    }
+
+    @Test
+    public void calculatorsNeedingEdges_sameAsClosedForm() {
+        GamePolyarcgon blob = new GamePolyarcgonBuilder().addRoundedRectangleContour(0, 0, 200, 120, 40, true).addCircleContour(100, 60, 20, false).buildAndReset();
+        GamePolyarcgon ball = new GamePolyarcgonBuilder().addCircleContour(0, 0, 30, true).buildAndReset();
+        GameExpandingCircle otherCircle = new GameExpandingCircle(0, 0, 5, 3, null);
+        GameShape[] shapes = {blob, ball, otherCircle};
+
+        GameExpandingCircle circle = new GameExpandingCircle(0, 0, 1, 20, null);
+        Random random = new Random(8);
+        int overlapping = 0;
+        for (int i = 0; i < 600; i++) {
+            GameShape shape = shapes[i % shapes.length];
+            shape.setPos(random.nextDouble() * 300, random.nextDouble() * 300);
+            shape.setRotation(random.nextDouble() * 7);
+            otherCircle.time = random.nextDouble() * 10;
+            // sometimes the same radius as last time, so the polyarcgon circle is reused
+            if (random.nextBoolean()) {
+                circle.time = random.nextDouble() * 5;
+            }
+            circle.setPos(random.nextDouble() * 300, random.nextDouble() * 300);
+            boolean circleIsFirstShape = random.nextBoolean();
+            GameShape firstShape = circleIsFirstShape ? circle : shape;
+            GameShape secondShape = circleIsFirstShape ? shape : circle;
+            double area = Math.min(circle.getArea(), Math.abs(shape.getArea()));
+            double tolerance = 0.000000001 * area;
+
+            OverlapAreaIntegralCalculator closedForm = new OverlapAreaIntegralCalculator(firstShape, secondShape);
+            firstShape.collision(secondShape, true, true, true, closedForm);
+            OverlapAreaIntegralCalculator fallback = new OverlapAreaIntegralCalculator(firstShape, secondShape);
+            firstShape.collision(secondShape, true, true, true, PolyarcgonCircleOverlapTest.withoutShortcuts(fallback));
+            assertEquals(closedForm.overlapArea, fallback.overlapArea, tolerance);
+            assertEquals(closedForm.overlapXAreaIntegral, fallback.overlapXAreaIntegral, tolerance * 1000);
+            assertEquals(closedForm.overlapYAreaIntegral, fallback.overlapYAreaIntegral, tolerance * 1000);
+            assertEquals(closedForm.overlapXSqPlusYSqAreaIntegral, fallback.overlapXSqPlusYSqAreaIntegral, tolerance * 1000000);
+
+            OverlapGradientForceCalculator closedFormForce = new OverlapGradientForceCalculator(firstShape, secondShape);
+            firstShape.collision(secondShape, true, true, true, closedFormForce);
+            OverlapGradientForceCalculator fallbackForce = new OverlapGradientForceCalculator(firstShape, secondShape);
+            firstShape.collision(secondShape, true, true, true, PolyarcgonCircleOverlapTest.withoutShortcuts(fallbackForce));
+            assertEquals(closedFormForce.overlapGradientForceX, fallbackForce.overlapGradientForceX, Math.sqrt(tolerance));
+            assertEquals(closedFormForce.overlapGradientForceY, fallbackForce.overlapGradientForceY, Math.sqrt(tolerance));
+            assertEquals(closedFormForce.overlapPerimeter, fallbackForce.overlapPerimeter, Math.sqrt(tolerance));
+            if (Math.abs(closedForm.overlapArea) > tolerance) {
+                overlapping++;
+            }
+        }
+        assertTrue(overlapping > 100);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that once the physics engine has warmed up, a frame of collision simulations
+ * doesn't allocate anything, so the garbage collector never interrupts the game.
+ */
+public class GamePhysicsEngineAllocationTest {
+    private static final int WARM_UP_FRAMES = 200;
+    private static final int MEASURED_FRAMES = 20;
+
+    @Test
+    public void update_doesNotAllocateOnceWarmedUp() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+        GamePhysicsEngine engine = makeCrowdedScene();
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            engine.update();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        // asking for the allocated bytes can allocate a little by itself, so measure that too
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        long afterNothing = allocationCounter.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            engine.update();
+        }
+        long afterUpdates = allocationCounter.getThreadAllocatedBytes(threadId);
+
+        assertEquals(0, (afterUpdates - afterNothing) - (afterNothing - before));
+    }
+
+    /**
+     * Shapes in a box, being pushed into a pile in one corner by a force field,
+     * so there are plenty of collisions between movable shapes, walls, and the force field every frame.
+     */
+    private static GamePhysicsEngine makeCrowdedScene() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-100, -100, 700, 700, true).addRoundedRectangleContour(0, 0, 600, 600, 30, false).buildAndReset());
+        for (int i = 0; i < 24; i++) {
+            double x = 60 + 90 * (i % 6);
+            double y = 60 + 90 * (i / 6);
+            if (i % 2 == 0) {
+                engine.addMovableShape(builder.addCircleContour(x, y, 35, true).buildAndReset());
+            } else {
+                engine.addMovableShape(builder.addRoundedRectangleContour(x - 40, y - 25, x + 40, y + 25, 8, true).buildAndReset());
+            }
+        }
+        GamePolyarcgon forceFieldArea = builder.addCircleContour(600, 600, 700, true).buildAndReset();
+        engine.forceFields.add(GameForceField.pushAwayForceField(forceFieldArea, 600, 600, GameForceField.PREFERRED_STRENGTH));
+        return engine;
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks collision layers stop shapes and force fields from touching, the same way a collision rule would.
+ */
+public class GamePhysicsEngineCollisionLayersTest {
+    @Test
+    public void layersThatDontCollide_passThroughEachOther() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GamePolyarcgon ball = builder.addCircleContour(500, 500, 40, true).buildAndReset();
+        GamePolyarcgon ghost = builder.addCircleContour(530, 500, 40, true).buildAndReset();
+        GamePolyarcgon wall = builder.addRectangleContour(540, 400, 600, 600, true).buildAndReset();
+        ghost.setCollisionLayer(3);
+        engine.addMovableShape(ball);
+        engine.addMovableShape(ghost);
+        engine.addWall(wall);
+        engine.setLayersCollide(0, 3, false);
+
+        engine.update();
+        // the ghost doesn't touch the ball or the wall, and the ball doesn't reach the wall
+        assertEquals(500, ball.getX(), 0.000001);
+        assertEquals(530, ghost.getX(), 0.000001);
+
+        // shapes on the same layer still collide
+        wall.setCollisionLayer(3);
+        engine.update();
+        assertEquals(500, ball.getX(), 0.000001);
+        assertTrue(ghost.getX() < 530);
+
+        engine.setLayersCollide(3, 0, true);
+        engine.update();
+        assertTrue(ball.getX() < 500);
+    }
+
+    @Test
+    public void forceFields_onlyPushLayersThatCollideWithTheirArea() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GamePolyarcgon ball = builder.addCircleContour(200, 500, 40, true).buildAndReset();
+        GamePolyarcgon otherBall = builder.addCircleContour(200, 700, 40, true).buildAndReset();
+        otherBall.setCollisionLayer(2);
+        engine.addMovableShape(ball);
+        engine.addMovableShape(otherBall);
+        GameExpandingCircle forceFieldArea = new GameExpandingCircle(100, 600, 200, 0, null);
+        forceFieldArea.setCollisionLayer(1);
+        engine.forceFields.add(GameForceField.simplePushAwayForceField(forceFieldArea, GameForceField.PREFERRED_STRENGTH));
+        engine.setLayersCollide(1, 2, false);
+
+        engine.update();
+        assertTrue(ball.getX() > 200);
+        assertEquals(200, otherBall.getX(), 0.000001);
+
+        // removeAllShapes() goes back to everything colliding
+        engine.removeAllShapes();
+        engine.addMovableShape(otherBall);
+        engine.forceFields.add(GameForceField.simplePushAwayForceField(forceFieldArea, GameForceField.PREFERRED_STRENGTH));
+        engine.update();
+        assertTrue(otherBall.getX() > 200);
+    }
+}
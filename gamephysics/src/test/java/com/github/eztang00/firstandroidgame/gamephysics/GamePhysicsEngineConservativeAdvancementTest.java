@@ -0,0 +1,105 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks a circle pushed along by a force field with nothing near it moves in a few big steps,
+ * and still stops for walls and where the force field stops pushing,
+ * while slow circles move exactly the same as any other shape.
+ */
+public class GamePhysicsEngineConservativeAdvancementTest {
+    @Test
+    public void nothingNearby_sameDistanceInFewerSimulations() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgon ball = new GamePolyarcgonBuilder().addCircleContour(500, 500, 20, true).buildAndReset();
+        engine.addMovableShape(ball);
+        // far bigger than the ball, so it's still pushing after a whole frame
+        engine.forceFields.add(GameForceField.simplePushAwayForceField(new GameExpandingCircle(200, 500, 1000, 0, null), GameForceField.PREFERRED_STRENGTH));
+
+        engine.update();
+        double expectedDistance = GamePhysicsEngine.SHAPE_COLLISION_SIMULATIONS_WITH_FORCE_FIELDS_PER_FRAME * GamePhysicsEngine.SHAPE_COLLISION_SIMULATION_MOVEMENT_SPEED;
+        assertEquals(500 + expectedDistance, ball.getX(), 0.000001);
+        assertEquals(500, ball.getY(), 0.000001);
+        assertTrue(engine.getMetrics().getCollisionSimulationCount() < GamePhysicsEngine.SHAPE_COLLISION_SIMULATIONS_WITH_FORCE_FIELDS_PER_FRAME / 2);
+        assertTrue(engine.getMetrics().getSkippedCollisionSimulationCount() > 0);
+    }
+
+    @Test
+    public void wallAhead_stopsAtTheWall() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        // small enough that even one collision simulation's worth of movement is more than half its radius
+        GamePolyarcgon ball = builder.addCircleContour(500, 500, 5, true).buildAndReset();
+        engine.addMovableShape(ball);
+        // a wall thinner than a collision simulation's worth of movement
+        engine.addWall(builder.addRectangleContour(560, 300, 561, 700, true).buildAndReset());
+        engine.forceFields.add(GameForceField.simplePushAwayForceField(new GameExpandingCircle(200, 500, 1000, 0, null), 20 * GameForceField.PREFERRED_STRENGTH));
+
+        for (int frame = 0; frame < 10; frame++) {
+            engine.update();
+            assertTrue(ball.getX() < 560.5);
+        }
+        // it did get right up to the wall
+        assertTrue(ball.getX() > 535);
+    }
+
+    @Test
+    public void leavingTheForceField_stopsWhereItStopsPushing() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgon ball = new GamePolyarcgonBuilder().addCircleContour(500, 500, 20, true).buildAndReset();
+        engine.addMovableShape(ball);
+        engine.forceFields.add(GameForceField.simplePushAwayForceField(new GameExpandingCircle(450, 500, 60, 0, null), GameForceField.PREFERRED_STRENGTH));
+
+        engine.update();
+        // within a collision simulation's worth of where the ball just touches the force field
+        assertTrue(ball.getX() > 530 - GamePhysicsEngine.SHAPE_COLLISION_SIMULATION_MOVEMENT_SPEED);
+        assertTrue(ball.getX() < 530 + GamePhysicsEngine.SHAPE_COLLISION_SIMULATION_MOVEMENT_SPEED);
+    }
+
+    @Test
+    public void slowCircles_sameAsWithoutConservativeAdvancement() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        List<GamePolyarcgon> walls = new ArrayList<>();
+        List<GamePolyarcgon> balls = new ArrayList<>();
+        buildBallsPushedIntoThinWall(walls, balls);
+        for (GamePolyarcgon wall : walls) {
+            engine.addWall(wall);
+        }
+        for (GamePolyarcgon ball : balls) {
+            engine.addMovableShape(ball);
+        }
+        List<GamePolyarcgon> oldWayWalls = new ArrayList<>();
+        List<GamePolyarcgon> oldWayBalls = new ArrayList<>();
+        buildBallsPushedIntoThinWall(oldWayWalls, oldWayBalls);
+
+        double furthestIntoTheWall = 0;
+        for (int frame = 0; frame < 3; frame++) {
+            engine.update();
+            GamePhysicsEngineContactIslandsTest.updateTheOldWay(oldWayWalls, oldWayBalls);
+            for (int i = 0; i < balls.size(); i++) {
+                assertEquals(oldWayBalls.get(i).getX(), balls.get(i).getX(), 1e-6);
+                assertEquals(oldWayBalls.get(i).getY(), balls.get(i).getY(), 1e-6);
+            }
+            furthestIntoTheWall = Math.max(furthestIntoTheWall, balls.get(0).getX());
+        }
+        // the ball next to the wall really was pushed closer to it than half its radius, so stopping faster circles short would have changed it
+        assertTrue(furthestIntoTheWall > 500 - 15);
+    }
+
+    /**
+     * A ball already within 16 of a thin wall, and another ball overlapping it pushing it further in.
+     * Each collision simulation is a lot less than half their radius.
+     */
+    private static void buildBallsPushedIntoThinWall(List<GamePolyarcgon> walls, List<GamePolyarcgon> balls) {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        walls.add(builder.addRectangleContour(500, 300, 501, 700, true).buildAndReset());
+        balls.add(builder.addCircleContour(484, 500, 30, true).buildAndReset());
+        balls.add(builder.addCircleContour(440, 505, 30, true).buildAndReset());
+    }
+}
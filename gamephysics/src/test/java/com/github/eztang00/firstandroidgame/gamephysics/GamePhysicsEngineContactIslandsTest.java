@@ -0,0 +1,159 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks grouping shapes into contact islands with union find and solving each island
+ * moves everything the same as the old way, which found the islands by walking from shape to shape
+ * through a map of every shape's contacts.
+ */
+public class GamePhysicsEngineContactIslandsTest {
+    private static final int FRAMES = 3;
+    // the first SHAPES_TOUCHING shapes touch something, the rest are on their own
+    private static final int SHAPES_TOUCHING = 9;
+
+    @Test
+    public void chainsAndLoneShapes_sameAsWalkingTheContacts() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        List<GamePolyarcgon> walls = new ArrayList<>();
+        List<GamePolyarcgon> shapes = new ArrayList<>();
+        buildScene(walls, shapes);
+        for (GamePolyarcgon wall : walls) {
+            engine.addWall(wall);
+        }
+        for (GamePolyarcgon shape : shapes) {
+            engine.addMovableShape(shape);
+        }
+        List<GamePolyarcgon> oldWayWalls = new ArrayList<>();
+        List<GamePolyarcgon> oldWayShapes = new ArrayList<>();
+        buildScene(oldWayWalls, oldWayShapes);
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            engine.update();
+            updateTheOldWay(oldWayWalls, oldWayShapes);
+        }
+        int movedShapes = 0;
+        for (int i = 0; i < shapes.size(); i++) {
+            GamePolyarcgon shape = shapes.get(i);
+            GamePolyarcgon oldWayShape = oldWayShapes.get(i);
+            // the same forces added up in a different order, so only the last few bits can be different
+            assertEquals(oldWayShape.getX(), shape.getX(), 1e-6);
+            assertEquals(oldWayShape.getY(), shape.getY(), 1e-6);
+            assertEquals(oldWayShape.rotationRadians, shape.rotationRadians, 1e-9);
+            GamePolyarcgon startingShape = buildShape(i);
+            if (shape.getX() != startingShape.getX() || shape.getY() != startingShape.getY()) {
+                movedShapes++;
+            }
+        }
+        // the chain, the pair and the box in the wall moved, the lone boxes didn't
+        assertTrue("only " + movedShapes + " shapes moved", movedShapes >= 8);
+        for (int i = SHAPES_TOUCHING; i < shapes.size(); i++) {
+            assertEquals(buildShape(i).getX(), shapes.get(i).getX(), 0);
+            assertEquals(buildShape(i).getY(), shapes.get(i).getY(), 0);
+        }
+    }
+
+    private static void buildScene(List<GamePolyarcgon> walls, List<GamePolyarcgon> shapes) {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        walls.add(builder.addRectangleContour(-100, -100, 1100, 1100, true).addRectangleContour(0, 0, 1000, 1000, false).buildAndReset());
+        for (int i = 0; i < SHAPES_TOUCHING + 4; i++) {
+            shapes.add(buildShape(i));
+        }
+    }
+
+    /**
+     * Boxes rather than circles, so every shape takes normal collision simulation sized steps
+     */
+    private static GamePolyarcgon buildShape(int i) {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        if (i < 5) {
+            // a chain of 5 boxes each overlapping the next, a bit crooked so they turn too
+            double x = 100 + i * 55;
+            double y = 200 + i * 6;
+            return builder.addRoundedRectangleContour(x, y, x + 60, y + 40, 6, true).buildAndReset();
+        } else if (i < 7) {
+            // a pair overlapping each other
+            double x = 600 + (i - 5) * 50;
+            return builder.addRoundedRectangleContour(x, 600, x + 60, 650 + (i - 5) * 10, 6, true).buildAndReset();
+        } else if (i < SHAPES_TOUCHING) {
+            // two boxes sticking into the bottom wall on their own
+            double x = 200 + (i - 7) * 300;
+            return builder.addRoundedRectangleContour(x, 980, x + 50, 1010, 6, true).buildAndReset();
+        } else {
+            double x = 150 + (i - SHAPES_TOUCHING) * 200;
+            return builder.addRoundedRectangleContour(x, 800, x + 40, 840, 6, true).buildAndReset();
+        }
+    }
+
+    /**
+     * What GamePhysicsEngine.update() used to do without force fields: collide every shape with every wall and every other shape,
+     * then for each group of shapes connected by contacts, push each one so the fastest moves a collision simulation's worth.
+     */
+    static void updateTheOldWay(List<GamePolyarcgon> walls, List<GamePolyarcgon> shapes) {
+        for (int simulation = 0; simulation < GamePhysicsEngine.SHAPE_COLLISION_SIMULATIONS_PER_FRAME; simulation++) {
+            Map<GameShape, List<OverlapGradientForceCalculator>> contacts = new IdentityHashMap<>();
+            for (GamePolyarcgon shape : shapes) {
+                for (GamePolyarcgon wall : walls) {
+                    OverlapGradientForceCalculator collision = new OverlapGradientForceCalculator(shape, wall);
+                    shape.collision(wall, true, false, true, collision);
+                    if (!collision.isAlmostZero()) {
+                        contacts.computeIfAbsent(shape, s -> new ArrayList<>()).add(collision);
+                    }
+                }
+                for (GamePolyarcgon otherShape : shapes) {
+                    if (otherShape == shape) {
+                        continue;
+                    }
+                    OverlapGradientForceCalculator collision = new OverlapGradientForceCalculator(shape, otherShape);
+                    shape.collision(otherShape, true, true, true, collision);
+                    if (!collision.isAlmostZero()) {
+                        contacts.computeIfAbsent(shape, s -> new ArrayList<>()).add(collision);
+                        contacts.computeIfAbsent(otherShape, s -> new ArrayList<>()).add(collision);
+                    }
+                }
+            }
+            if (contacts.isEmpty()) {
+                return;
+            }
+            Map<GameShape, ForceAndTorque> pushes = new IdentityHashMap<>();
+            for (GamePolyarcgon shape : shapes) {
+                if (!contacts.containsKey(shape) || pushes.containsKey(shape)) {
+                    continue;
+                }
+                Map<GameShape, ForceAndTorque> island = new IdentityHashMap<>();
+                double maxMovement = walkContacts(island, shape, contacts, 0.001);
+                for (ForceAndTorque push : island.values()) {
+                    push.multiplyIntensity(GamePhysicsEngine.SHAPE_COLLISION_SIMULATION_MOVEMENT_SPEED / maxMovement);
+                }
+                pushes.putAll(island);
+            }
+            for (Map.Entry<GameShape, ForceAndTorque> push : pushes.entrySet()) {
+                push.getKey().receiveForce(push.getValue());
+            }
+        }
+    }
+
+    private static double walkContacts(Map<GameShape, ForceAndTorque> island, GameShape shape, Map<GameShape, List<OverlapGradientForceCalculator>> contacts, double maxMovement) {
+        ForceAndTorque total = new ForceAndTorque(0, 0, 0, 0, shape);
+        island.put(shape, total);
+        for (OverlapGradientForceCalculator collision : contacts.get(shape)) {
+            total.addForceAndTorque(collision);
+            GameShape other = shape == collision.firstShape ? collision.otherShape : collision.firstShape;
+            // walls never have contacts of their own, so this only walks to movable shapes
+            if (contacts.containsKey(other) && !island.containsKey(other)) {
+                maxMovement = walkContacts(island, other, contacts, maxMovement);
+            }
+        }
+        double translationMovement = Math.hypot(total.forceActingOnShapeX, total.forceActingOnShapeY) / shape.getMass();
+        double rotationMovement = Math.abs(total.torqueActingOnShape / shape.getMomentOfInertia() * shape.getBoundingRadius());
+        return Math.max(maxMovement, translationMovement + rotationMovement);
+    }
+}
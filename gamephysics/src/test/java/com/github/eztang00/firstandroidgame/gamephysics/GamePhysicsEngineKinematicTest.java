@@ -0,0 +1,109 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+/**
+ * Checks kinematic shapes follow their pose, exactly unless their rotation is rounded for the pose cache,
+ * and their geometry from the pose cache is the same as working it out from scratch.
+ */
+public class GamePhysicsEngineKinematicTest {
+    private static GamePolyarcgon makeWindmill() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        for (int i = 0; i < 4; i++) {
+            double angle = i * Math.PI / 2;
+            builder.newContour();
+            builder.lineTo(500 + 40 * Math.cos(angle - 0.3), 500 + 40 * Math.sin(angle - 0.3));
+            builder.lineTo(500 + 300 * Math.cos(angle - 0.3), 500 + 300 * Math.sin(angle - 0.3));
+            builder.lineTo(500 + 300 * Math.cos(angle + 0.3), 500 + 300 * Math.sin(angle + 0.3));
+            builder.lineTo(500 + 40 * Math.cos(angle + 0.3), 500 + 40 * Math.sin(angle + 0.3));
+        }
+        return builder.addCircleContour(500, 500, 30, true).buildAndReset();
+    }
+
+    @Test
+    public void spinningShape_sameGeometryAsWithoutPoseCache() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgon windmill = makeWindmill();
+        GamePolyarcgon sameWindmill = makeWindmill();
+        double startX = windmill.x;
+        double startY = windmill.y;
+        // goes round more than once so poses get reused, and slides back and forth so they're reused somewhere else
+        engine.addKinematicShape(windmill, (shape, frame) -> {
+            shape.setPos(startX + (frame / 300 % 2) * 3.5, startY);
+            shape.setRotation(-frame * Math.PI / 150.0);
+        }, true);
+        double tolerance = 0.000000001;
+        for (int frame = 1; frame <= 800; frame++) {
+            engine.update();
+            assertEquals(PolyarcgonPoseCache.roundToAngleStep(-frame * Math.PI / 150.0), windmill.rotationRadians, 0);
+            assertEquals(startX + (frame / 300 % 2) * 3.5, windmill.x, 0);
+            sameWindmill.setPos(windmill.x, windmill.y);
+            sameWindmill.setRotation(windmill.rotationRadians);
+
+            PolyarcgonGeometry geometry = windmill.geometryCache.get();
+            PolyarcgonGeometry expectedGeometry = sameWindmill.geometryCache.get();
+            for (int i = 0; i < geometry.pointCount; i++) {
+                assertEquals(expectedGeometry.xs[i], geometry.xs[i], tolerance);
+                assertEquals(expectedGeometry.ys[i], geometry.ys[i], tolerance);
+                assertEquals(expectedGeometry.pointToPointXs[i], geometry.pointToPointXs[i], tolerance);
+                assertEquals(expectedGeometry.pointToPointYs[i], geometry.pointToPointYs[i], tolerance);
+                assertEquals(expectedGeometry.arcCenterXs[i], geometry.arcCenterXs[i], tolerance);
+                assertEquals(expectedGeometry.arcCenterYs[i], geometry.arcCenterYs[i], tolerance);
+                // one turn later the angle might be the same angle plus or minus 2 pi
+                assertEquals(Math.cos(expectedGeometry.startAngles[i]), Math.cos(geometry.startAngles[i]), tolerance);
+                assertEquals(Math.sin(expectedGeometry.startAngles[i]), Math.sin(geometry.startAngles[i]), tolerance);
+            }
+            PolyarcgonEdgeTree edgeTree = windmill.edgeTreeCache.get();
+            PolyarcgonEdgeTree expectedEdgeTree = sameWindmill.edgeTreeCache.get();
+            for (int i = 0; i < geometry.pointCount; i++) {
+                if (geometry.edgeKinds[i] != PolyarcgonGeometry.NO_EDGE) {
+                    assertEquals(expectedEdgeTree.edgeMinX[i], edgeTree.edgeMinX[i], tolerance);
+                    assertEquals(expectedEdgeTree.edgeMinY[i], edgeTree.edgeMinY[i], tolerance);
+                    assertEquals(expectedEdgeTree.edgeMaxX[i], edgeTree.edgeMaxX[i], tolerance);
+                    assertEquals(expectedEdgeTree.edgeMaxY[i], edgeTree.edgeMaxY[i], tolerance);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void withoutRounding_keepsTheExactRotation() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgon windmill = makeWindmill();
+        GamePolyarcgon sameWindmill = makeWindmill();
+        // nowhere near a whole number of angle steps
+        double speed = 0.1 * PolyarcgonPoseCache.ANGLE_STEP + 1e-9;
+        engine.addKinematicShape(windmill, (shape, frame) -> shape.setRotation(frame * speed));
+        assertFalse(windmill.isPoseCacheEnabled());
+        for (int frame = 1; frame <= 50; frame++) {
+            engine.update();
+            assertEquals(frame * speed, windmill.rotationRadians, 0);
+            sameWindmill.setRotation(frame * speed);
+            PolyarcgonGeometry geometry = windmill.geometryCache.get();
+            PolyarcgonGeometry expectedGeometry = sameWindmill.geometryCache.get();
+            for (int i = 0; i < geometry.pointCount; i++) {
+                assertEquals(expectedGeometry.xs[i], geometry.xs[i], 0);
+                assertEquals(expectedGeometry.ys[i], geometry.ys[i], 0);
+            }
+        }
+    }
+
+    @Test
+    public void removeAllShapes_restartsTheFrames() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgon windmill = makeWindmill();
+        engine.addKinematicShape(windmill, (shape, frame) -> shape.setRotation(frame * PolyarcgonPoseCache.ANGLE_STEP));
+        assertEquals(0, windmill.rotationRadians, 0);
+        engine.update();
+        engine.update();
+        assertEquals(2 * PolyarcgonPoseCache.ANGLE_STEP, windmill.rotationRadians, 0);
+
+        engine.removeAllShapes();
+        engine.addKinematicShape(windmill, (shape, frame) -> shape.setRotation(frame * PolyarcgonPoseCache.ANGLE_STEP));
+        engine.update();
+        assertEquals(PolyarcgonPoseCache.ANGLE_STEP, windmill.rotationRadians, 0);
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks the parallel narrow phase and contact island solving give exactly the same results as doing everything on one thread.
+ */
+public class GamePhysicsEngineParallelTest {
+    private static final int SHAPE_COUNT = 300;
+    private static final int FRAMES = 10;
+
+    @Test
+    public void parallelNarrowPhase_isBitIdenticalToSerial() {
+        long[] serialResult = simulate(null);
+        // the last two are the pair tests and contacts in the metrics, which should be the same too
+        assertTrue(serialResult[serialResult.length - 1] > 0);
+        for (int parallelism : new int[]{1, 2, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                long[] parallelResult = simulate(pool);
+                assertEquals(serialResult.length, parallelResult.length);
+                for (int i = 0; i < serialResult.length; i++) {
+                    assertEquals(serialResult[i], parallelResult[i]);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void manySeparatePiles_isBitIdenticalToSerial() {
+        long[] serialResult = simulateSeparatePiles(null);
+        for (int parallelism : new int[]{1, 2, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                long[] parallelResult = simulateSeparatePiles(pool);
+                for (int i = 0; i < serialResult.length; i++) {
+                    assertEquals(serialResult[i], parallelResult[i]);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return the exact x, y and rotation of every shape after a growing ripple pushes a crowd of shapes around,
+     * then the pair tests and contacts added up over every frame
+     */
+    private static long[] simulate(ForkJoinPool pool) {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        engine.setNarrowPhasePool(pool);
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-200, -200, 1280, 2120, true).addRoundedRectangleContour(0, 0, 1080, 1920, 30, false).buildAndReset());
+        engine.addWall(builder.addRectangleContour(300, 800, 780, 830, true).buildAndReset());
+        Random random = new Random(42);
+        int columns = (int) Math.ceil(Math.sqrt(SHAPE_COUNT * 1080.0 / 1920));
+        double spacing = 1080.0 / (columns + 1);
+        for (int i = 0; i < SHAPE_COUNT; i++) {
+            double x = spacing * (1 + i % columns) + random.nextDouble() * 6;
+            double y = spacing * (1 + i / columns) + random.nextDouble() * 6;
+            double size = spacing * (0.35 + 0.2 * random.nextDouble());
+            GamePolyarcgon shape;
+            if (random.nextBoolean()) {
+                shape = builder.addCircleContour(x, y, size, true).buildAndReset();
+            } else {
+                shape = builder.addRoundedRectangleContour(x - size, y - size * 0.6, x + size, y + size * 0.6, size * 0.2, true).buildAndReset();
+                shape.setRotation(random.nextDouble());
+            }
+            engine.addMovableShape(shape);
+        }
+
+        return simulateRipples(engine, builder);
+    }
+
+    /**
+     * @return the exact x, y and rotation of every shape after a big ripple pushes piles of shapes in separate corridors
+     * into the corridors' ends, so there are lots of contact islands of different sizes
+     */
+    private static long[] simulateSeparatePiles(ForkJoinPool pool) {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        engine.setNarrowPhasePool(pool);
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        builder.addRectangleContour(-200, -200, 1280, 2120, true);
+        int corridors = 20;
+        double corridorWidth = 1080.0 / corridors;
+        for (int corridor = 0; corridor < corridors; corridor++) {
+            // the walls between the corridors, and the end of the corridor the shapes get pushed into
+            builder.addRectangleContour(corridor * corridorWidth, 200, corridor * corridorWidth + 6, 1920, false);
+        }
+        builder.addRectangleContour(0, 0, 1080, 200, false);
+        engine.addWall(builder.buildAndReset());
+        Random random = new Random(7);
+        for (int corridor = 0; corridor < corridors; corridor++) {
+            double x = (corridor + 0.5) * corridorWidth + 3;
+            int pileSize = 1 + corridor % 5;
+            for (int i = 0; i < pileSize; i++) {
+                // starting a little squashed together and into the end of the corridor
+                double size = corridorWidth * (0.3 + 0.1 * random.nextDouble());
+                engine.addMovableShape(builder.addCircleContour(x + random.nextDouble() * 4 - 2, 200 + size * (0.9 + i * 1.8), size, true).buildAndReset());
+            }
+        }
+        GamePolyarcgon ripple = builder.addCircleContour(540, 3000, 2790, true).buildAndReset();
+        engine.forceFields.add(GameForceField.pushAwayForceField(ripple, 540, 3000, GameForceField.PREFERRED_STRENGTH));
+        for (int frame = 0; frame < FRAMES; frame++) {
+            engine.update();
+        }
+        return getPositions(engine);
+    }
+
+    private static long[] simulateRipples(GamePhysicsEngine engine, GamePolyarcgonBuilder builder) {
+        long pairTestCount = 0;
+        long contactCount = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            engine.forceFields.clear();
+            double rippleRadius = 100 + 60 * frame;
+            GamePolyarcgon ripple = builder.addCircleContour(540, 1700, rippleRadius, true).buildAndReset();
+            engine.forceFields.add(GameForceField.pushAwayForceField(ripple, 540, 1700, GameForceField.PREFERRED_STRENGTH));
+            engine.update();
+            pairTestCount += engine.getMetrics().getPairTestCount();
+            contactCount += engine.getMetrics().getContactCount();
+        }
+        long[] positions = getPositions(engine);
+        long[] result = Arrays.copyOf(positions, positions.length + 2);
+        result[positions.length] = pairTestCount;
+        result[positions.length + 1] = contactCount;
+        return result;
+    }
+
+    private static long[] getPositions(GamePhysicsEngine engine) {
+        long[] result = new long[3 * engine.movableShapes.size()];
+        for (int i = 0; i < engine.movableShapes.size(); i++) {
+            GamePolyarcgon shape = (GamePolyarcgon) engine.movableShapes.get(i);
+            result[3 * i] = Double.doubleToLongBits(shape.getX());
+            result[3 * i + 1] = Double.doubleToLongBits(shape.getY());
+            result[3 * i + 2] = Double.doubleToLongBits(shape.rotationRadians);
+        }
+        return result;
+    }
+}
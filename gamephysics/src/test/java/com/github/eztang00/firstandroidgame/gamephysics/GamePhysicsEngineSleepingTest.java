@@ -0,0 +1,172 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * Checks shapes that are left alone fall asleep, wake up again when something reaches them,
+ * and that a scene where everything is asleep doesn't test anything for collisions.
+ */
+public class GamePhysicsEngineSleepingTest {
+    @Test
+    public void restingShapes_sleepUntilForceFieldReachesThem() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-100, -100, 1100, 1100, true).addRectangleContour(0, 0, 1000, 1000, false).buildAndReset());
+        GamePolyarcgon ball = builder.addCircleContour(200, 500, 40, true).buildAndReset();
+        engine.addMovableShape(ball);
+        engine.addMovableShape(builder.addCircleContour(800, 500, 40, true).buildAndReset());
+
+        for (int i = 0; i < GamePhysicsEngine.SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING; i++) {
+            engine.update();
+        }
+        assertEquals(2, engine.getMetrics().getSleepingShapeCount());
+
+        GamePolyarcgon forceFieldArea = builder.addCircleContour(100, 500, 120, true).buildAndReset();
+        engine.forceFields.add(GameForceField.pushAwayForceField(forceFieldArea, 100, 500, GameForceField.PREFERRED_STRENGTH));
+        engine.update();
+        assertEquals(1, engine.getMetrics().getSleepingShapeCount());
+        assertTrue(ball.getX() > 200);
+
+        // teleporting a shape wakes it up too
+        engine.forceFields.clear();
+        for (int i = 0; i < GamePhysicsEngine.SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING; i++) {
+            engine.update();
+        }
+        assertEquals(2, engine.getMetrics().getSleepingShapeCount());
+        ball.setPos(500, 500);
+        engine.update();
+        assertEquals(1, engine.getMetrics().getSleepingShapeCount());
+    }
+
+    @Test
+    public void kinematicShape_wakesSleepingShapeItReaches() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-100, -100, 1100, 1100, true).addRectangleContour(0, 0, 1000, 1000, false).buildAndReset());
+        GamePolyarcgon ball = builder.addCircleContour(500, 500, 40, true).buildAndReset();
+        engine.addMovableShape(ball);
+        double ballX = ball.getX();
+        // small enough to be in the broad phase's grid, rather than everything's broad phase candidate
+        GamePolyarcgon pusher = builder.addRectangleContour(100, 460, 140, 540, true).buildAndReset();
+        double startX = pusher.x;
+        engine.addKinematicShape(pusher, (shape, frame) -> shape.setPos(startX + 10 * frame, shape.getY()));
+
+        for (int i = 0; i < 15; i++) {
+            engine.update();
+        }
+        // the pusher is still a long way off
+        assertEquals(1, engine.getMetrics().getSleepingShapeCount());
+        assertEquals(ballX, ball.getX(), 0);
+        for (int i = 0; i < 25; i++) {
+            engine.update();
+        }
+        assertEquals(0, engine.getMetrics().getSleepingShapeCount());
+        assertTrue(ball.getX() > ballX);
+        // never left inside the pusher
+        assertTrue(ball.getX() - 40 > pusher.getX() + 20 - 5);
+    }
+
+    @Test
+    public void wallMovedOutsideEngine_wakesOnlyShapesNearIt() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-100, -100, 1100, 1100, true).addRectangleContour(0, 0, 1000, 1000, false).buildAndReset());
+        GamePolyarcgon block = builder.addRectangleContour(100, 100, 160, 160, true).buildAndReset();
+        engine.addWall(block);
+        GamePolyarcgon nearBall = builder.addCircleContour(200, 130, 30, true).buildAndReset();
+        GamePolyarcgon farBall = builder.addCircleContour(800, 800, 30, true).buildAndReset();
+        engine.addMovableShape(nearBall);
+        engine.addMovableShape(farBall);
+        double farBallX = farBall.getX();
+        for (int i = 0; i < GamePhysicsEngine.SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING; i++) {
+            engine.update();
+        }
+        assertEquals(2, engine.getMetrics().getSleepingShapeCount());
+
+        block.setPos(block.getX() + 30, block.getY());
+        engine.update();
+        assertEquals(1, engine.getMetrics().getSleepingShapeCount());
+        assertTrue(nearBall.getX() > 200);
+        assertEquals(farBallX, farBall.getX(), 0);
+    }
+
+    @Test
+    public void pushedIntoSleepingShapes_wholeRowWakesUp() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-100, -100, 1100, 1100, true).addRectangleContour(0, 0, 1000, 1000, false).buildAndReset());
+        ArrayList<GamePolyarcgon> row = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // just not touching
+            GamePolyarcgon ball = builder.addCircleContour(200 + i * 62, 500, 30, true).buildAndReset();
+            row.add(ball);
+            engine.addMovableShape(ball);
+        }
+        // a pusher that starts moving once they're asleep only reaches the first one, the rest get pushed by the one before
+        GamePolyarcgon pusher = builder.addRectangleContour(100, 480, 140, 520, true).buildAndReset();
+        double startX = pusher.x;
+        int framesBeforeMoving = GamePhysicsEngine.SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING + 2;
+        engine.addKinematicShape(pusher, (shape, frame) -> shape.setPos(startX + 10 * Math.max(0, frame - framesBeforeMoving), shape.getY()));
+        for (int i = 0; i < framesBeforeMoving; i++) {
+            engine.update();
+        }
+        assertEquals(row.size(), engine.getMetrics().getSleepingShapeCount());
+
+        for (int i = 0; i < 15; i++) {
+            engine.update();
+        }
+        assertEquals(0, engine.getMetrics().getSleepingShapeCount());
+        for (int i = 0; i < row.size(); i++) {
+            assertTrue("ball " + i + " didn't move", row.get(i).getX() > 200 + i * 62 + 1);
+        }
+    }
+
+    @Test
+    public void everythingAsleep_nothingTestedForCollisions() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-100, -100, 2100, 2100, true).addRectangleContour(0, 0, 2000, 2000, false).buildAndReset());
+        ArrayList<GamePolyarcgon> balls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                GamePolyarcgon ball = builder.addCircleContour(50 + i * 95, 50 + j * 95, 30, true).buildAndReset();
+                balls.add(ball);
+                engine.addMovableShape(ball);
+            }
+        }
+        int[] collisionRuleChecks = new int[1];
+        engine.addCollisionRule((shape, otherShape) -> {
+            collisionRuleChecks[0]++;
+            return true;
+        });
+        for (int i = 0; i < GamePhysicsEngine.SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING; i++) {
+            engine.update();
+        }
+        // while they were awake every ball was tested against at least the wall around them
+        assertTrue(collisionRuleChecks[0] >= balls.size() * GamePhysicsEngine.SIMULATIONS_WITHOUT_CONTACT_BEFORE_SLEEPING);
+        assertEquals(balls.size(), engine.getMetrics().getSleepingShapeCount());
+
+        collisionRuleChecks[0] = 0;
+        for (int i = 0; i < 10; i++) {
+            engine.update();
+            assertEquals(0, engine.getMetrics().getPairTestCount());
+            assertEquals(1, engine.getMetrics().getCollisionSimulationCount());
+        }
+        assertEquals(0, collisionRuleChecks[0]);
+
+        // one awake ball is only tested against what's near it, not against every sleeping ball
+        GamePolyarcgon ball = balls.get(210);
+        ball.setPos(ball.getX() + 1, ball.getY());
+        engine.update();
+        assertEquals(balls.size() - 1, engine.getMetrics().getSleepingShapeCount());
+        assertTrue(engine.getMetrics().getPairTestCount() > 0);
+        assertTrue(engine.getMetrics().getPairTestCount() <= 10);
+        assertFalse(collisionRuleChecks[0] > 10);
+    }
+}
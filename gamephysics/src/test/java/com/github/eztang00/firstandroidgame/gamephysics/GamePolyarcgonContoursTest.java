@@ -0,0 +1,80 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Checks the outline a GamePolyarcgon gives a renderer is in its own frame, and doesn't change as it moves.
+ */
+public class GamePolyarcgonContoursTest {
+    /**
+     * Writes down everything it's given, rounded so it's easy to compare
+     */
+    private static class RecordingPathBuilder implements PolyarcgonPathBuilder {
+        final ArrayList<String> commands = new ArrayList<>();
+
+        @Override
+        public void moveTo(double x, double y) {
+            commands.add(String.format(Locale.ROOT, "moveTo %.3f %.3f", x, y));
+        }
+
+        @Override
+        public void lineTo(double x, double y) {
+            commands.add(String.format(Locale.ROOT, "lineTo %.3f %.3f", x, y));
+        }
+
+        @Override
+        public void arcTo(double centerX, double centerY, double radius, double startAngle, double angleChange) {
+            commands.add(String.format(Locale.ROOT, "arcTo %.3f %.3f %.3f %.3f %.3f", centerX, centerY, radius, startAngle, angleChange));
+        }
+    }
+
+    @Test
+    public void rectangle_cornersAroundItsCenter() {
+        GamePolyarcgon rectangle = new GamePolyarcgonBuilder().addRectangleContour(100, 200, 140, 220, true).buildAndReset();
+        RecordingPathBuilder path = new RecordingPathBuilder();
+        rectangle.addContoursTo(path);
+        assertEquals(5, path.commands.size());
+        assertEquals("moveTo", path.commands.get(0).split(" ")[0]);
+        for (String command : path.commands) {
+            String[] parts = command.split(" ");
+            assertEquals(20, Math.abs(Double.parseDouble(parts[1])), 0.001);
+            assertEquals(10, Math.abs(Double.parseDouble(parts[2])), 0.001);
+        }
+    }
+
+    @Test
+    public void circle_oneWholeArc() {
+        GamePolyarcgon circle = new GamePolyarcgonBuilder().addCircleContour(500, 500, 20, true).buildAndReset();
+        RecordingPathBuilder path = new RecordingPathBuilder();
+        circle.addContoursTo(path);
+        double angleChange = 0;
+        for (String command : path.commands) {
+            String[] parts = command.split(" ");
+            if (parts[0].equals("arcTo")) {
+                assertEquals(0, Double.parseDouble(parts[1]), 0.001);
+                assertEquals(0, Double.parseDouble(parts[2]), 0.001);
+                assertEquals(20, Double.parseDouble(parts[3]), 0.001);
+                angleChange += Double.parseDouble(parts[5]);
+            }
+        }
+        assertEquals(2 * Math.PI, Math.abs(angleChange), 0.001);
+    }
+
+    @Test
+    public void movedAndRotated_sameOutline() {
+        GamePolyarcgon shape = new GamePolyarcgonBuilder().addRoundedRectangleContour(0, 0, 300, 40, 10, true).buildAndReset();
+        RecordingPathBuilder before = new RecordingPathBuilder();
+        shape.addContoursTo(before);
+        shape.setPos(700, 900);
+        shape.setRotation(1.3);
+        shape.updateCollisionCaches();
+        RecordingPathBuilder after = new RecordingPathBuilder();
+        shape.addContoursTo(after);
+        assertEquals(before.commands, after.commands);
+    }
+}
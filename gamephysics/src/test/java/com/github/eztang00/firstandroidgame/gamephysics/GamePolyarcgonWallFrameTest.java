@@ -0,0 +1,86 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Checks colliding a movable shape with a wall in the wall's own frame gives the same overlap as colliding them where they are.
+ */
+public class GamePolyarcgonWallFrameTest {
+    /**
+     * @return whether the shapes overlap at all
+     */
+    private static boolean assertSameAsWorldFrame(GamePolyarcgon movableShape, GamePolyarcgon wall, boolean movableShapeIsFirstShape, boolean onlyTotals) {
+        GamePolyarcgon firstShape = movableShapeIsFirstShape ? movableShape : wall;
+        GamePolyarcgon otherShape = movableShapeIsFirstShape ? wall : movableShape;
+        double area = Math.min(Math.abs(movableShape.getArea()), Math.abs(wall.getArea()));
+        double tolerance = 0.000000001 * area;
+        // the integrals are bigger because the shapes are a few hundred pixels from 0, 0
+        double integralTolerance = tolerance * 1000;
+
+        OverlapAreaIntegralCalculator overlap = new OverlapAreaIntegralCalculator(firstShape, otherShape);
+        OverlapAreaIntegralCalculator expectedOverlap = new OverlapAreaIntegralCalculator(firstShape, otherShape);
+        // the world frame is used when both are movable
+        firstShape.collision(otherShape, true, true, true, onlyTotals ? expectedOverlap : PolyarcgonCircleOverlapTest.withoutShortcuts(expectedOverlap));
+        movableShape.collision(wall, true, false, movableShapeIsFirstShape, onlyTotals ? overlap : PolyarcgonCircleOverlapTest.withoutShortcuts(overlap));
+        assertEquals(expectedOverlap.overlapArea, overlap.overlapArea, tolerance);
+        assertEquals(expectedOverlap.overlapXAreaIntegral, overlap.overlapXAreaIntegral, integralTolerance);
+        assertEquals(expectedOverlap.overlapYAreaIntegral, overlap.overlapYAreaIntegral, integralTolerance);
+        assertEquals(expectedOverlap.overlapXSqPlusYSqAreaIntegral, overlap.overlapXSqPlusYSqAreaIntegral, integralTolerance * 1000);
+
+        OverlapGradientForceCalculator force = new OverlapGradientForceCalculator(firstShape, otherShape);
+        OverlapGradientForceCalculator expectedForce = new OverlapGradientForceCalculator(firstShape, otherShape);
+        firstShape.collision(otherShape, true, true, true, onlyTotals ? expectedForce : PolyarcgonCircleOverlapTest.withoutShortcuts(expectedForce));
+        // and the wall can be the one asked to collide too
+        wall.collision(movableShape, false, true, !movableShapeIsFirstShape, onlyTotals ? force : PolyarcgonCircleOverlapTest.withoutShortcuts(force));
+        double lengthTolerance = Math.sqrt(tolerance);
+        assertEquals(expectedForce.overlapGradientForceX, force.overlapGradientForceX, lengthTolerance);
+        assertEquals(expectedForce.overlapGradientForceY, force.overlapGradientForceY, lengthTolerance);
+        assertEquals(expectedForce.overlapGradientTorqueOnFirstShape, force.overlapGradientTorqueOnFirstShape, lengthTolerance * 1000);
+        assertEquals(expectedForce.overlapGradientTorqueOnOtherShape, force.overlapGradientTorqueOnOtherShape, lengthTolerance * 1000);
+        assertEquals(expectedForce.overlapPerimeter, force.overlapPerimeter, lengthTolerance);
+        assertEquals(expectedForce.overlapArea, force.overlapArea, tolerance);
+
+        return Math.abs(expectedOverlap.overlapArea) > tolerance;
+    }
+
+    @Test
+    public void movableShapesAndWalls_sameAsWorldFrame() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        builder.addRectangleContour(0, 0, 1000, 1000, true);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 5; j++) {
+                builder.addRoundedRectangleContour(50 + i * 90, 50 + j * 190, 100 + i * 90, 180 + j * 190, 10, false);
+            }
+        }
+        GamePolyarcgon maze = builder.buildAndReset();
+        GamePolyarcgon windmill = builder.addRectangleContour(0, 0, 400, 40, true).addRectangleContour(180, -180, 220, 220, true).buildAndReset();
+        windmill.setPos(500, 500);
+
+        Random random = new Random(3);
+        int overlapping = 0;
+        for (int i = 0; i < 1000; i++) {
+            GamePolyarcgon movableShape = i % 3 == 0
+                    ? new GamePolyarcgonBuilder().addRoundedRectangleContour(0, 0, 60 + random.nextDouble() * 100, 40, 15, true).buildAndReset()
+                    : new GamePolyarcgonBuilder().addCircleContour(0, 0, 5 + random.nextDouble() * 40, true).buildAndReset();
+            movableShape.setPos(random.nextDouble() * 1100 - 50, random.nextDouble() * 1100 - 50);
+            movableShape.setRotation(random.nextDouble() * 7);
+            // a rotating wall, and one that's been moved
+            windmill.setRotation(random.nextDouble() * 7);
+            maze.setPos(500 + random.nextDouble() * 20, 500 + random.nextDouble() * 20);
+            GamePolyarcgon wall = i % 2 == 0 ? maze : windmill;
+            // a few moves so the wall frame caches are translated and updated
+            for (int j = 0; j < 3; j++) {
+                if (assertSameAsWorldFrame(movableShape, wall, random.nextBoolean(), random.nextBoolean())) {
+                    overlapping++;
+                }
+                movableShape.setPos(movableShape.x + random.nextDouble() * 4 - 2, movableShape.y + random.nextDouble() * 4 - 2);
+            }
+        }
+        assertTrue(overlapping > 1000);
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Checks shapes are drawn between their last two poses, and taking snapshots never changes the physics.
+ */
+public class GameShapePoseSnapshotTest {
+    @Test
+    public void halfway_betweenPreviousAndCurrentPose() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgon shape = new GamePolyarcgonBuilder().addRoundedRectangleContour(0, 0, 100, 40, 10, true).buildAndReset();
+        engine.addMovableShape(shape);
+        shape.setPos(200, 300);
+        shape.setRotation(1);
+        GameShapePoseSnapshot snapshot = new GameShapePoseSnapshot();
+        snapshot.rememberPreviousPoses(engine);
+        shape.setPos(210, 290);
+        shape.setRotation(1.2);
+        snapshot.rememberCurrentPoses(engine);
+        // moving it again after the snapshot doesn't change the snapshot
+        shape.setPos(0, 0);
+
+        assertEquals(1, snapshot.getShapeCount());
+        assertSame(shape, snapshot.getShape(0));
+        assertEquals(0, snapshot.indexOf(shape));
+        assertEquals(205, snapshot.getX(0, 0.5), 1e-9);
+        assertEquals(295, snapshot.getY(0, 0.5), 1e-9);
+        assertEquals(1.1, snapshot.getRotation(0, 0.5), 1e-9);
+        assertEquals(210, snapshot.getX(0, 1), 0);
+        assertEquals(290, snapshot.getY(0, 1), 0);
+        assertEquals(1.2, snapshot.getRotation(0, 1), 0);
+        assertEquals(200, snapshot.getX(0, -1), 0);
+    }
+
+    @Test
+    public void teleported_staysWhereItIsNow() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgon ball = new GamePolyarcgonBuilder().addCircleContour(100, 100, 20, true).buildAndReset();
+        engine.addMovableShape(ball);
+        GameShapePoseSnapshot snapshot = new GameShapePoseSnapshot();
+        snapshot.rememberPreviousPoses(engine);
+        ball.setPos(900, 1500);
+        snapshot.rememberCurrentPoses(engine);
+
+        assertEquals(900, snapshot.getX(0, 0.5), 0);
+        assertEquals(1500, snapshot.getY(0, 0.5), 0);
+    }
+
+    @Test
+    public void addedDuringTheTick_staysWhereItIsNow() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GamePolyarcgon oldBall = builder.addCircleContour(100, 100, 20, true).buildAndReset();
+        engine.addMovableShape(oldBall);
+        GameShapePoseSnapshot snapshot = new GameShapePoseSnapshot();
+        snapshot.rememberPreviousPoses(engine);
+        // like a new level starting
+        engine.removeAllShapes();
+        GamePolyarcgon newBall = builder.addCircleContour(105, 105, 20, true).buildAndReset();
+        engine.addMovableShape(newBall);
+        snapshot.rememberCurrentPoses(engine);
+
+        assertEquals(-1, snapshot.indexOf(oldBall));
+        assertEquals(newBall.getX(), snapshot.getX(0, 0.5), 0);
+    }
+
+    @Test
+    public void takingSnapshots_doesNotChangeThePhysics() {
+        long[] withoutSnapshots = simulate(false);
+        long[] withSnapshots = simulate(true);
+        for (int i = 0; i < withoutSnapshots.length; i++) {
+            assertEquals(withoutSnapshots[i], withSnapshots[i]);
+        }
+    }
+
+    /**
+     * @return the exact x, y and rotation of every movable shape after a ripple pushes them around,
+     * taking a snapshot of every tick and reading poses between ticks from it (as if drawing them) if takeSnapshots is true
+     */
+    private static long[] simulate(boolean takeSnapshots) {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        engine.addWall(builder.addRectangleContour(-200, -200, 1280, 2120, true).addRoundedRectangleContour(0, 0, 1080, 1920, 30, false).buildAndReset());
+        for (int i = 0; i < 12; i++) {
+            engine.addMovableShape(builder.addRoundedRectangleContour(100 + 70 * i, 900, 150 + 70 * i, 960, 10, true).buildAndReset());
+        }
+        GamePolyarcgon ripple = builder.addCircleContour(540, 1400, 600, true).buildAndReset();
+        engine.forceFields.add(GameForceField.pushAwayForceField(ripple, 540, 1400, GameForceField.PREFERRED_STRENGTH));
+        GameShapePoseSnapshot snapshot = new GameShapePoseSnapshot();
+        double total = 0;
+        for (int frame = 0; frame < 30; frame++) {
+            if (takeSnapshots) {
+                snapshot.rememberPreviousPoses(engine);
+            }
+            engine.update();
+            if (takeSnapshots) {
+                snapshot.rememberCurrentPoses(engine);
+                for (int i = 0; i < snapshot.getShapeCount(); i++) {
+                    total += snapshot.getX(i, 0.3) + snapshot.getY(i, 0.7) + snapshot.getRotation(i, 0.5);
+                }
+            }
+        }
+        assertFalse(Double.isNaN(total));
+        long[] result = new long[3 * engine.movableShapes.size()];
+        for (int i = 0; i < engine.movableShapes.size(); i++) {
+            GameShape shape = engine.movableShapes.get(i);
+            result[3 * i] = Double.doubleToLongBits(shape.getX());
+            result[3 * i + 1] = Double.doubleToLongBits(shape.getY());
+            result[3 * i + 2] = Double.doubleToLongBits(shape.getRotation());
+        }
+        return result;
+    }
+}
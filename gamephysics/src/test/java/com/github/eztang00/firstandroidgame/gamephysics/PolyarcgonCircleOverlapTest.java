@@ -0,0 +1,119 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the circle shortcuts give the same overlap as the general edge by edge code.
+ */
+public class PolyarcgonCircleOverlapTest {
+    /**
+     * Passes everything on to the calculator, but doesn't say it only needs totals so the general code is used.
+     */
+    static OverlapCalculator withoutShortcuts(OverlapCalculator calculator) {
+        return new OverlapCalculator() {
+            @Override
+            public void addLineSegmentToOverlap(double startX, double startY, double endX, double endY, int windingFactor, boolean lineSegmentIsFirstShape, GamePolyarcgon.PolyarcgonPointCache nextPoint, boolean isRealIntersection) {
+                calculator.addLineSegmentToOverlap(startX, startY, endX, endY, windingFactor, lineSegmentIsFirstShape, nextPoint, isRealIntersection);
+            }
+
+            @Override
+            public void addArcToOverlap(double radiusOfCurvature, double arcCenterX, double arcCenterY, double arcStartX, double arcStartY, double arcEndX, double arcEndY, double arcAngleChange, int windingFactor, boolean arcIsFirstShape, GamePolyarcgon.PolyarcgonPointCache nextPoint, boolean isRealIntersection) {
+                calculator.addArcToOverlap(radiusOfCurvature, arcCenterX, arcCenterY, arcStartX, arcStartY, arcEndX, arcEndY, arcAngleChange, windingFactor, arcIsFirstShape, nextPoint, isRealIntersection);
+            }
+        };
+    }
+
+    /**
+     * @return whether the shapes overlap at all
+     */
+    private static boolean assertSameAsWithoutShortcuts(GamePolyarcgon firstShape, GamePolyarcgon otherShape) {
+        double area = Math.min(Math.abs(firstShape.getArea()), Math.abs(otherShape.getArea()));
+        double tolerance = 0.000000001 * area;
+        // the integrals are bigger because the shapes are a few hundred pixels from 0, 0
+        double integralTolerance = tolerance * 1000;
+
+        OverlapAreaIntegralCalculator overlap = new OverlapAreaIntegralCalculator(firstShape, otherShape);
+        GamePolyarcgon.collision(firstShape, otherShape, overlap);
+        OverlapAreaIntegralCalculator expectedOverlap = new OverlapAreaIntegralCalculator(firstShape, otherShape);
+        GamePolyarcgon.collision(firstShape, otherShape, withoutShortcuts(expectedOverlap));
+        assertEquals(expectedOverlap.overlapArea, overlap.overlapArea, tolerance);
+        assertEquals(expectedOverlap.overlapXAreaIntegral, overlap.overlapXAreaIntegral, integralTolerance);
+        assertEquals(expectedOverlap.overlapYAreaIntegral, overlap.overlapYAreaIntegral, integralTolerance);
+        assertEquals(expectedOverlap.overlapXSqPlusYSqAreaIntegral, overlap.overlapXSqPlusYSqAreaIntegral, integralTolerance * 1000);
+
+        OverlapGradientForceCalculator force = new OverlapGradientForceCalculator(firstShape, otherShape);
+        GamePolyarcgon.collision(firstShape, otherShape, force);
+        OverlapGradientForceCalculator expectedForce = new OverlapGradientForceCalculator(firstShape, otherShape);
+        GamePolyarcgon.collision(firstShape, otherShape, withoutShortcuts(expectedForce));
+        double lengthTolerance = Math.sqrt(tolerance);
+        assertEquals(expectedForce.overlapGradientForceX, force.overlapGradientForceX, lengthTolerance);
+        assertEquals(expectedForce.overlapGradientForceY, force.overlapGradientForceY, lengthTolerance);
+        assertEquals(expectedForce.overlapGradientTorqueOnFirstShape, force.overlapGradientTorqueOnFirstShape, lengthTolerance * 1000);
+        assertEquals(expectedForce.overlapGradientTorqueOnOtherShape, force.overlapGradientTorqueOnOtherShape, lengthTolerance * 1000);
+        assertEquals(expectedForce.overlapPerimeter, force.overlapPerimeter, lengthTolerance);
+        assertEquals(expectedForce.overlapArea, force.overlapArea, tolerance);
+
+        return Math.abs(expectedOverlap.overlapArea) > tolerance;
+    }
+
+    @Test
+    public void circlesAreDetected() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        assertTrue(builder.addCircleContour(10, 20, 30, true).buildAndReset().geometryCache.get().circleEdge >= 0);
+        assertEquals(-1, builder.addCircleContour(10, 20, 30, false).buildAndReset().geometryCache.get().circleWindingFactor);
+        assertEquals(-1, builder.addRoundedRectangleContour(0, 0, 60, 60, 30, true).buildAndReset().geometryCache.get().circleEdge);
+        assertEquals(-1, builder.addCircleContour(0, 0, 30, true).addCircleContour(0, 0, 20, false).buildAndReset().geometryCache.get().circleEdge);
+    }
+
+    @Test
+    public void twoCircles_sameAsWithoutShortcuts() {
+        Random random = new Random(1);
+        int overlapping = 0;
+        for (int i = 0; i < 2000; i++) {
+            GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+            // some holes too, and sometimes one circle completely inside the other
+            GamePolyarcgon circle = builder.addCircleContour(random.nextDouble() * 100, random.nextDouble() * 100, 1 + random.nextDouble() * 50, random.nextDouble() < 0.8).buildAndReset();
+            GamePolyarcgon otherCircle = builder.addCircleContour(random.nextDouble() * 100, random.nextDouble() * 100, 1 + random.nextDouble() * 50, random.nextDouble() < 0.8).buildAndReset();
+            circle.setRotation(random.nextDouble() * 7);
+            if (assertSameAsWithoutShortcuts(circle, otherCircle)) {
+                overlapping++;
+            }
+        }
+        assertTrue(overlapping > 1000);
+    }
+
+    @Test
+    public void circleAndMaze_sameAsWithoutShortcuts() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        builder.addRectangleContour(0, 0, 1000, 1000, true);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 5; j++) {
+                builder.addRoundedRectangleContour(50 + i * 90, 50 + j * 190, 100 + i * 90, 180 + j * 190, 10, false);
+            }
+        }
+        builder.addCircleContour(500, 500, 30, false);
+        GamePolyarcgon maze = builder.buildAndReset();
+        GamePolyarcgon blob = new GamePolyarcgonBuilder().addRoundedRectangleContour(0, 0, 200, 120, 40, true).addCircleContour(100, 60, 20, false).buildAndReset();
+
+        Random random = new Random(2);
+        int overlapping = 0;
+        for (int i = 0; i < 2000; i++) {
+            GamePolyarcgon ball = new GamePolyarcgonBuilder().addCircleContour(0, 0, 5 + random.nextDouble() * 40, true).buildAndReset();
+            // inside, outside, on the edge of and completely outside the maze
+            ball.setPos(random.nextDouble() * 1100 - 50, random.nextDouble() * 1100 - 50);
+            blob.setPos(random.nextDouble() * 1000, random.nextDouble() * 1000);
+            blob.setRotation(random.nextDouble() * 7);
+            GamePolyarcgon otherShape = i % 2 == 0 ? maze : blob;
+            if (assertSameAsWithoutShortcuts(ball, otherShape)) {
+                overlapping++;
+            }
+            assertSameAsWithoutShortcuts(otherShape, ball);
+        }
+        assertTrue(overlapping > 500);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks reusing edge pairs from earlier collisions gives exactly the same overlap as searching again.
+ */
+public class PolyarcgonEdgePairCacheTest {
+    private static GamePolyarcgon buildMaze() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        builder.addRectangleContour(0, 0, 1000, 1000, true);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 5; j++) {
+                builder.addRoundedRectangleContour(50 + i * 90, 50 + j * 190, 100 + i * 90, 180 + j * 190, 10, false);
+            }
+        }
+        return builder.buildAndReset();
+    }
+
+    private static GamePolyarcgon buildBall() {
+        return new GamePolyarcgonBuilder().addCircleContour(0, 0, 30, true).addRectangleContour(-10, -40, 10, 40, true).buildAndReset();
+    }
+
+    @Test
+    public void movingBall_sameOverlapAsWithoutCache() {
+        GamePolyarcgon maze = buildMaze();
+        GamePolyarcgon ball = buildBall();
+        int overlappingSteps = 0;
+        for (int step = 0; step < 300; step++) {
+            // mostly small movements which reuse the cache, with the odd big jump which doesn't
+            double jump = step % 37 == 0 ? 20 : 1;
+            ball.setPos(120 + 40 * Math.sin(step * 0.05) + jump, 100 + step * 0.5);
+            ball.setRotation(step * 0.003 * jump);
+
+            GamePolyarcgon ballWithoutCache = buildBall();
+            ballWithoutCache.setPos(ball.getX(), ball.getY());
+            ballWithoutCache.setRotation(ball.getRotation());
+
+            OverlapAreaIntegralCalculator overlap = new OverlapAreaIntegralCalculator(ball, maze);
+            GamePolyarcgon.collision(ball, maze, overlap);
+            OverlapAreaIntegralCalculator overlapWithoutCache = new OverlapAreaIntegralCalculator(ballWithoutCache, maze);
+            GamePolyarcgon.collision(ballWithoutCache, maze, overlapWithoutCache);
+
+            assertEquals(overlapWithoutCache.overlapArea, overlap.overlapArea, 0);
+            assertEquals(overlapWithoutCache.overlapXAreaIntegral, overlap.overlapXAreaIntegral, 0);
+            assertEquals(overlapWithoutCache.overlapYAreaIntegral, overlap.overlapYAreaIntegral, 0);
+            assertEquals(overlapWithoutCache.overlapXSqPlusYSqAreaIntegral, overlap.overlapXSqPlusYSqAreaIntegral, 0);
+            if (overlap.overlapArea > 0) {
+                overlappingSteps++;
+            }
+        }
+        assertTrue(overlappingSteps > 0);
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks searching the edge trees finds every pair of edges that adds something to the overlap, the same as going through
+ * every pair, and that after moving and rotating the tree's boxes still give the same answers as looking at every edge.
+ */
+public class PolyarcgonEdgeTreeTest {
+    private static GamePolyarcgon buildMaze(Random random) {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        builder.addRectangleContour(0, 0, 600, 600, true);
+        for (int i = 0; i < 12; i++) {
+            double x = 30 + random.nextDouble() * 500;
+            double y = 30 + random.nextDouble() * 500;
+            if (random.nextBoolean()) {
+                builder.addRoundedRectangleContour(x, y, x + 10 + random.nextDouble() * 50, y + 10 + random.nextDouble() * 50, 5, false);
+            } else {
+                builder.addCircleContour(x, y, 5 + random.nextDouble() * 20, false);
+            }
+        }
+        return builder.buildAndReset();
+    }
+
+    private static GamePolyarcgon buildPaddle() {
+        return new GamePolyarcgonBuilder().addRoundedRectangleContour(-60, -12, 60, 12, 8, true).addCircleContour(60, 0, 20, true).buildAndReset();
+    }
+
+    @Test
+    public void edgePairs_includeEveryPairThatAddsToTheOverlap() {
+        Random random = new Random(11);
+        int overlappingPoses = 0;
+        for (int maze = 0; maze < 5; maze++) {
+            GamePolyarcgon wall = buildMaze(random);
+            GamePolyarcgon paddle = buildPaddle();
+            PolyarcgonEdgeTree.EdgePairSearch search = new PolyarcgonEdgeTree.EdgePairSearch();
+            for (int pose = 0; pose < 40; pose++) {
+                paddle.setPos(-50 + random.nextDouble() * 700, -50 + random.nextDouble() * 700);
+                paddle.setRotation(random.nextDouble() * 2 * Math.PI);
+                PolyarcgonGeometry geometry = paddle.geometryCache.get();
+                PolyarcgonGeometry wallGeometry = wall.geometryCache.get();
+                for (double margin : new double[]{0, PolyarcgonEdgePairCache.MARGIN}) {
+                    search.findEdgePairs(geometry, paddle.edgeTreeCache.get(), wallGeometry, wall.edgeTreeCache.get(), margin);
+                    int[] edgePairs = Arrays.copyOf(search.edgePairs, search.edgePairCount);
+                    for (int i = 1; i < edgePairs.length; i++) {
+                        assertTrue(edgePairs[i] > edgePairs[i - 1]);
+                    }
+
+                    // the old way, every pair of edges
+                    OverlapAreaIntegralCalculator everyPair = new OverlapAreaIntegralCalculator(paddle, wall);
+                    OverlapAreaIntegralCalculator foundPairs = new OverlapAreaIntegralCalculator(paddle, wall);
+                    for (int edge = 0; edge < geometry.pointCount; edge++) {
+                        for (int wallEdge = 0; wallEdge < wallGeometry.pointCount; wallEdge++) {
+                            if (geometry.edgeKinds[edge] == PolyarcgonGeometry.NO_EDGE || wallGeometry.edgeKinds[wallEdge] == PolyarcgonGeometry.NO_EDGE) {
+                                continue;
+                            }
+                            OverlapAreaIntegralCalculator pair = new OverlapAreaIntegralCalculator(paddle, wall);
+                            addEdgePair(pair, geometry, edge, wallGeometry, wallEdge);
+                            addEdgePair(everyPair, geometry, edge, wallGeometry, wallEdge);
+                            boolean found = Arrays.binarySearch(edgePairs, edge * wallGeometry.pointCount + wallEdge) >= 0;
+                            if (found) {
+                                addEdgePair(foundPairs, geometry, edge, wallGeometry, wallEdge);
+                            } else {
+                                assertTrue("edges " + edge + " and " + wallEdge + " add to the overlap but weren't found",
+                                        pair.overlapArea == 0 && pair.overlapXAreaIntegral == 0 && pair.overlapYAreaIntegral == 0 && pair.overlapXSqPlusYSqAreaIntegral == 0);
+                            }
+                        }
+                    }
+                    assertEquals(everyPair.overlapArea, foundPairs.overlapArea, 0);
+                    assertEquals(everyPair.overlapXAreaIntegral, foundPairs.overlapXAreaIntegral, 0);
+                    assertEquals(everyPair.overlapYAreaIntegral, foundPairs.overlapYAreaIntegral, 0);
+                    assertEquals(everyPair.overlapXSqPlusYSqAreaIntegral, foundPairs.overlapXSqPlusYSqAreaIntegral, 0);
+                    if (margin == 0 && everyPair.overlapArea != 0) {
+                        overlappingPoses++;
+                    }
+                }
+            }
+        }
+        // the paddle should be sticking into the maze's walls in plenty of them
+        assertTrue(overlappingPoses > 20);
+    }
+
+    @Test
+    public void refitAfterMoving_sameAsEveryEdge() {
+        Random random = new Random(5);
+        GamePolyarcgon maze = buildMaze(random);
+        int[] edges = new int[maze.geometryCache.get().pointCount];
+        for (int move = 0; move < 60; move++) {
+            // pure moves translate the boxes, rotations refit them
+            if (move % 3 == 0) {
+                maze.setRotation(random.nextDouble() * 2 * Math.PI);
+            }
+            maze.setPos(maze.getX() + random.nextDouble() * 40 - 20, maze.getY() + random.nextDouble() * 40 - 20);
+            PolyarcgonGeometry geometry = maze.geometryCache.get();
+            PolyarcgonEdgeTree edgeTree = maze.edgeTreeCache.get();
+            for (int query = 0; query < 20; query++) {
+                double x = maze.getX() + random.nextDouble() * 1000 - 500;
+                double y = maze.getY() + random.nextDouble() * 1000 - 500;
+                double maxDistance = random.nextDouble() * 100;
+
+                double nearestEdge = maxDistance;
+                int windingNumber = 0;
+                boolean someEdgeWithinMaxDistance = false;
+                for (int edge = 0; edge < geometry.pointCount; edge++) {
+                    if (geometry.edgeKinds[edge] == PolyarcgonGeometry.NO_EDGE) {
+                        continue;
+                    }
+                    nearestEdge = Math.min(nearestEdge, geometry.edgeDistance(edge, x, y));
+                    windingNumber += geometry.signedRayCrossings(edge, x, y);
+                    someEdgeWithinMaxDistance |= geometry.edgeComesWithinDistance(edge, x, y, maxDistance);
+                }
+                assertEquals(nearestEdge, edgeTree.distanceToNearestEdge(geometry, x, y, maxDistance), 0);
+                assertEquals(windingNumber, edgeTree.windingNumberAround(geometry, x, y));
+                assertEquals(someEdgeWithinMaxDistance, edgeTree.someEdgeComesWithinDistance(geometry, x, y, maxDistance));
+
+                // every edge whose box (worked out again from scratch) touches the query box
+                PolyarcgonEdgeTree freshTree = new PolyarcgonEdgeTree(geometry);
+                int edgeCount = edgeTree.findEdgesTouchingBox(x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance, edges);
+                int[] found = Arrays.copyOf(edges, edgeCount);
+                Arrays.sort(found);
+                int expectedCount = 0;
+                for (int edge = 0; edge < geometry.pointCount; edge++) {
+                    if (geometry.edgeKinds[edge] != PolyarcgonGeometry.NO_EDGE && freshTree.edgeMinX[edge] <= x + maxDistance && freshTree.edgeMaxX[edge] >= x - maxDistance
+                            && freshTree.edgeMinY[edge] <= y + maxDistance && freshTree.edgeMaxY[edge] >= y - maxDistance) {
+                        assertTrue("edge " + edge + " touches the box but wasn't found", Arrays.binarySearch(found, edge) >= 0);
+                        expectedCount++;
+                    }
+                }
+                assertEquals(expectedCount, edgeCount);
+            }
+        }
+    }
+
+    private static void addEdgePair(OverlapCalculator handler, PolyarcgonGeometry geometry, int edge, PolyarcgonGeometry otherGeometry, int otherEdge) {
+        int lastPoint = geometry.previousPoint(edge);
+        int otherLastPoint = otherGeometry.previousPoint(otherEdge);
+        if (geometry.edgeKinds[edge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+            if (otherGeometry.edgeKinds[otherEdge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                GamePolyarcgon.addPotentialLineSegmentIntersectionWithLineSegmentToOverlap(handler, geometry, lastPoint, edge, otherGeometry, otherLastPoint, otherEdge);
+            } else {
+                GamePolyarcgon.addPotentialLineSegmentIntersectionWithArcToOverlap(handler, geometry, lastPoint, edge, otherGeometry, otherLastPoint, otherEdge, true);
+            }
+        } else {
+            if (otherGeometry.edgeKinds[otherEdge] == PolyarcgonGeometry.STRAIGHT_EDGE) {
+                GamePolyarcgon.addPotentialLineSegmentIntersectionWithArcToOverlap(handler, otherGeometry, otherLastPoint, otherEdge, geometry, lastPoint, edge, false);
+            } else {
+                GamePolyarcgon.addPotentialArcIntersectionWithArcToOverlap(handler, geometry, lastPoint, edge, otherGeometry, otherLastPoint, otherEdge);
+            }
+        }
+    }
+}
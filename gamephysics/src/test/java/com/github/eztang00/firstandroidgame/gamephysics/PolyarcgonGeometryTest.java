@@ -0,0 +1,82 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Checks the PolyarcgonPointCache objects still match the packed arrays after a shape moves,
+ * and that only translating the arrays gives the same thing as working them out from scratch.
+ */
+public class PolyarcgonGeometryTest {
+    @Test
+    public void pointsCache_matchesGeometryAfterMoving() {
+        GamePolyarcgon shape = new GamePolyarcgonBuilder()
+                .addRoundedRectangleContour(0, 0, 100, 60, 15, true)
+                .addCircleContour(50, 30, 10, false)
+                .buildAndReset();
+        shape.setPos(321, 123);
+        shape.setRotation(0.7);
+
+        GamePolyarcgon.PolyarcgonPointCache[] points = shape.pointsCache.get();
+        PolyarcgonGeometry geometry = shape.geometryCache.get();
+        assertEquals(points.length, geometry.pointCount);
+        for (int i = 0; i < points.length; i++) {
+            assertSame(points[i], geometry.pointCaches[i]);
+            assertEquals(geometry.xs[i], points[i].getX(), 0);
+            assertEquals(geometry.ys[i], points[i].getY(), 0);
+            if (points[i].getNonCachePoint().isMoveToWithoutLineEtc) {
+                assertEquals(PolyarcgonGeometry.NO_EDGE, geometry.edgeKinds[i]);
+            } else if (points[i] instanceof GamePolyarcgon.PolyarcgonArcedPointCache) {
+                GamePolyarcgon.PolyarcgonArcedPointCache arc = (GamePolyarcgon.PolyarcgonArcedPointCache) points[i];
+                assertEquals(PolyarcgonGeometry.ARC_EDGE, geometry.edgeKinds[i]);
+                assertEquals(geometry.arcCenterXs[i], arc.arcCenterX, 0);
+                assertEquals(geometry.arcCenterYs[i], arc.arcCenterY, 0);
+                assertEquals(geometry.radiiOfCurvature[i], arc.radiusOfCurvature, 0);
+                assertEquals(geometry.startAngles[i], arc.startAngle, 0);
+            } else {
+                GamePolyarcgon.PolyarcgonStraightPointCache straightPoint = (GamePolyarcgon.PolyarcgonStraightPointCache) points[i];
+                assertEquals(PolyarcgonGeometry.STRAIGHT_EDGE, geometry.edgeKinds[i]);
+                assertEquals(geometry.pointToPointXs[i], straightPoint.pointToPointX, 0);
+                assertEquals(geometry.pointToPointYs[i], straightPoint.pointToPointY, 0);
+            }
+        }
+    }
+
+    @Test
+    public void translatedGeometry_matchesUpdatedGeometry() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GamePolyarcgon shape = builder.addRoundedRectangleContour(0, 0, 100, 60, 15, true).addCircleContour(50, 30, 10, false).buildAndReset();
+        GamePolyarcgon sameShape = builder.addRoundedRectangleContour(0, 0, 100, 60, 15, true).addCircleContour(50, 30, 10, false).buildAndReset();
+        shape.setRotation(0.7);
+        sameShape.setRotation(0.7);
+        // more moves than MAX_CACHE_TRANSLATIONS_BETWEEN_UPDATES so it also works it out from scratch on the way
+        for (int i = 0; i < 300; i++) {
+            shape.setPos(shape.x + 1.37, shape.y - 0.61);
+            shape.updateCollisionCaches();
+        }
+        sameShape.setPos(shape.x, shape.y);
+
+        PolyarcgonGeometry geometry = shape.geometryCache.get();
+        PolyarcgonGeometry expectedGeometry = sameShape.geometryCache.get();
+        double tolerance = 0.000000001;
+        for (int i = 0; i < geometry.pointCount; i++) {
+            assertEquals(expectedGeometry.xs[i], geometry.xs[i], tolerance);
+            assertEquals(expectedGeometry.ys[i], geometry.ys[i], tolerance);
+            assertEquals(expectedGeometry.pointToPointXs[i], geometry.pointToPointXs[i], tolerance);
+            assertEquals(expectedGeometry.pointToPointYs[i], geometry.pointToPointYs[i], tolerance);
+            assertEquals(expectedGeometry.arcCenterXs[i], geometry.arcCenterXs[i], tolerance);
+            assertEquals(expectedGeometry.arcCenterYs[i], geometry.arcCenterYs[i], tolerance);
+            assertEquals(expectedGeometry.startAngles[i], geometry.startAngles[i], tolerance);
+        }
+        PolyarcgonEdgeTree edgeTree = shape.edgeTreeCache.get();
+        PolyarcgonEdgeTree expectedEdgeTree = sameShape.edgeTreeCache.get();
+        for (int i = 0; i < geometry.pointCount; i++) {
+            if (geometry.edgeKinds[i] != PolyarcgonGeometry.NO_EDGE) {
+                assertEquals(expectedEdgeTree.edgeMinX[i], edgeTree.edgeMinX[i], tolerance);
+                assertEquals(expectedEdgeTree.edgeMaxY[i], edgeTree.edgeMaxY[i], tolerance);
+            }
+        }
+    }
+}
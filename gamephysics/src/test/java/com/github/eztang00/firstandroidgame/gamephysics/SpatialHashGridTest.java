@@ -0,0 +1,174 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the grid finds every pair of shapes whose bounding boxes touch, the same as testing every pair,
+ * including shapes across several cells, at negative coordinates and too big for the grid,
+ * and that looking in a box finds every shape touching it.
+ */
+public class SpatialHashGridTest {
+    private static final double CELL_SIZE = 50;
+
+    @Test
+    public void randomShapes_findEveryPairBruteForceFinds() {
+        Random random = new Random(3);
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GameShape[] shapes = new GameShape[200];
+        for (int i = 0; i < shapes.length; i++) {
+            double radius;
+            if (i % 50 == 0) {
+                // more cells than MAX_CELLS_PER_SHAPE
+                radius = 500 + random.nextDouble() * 5000;
+            } else if (i % 5 == 0) {
+                // across a few cells
+                radius = CELL_SIZE * (0.6 + random.nextDouble());
+            } else {
+                radius = 2 + random.nextDouble() * 20;
+            }
+            // centered on 0 so about half are at negative coordinates
+            shapes[i] = builder.addCircleContour(random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000, radius, true).buildAndReset();
+        }
+        SpatialHashGrid grid = new SpatialHashGrid();
+        grid.rebuild(shapes, shapes.length, CELL_SIZE);
+        assertSameAsBruteForce(grid, shapes);
+
+        // move some a little (usually the same cells) and some a long way, including from large to small and back
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < shapes.length; i++) {
+                GameShape shape = shapes[i];
+                double distance = random.nextInt(4) == 0 ? 800 : 3;
+                shape.setPos(shape.getX() + (random.nextDouble() - 0.5) * distance, shape.getY() + (random.nextDouble() - 0.5) * distance);
+                grid.updateShape(i);
+            }
+            assertSameAsBruteForce(grid, shapes);
+        }
+    }
+
+    @Test
+    public void boxes_findEveryShapeTouchingThemOnce() {
+        Random random = new Random(6);
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GameShape[] shapes = new GameShape[150];
+        for (int i = 0; i < shapes.length; i++) {
+            double radius = i % 50 == 0 ? 2000 : i % 5 == 0 ? CELL_SIZE * (0.6 + random.nextDouble()) : 2 + random.nextDouble() * 20;
+            shapes[i] = builder.addCircleContour(random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000, radius, true).buildAndReset();
+        }
+        SpatialHashGrid grid = new SpatialHashGrid();
+        grid.rebuild(shapes, shapes.length, CELL_SIZE);
+        int[] found = new int[shapes.length];
+        for (int query = 0; query < 300; query++) {
+            double x = random.nextDouble() * 2400 - 1200;
+            double y = random.nextDouble() * 2400 - 1200;
+            // mostly a few cells, sometimes so many it's quicker to give every shape
+            double reach = query % 10 == 0 ? 3000 : random.nextDouble() * 2 * CELL_SIZE;
+            int foundCount = grid.findShapesTouchingBox(x - reach, y - reach, x + reach, y + reach, found);
+            boolean[] isFound = new boolean[shapes.length];
+            for (int i = 0; i < foundCount; i++) {
+                assertTrue("shape " + found[i] + " was found twice", !isFound[found[i]]);
+                isFound[found[i]] = true;
+            }
+            for (int i = 0; i < shapes.length; i++) {
+                double radii = reach + shapes[i].getBoundingRadius();
+                if (Math.abs(shapes[i].getX() - x) <= radii && Math.abs(shapes[i].getY() - y) <= radii) {
+                    assertTrue("shape " + i + " touches the box but wasn't found", isFound[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fewShapesAcrossManyCells_eachFoundOnce() {
+        // so few shapes the hash table is small, and some of a shape's cells end up in the same bucket
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GameShape[] shapes = {
+                builder.addCircleContour(0, 0, CELL_SIZE * 1.9, true).buildAndReset(),
+                builder.addCircleContour(137, -61, CELL_SIZE * 1.9, true).buildAndReset(),
+        };
+        SpatialHashGrid grid = new SpatialHashGrid();
+        grid.rebuild(shapes, shapes.length, CELL_SIZE);
+        int[] found = new int[shapes.length];
+        for (double x = -300; x <= 300; x += 17) {
+            for (double y = -300; y <= 300; y += 23) {
+                int foundCount = grid.findShapesTouchingBox(x - CELL_SIZE, y - CELL_SIZE, x + CELL_SIZE, y + CELL_SIZE, found);
+                if (foundCount == 2) {
+                    assertTrue(found[0] != found[1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shapeFarAway_stillFoundByLargeShapes() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GameShape[] shapes = {
+                builder.addCircleContour(-1e9, -1e9, 10, true).buildAndReset(),
+                builder.addCircleContour(0, 0, 1e6, true).buildAndReset(),
+                builder.addCircleContour(-1e9 + 15, -1e9, 10, true).buildAndReset(),
+        };
+        SpatialHashGrid grid = new SpatialHashGrid();
+        grid.rebuild(shapes, shapes.length, CELL_SIZE);
+        assertSameAsBruteForce(grid, shapes);
+        int[] candidates = new int[shapes.length];
+        assertEquals(2, grid.findCandidates(0, candidates));
+        assertEquals(1, candidates[0]);
+        assertEquals(2, candidates[1]);
+    }
+
+    @Test
+    public void candidatesArrayTooSmall_returnsMinusOne() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        GameShape[] shapes = new GameShape[4];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = builder.addCircleContour(i, 0, 10, true).buildAndReset();
+        }
+        SpatialHashGrid grid = new SpatialHashGrid();
+        grid.rebuild(shapes, shapes.length, CELL_SIZE);
+        assertEquals(-1, grid.findCandidates(0, new int[2]));
+        assertEquals(3, grid.findCandidates(0, new int[3]));
+    }
+
+    /**
+     * Every pair whose bounding boxes touch has to be a candidate both ways round. The grid can give more
+     * (e.g. different cells in the same hash bucket), but those have to be both ways round too.
+     */
+    private static void assertSameAsBruteForce(SpatialHashGrid grid, GameShape[] shapes) {
+        int[] candidates = new int[shapes.length];
+        boolean[][] isCandidate = new boolean[shapes.length][shapes.length];
+        for (int i = 0; i < shapes.length; i++) {
+            int candidateCount = grid.findCandidates(i, candidates);
+            assertTrue(candidateCount >= 0);
+            for (int c = 0; c < candidateCount; c++) {
+                assertTrue("shape " + i + " is its own candidate", candidates[c] != i);
+                if (c > 0) {
+                    assertTrue("candidates of shape " + i + " aren't in increasing order", candidates[c] > candidates[c - 1]);
+                }
+                isCandidate[i][candidates[c]] = true;
+            }
+        }
+        int touchingPairs = 0;
+        for (int i = 0; i < shapes.length; i++) {
+            for (int j = 0; j < shapes.length; j++) {
+                if (i == j) {
+                    continue;
+                }
+                assertEquals(isCandidate[i][j], isCandidate[j][i]);
+                if (boundingBoxesTouch(shapes[i], shapes[j])) {
+                    touchingPairs++;
+                    assertTrue("shapes " + i + " and " + j + " touch but aren't candidates", isCandidate[i][j]);
+                }
+            }
+        }
+        assertTrue(touchingPairs > 0);
+    }
+
+    private static boolean boundingBoxesTouch(GameShape shape, GameShape otherShape) {
+        double radii = shape.getBoundingRadius() + otherShape.getBoundingRadius();
+        return Math.abs(shape.getX() - otherShape.getX()) <= radii && Math.abs(shape.getY() - otherShape.getY()) <= radii;
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.eztang00.firstandroidgame.gamephysics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Checks circles colliding with walls through a WallDistanceField get the same overlap as the normal collision code.
+ */
+public class WallDistanceFieldTest {
+    private static GamePolyarcgon[] makeWalls() {
+        GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+        builder.addRectangleContour(0, 0, 1000, 1000, true);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 3; j++) {
+                builder.addRoundedRectangleContour(50 + i * 190, 50 + j * 310, 150 + i * 190, 300 + j * 310, 10, false);
+                builder.addRectangleContour(180 + i * 190, 50 + j * 310, 195 + i * 190, 300 + j * 310, false);
+            }
+        }
+        GamePolyarcgon maze = builder.buildAndReset();
+        // a rotated wall in the middle of a corridor
+        GamePolyarcgon rotatedWall = builder.addRectangleContour(0, 0, 300, 20, true).buildAndReset();
+        rotatedWall.setPos(500, 1100);
+        rotatedWall.setRotation(0.3);
+        return new GamePolyarcgon[] {maze, rotatedWall};
+    }
+
+    private static WallDistanceField buildField(GamePolyarcgon[] walls, double cellSize, long maxMemoryBytes) {
+        double[] xs = new double[walls.length];
+        double[] ys = new double[walls.length];
+        double[] rotations = new double[walls.length];
+        for (int i = 0; i < walls.length; i++) {
+            xs[i] = walls[i].x;
+            ys[i] = walls[i].y;
+            rotations[i] = walls[i].rotationRadians;
+        }
+        return WallDistanceField.build(walls, xs, ys, rotations, cellSize, maxMemoryBytes);
+    }
+
+    @Test
+    public void circlesNearWalls_sameAsNormalCollision() {
+        GamePolyarcgon[] walls = makeWalls();
+        WallDistanceField field = buildField(walls, 4, 64 * 1024 * 1024);
+        assertNotNull(field);
+        assertEquals(4, field.cellSize, 0);
+
+        Random random = new Random(5);
+        int answered = 0;
+        int touching = 0;
+        for (int i = 0; i < 3000; i++) {
+            double radius = 5 + random.nextDouble() * 40;
+            GamePolyarcgon circle = new GamePolyarcgonBuilder().addCircleContour(0, 0, radius, true).buildAndReset();
+            circle.setPos(random.nextDouble() * 1100 - 50, random.nextDouble() * 1300 - 50);
+            PolyarcgonGeometry geometry = circle.geometryCache.get();
+            int line = field.findTouchingLine(circle.x, circle.y, radius);
+            if (line == WallDistanceField.CANT_TELL) {
+                continue;
+            }
+            answered++;
+            double tolerance = 0.000000001 * radius * radius;
+            for (GamePolyarcgon wall : walls) {
+                OverlapGradientForceCalculator expected = new OverlapGradientForceCalculator(circle, wall);
+                circle.collision(wall, true, false, true, expected);
+                OverlapGradientForceCalculator overlap = new OverlapGradientForceCalculator(circle, wall);
+                if (line >= 0 && field.getWall(line) == wall) {
+                    field.addOverlap(overlap, line, geometry);
+                    touching++;
+                }
+                assertEquals(expected.overlapArea, overlap.overlapArea, tolerance);
+                assertEquals(expected.overlapPerimeter, overlap.overlapPerimeter, Math.sqrt(tolerance));
+                assertEquals(expected.overlapGradientForceX, overlap.overlapGradientForceX, Math.sqrt(tolerance));
+                assertEquals(expected.overlapGradientForceY, overlap.overlapGradientForceY, Math.sqrt(tolerance));
+                assertEquals(expected.overlapGradientTorqueOnFirstShape, overlap.overlapGradientTorqueOnFirstShape, Math.sqrt(tolerance) * radius);
+            }
+        }
+        // corners and rounded corners are left to the normal collision code, but most places aren't near one
+        assertTrue(answered > 1500);
+        assertTrue(touching > 200);
+    }
+
+    @Test
+    public void notEnoughMemory_biggerCells() {
+        GamePolyarcgon[] walls = makeWalls();
+        WallDistanceField field = buildField(walls, 4, 256 * 1024);
+        assertNotNull(field);
+        assertTrue(field.cellSize > 4);
+        assertTrue(field.memoryBytes <= 256 * 1024);
+        assertNull(buildField(walls, 4, 1024));
+    }
+
+    @Test
+    public void ballPushedIntoWall_sameAsWithoutField() {
+        GamePhysicsEngine engine = new GamePhysicsEngine();
+        GamePhysicsEngine engineWithField = new GamePhysicsEngine();
+        engineWithField.enableWallDistanceField(4, 64 * 1024 * 1024);
+        GamePolyarcgon ball = null;
+        GamePolyarcgon ballWithField = null;
+        for (GamePhysicsEngine e : new GamePhysicsEngine[] {engine, engineWithField}) {
+            GamePolyarcgonBuilder builder = new GamePolyarcgonBuilder();
+            GamePolyarcgon b = builder.addCircleContour(520, 500, 40, true).buildAndReset();
+            e.addMovableShape(b);
+            e.addWall(builder.addRectangleContour(540, 200, 600, 800, true).buildAndReset());
+            // pushes the ball into the wall
+            e.forceFields.add(GameForceField.simplePushAwayForceField(new GameExpandingCircle(300, 500, 300, 0, null), GameForceField.PREFERRED_STRENGTH));
+            if (e == engine) {
+                ball = b;
+            } else {
+                ballWithField = b;
+            }
+        }
+        engineWithField.waitForWallDistanceField();
+        for (int frame = 0; frame < 30; frame++) {
+            engine.update();
+            engineWithField.update();
+            assertNotNull(engineWithField.wallDistanceField);
+            assertEquals(ball.getX(), ballWithField.getX(), 0.000001);
+            assertEquals(ball.getY(), ballWithField.getY(), 0.000001);
+        }
+        assertTrue(ball.getX() < 520);
+
+        // removeAllShapes() lets the field go
+        engineWithField.removeAllShapes();
+        assertNull(engineWithField.wallDistanceField);
+    }
+}